@@ -0,0 +1,43 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.jsr107;
+
+import java.util.Map;
+
+/**
+ * Latency percentiles of the operations of a cache and of each of its tiers.
+ * <P>
+ *   Registered alongside the {@link javax.cache.management.CacheStatisticsMXBean} of a cache whenever statistics are
+ *   enabled. Latencies are keyed by {@code <tier>.<operation>.<outcome>}, the tier being {@code cache} for the cache
+ *   itself, and are recorded from the time statistics are enabled or from the last {@link #resetLatencies() reset}.
+ * </P>
+ */
+public interface CacheLatencyStatisticsMXBean {
+
+  /**
+   * Returns the latencies recorded since statistics got enabled or since the last reset.
+   *
+   * @return the latency percentiles, by {@code <tier>.<operation>.<outcome>}
+   */
+  Map<String, LatencyPercentiles> getLatencies();
+
+  /**
+   * Returns the latencies recorded since statistics got enabled or since the last reset, and starts a new interval.
+   *
+   * @return the latency percentiles of the interval just ended, by {@code <tier>.<operation>.<outcome>}
+   */
+  Map<String, LatencyPercentiles> resetLatencies();
+}
@@ -30,15 +30,24 @@ import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.spi.loaderwriter.CacheLoadingException;
 import org.ehcache.spi.loaderwriter.CacheWritingException;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.cache.Cache;
+import javax.cache.CacheException;
 import javax.cache.CacheManager;
 import javax.cache.configuration.CacheEntryListenerConfiguration;
 import javax.cache.configuration.Configuration;
@@ -49,6 +58,8 @@ import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.EntryProcessorException;
 import javax.cache.processor.EntryProcessorResult;
 
+import static org.ehcache.impl.internal.executor.ExecutorUtil.waitFor;
+
 /**
  * @author teck
  */
@@ -62,6 +73,7 @@ class Eh107Cache<K, V> implements Cache<K, V> {
   private final CacheResources<K, V> cacheResources;
   private final Eh107CacheMXBean managementBean;
   private final Eh107CacheStatisticsMXBean statisticsBean;
+  private final Eh107CacheLatencyStatisticsMXBean latencyStatisticsBean;
   private final Eh107Configuration<K, V> config;
   private final CacheLoaderWriter<? super K, V> cacheLoaderWriter;
 
@@ -75,6 +87,7 @@ class Eh107Cache<K, V> implements Cache<K, V> {
     this.cacheResources = cacheResources;
     this.managementBean = new Eh107CacheMXBean(name, cacheManager, config);
     this.statisticsBean = new Eh107CacheStatisticsMXBean(name, cacheManager, ehCache);
+    this.latencyStatisticsBean = new Eh107CacheLatencyStatisticsMXBean(name, cacheManager, ehCache);
 
     for (Map.Entry<CacheEntryListenerConfiguration<K, V>, ListenerResources<K, V>> entry : cacheResources
         .getListenerResources().entrySet()) {
@@ -400,24 +413,118 @@ class Eh107Cache<K, V> implements Cache<K, V> {
       }
     }
 
-    Map<K, EntryProcessorResult<T>> results = new HashMap<K, EntryProcessorResult<T>>(keys.size());
+    Map<K, EntryProcessorResult<T>> results = new ConcurrentHashMap<K, EntryProcessorResult<T>>(keys.size());
+    ExecutorService executor = cacheManager.getInvokeAllExecutor();
+    if (executor == null || keys.size() < 2) {
+      invokeAllInternal(keys, entryProcessor, arguments, results);
+    } else {
+      invokeAllInParallel(executor, keys, entryProcessor, arguments, results);
+    }
+    return results;
+  }
+
+  /**
+   * Splits the keys in disjoint groups, processed on the {@code executor} as well as on the calling thread.
+   */
+  private <T> void invokeAllInParallel(ExecutorService executor, Set<? extends K> keys, final EntryProcessor<K, V, T> entryProcessor,
+      final Object[] arguments, final Map<K, EntryProcessorResult<T>> results) {
+    int groupCount = Math.min(keys.size(), Runtime.getRuntime().availableProcessors());
+    List<Set<K>> groups = new ArrayList<Set<K>>(groupCount);
+    for (int i = 0; i < groupCount; i++) {
+      groups.add(new HashSet<K>());
+    }
     for (K key : keys) {
-      EntryProcessorResult<T> result = null;
+      groups.get((key.hashCode() & Integer.MAX_VALUE) % groupCount).add(key);
+    }
+
+    List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(groupCount);
+    for (final Set<K> group : groups) {
+      if (!group.isEmpty()) {
+        tasks.add(new FutureTask<Void>(new Runnable() {
+          @Override
+          public void run() {
+            invokeAllInternal(group, entryProcessor, arguments, results);
+          }
+        }, null));
+      }
+    }
+    for (FutureTask<Void> task : tasks.subList(1, tasks.size())) {
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        // left to the calling thread
+      }
+    }
+    // the calling thread runs every group not yet picked up, so progress never depends on the pool having idle threads
+    for (FutureTask<Void> task : tasks) {
+      task.run();
+    }
+    for (FutureTask<Void> task : tasks) {
       try {
-        T invokeResult = invoke(key, entryProcessor, arguments);
-        if (invokeResult != null) {
-          result = newEntryProcessorResult(invokeResult);
+        waitFor(task);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
         }
-      } catch (final Exception e) {
-        result = newErrorThrowingEntryProcessorResult(e);
+        throw new CacheException(e.getCause());
       }
+    }
+  }
+
+  private <T> void invokeAllInternal(Set<? extends K> keys, final EntryProcessor<K, V, T> entryProcessor, final Object[] arguments,
+      final Map<K, EntryProcessorResult<T>> results) {
+    final Map<K, MutableEntry> mutableEntries = new HashMap<K, MutableEntry>();
+    Map<K, Exception> failures;
+    try {
+      failures = jsr107Cache.bulkCompute(keys, new BiFunction<K, V, V>() {
+        @Override
+        public V apply(K mappedKey, V mappedValue) {
+          MutableEntry mutableEntry = new MutableEntry(mappedKey, mappedValue);
+          mutableEntries.put(mappedKey, mutableEntry);
+
+          T processResult;
+          try {
+            processResult = entryProcessor.process(mutableEntry, arguments);
+          } catch (EntryProcessorException e) {
+            throw e;
+          } catch (Exception e) {
+            throw new EntryProcessorException(e);
+          }
 
-      if (result != null) {
-        results.put(key, result);
+          if (processResult != null) {
+            results.put(mappedKey, newEntryProcessorResult(processResult));
+          }
+          return mutableEntry.apply(config.isWriteThrough(), cacheLoaderWriter);
+        }
+      }, new Function<K, Boolean>() {
+        @Override
+        public Boolean apply(K key) {
+          return mutableEntries.get(key).shouldReplace();
+        }
+      }, new Function<K, Boolean>() {
+        @Override
+        public Boolean apply(K key) {
+          return mutableEntries.get(key).shouldInvokeWriter();
+        }
+      }, new Function<K, Boolean>() {
+        @Override
+        public Boolean apply(K key) {
+          return mutableEntries.get(key).shouldGenerateEvent();
+        }
+      });
+    } catch (RuntimeException e) {
+      // failures of the batches handed over are reported per key, so this failed before reaching the remaining keys
+      failures = new HashMap<K, Exception>();
+      for (K key : keys) {
+        if (!mutableEntries.containsKey(key)) {
+          failures.put(key, e);
+        }
       }
     }
 
-    return results;
+    for (Map.Entry<K, Exception> failure : failures.entrySet()) {
+      results.put(failure.getKey(), Eh107Cache.<T>newErrorThrowingEntryProcessorResult(failure.getValue()));
+    }
   }
 
   @Override
@@ -569,8 +676,13 @@ class Eh107Cache<K, V> implements Cache<K, V> {
     return statisticsBean;
   }
 
+  Eh107MXBean getLatencyStatisticsMBean() {
+    return latencyStatisticsBean;
+  }
+
   void setStatisticsEnabled(boolean enabled) {
     config.setStatisticsEnabled(enabled);
+    latencyStatisticsBean.setEnabled(enabled);
   }
 
   void setManagementEnabled(boolean enabled) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.jsr107;
+
+import org.ehcache.core.InternalCache;
+import org.ehcache.core.statistics.LatencyHistogram;
+import org.ehcache.core.statistics.LatencyHistograms;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link CacheLatencyStatisticsMXBean} recording latencies only while statistics are enabled.
+ */
+class Eh107CacheLatencyStatisticsMXBean extends Eh107MXBean implements CacheLatencyStatisticsMXBean {
+
+  private final InternalCache<?, ?> cache;
+  private volatile LatencyHistograms histograms;
+
+  Eh107CacheLatencyStatisticsMXBean(String cacheName, Eh107CacheManager cacheManager, InternalCache<?, ?> cache) {
+    super(cacheName, cacheManager, "CacheLatencyStatistics");
+    this.cache = cache;
+  }
+
+  synchronized void setEnabled(boolean enabled) {
+    if (enabled && histograms == null) {
+      histograms = new LatencyHistograms(cache);
+    } else if (!enabled && histograms != null) {
+      histograms.close();
+      histograms = null;
+    }
+  }
+
+  @Override
+  public Map<String, LatencyPercentiles> getLatencies() {
+    LatencyHistograms histograms = this.histograms;
+    if (histograms == null) {
+      return Collections.emptyMap();
+    }
+    return percentiles(histograms.snapshot());
+  }
+
+  @Override
+  public Map<String, LatencyPercentiles> resetLatencies() {
+    LatencyHistograms histograms = this.histograms;
+    if (histograms == null) {
+      return Collections.emptyMap();
+    }
+    return percentiles(histograms.snapshotAndReset());
+  }
+
+  private static Map<String, LatencyPercentiles> percentiles(Map<LatencyHistograms.Key, LatencyHistogram.Snapshot> snapshots) {
+    Map<String, LatencyPercentiles> percentiles = new LinkedHashMap<String, LatencyPercentiles>();
+    for (Map.Entry<LatencyHistograms.Key, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+      LatencyHistogram.Snapshot snapshot = entry.getValue();
+      percentiles.put(entry.getKey().toString(), new LatencyPercentiles(snapshot.getCount(), snapshot.getPercentile(0.5),
+          snapshot.getPercentile(0.99), snapshot.getPercentile(0.999), snapshot.getMax()));
+    }
+    return percentiles;
+  }
+}
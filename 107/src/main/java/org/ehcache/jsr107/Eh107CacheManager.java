@@ -36,6 +36,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import javax.cache.Cache;
 import javax.cache.CacheException;
@@ -59,16 +60,19 @@ class Eh107CacheManager implements CacheManager {
   private final Object cachesLock = new Object();
   private final ConcurrentMap<String, Eh107Cache<?, ?>> caches = new ConcurrentHashMap<String, Eh107Cache<?, ?>>();
   private final EhcacheManager ehCacheManager;
+  private final Eh107InvokeAllExecutorProvider invokeAllExecutorProvider;
   private final EhcacheCachingProvider cachingProvider;
   private final ClassLoader classLoader;
   private final URI uri;
   private final Properties props;
   private final ConfigurationMerger configurationMerger;
 
-  Eh107CacheManager(EhcacheCachingProvider cachingProvider, EhcacheManager ehCacheManager, Properties props,
-                    ClassLoader classLoader, URI uri, ConfigurationMerger configurationMerger) {
+  Eh107CacheManager(EhcacheCachingProvider cachingProvider, EhcacheManager ehCacheManager,
+                    Eh107InvokeAllExecutorProvider invokeAllExecutorProvider, Properties props, ClassLoader classLoader, URI uri,
+                    ConfigurationMerger configurationMerger) {
     this.cachingProvider = cachingProvider;
     this.ehCacheManager = ehCacheManager;
+    this.invokeAllExecutorProvider = invokeAllExecutorProvider;
     this.props = props;
     this.classLoader = classLoader;
     this.uri = uri;
@@ -81,6 +85,10 @@ class Eh107CacheManager implements CacheManager {
     return ehCacheManager;
   }
 
+  ExecutorService getInvokeAllExecutor() {
+    return invokeAllExecutorProvider.getExecutor();
+  }
+
   private void refreshAllCaches() {
     for (Map.Entry<String, CacheConfiguration<?, ?>> entry : ehCacheManager.getRuntimeConfiguration().getCacheConfigurations().entrySet()) {
       String name = entry.getKey();
@@ -416,8 +424,10 @@ class Eh107CacheManager implements CacheManager {
 
       if (enabled) {
         registerObject(cache.getStatisticsMBean());
+        registerObject(cache.getLatencyStatisticsMBean());
       } else {
         unregisterObject(cache.getStatisticsMBean());
+        unregisterObject(cache.getLatencyStatisticsMBean());
       }
 
       cache.setStatisticsEnabled(enabled);
@@ -484,6 +494,12 @@ class Eh107CacheManager implements CacheManager {
           closeException.addThrowable(t);
         }
 
+        try {
+          unregisterObject(cache.getLatencyStatisticsMBean());
+        } catch (Throwable t) {
+          closeException.addThrowable(t);
+        }
+
         try {
           cache.closeInternal(closeException);
         } catch (Throwable t) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.jsr107;
+
+import org.ehcache.core.spi.service.ExecutionService;
+import org.ehcache.jsr107.config.Jsr107Configuration;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceDependencies;
+import org.ehcache.spi.service.ServiceProvider;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.ehcache.impl.internal.executor.ExecutorUtil.shutdown;
+
+/**
+ * Provides the executor on which a parallel {@code invokeAll} runs its key groups, as configured through
+ * {@link Jsr107Configuration}.
+ */
+@ServiceDependencies(ExecutionService.class)
+class Eh107InvokeAllExecutorProvider implements Service {
+
+  private final Jsr107Configuration configuration;
+  private volatile ExecutorService executor;
+
+  Eh107InvokeAllExecutorProvider(Jsr107Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  @Override
+  public void start(ServiceProvider<Service> serviceProvider) {
+    if (configuration != null && configuration.isParallelInvokeAll()) {
+      executor = serviceProvider.getService(ExecutionService.class)
+          .getUnorderedExecutor(configuration.getInvokeAllThreadPoolAlias(), new LinkedBlockingQueue<Runnable>());
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      shutdown(executor);
+      executor = null;
+    }
+  }
+
+  /**
+   * Returns the executor on which a parallel {@code invokeAll} runs its key groups.
+   *
+   * @return the executor, or {@code null} if {@code invokeAll} is not to run in parallel
+   */
+  ExecutorService getExecutor() {
+    return executor;
+  }
+}
@@ -141,11 +141,14 @@ public class EhcacheCachingProvider implements CachingProvider {
 
   private Eh107CacheManager createCacheManager(URI uri, Configuration config, Properties properties) {
     Eh107CacheLoaderWriterProvider cacheLoaderWriterFactory = new Eh107CacheLoaderWriterProvider();
-    Jsr107Service jsr107Service = new DefaultJsr107Service(ServiceLocator.findSingletonAmongst(Jsr107Configuration.class, config.getServiceCreationConfigurations().toArray()));
+    Jsr107Configuration jsr107Configuration = ServiceLocator.findSingletonAmongst(Jsr107Configuration.class, config.getServiceCreationConfigurations().toArray());
+    Jsr107Service jsr107Service = new DefaultJsr107Service(jsr107Configuration);
+    Eh107InvokeAllExecutorProvider invokeAllExecutorProvider = new Eh107InvokeAllExecutorProvider(jsr107Configuration);
 
     Collection<Service> services = new ArrayList<Service>();
     services.add(cacheLoaderWriterFactory);
     services.add(jsr107Service);
+    services.add(invokeAllExecutorProvider);
     if (ServiceLocator.findSingletonAmongst(DefaultSerializationProviderConfiguration.class, config.getServiceCreationConfigurations().toArray()) == null) {
       services.add(new DefaultJsr107SerializationProvider());
     }
@@ -153,7 +156,7 @@ public class EhcacheCachingProvider implements CachingProvider {
     EhcacheManager ehcacheManager = new EhcacheManager(config, services, !jsr107Service.jsr107CompliantAtomics());
     ehcacheManager.init();
 
-    return new Eh107CacheManager(this, ehcacheManager, properties, config.getClassLoader(), uri,
+    return new Eh107CacheManager(this, ehcacheManager, invokeAllExecutorProvider, properties, config.getClassLoader(), uri,
             new ConfigurationMerger(config, jsr107Service, cacheLoaderWriterFactory));
   }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.jsr107;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The latency distribution of an operation outcome, in nanoseconds.
+ */
+public final class LatencyPercentiles {
+
+  private final long count;
+  private final long p50;
+  private final long p99;
+  private final long p999;
+  private final long max;
+
+  @ConstructorProperties({"count", "p50", "p99", "p999", "max"})
+  public LatencyPercentiles(long count, long p50, long p99, long p999, long max) {
+    this.count = count;
+    this.p50 = p50;
+    this.p99 = p99;
+    this.p999 = p999;
+    this.max = max;
+  }
+
+  /**
+   * @return the number of operations measured
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the median latency
+   */
+  public long getP50() {
+    return p50;
+  }
+
+  /**
+   * @return the 99th percentile latency
+   */
+  public long getP99() {
+    return p99;
+  }
+
+  /**
+   * @return the 99.9th percentile latency
+   */
+  public long getP999() {
+    return p999;
+  }
+
+  /**
+   * @return the maximum latency
+   */
+  public long getMax() {
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + count + " p50=" + p50 + "ns p99=" + p99 + "ns p999=" + p999 + "ns max=" + max + "ns";
+  }
+}
@@ -31,6 +31,8 @@ public class Jsr107Configuration implements ServiceCreationConfiguration<Jsr107S
   private final ConfigurationElementState enableManagementAll;
   private final ConfigurationElementState enableStatisticsAll;
   private final Map<String, String> templates;
+  private final boolean parallelInvokeAll;
+  private final String invokeAllThreadPoolAlias;
 
   /**
    * Creates a new configuration with the provided parameters.
@@ -42,11 +44,30 @@ public class Jsr107Configuration implements ServiceCreationConfiguration<Jsr107S
    */
   public Jsr107Configuration(final String defaultTemplate, final Map<String, String> templates,
                              boolean jsr107CompliantAtomics, ConfigurationElementState enableManagementAll, ConfigurationElementState enableStatisticsAll) {
+    this(defaultTemplate, templates, jsr107CompliantAtomics, enableManagementAll, enableStatisticsAll, false, null);
+  }
+
+  /**
+   * Creates a new configuration with the provided parameters.
+   *
+   * @param defaultTemplate the default template
+   * @param templates cache alias to template name map
+   * @param jsr107CompliantAtomics behaviour of loader writer in atomic methods
+   * @param enableManagementAll
+   * @param enableStatisticsAll
+   * @param parallelInvokeAll whether {@code invokeAll} processes independent key groups in parallel
+   * @param invokeAllThreadPoolAlias the thread pool used by a parallel {@code invokeAll}, {@code null} for the default pool
+   */
+  public Jsr107Configuration(final String defaultTemplate, final Map<String, String> templates,
+                             boolean jsr107CompliantAtomics, ConfigurationElementState enableManagementAll, ConfigurationElementState enableStatisticsAll,
+                             boolean parallelInvokeAll, String invokeAllThreadPoolAlias) {
     this.defaultTemplate = defaultTemplate;
     this.jsr107CompliantAtomics = jsr107CompliantAtomics;
     this.enableManagementAll = enableManagementAll;
     this.enableStatisticsAll = enableStatisticsAll;
     this.templates = new ConcurrentHashMap<String, String>(templates);
+    this.parallelInvokeAll = parallelInvokeAll;
+    this.invokeAllThreadPoolAlias = invokeAllThreadPoolAlias;
   }
 
   /**
@@ -104,4 +125,22 @@ public class Jsr107Configuration implements ServiceCreationConfiguration<Jsr107S
   public ConfigurationElementState isEnableStatisticsAll() {
     return enableStatisticsAll;
   }
+
+  /**
+   * Indicates if {@code invokeAll} processes independent groups of keys in parallel.
+   *
+   * @return {@code true} to run key groups in parallel, {@code false} to process all keys on the calling thread
+   */
+  public boolean isParallelInvokeAll() {
+    return parallelInvokeAll;
+  }
+
+  /**
+   * Returns the alias of the thread pool used by a parallel {@code invokeAll}.
+   *
+   * @return the thread pool alias, {@code null} for the default pool
+   */
+  public String getInvokeAllThreadPoolAlias() {
+    return invokeAllThreadPoolAlias;
+  }
 }
@@ -46,6 +46,8 @@ public class Jsr107ServiceConfigurationParser implements CacheManagerServiceConf
   private static final String JSR_107_COMPLIANT_ATOMICS_ATTRIBUTE = "jsr-107-compliant-atomics";
   private static final String ENABLE_STATISTICS_ALL_ATTRIBUTE = "enable-statistics";
   private static final String DEFAULT_TEMPLATE_ATTRIBUTE = "default-template";
+  private static final String PARALLEL_INVOKE_ALL_ATTRIBUTE = "parallel-invoke-all";
+  private static final String INVOKE_ALL_THREAD_POOL_ATTRIBUTE = "invoke-all-thread-pool";
   private static final String CACHE_NAME_ATTRIBUTE = "name";
   private static final String TEMPLATE_NAME_ATTRIBUTE = "template";
 
@@ -64,6 +66,8 @@ public class Jsr107ServiceConfigurationParser implements CacheManagerServiceConf
     boolean jsr107CompliantAtomics = true;
     ConfigurationElementState enableManagementAll = ConfigurationElementState.UNSPECIFIED;
     ConfigurationElementState enableStatisticsAll = ConfigurationElementState.UNSPECIFIED;
+    boolean parallelInvokeAll = false;
+    String invokeAllThreadPoolAlias = null;
     if (fragment.hasAttribute(JSR_107_COMPLIANT_ATOMICS_ATTRIBUTE)) {
       jsr107CompliantAtomics = parseBoolean(fragment.getAttribute(JSR_107_COMPLIANT_ATOMICS_ATTRIBUTE));
     }
@@ -73,6 +77,12 @@ public class Jsr107ServiceConfigurationParser implements CacheManagerServiceConf
     if (fragment.hasAttribute(ENABLE_STATISTICS_ALL_ATTRIBUTE)) {
       enableStatisticsAll = parseBoolean(fragment.getAttribute(ENABLE_STATISTICS_ALL_ATTRIBUTE)) ? ConfigurationElementState.ENABLED : ConfigurationElementState.DISABLED;
     }
+    if (fragment.hasAttribute(PARALLEL_INVOKE_ALL_ATTRIBUTE)) {
+      parallelInvokeAll = parseBoolean(fragment.getAttribute(PARALLEL_INVOKE_ALL_ATTRIBUTE));
+    }
+    if (fragment.hasAttribute(INVOKE_ALL_THREAD_POOL_ATTRIBUTE)) {
+      invokeAllThreadPoolAlias = fragment.getAttribute(INVOKE_ALL_THREAD_POOL_ATTRIBUTE);
+    }
     final String defaultTemplate = fragment.getAttribute(DEFAULT_TEMPLATE_ATTRIBUTE);
     final HashMap<String, String> templates = new HashMap<String, String>();
     final NodeList childNodes = fragment.getChildNodes();
@@ -84,6 +94,7 @@ public class Jsr107ServiceConfigurationParser implements CacheManagerServiceConf
       }
     }
 
-    return new Jsr107Configuration(defaultTemplate, templates, jsr107CompliantAtomics, enableManagementAll, enableStatisticsAll);
+    return new Jsr107Configuration(defaultTemplate, templates, jsr107CompliantAtomics, enableManagementAll, enableStatisticsAll,
+        parallelInvokeAll, invokeAllThreadPoolAlias);
   }
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.jsr107;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.Factory;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
+import javax.cache.spi.CachingProvider;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class InvokeAllTest {
+
+  private CacheWriter<Long, String> cacheWriter;
+  private CacheManager cacheManager;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheWriter = mock(CacheWriter.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (cacheManager != null) {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testInvokeAllBatchesWrites() throws Exception {
+    Cache<Long, String> testCache = createCache("/ehcache-invoke-all-107.xml");
+    final AtomicInteger written = new AtomicInteger();
+    final AtomicInteger writeAllCalls = new AtomicInteger();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        writeAllCalls.incrementAndGet();
+        written.addAndGet(((Collection<?>) invocation.getArguments()[0]).size());
+        return null;
+      }
+    }).when(cacheWriter).writeAll(anyCollection());
+
+    Map<Long, EntryProcessorResult<String>> results = testCache.invokeAll(keys(100), new SetValueProcessor());
+
+    assertThat(results.size(), is(100));
+    assertThat(written.get(), is(100));
+    assertThat(writeAllCalls.get(), lessThan(100));
+    verify(cacheWriter, never()).write(any(Cache.Entry.class));
+    for (long key = 0; key < 100; key++) {
+      assertThat(results.get(key).get(), equalTo("value" + key));
+      assertThat(testCache.get(key), equalTo("value" + key));
+    }
+  }
+
+  @Test
+  public void testInvokeAllReportsProcessorFailuresPerEntry() throws Exception {
+    Cache<Long, String> testCache = createCache("/ehcache-invoke-all-107.xml");
+    testCache.put(2L, "two");
+
+    Map<Long, EntryProcessorResult<String>> results = testCache.invokeAll(keys(4), new SetValueProcessor() {
+      @Override
+      public String process(MutableEntry<Long, String> entry, Object... arguments) {
+        if (entry.getKey() == 2L) {
+          entry.setValue("failed");
+          throw new IllegalStateException();
+        }
+        return super.process(entry, arguments);
+      }
+    });
+
+    try {
+      results.get(2L).get();
+      fail("Expected EntryProcessorException");
+    } catch (EntryProcessorException e) {
+      assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+    }
+    assertThat(testCache.get(2L), equalTo("two"));
+    for (long key : new long[] {0L, 1L, 3L}) {
+      assertThat(results.get(key).get(), equalTo("value" + key));
+      assertThat(testCache.get(key), equalTo("value" + key));
+    }
+  }
+
+  @Test
+  public void testInvokeAllReportsWriterFailuresPerEntry() throws Exception {
+    Cache<Long, String> testCache = createCache("/ehcache-invoke-all-107.xml");
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        boolean failing = false;
+        for (Iterator<Cache.Entry<Long, String>> it = ((Collection<Cache.Entry<Long, String>>) invocation.getArguments()[0]).iterator(); it.hasNext(); ) {
+          if (it.next().getKey() == 3L) {
+            failing = true;
+          } else {
+            it.remove();
+          }
+        }
+        if (failing) {
+          throw new CacheWriterException();
+        }
+        return null;
+      }
+    }).when(cacheWriter).writeAll(anyCollection());
+
+    Map<Long, EntryProcessorResult<String>> results = testCache.invokeAll(keys(8), new SetValueProcessor());
+
+    try {
+      results.get(3L).get();
+      fail("Expected EntryProcessorException");
+    } catch (EntryProcessorException e) {
+      // expected
+    }
+    assertThat(testCache.get(3L), nullValue());
+    for (long key = 0; key < 8; key++) {
+      if (key != 3L) {
+        assertThat(results.get(key).get(), equalTo("value" + key));
+        assertThat(testCache.get(key), equalTo("value" + key));
+      }
+    }
+  }
+
+  @Test
+  public void testInvokeAllReportsConcurrentlyModifiedEntry() throws Exception {
+    final Cache<Long, String> testCache = createCache("/ehcache-invoke-all-107.xml");
+
+    Map<Long, EntryProcessorResult<String>> results = testCache.invokeAll(keys(4), new SetValueProcessor() {
+      @Override
+      public String process(MutableEntry<Long, String> entry, Object... arguments) {
+        if (entry.getKey() == 2L) {
+          Thread writer = new Thread() {
+            @Override
+            public void run() {
+              testCache.put(2L, "concurrent");
+            }
+          };
+          writer.start();
+          try {
+            writer.join();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return super.process(entry, arguments);
+      }
+    });
+
+    try {
+      results.get(2L).get();
+      fail("Expected EntryProcessorException");
+    } catch (EntryProcessorException e) {
+      assertThat(e.getCause(), instanceOf(ConcurrentModificationException.class));
+    }
+    assertThat(testCache.get(2L), equalTo("concurrent"));
+    for (long key : new long[] {0L, 1L, 3L}) {
+      assertThat(results.get(key).get(), equalTo("value" + key));
+      assertThat(testCache.get(key), equalTo("value" + key));
+    }
+  }
+
+  @Test
+  public void testParallelInvokeAll() throws Exception {
+    Cache<Long, String> testCache = createCache("/ehcache-parallel-invoke-all-107.xml");
+    assertThat(cacheManager.unwrap(Eh107CacheManager.class).getInvokeAllExecutor(), notNullValue());
+    for (long key = 0; key < 500; key += 2) {
+      testCache.put(key, "old");
+    }
+
+    Map<Long, EntryProcessorResult<String>> results = testCache.invokeAll(keys(1000), new SetValueProcessor());
+
+    assertThat(results.size(), is(1000));
+    for (long key = 0; key < 1000; key++) {
+      assertThat(results.get(key).get(), equalTo("value" + key));
+      assertThat(testCache.get(key), equalTo("value" + key));
+    }
+  }
+
+  private Cache<Long, String> createCache(String config) throws Exception {
+    CachingProvider provider = Caching.getCachingProvider();
+    cacheManager = provider.getCacheManager(getClass().getResource(config).toURI(), getClass().getClassLoader());
+    return cacheManager.createCache("testCache", new MutableConfiguration<Long, String>()
+        .setWriteThrough(true)
+        .setCacheWriterFactory(new Factory<CacheWriter<? super Long, ? super String>>() {
+          @Override
+          public CacheWriter<? super Long, ? super String> create() {
+            return cacheWriter;
+          }
+        })
+        .setTypes(Long.class, String.class));
+  }
+
+  private static Set<Long> keys(int count) {
+    Set<Long> keys = new HashSet<Long>();
+    for (long key = 0; key < count; key++) {
+      keys.add(key);
+    }
+    return keys;
+  }
+
+  private static class SetValueProcessor implements EntryProcessor<Long, String, String> {
+    @Override
+    public String process(MutableEntry<Long, String> entry, Object... arguments) {
+      entry.setValue("value" + entry.getKey());
+      return entry.getValue();
+    }
+  }
+}
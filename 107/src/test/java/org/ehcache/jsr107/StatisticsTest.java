@@ -26,12 +26,18 @@ import javax.cache.Caching;
 import javax.cache.configuration.MutableConfiguration;
 import javax.cache.spi.CachingProvider;
 
+import java.lang.management.ManagementFactory;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
+import javax.management.openmbean.TabularData;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
@@ -283,4 +289,21 @@ public class StatisticsTest {
     assertThat(callable.call(), matcher);
   }
 
+  @Test
+  public void test_latencies() throws Exception {
+    cacheManager.enableStatistics("offheap", true);
+    Eh107CacheLatencyStatisticsMXBean latencyStatistics = (Eh107CacheLatencyStatisticsMXBean) ((Eh107Cache<String, String>) offheapCache).getLatencyStatisticsMBean();
+
+    offheapCache.put("key", "value");
+    offheapCache.get("key");
+    offheapCache.get("key");
+
+    Map<String, LatencyPercentiles> interval = latencyStatistics.resetLatencies();
+    assertThat(interval.get("cache.get.HIT_NO_LOADER").getCount(), is(2L));
+    assertThat(interval, hasKey("tiered-store.put.PUT"));
+    assertThat(interval, hasKey("local-offheap.put.PUT"));
+    assertThat(latencyStatistics.getLatencies().get("cache.get.HIT_NO_LOADER").getCount(), is(0L));
+    assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(latencyStatistics.getObjectName(), "Latencies"), instanceOf(TabularData.class));
+  }
+
 }
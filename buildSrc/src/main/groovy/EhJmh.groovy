@@ -0,0 +1,55 @@
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.tasks.JavaExec
+
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * EhJmh
+ */
+class EhJmh implements Plugin<Project> {
+  @Override
+  void apply(Project project) {
+
+    project.sourceSets {
+      jmh {
+        java.srcDir 'src/jmh/java'
+        compileClasspath += project.sourceSets.test.compileClasspath
+        runtimeClasspath += project.sourceSets.test.runtimeClasspath
+      }
+    }
+
+    project.dependencies {
+      jmhCompile "org.openjdk.jmh:jmh-core:$project.jmhVersion", "org.openjdk.jmh:jmh-generator-annprocess:$project.jmhVersion"
+    }
+
+    project.compileJmhJava {
+      // JMH requires Java 7
+      sourceCompatibility = 1.7
+      targetCompatibility = 1.7
+    }
+
+    project.task('jmh', type: JavaExec) {
+      description = 'Runs the JMH benchmarks, optionally filtered with -Pjmh.include=<regexp>'
+      main = 'org.openjdk.jmh.Main'
+      classpath = project.sourceSets.jmh.runtimeClasspath
+      if (project.hasProperty('jmh.include')) {
+        args project.property('jmh.include')
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.config;
+
+import org.ehcache.clustered.client.internal.store.ClusteredStore;
+import org.ehcache.clustered.common.Consistency;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+/**
+ * {@link ServiceConfiguration} for the {@link ClusteredStore} of a cache, selecting the {@link Consistency}
+ * with which other clients holding its mappings in a local caching tier are invalidated, when the chains read
+ * from the server get compacted, and the {@link KeyHasher} addressing these chains.
+ * <P>
+ *   Without this configuration, clustered caches are {@link Consistency#EVENTUAL eventually} consistent, use the
+ *   default compaction settings and hash keys with {@link KeyHashers#SERIALIZED_KEY}.
+ * </P>
+ * <P>
+ *   A chain is compacted once it holds more than {@code compactionLengthThreshold} elements or more than
+ *   {@code compactionByteThreshold} bytes of payload.  Compactions are sent to the server without waiting for it,
+ *   {@code compactionBatchSize} at a time, or about a second after being requested at the latest.
+ * </P>
+ */
+public class ClusteredStoreConfiguration implements ServiceConfiguration<ClusteredStore.Provider> {
+
+  public static final int DEFAULT_COMPACTION_LENGTH_THRESHOLD = 4;
+  public static final int DEFAULT_COMPACTION_BYTE_THRESHOLD = 4 * 1024;
+  public static final int DEFAULT_COMPACTION_BATCH_SIZE = 8;
+
+  private final Consistency consistency;
+  private final int compactionLengthThreshold;
+  private final int compactionByteThreshold;
+  private final int compactionBatchSize;
+  private final KeyHasher keyHasher;
+
+  /**
+   * Creates a new configuration with the given consistency and the default compaction settings.
+   *
+   * @param consistency the consistency
+   */
+  public ClusteredStoreConfiguration(Consistency consistency) {
+    this(consistency, DEFAULT_COMPACTION_LENGTH_THRESHOLD, DEFAULT_COMPACTION_BYTE_THRESHOLD, DEFAULT_COMPACTION_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a new configuration with the given consistency and compaction settings.
+   *
+   * @param consistency the consistency
+   * @param compactionLengthThreshold the number of elements up to which a chain is not compacted
+   * @param compactionByteThreshold the payload size, in bytes, up to which a chain is not compacted
+   * @param compactionBatchSize the number of compactions sent to the server in a single message
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int compactionLengthThreshold, int compactionByteThreshold, int compactionBatchSize) {
+    this(consistency, compactionLengthThreshold, compactionByteThreshold, compactionBatchSize, KeyHashers.SERIALIZED_KEY);
+  }
+
+  /**
+   * Creates a new configuration with the given consistency, compaction settings and key hashing.
+   *
+   * @param consistency the consistency
+   * @param compactionLengthThreshold the number of elements up to which a chain is not compacted
+   * @param compactionByteThreshold the payload size, in bytes, up to which a chain is not compacted
+   * @param compactionBatchSize the number of compactions sent to the server in a single message
+   * @param keyHasher the hash function addressing the chains of keys
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int compactionLengthThreshold, int compactionByteThreshold, int compactionBatchSize,
+                                     KeyHasher keyHasher) {
+    if (consistency == null) {
+      throw new NullPointerException("Consistency cannot be null");
+    }
+    if (compactionLengthThreshold < 0 || compactionByteThreshold < 0) {
+      throw new IllegalArgumentException("Compaction thresholds cannot be negative");
+    }
+    if (compactionBatchSize < 1) {
+      throw new IllegalArgumentException("Compaction batch size must be positive, was: " + compactionBatchSize);
+    }
+    if (keyHasher == null) {
+      throw new NullPointerException("Key hasher cannot be null");
+    }
+    this.consistency = consistency;
+    this.compactionLengthThreshold = compactionLengthThreshold;
+    this.compactionByteThreshold = compactionByteThreshold;
+    this.compactionBatchSize = compactionBatchSize;
+    this.keyHasher = keyHasher;
+  }
+
+  /**
+   * Returns the consistency.
+   *
+   * @return the consistency
+   */
+  public Consistency getConsistency() {
+    return consistency;
+  }
+
+  /**
+   * Returns the number of elements up to which a chain is not compacted.
+   *
+   * @return the compaction length threshold
+   */
+  public int getCompactionLengthThreshold() {
+    return compactionLengthThreshold;
+  }
+
+  /**
+   * Returns the payload size, in bytes, up to which a chain is not compacted.
+   *
+   * @return the compaction byte threshold
+   */
+  public int getCompactionByteThreshold() {
+    return compactionByteThreshold;
+  }
+
+  /**
+   * Returns the number of compactions sent to the server in a single message.
+   *
+   * @return the compaction batch size
+   */
+  public int getCompactionBatchSize() {
+    return compactionBatchSize;
+  }
+
+  /**
+   * Returns the hash function addressing the chains of keys.
+   *
+   * @return the key hasher
+   */
+  public KeyHasher getKeyHasher() {
+    return keyHasher;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<ClusteredStore.Provider> getServiceType() {
+    return ClusteredStore.Provider.class;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.config;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Computes the hash addressing the server-side chain of a key of a clustered cache.
+ * <P>
+ *   Keys sharing a chain hash share a chain: every read of one of them transfers, decodes and filters the operations
+ *   of all of them. All clients of a clustered cache must hash alike, which the server verifies by comparing
+ *   {@link #getAlgorithm() algorithm} names.
+ * </P>
+ * <P>
+ *   The lower 32 bits of a chain hash must be the key {@link Object#hashCode() hashCode}: the server invalidates
+ *   the mappings held by local caching tiers by chain hash, and these tiers look their mappings up by key
+ *   {@code hashCode}.
+ * </P>
+ *
+ * @see KeyHashers
+ */
+public interface KeyHasher {
+
+  /**
+   * Returns the name of the hash function, identical on all the clients hashing alike.
+   *
+   * @return the algorithm name
+   */
+  String getAlgorithm();
+
+  /**
+   * Computes the chain hash of a key.
+   *
+   * @param keyHashCode the key {@code hashCode}
+   * @param serializedKey the key serialized by the key serializer of the cache, to be read without being modified
+   * @return the chain hash, whose lower 32 bits are {@code keyHashCode}
+   */
+  long hash(int keyHashCode, ByteBuffer serializedKey);
+}
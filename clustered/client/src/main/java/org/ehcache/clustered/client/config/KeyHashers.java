@@ -0,0 +1,107 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.config;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The built-in {@link KeyHasher}s.
+ */
+public final class KeyHashers {
+
+  /**
+   * Widens the key {@code hashCode}, ignoring the serialized key: keys with equal hash codes share a chain.
+   */
+  public static final KeyHasher HASH_CODE = new KeyHasher() {
+    @Override
+    public String getAlgorithm() {
+      return "hashCode";
+    }
+
+    @Override
+    public long hash(int keyHashCode, ByteBuffer serializedKey) {
+      return keyHashCode;
+    }
+
+    @Override
+    public String toString() {
+      return getAlgorithm();
+    }
+  };
+
+  /**
+   * Completes the key {@code hashCode} with a well mixed hash of the serialized key, making keys share a chain only
+   * when both their hash codes and their 32 bits serialized key hashes collide.
+   */
+  public static final KeyHasher SERIALIZED_KEY = new KeyHasher() {
+    @Override
+    public String getAlgorithm() {
+      return "serialized-key-mix64";
+    }
+
+    @Override
+    public long hash(int keyHashCode, ByteBuffer serializedKey) {
+      return (mix64(serializedKey) & 0xFFFFFFFF00000000L) | (keyHashCode & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public String toString() {
+      return getAlgorithm();
+    }
+  };
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private KeyHashers() {
+    // constants only
+  }
+
+  /**
+   * Hashes the remaining bytes of a buffer, eight bytes at a time, without modifying it.
+   *
+   * @param buffer the bytes to hash
+   * @return a 64 bits hash
+   */
+  static long mix64(ByteBuffer buffer) {
+    int position = buffer.position();
+    int limit = buffer.limit();
+    long h = limit - position;
+
+    for (; position + 8 <= limit; position += 8) {
+      h ^= mixBlock(buffer.getLong(position));
+      h = Long.rotateLeft(h, 27) * 5 + 0x52dce729L;
+    }
+    if (position < limit) {
+      long tail = 0L;
+      for (; position < limit; position++) {
+        tail = (tail << 8) | (buffer.get(position) & 0xFFL);
+      }
+      h ^= mixBlock(tail);
+    }
+
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long mixBlock(long block) {
+    return Long.rotateLeft(block * C1, 31) * C2;
+  }
+}
@@ -16,7 +16,12 @@
 
 package org.ehcache.clustered.client.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.ehcache.CachePersistenceException;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
@@ -27,7 +32,11 @@ import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse.Failure;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse.Type;
 import org.terracotta.connection.entity.Entity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.EntityResponse;
 import org.terracotta.entity.InvokeFuture;
 import org.terracotta.entity.MessageCodecException;
 import org.terracotta.exception.EntityException;
@@ -38,10 +47,86 @@ import org.terracotta.exception.EntityException;
  */
 public class EhcacheClientEntity implements Entity {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(EhcacheClientEntity.class);
+
+  /**
+   * Receives the {@link EhcacheEntityResponse responses} the server pushes to this client outside of any invocation.
+   *
+   * @param <T> the response type
+   */
+  public interface ResponseListener<T extends EhcacheEntityResponse> {
+    void onResponse(T response);
+  }
+
   private final EntityClientEndpoint<EhcacheEntityMessage, EhcacheEntityResponse> endpoint;
+  private final ConcurrentMap<Class<? extends EhcacheEntityResponse>, List<ResponseListener<? extends EhcacheEntityResponse>>> responseListeners =
+      new ConcurrentHashMap<Class<? extends EhcacheEntityResponse>, List<ResponseListener<? extends EhcacheEntityResponse>>>();
 
   public EhcacheClientEntity(EntityClientEndpoint<EhcacheEntityMessage, EhcacheEntityResponse> endpoint) {
     this.endpoint = endpoint;
+    endpoint.setDelegate(new EndpointDelegate() {
+      @Override
+      public void handleMessage(EntityResponse messageFromServer) {
+        if (messageFromServer instanceof EhcacheEntityResponse) {
+          fireResponseEvent((EhcacheEntityResponse) messageFromServer);
+        }
+      }
+
+      @Override
+      public byte[] createExtendedReconnectData() {
+        return new byte[0];
+      }
+
+      @Override
+      public void didDisconnectUnexpectedly() {
+        //nothing to do
+      }
+    });
+  }
+
+  /**
+   * Registers a listener for the responses of the given type pushed by the server.
+   *
+   * @param responseType the response type
+   * @param responseListener the listener
+   * @param <T> the response type
+   */
+  public <T extends EhcacheEntityResponse> void addResponseListener(Class<T> responseType, ResponseListener<T> responseListener) {
+    List<ResponseListener<? extends EhcacheEntityResponse>> listeners = responseListeners.get(responseType);
+    if (listeners == null) {
+      List<ResponseListener<? extends EhcacheEntityResponse>> newListeners = new CopyOnWriteArrayList<ResponseListener<? extends EhcacheEntityResponse>>();
+      listeners = responseListeners.putIfAbsent(responseType, newListeners);
+      if (listeners == null) {
+        listeners = newListeners;
+      }
+    }
+    listeners.add(responseListener);
+  }
+
+  /**
+   * Unregisters a listener previously registered through {@link #addResponseListener(Class, ResponseListener)}.
+   *
+   * @param responseType the response type
+   * @param responseListener the listener
+   * @param <T> the response type
+   */
+  public <T extends EhcacheEntityResponse> void removeResponseListener(Class<T> responseType, ResponseListener<T> responseListener) {
+    List<ResponseListener<? extends EhcacheEntityResponse>> listeners = responseListeners.get(responseType);
+    if (listeners != null) {
+      listeners.remove(responseListener);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void fireResponseEvent(EhcacheEntityResponse response) {
+    List<ResponseListener<? extends EhcacheEntityResponse>> listeners = responseListeners.get(response.getClass());
+    if (listeners == null) {
+      LOGGER.warn("Ignoring the response {} as no registered response listener could handle it", response);
+      return;
+    }
+    for (ResponseListener<? extends EhcacheEntityResponse> listener : listeners) {
+      ((ResponseListener<EhcacheEntityResponse>) listener).onResponse(response);
+    }
   }
 
   public UUID identity() {
@@ -69,17 +154,31 @@ public class EhcacheClientEntity implements Entity {
     }
   }
 
-  public void createCache(String name, ServerStoreConfiguration serverStoreConfiguration) throws CachePersistenceException {
+  public EhcacheEntityResponse.StoreIdResponse createCache(String name, ServerStoreConfiguration serverStoreConfiguration) throws CachePersistenceException {
+    return createCache(name, serverStoreConfiguration, false);
+  }
+
+  public EhcacheEntityResponse.StoreIdResponse createCache(String name, ServerStoreConfiguration serverStoreConfiguration, boolean caching)
+      throws CachePersistenceException {
     try {
-      invokeInternal(EhcacheEntityMessage.createServerStore(name, serverStoreConfiguration), false);
+      EhcacheEntityResponse.StoreIdResponse response = (EhcacheEntityResponse.StoreIdResponse)
+          invokeInternal(EhcacheEntityMessage.createServerStore(name, serverStoreConfiguration, caching), false);
+      // passives create the store on this confirmation, under the identifier the active assigned
+      invokeInternal(EhcacheEntityMessage.serverStoreCreated(name, serverStoreConfiguration, response.getStoreId()), true);
+      return response;
     } catch (Exception e) {
       throw convert(e, CachePersistenceException.class, CACHE_PERSISTENCE_EXCEPTION_CTOR);
     }
   }
 
-  public void validateCache(String name, ServerStoreConfiguration serverStoreConfiguration) throws CachePersistenceException {
+  public EhcacheEntityResponse.StoreIdResponse validateCache(String name, ServerStoreConfiguration serverStoreConfiguration) throws CachePersistenceException {
+    return validateCache(name, serverStoreConfiguration, false);
+  }
+
+  public EhcacheEntityResponse.StoreIdResponse validateCache(String name, ServerStoreConfiguration serverStoreConfiguration, boolean caching)
+      throws CachePersistenceException {
     try {
-      invokeInternal(EhcacheEntityMessage.validateServerStore(name , serverStoreConfiguration), false);
+      return (EhcacheEntityResponse.StoreIdResponse) invokeInternal(EhcacheEntityMessage.validateServerStore(name , serverStoreConfiguration, caching), false);
     } catch (Exception e) {
       throw convert(e, CachePersistenceException.class, CACHE_PERSISTENCE_EXCEPTION_CTOR);
     }
@@ -129,16 +228,84 @@ public class EhcacheClientEntity implements Entity {
     }
   }
 
+  /**
+   * Sends a message to the {@code EhcacheActiveEntity} associated with this {@code EhcacheClientEntity} without
+   * awaiting its response, nor its replication to passive servers.  Server-side failures are not reported.
+   *
+   * @param message the {@code EhcacheEntityMessage} to send
+   *
+   * @throws EhcacheEntityOperationException thrown if the message cannot be sent
+   */
+  public void invokeAsync(EhcacheEntityMessage message) throws EhcacheEntityOperationException {
+    try {
+      endpoint.beginInvoke().message(message).invoke();
+    } catch (Exception e) {
+      throw convert(e, EhcacheEntityOperationException.class, EHCACHE_ENTITY_OPERATION_EXCEPTION_CTOR);
+    }
+  }
+
+  /**
+   * Sends several messages to the {@code EhcacheActiveEntity} associated with this {@code EhcacheClientEntity}
+   * before awaiting any of their responses, so that their round trips overlap.
+   *
+   * @param messages the {@code EhcacheEntityMessage}s to send
+   * @param waitUntilReplicated if {@code true}, indicates that the messages should be replicated to
+   *                            passive servers before their responses are returned
+   *
+   * @return the {@code EhcacheEntityResponse}s to {@code messages}, in the same order
+   *
+   * @throws EhcacheEntityOperationException thrown to reflect the first server-side operation fault, as
+   *          {@link #invoke(EhcacheEntityMessage, boolean)} does, once all the responses were received
+   * @throws IllegalArgumentException thrown to reflect an {@code IllegalArgumentException} from a server-side
+   *          operation or if thrown from a message system support method
+   * @throws IllegalStateException thrown to reflect an {@code IllegalStateException} from a server-side
+   *          operation or if thrown from a message system support method
+   */
+  public List<EhcacheEntityResponse> invokeAll(List<? extends EhcacheEntityMessage> messages, boolean waitUntilReplicated)
+      throws EhcacheEntityOperationException, IllegalArgumentException, IllegalStateException {
+    List<InvokeFuture<EhcacheEntityResponse>> results = new ArrayList<InvokeFuture<EhcacheEntityResponse>>(messages.size());
+    try {
+      for (EhcacheEntityMessage message : messages) {
+        results.add(beginInvoke(message, waitUntilReplicated));
+      }
+    } catch (Exception e) {
+      throw convert(e, EhcacheEntityOperationException.class, EHCACHE_ENTITY_OPERATION_EXCEPTION_CTOR);
+    }
+
+    List<EhcacheEntityResponse> responses = new ArrayList<EhcacheEntityResponse>(messages.size());
+    Exception failure = null;
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        responses.add(awaitResponse(messages.get(i), results.get(i)));
+      } catch (Exception e) {
+        responses.add(null);
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw convert(failure, EhcacheEntityOperationException.class, EHCACHE_ENTITY_OPERATION_EXCEPTION_CTOR);
+    }
+    return responses;
+  }
+
   private EhcacheEntityResponse invokeInternal(EhcacheEntityMessage message, boolean waitUntilReplicated)
       throws CachePersistenceException, MessageCodecException, EntityException {
+    return awaitResponse(message, beginInvoke(message, waitUntilReplicated));
+  }
 
-    InvokeFuture<EhcacheEntityResponse> result;
+  private InvokeFuture<EhcacheEntityResponse> beginInvoke(EhcacheEntityMessage message, boolean waitUntilReplicated)
+      throws MessageCodecException {
     if (waitUntilReplicated) {
-      result = endpoint.beginInvoke().message(message).replicate(true).ackCompleted().invoke();
+      return endpoint.beginInvoke().message(message).replicate(true).ackCompleted().invoke();
     } else {
-      result = endpoint.beginInvoke().message(message).invoke();
+      return endpoint.beginInvoke().message(message).invoke();
     }
+  }
 
+  private EhcacheEntityResponse awaitResponse(EhcacheEntityMessage message, InvokeFuture<EhcacheEntityResponse> result)
+      throws CachePersistenceException, EntityException {
     boolean interrupted = false;
     try {
       while (true) {
@@ -0,0 +1,140 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.common.store.Element;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which chains read from a {@link ServerStoreProxy} are worth compacting, and sends their compactions to the
+ * server asynchronously and in batches.
+ * <P>
+ *   Pending compactions are keyed on their key hash, a later compaction superseding an earlier one for the same key.
+ *   A batch is sent once {@code batchSize} compactions were requested since the previous one, or once the oldest
+ *   pending compaction waited for {@code maxDelay}.  As that delay is only checked on requests and
+ *   {@link #flushIfDue()}, the latter is expected to be called periodically.
+ * </P>
+ */
+class ChainCompactor {
+
+  /**
+   * The default maximum time a compaction stays pending, in milliseconds.
+   */
+  static final long DEFAULT_MAX_DELAY_MILLIS = 1000L;
+
+  private final ServerStoreProxy storeProxy;
+  private final int lengthThreshold;
+  private final int byteThreshold;
+  private final int batchSize;
+  private final long maxDelayNanos;
+
+  private Map<Long, Map.Entry<Chain, Chain>> pending = new LinkedHashMap<Long, Map.Entry<Chain, Chain>>();
+  private int requested;
+  private long oldestPending;
+
+  ChainCompactor(ServerStoreProxy storeProxy, int lengthThreshold, int byteThreshold, int batchSize) {
+    this(storeProxy, lengthThreshold, byteThreshold, batchSize, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  ChainCompactor(ServerStoreProxy storeProxy, int lengthThreshold, int byteThreshold, int batchSize, long maxDelay, TimeUnit unit) {
+    this.storeProxy = storeProxy;
+    this.lengthThreshold = lengthThreshold;
+    this.byteThreshold = byteThreshold;
+    this.batchSize = batchSize;
+    this.maxDelayNanos = unit.toNanos(maxDelay);
+  }
+
+  /**
+   * Indicates whether the given chain exceeds either of the compaction thresholds.
+   *
+   * @param chain the chain read from the server
+   * @return {@code true} if the chain should be compacted
+   */
+  boolean requiresCompaction(Chain chain) {
+    int length = 0;
+    long bytes = 0;
+    for (Element element : chain) {
+      if (++length > lengthThreshold || (bytes += element.getPayload().remaining()) > byteThreshold) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Requests the replacement of {@code expect} by {@code update} at the head of the chain for {@code key}.
+   *
+   * @param key the key hash
+   * @param expect the chain read from the server
+   * @param update the compacted chain
+   */
+  void compact(long key, Chain expect, Chain update) {
+    Map<Long, Map.Entry<Chain, Chain>> batch = null;
+    synchronized (this) {
+      long now = System.nanoTime();
+      if (pending.isEmpty()) {
+        oldestPending = now;
+      }
+      pending.put(key, new AbstractMap.SimpleImmutableEntry<Chain, Chain>(expect, update));
+      if (++requested >= batchSize || now - oldestPending >= maxDelayNanos) {
+        batch = drain();
+      }
+    }
+    if (batch != null) {
+      storeProxy.replaceAtHeadAsync(batch);
+    }
+  }
+
+  /**
+   * Sends the pending compactions, if any.
+   */
+  void flush() {
+    Map<Long, Map.Entry<Chain, Chain>> batch;
+    synchronized (this) {
+      batch = drain();
+    }
+    if (!batch.isEmpty()) {
+      storeProxy.replaceAtHeadAsync(batch);
+    }
+  }
+
+  /**
+   * Sends the pending compactions if the oldest of them waited for the maximum delay.
+   */
+  void flushIfDue() {
+    Map<Long, Map.Entry<Chain, Chain>> batch = null;
+    synchronized (this) {
+      if (!pending.isEmpty() && System.nanoTime() - oldestPending >= maxDelayNanos) {
+        batch = drain();
+      }
+    }
+    if (batch != null) {
+      storeProxy.replaceAtHeadAsync(batch);
+    }
+  }
+
+  private Map<Long, Map.Entry<Chain, Chain>> drain() {
+    Map<Long, Map.Entry<Chain, Chain>> batch = pending;
+    pending = new LinkedHashMap<Long, Map.Entry<Chain, Chain>>();
+    requested = 0;
+    return batch;
+  }
+}
@@ -19,43 +19,66 @@ package org.ehcache.clustered.client.internal.store;
 import org.ehcache.Cache;
 import org.ehcache.clustered.client.config.ClusteredResourcePool;
 import org.ehcache.clustered.client.config.ClusteredResourceType;
+import org.ehcache.clustered.client.config.ClusteredStoreConfiguration;
+import org.ehcache.clustered.client.config.KeyHasher;
 import org.ehcache.clustered.client.internal.store.operations.KeyValueOperation;
 import org.ehcache.clustered.client.internal.store.operations.Operation;
 import org.ehcache.clustered.client.internal.store.operations.ChainResolver;
 import org.ehcache.clustered.client.internal.store.operations.PutOperation;
+import org.ehcache.clustered.client.internal.store.operations.RemoveOperation;
 import org.ehcache.clustered.client.internal.store.operations.codecs.OperationCodecProvider;
 import org.ehcache.clustered.client.internal.store.operations.codecs.OperationsCodec;
 import org.ehcache.clustered.client.service.ClusteringService;
 import org.ehcache.clustered.client.service.ClusteringService.ClusteredCacheIdentifier;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.config.ResourceType;
 import org.ehcache.core.CacheConfigurationChangeListener;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.internal.store.StoreSupport;
 import org.ehcache.core.internal.util.ConcurrentWeakIdentityHashMap;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.function.NullaryFunction;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.events.StoreEventSource;
 import org.ehcache.core.spi.store.StoreAccessException;
+import org.ehcache.core.spi.store.tiering.AuthoritativeTier;
+import org.ehcache.core.spi.store.tiering.CachingTier;
+import org.ehcache.core.statistics.StoreOperationOutcomes;
 import org.ehcache.impl.internal.events.NullStoreEventDispatcher;
+import org.ehcache.impl.internal.store.heap.OnHeapStore;
+import org.ehcache.impl.internal.store.offheap.OffHeapStore;
+import org.ehcache.impl.internal.store.tiering.CompoundCachingTier;
+import org.ehcache.impl.internal.store.tiering.CompoundCachingTierServiceConfiguration;
+import org.ehcache.impl.internal.store.tiering.TieredStore;
 import org.ehcache.spi.service.ServiceProvider;
 import org.ehcache.spi.service.Service;
 import org.ehcache.spi.service.ServiceConfiguration;
 import org.ehcache.spi.service.ServiceDependencies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terracotta.statistics.observer.OperationObserver;
 
 import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
 
 /**
  * Supports a {@link Store} in a clustered environment.
@@ -66,38 +89,150 @@ import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmon
 // * This is a shell of an implementation that is a placeholder for a real implementation.     *
 // * The methods in this class are, at this point, not expected to function "properly".        *
 // *                                                                                           *
-// * In its present form, the cache configuration must provide some 'core' resource in         *
-// * addition to the clustered resources.                                                      *
+// * A heap, and optionally offheap, caching tier can be placed in front of it; the server     *
+// * then invalidates the mappings these tiers hold when other clients modify them.            *
 // *                                                                                           *
 // *********************************************************************************************
 // *********************************************************************************************
 // TODO: Remove underlyingStore when ServerStore/ServerStoreProxy is complete
-public class ClusteredStore<K, V> implements Store<K, V> {
+public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClusteredStore.class);
+
+  private static final NullaryFunction<Boolean> REPLACE_EQUALS_TRUE = new NullaryFunction<Boolean>() {
+    @Override
+    public Boolean apply() {
+      return Boolean.TRUE;
+    }
+  };
 
   private final OperationsCodec<K, V> codec;
   private final ChainResolver<K, V> resolver;
+  private final ClusteredStoreConfiguration configuration;
+  private final KeyHasher keyHasher;
 
   private volatile ServerStoreProxy storeProxy;
+  private volatile ChainCompactor compactor;
+  private volatile ScheduledFuture<?> compactionFlush;
+  private volatile InvalidationValve invalidationValve;
+
+  private final OperationObserver<StoreOperationOutcomes.GetOutcome> getObserver;
+  private final OperationObserver<StoreOperationOutcomes.PutOutcome> putObserver;
 
-  private ClusteredStore(final OperationsCodec<K, V> codec, final ChainResolver<K, V> resolver) {
+  private ClusteredStore(final OperationsCodec<K, V> codec, final ChainResolver<K, V> resolver, final ClusteredStoreConfiguration configuration,
+                         final StoreStatisticsConfiguration statisticsConfiguration) {
     this.codec = codec;
     this.resolver = resolver;
+    this.configuration = configuration;
+    this.keyHasher = configuration.getKeyHasher();
+
+    this.getObserver = operation(StoreOperationOutcomes.GetOutcome.class, statisticsConfiguration).named("get").of(this).tag("clustered-store").build();
+    this.putObserver = operation(StoreOperationOutcomes.PutOutcome.class, statisticsConfiguration).named("put").of(this).tag("clustered-store").build();
   }
 
   @Override
   public ValueHolder<V> get(final K key) throws StoreAccessException {
-    Chain chain = storeProxy.get(key.hashCode());
+    getObserver.begin();
+    long hash = hash(key);
+    V value = resolve(key, hash, storeProxy.get(hash));
+    if (value == null) {
+      getObserver.end(StoreOperationOutcomes.GetOutcome.MISS);
+      return null;
+    }
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+    return new ClusteredValueHolder<V>(value);
+  }
+
+  private V resolve(K key, long hash, Chain chain) {
     ResolvedChain<K> resolvedChain = resolver.resolve(chain, key);
 
-    Chain compactedChain = resolvedChain.getCompactedChain();
-    storeProxy.replaceAtHead(key.hashCode(), chain, compactedChain);
+    if (compactor.requiresCompaction(chain)) {
+      compactor.compact(hash, chain, resolvedChain.getCompactedChain());
+    }
 
     Operation<K> resolvedOperation = resolvedChain.getResolvedOperation(key);
-    V value = null;
     if(resolvedOperation != null && resolvedOperation instanceof KeyValueOperation) {
-      value = ((KeyValueOperation<K, V>)resolvedOperation).getValue();
+      return ((KeyValueOperation<K, V>)resolvedOperation).getValue();
     }
-    return new ClusteredValueHolder<V>(value);
+    return null;
+  }
+
+  /**
+   * Reads the values of several keys, using a single {@link ServerStoreProxy#getAll(Collection)} call.
+   */
+  private Map<K, V> resolveAll(Set<? extends K> keys) {
+    Map<K, Long> hashes = new LinkedHashMap<K, Long>();
+    for (K key : keys) {
+      hashes.put(key, hash(key));
+    }
+    Map<Long, Chain> chains = storeProxy.getAll(new HashSet<Long>(hashes.values()));
+
+    Map<K, V> values = new LinkedHashMap<K, V>();
+    for (Map.Entry<K, Long> hash : hashes.entrySet()) {
+      values.put(hash.getKey(), resolve(hash.getKey(), hash.getValue(), chains.get(hash.getValue())));
+    }
+    return values;
+  }
+
+  private Map.Entry<Long, ByteBuffer> encode(Operation<K> operation) {
+    ByteBuffer payload = codec.encode(operation);
+    return new AbstractMap.SimpleImmutableEntry<Long, ByteBuffer>(hash(operation.getKey(), payload), payload);
+  }
+
+  /**
+   * Computes the hash addressing the chain of a key.
+   */
+  private long hash(K key) {
+    return keyHasher.hash(key.hashCode(), codec.encodeKey(key));
+  }
+
+  /**
+   * Computes the hash addressing the chain of the key of an operation, reusing the key serialized in its encoding.
+   */
+  private long hash(K key, ByteBuffer encodedOperation) {
+    return keyHasher.hash(key.hashCode(), OperationsCodec.encodedKey(encodedOperation));
+  }
+
+  @Override
+  public ValueHolder<V> getAndFault(final K key) throws StoreAccessException {
+    return get(key);
+  }
+
+  @Override
+  public ValueHolder<V> computeIfAbsentAndFault(final K key, final Function<? super K, ? extends V> mappingFunction)
+      throws StoreAccessException {
+    return computeIfAbsent(key, mappingFunction);
+  }
+
+  @Override
+  public boolean flush(final K key, final ValueHolder<V> valueFlushed) {
+    // the server tracks the mappings held by the caching tiers, there is nothing to flush back
+    return true;
+  }
+
+  @Override
+  public void setInvalidationValve(final InvalidationValve valve) {
+    this.invalidationValve = valve;
+  }
+
+  private void setStoreProxy(final ServerStoreProxy storeProxy) {
+    storeProxy.setInvalidationListener(new ServerStoreProxy.InvalidationListener() {
+      @Override
+      public void onInvalidateHash(long hash) {
+        InvalidationValve valve = invalidationValve;
+        if (valve != null) {
+          try {
+            // caching tiers look mappings up by key hashCode, the lower half of chain hashes
+            valve.invalidateAllWithHash((int) hash);
+          } catch (StoreAccessException e) {
+            LOGGER.error("Error invalidating key hash {}", hash, e);
+          }
+        }
+      }
+    });
+    this.compactor = new ChainCompactor(storeProxy, configuration.getCompactionLengthThreshold(),
+        configuration.getCompactionByteThreshold(), configuration.getCompactionBatchSize());
+    this.storeProxy = storeProxy;
   }
 
   @Override
@@ -108,9 +243,11 @@ public class ClusteredStore<K, V> implements Store<K, V> {
 
   @Override
   public PutStatus put(final K key, final V value) throws StoreAccessException {
+    putObserver.begin();
     PutOperation<K, V> operation = new PutOperation<K, V>(key, value);
     ByteBuffer payload = codec.encode(operation);
-    storeProxy.append(key.hashCode(), payload);
+    storeProxy.append(hash(key, payload), payload);
+    putObserver.end(StoreOperationOutcomes.PutOutcome.PUT);
     return PutStatus.PUT; // TODO: 17/05/16 Do we need to differentiate between different statuses?
   }
 
@@ -185,22 +322,83 @@ public class ClusteredStore<K, V> implements Store<K, V> {
   @Override
   public Map<K, ValueHolder<V>> bulkCompute(final Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    return bulkCompute(keys, remappingFunction, REPLACE_EQUALS_TRUE);
   }
 
+  /**
+   * {@inheritDoc}
+   * <P>
+   *   The current values are read with one pipelined round of multi-key reads, and the computed mappings written
+   *   with one pipelined round of multi-key appends, rather than one invocation per key.
+   * </P>
+   */
   @Override
   public Map<K, ValueHolder<V>> bulkCompute(final Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction, final NullaryFunction<Boolean> replaceEqual)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    Map<K, V> currentValues = resolveAll(keys);
+
+    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    List<Map.Entry<Long, ByteBuffer>> appends = new ArrayList<Map.Entry<Long, ByteBuffer>>();
+    for (Map.Entry<? extends K, ? extends V> entry : remappingFunction.apply(currentValues.entrySet())) {
+      K key = entry.getKey();
+      V value = entry.getValue();
+      V currentValue = currentValues.get(key);
+      if (value == null) {
+        if (currentValue != null) {
+          appends.add(encode(new RemoveOperation<K>(key)));
+        }
+        result.put(key, null);
+      } else {
+        if (currentValue == null || !value.equals(currentValue) || replaceEqual.apply()) {
+          appends.add(encode(new PutOperation<K, V>(key, value)));
+        }
+        result.put(key, new ClusteredValueHolder<V>(value));
+      }
+    }
+    if (!appends.isEmpty()) {
+      storeProxy.appendAll(appends);
+    }
+    return result;
   }
 
+  /**
+   * {@inheritDoc}
+   * <P>
+   *   The current values are read with one pipelined round of multi-key reads, and the mappings computed for
+   *   absent keys written with one pipelined round of multi-key appends, rather than one invocation per key.
+   * </P>
+   */
   @Override
   public Map<K, ValueHolder<V>> bulkComputeIfAbsent(final Set<? extends K> keys, final Function<Iterable<? extends K>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> mappingFunction)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    List<K> absentKeys = new ArrayList<K>();
+    for (Map.Entry<K, V> entry : resolveAll(keys).entrySet()) {
+      if (entry.getValue() == null) {
+        absentKeys.add(entry.getKey());
+      } else {
+        result.put(entry.getKey(), new ClusteredValueHolder<V>(entry.getValue()));
+      }
+    }
+    if (absentKeys.isEmpty()) {
+      return result;
+    }
+
+    List<Map.Entry<Long, ByteBuffer>> appends = new ArrayList<Map.Entry<Long, ByteBuffer>>();
+    for (Map.Entry<? extends K, ? extends V> entry : mappingFunction.apply(absentKeys)) {
+      K key = entry.getKey();
+      V value = entry.getValue();
+      if (value == null) {
+        result.put(key, null);
+      } else {
+        appends.add(encode(new PutOperation<K, V>(key, value)));
+        result.put(key, new ClusteredValueHolder<V>(value));
+      }
+    }
+    if (!appends.isEmpty()) {
+      storeProxy.appendAll(appends);
+    }
+    return result;
   }
 
   @Override
@@ -212,8 +410,12 @@ public class ClusteredStore<K, V> implements Store<K, V> {
 
   /**
    * Provider of {@link ClusteredStore} instances.
+   * <P>
+   *   When the cache is also configured with a heap, and optionally offheap, resource the provided store is a
+   *   {@link TieredStore} caching the clustered mappings locally, these local copies being invalidated by the server.
+   * </P>
    */
-  @ServiceDependencies({ClusteringService.class})
+  @ServiceDependencies({ClusteringService.class, ExecutionService.class, OnHeapStore.Provider.class, OffHeapStore.Provider.class, CompoundCachingTier.Provider.class})
   public static class Provider implements Store.Provider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Provider.class);
@@ -225,9 +427,19 @@ public class ClusteredStore<K, V> implements Store<K, V> {
       CLUSTER_RESOURCES = Collections.unmodifiableSet(resourceTypes);
     }
 
+    private static final Set<Set<ResourceType.Core>> CACHING_RESOURCES = Collections.unmodifiableSet(new HashSet<Set<ResourceType.Core>>(Arrays.asList(
+        Collections.<ResourceType.Core>emptySet(),
+        Collections.singleton(ResourceType.Core.HEAP),
+        new HashSet<ResourceType.Core>(Arrays.asList(ResourceType.Core.HEAP, ResourceType.Core.OFFHEAP)))));
+
     private volatile ServiceProvider<Service> serviceProvider;
     private volatile ClusteringService clusteringService;
 
+    /**
+     * Periodically sends the chain compactions left pending by idle stores, {@code null} if no executor is available.
+     */
+    private volatile ScheduledExecutorService compactionFlusher;
+
     private final Map<Store<?, ?>, StoreConfig> createdStores = new ConcurrentWeakIdentityHashMap<Store<?, ?>, StoreConfig>();
 
     @Override
@@ -236,8 +448,8 @@ public class ClusteredStore<K, V> implements Store<K, V> {
         throw new IllegalStateException(Provider.class.getCanonicalName() + ".createStore called without ClusteringServiceConfiguration");
       }
 
-      final HashSet<ResourceType<?>> clusteredResourceTypes =
-          new HashSet<ResourceType<?>>(storeConfig.getResourcePools().getResourceTypeSet());
+      final Set<ResourceType<?>> resourceTypes = storeConfig.getResourcePools().getResourceTypeSet();
+      final HashSet<ResourceType<?>> clusteredResourceTypes = new HashSet<ResourceType<?>>(resourceTypes);
       clusteredResourceTypes.retainAll(CLUSTER_RESOURCES);
 
       if (clusteredResourceTypes.isEmpty()) {
@@ -246,25 +458,68 @@ public class ClusteredStore<K, V> implements Store<K, V> {
       if (clusteredResourceTypes.size() != 1) {
         throw new IllegalStateException(Provider.class.getCanonicalName() + ".createStore can not create store with multiple clustered resources");
       }
+      final HashSet<ResourceType<?>> cachingResourceTypes = new HashSet<ResourceType<?>>(resourceTypes);
+      cachingResourceTypes.removeAll(CLUSTER_RESOURCES);
+      if (!CACHING_RESOURCES.contains(cachingResourceTypes)) {
+        throw new IllegalStateException(Provider.class.getCanonicalName() + ".createStore can not cache clustered mappings in " + cachingResourceTypes);
+      }
 
-      // TODO: Create tiered configuration ala org.ehcache.impl.internal.store.tiering.CacheStore.Provider
       ClusteredCacheIdentifier cacheId = findSingletonAmongst(ClusteredCacheIdentifier.class, (Object[]) serviceConfigs);
+      ClusteredStoreConfiguration clusteredStoreConfiguration = findSingletonAmongst(ClusteredStoreConfiguration.class, (Object[]) serviceConfigs);
+      if (clusteredStoreConfiguration == null) {
+        clusteredStoreConfiguration = new ClusteredStoreConfiguration(Consistency.EVENTUAL);
+      }
+      Consistency consistency = clusteredStoreConfiguration.getConsistency();
+
       OperationCodecProvider<K, V> codecProvider =
           new OperationCodecProvider<K, V>(storeConfig.getKeySerializer(), storeConfig.getValueSerializer());
       OperationsCodec<K, V> codec = new OperationsCodec<K, V>(codecProvider);
       ChainResolver<K, V> resolver = new ChainResolver<K, V>(codec);
-      Store<K, V> store = new ClusteredStore<K, V>(codec, resolver);
-      createdStores.put(store, new StoreConfig(cacheId, storeConfig));
+      ClusteredStore<K, V> clusteredStore = new ClusteredStore<K, V>(codec, resolver, clusteredStoreConfiguration, storeConfig.getStatisticsConfiguration());
+
+      if (cachingResourceTypes.isEmpty()) {
+        createdStores.put(clusteredStore, new StoreConfig(cacheId, storeConfig, consistency, clusteredStore, null, null));
+        return clusteredStore;
+      }
+
+      CachingTier.Provider cachingTierProvider;
+      List<ServiceConfiguration<?>> cachingTierConfigs = new ArrayList<ServiceConfiguration<?>>(Arrays.asList(serviceConfigs));
+      if (cachingResourceTypes.contains(ResourceType.Core.OFFHEAP)) {
+        cachingTierProvider = serviceProvider.getService(CompoundCachingTier.Provider.class);
+        cachingTierConfigs.add(new CompoundCachingTierServiceConfiguration()
+            .higherProvider(OnHeapStore.Provider.class)
+            .lowerProvider(OffHeapStore.Provider.class));
+      } else {
+        cachingTierProvider = serviceProvider.getService(OnHeapStore.Provider.class);
+      }
+      CachingTier<K, V> cachingTier = cachingTierProvider.createCachingTier(storeConfig,
+          cachingTierConfigs.toArray(new ServiceConfiguration<?>[cachingTierConfigs.size()]));
+
+      Store<K, V> store = new TieredStore<K, V>(cachingTier, clusteredStore, storeConfig.getStatisticsConfiguration());
+      createdStores.put(store, new StoreConfig(cacheId, storeConfig, consistency, clusteredStore, cachingTierProvider, cachingTier));
       return store;
     }
 
     @Override
     public void releaseStore(final Store<?, ?> resource) {
-      if (createdStores.remove(resource) == null) {
+      StoreConfig storeConfig = createdStores.remove(resource);
+      if (storeConfig == null) {
         throw new IllegalArgumentException("Given store is not managed by this provider : " + resource);
       }
-      ClusteredStore clusteredStore = (ClusteredStore)resource;
-      this.clusteringService.releaseServerStoreProxy(clusteredStore.storeProxy);
+      ClusteredStore<?, ?> clusteredStore = storeConfig.getClusteredStore();
+      try {
+        if (storeConfig.getCachingTierProvider() != null) {
+          storeConfig.getCachingTierProvider().releaseCachingTier(storeConfig.getCachingTier());
+        }
+        if (clusteredStore.compactionFlush != null) {
+          clusteredStore.compactionFlush.cancel(false);
+        }
+        clusteredStore.compactor.flush();
+      } catch (ServerStoreProxyException e) {
+        LOGGER.warn("Error sending the pending chain compactions of {}", clusteredStore.storeProxy.getCacheId(), e);
+      } finally {
+        this.clusteringService.releaseServerStoreProxy(clusteredStore.storeProxy);
+      }
     }
 
     @Override
@@ -273,27 +528,67 @@ public class ClusteredStore<K, V> implements Store<K, V> {
       if (storeConfig == null) {
         throw new IllegalArgumentException("Given store is not managed by this provider : " + resource);
       }
-      ClusteredStore clusteredStore = (ClusteredStore) resource;
-      clusteredStore.storeProxy = clusteringService.getServerStoreProxy(storeConfig.getCacheIdentifier(), storeConfig.getStoreConfig());
+      ClusteredStore<?, ?> clusteredStore = storeConfig.getClusteredStore();
+      clusteredStore.setStoreProxy(clusteringService.getServerStoreProxy(storeConfig.getCacheIdentifier(),
+          storeConfig.getStoreConfig(), storeConfig.getConsistency(), clusteredStore.keyHasher,
+          storeConfig.getCachingTier() != null));
+      ScheduledExecutorService flusher = compactionFlusher;
+      if (flusher != null) {
+        final ChainCompactor compactor = clusteredStore.compactor;
+        final String cacheId = clusteredStore.storeProxy.getCacheId();
+        clusteredStore.compactionFlush = flusher.scheduleWithFixedDelay(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              compactor.flushIfDue();
+            } catch (ServerStoreProxyException e) {
+              LOGGER.warn("Error sending the pending chain compactions of {}", cacheId, e);
+            }
+          }
+        }, ChainCompactor.DEFAULT_MAX_DELAY_MILLIS, ChainCompactor.DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      if (storeConfig.getCachingTierProvider() != null) {
+        storeConfig.getCachingTierProvider().initCachingTier(storeConfig.getCachingTier());
+      }
     }
 
     @Override
     public int rank(final Set<ResourceType<?>> resourceTypes, final Collection<ServiceConfiguration<?>> serviceConfigs) {
-      if (clusteringService == null || resourceTypes.size() > 1 || Collections.disjoint(resourceTypes, CLUSTER_RESOURCES)) {
+      if (clusteringService == null) {
         // A ClusteredStore requires a ClusteringService *and* ClusteredResourcePool instances
         return 0;
       }
-      return 1;
+      Set<ResourceType<?>> clusteredResourceTypes = new HashSet<ResourceType<?>>(resourceTypes);
+      clusteredResourceTypes.retainAll(CLUSTER_RESOURCES);
+      Set<ResourceType<?>> cachingResourceTypes = new HashSet<ResourceType<?>>(resourceTypes);
+      cachingResourceTypes.removeAll(CLUSTER_RESOURCES);
+      if (clusteredResourceTypes.size() != 1 || !CACHING_RESOURCES.contains(cachingResourceTypes)) {
+        return 0;
+      }
+      return resourceTypes.size();
     }
 
     @Override
     public void start(final ServiceProvider<Service> serviceProvider) {
       this.serviceProvider = serviceProvider;
       this.clusteringService = this.serviceProvider.getService(ClusteringService.class);
+      ExecutionService executionService = this.serviceProvider.getService(ExecutionService.class);
+      if (executionService != null) {
+        try {
+          this.compactionFlusher = executionService.getScheduledExecutor(null);
+        } catch (IllegalArgumentException e) {
+          LOGGER.warn("No default thread pool, chain compactions will only be sent as further ones are requested", e);
+        }
+      }
     }
 
     @Override
     public void stop() {
+      ScheduledExecutorService flusher = compactionFlusher;
+      compactionFlusher = null;
+      if (flusher != null) {
+        flusher.shutdown();
+      }
       this.serviceProvider = null;
       createdStores.clear();
     }
@@ -304,10 +599,19 @@ public class ClusteredStore<K, V> implements Store<K, V> {
 
     private final ClusteredCacheIdentifier cacheIdentifier;
     private final Store.Configuration storeConfig;
+    private final Consistency consistency;
+    private final ClusteredStore<?, ?> clusteredStore;
+    private final CachingTier.Provider cachingTierProvider;
+    private final CachingTier<?, ?> cachingTier;
 
-    StoreConfig(ClusteredCacheIdentifier cacheIdentifier, Store.Configuration storeConfig) {
+    StoreConfig(ClusteredCacheIdentifier cacheIdentifier, Store.Configuration storeConfig, Consistency consistency,
+                ClusteredStore<?, ?> clusteredStore, CachingTier.Provider cachingTierProvider, CachingTier<?, ?> cachingTier) {
       this.cacheIdentifier = cacheIdentifier;
       this.storeConfig = storeConfig;
+      this.consistency = consistency;
+      this.clusteredStore = clusteredStore;
+      this.cachingTierProvider = cachingTierProvider;
+      this.cachingTier = cachingTier;
     }
 
     public Configuration getStoreConfig() {
@@ -317,5 +621,21 @@ public class ClusteredStore<K, V> implements Store<K, V> {
     public ClusteredCacheIdentifier getCacheIdentifier() {
       return this.cacheIdentifier;
     }
+
+    public Consistency getConsistency() {
+      return this.consistency;
+    }
+
+    public ClusteredStore<?, ?> getClusteredStore() {
+      return this.clusteredStore;
+    }
+
+    public CachingTier.Provider getCachingTierProvider() {
+      return this.cachingTierProvider;
+    }
+
+    public CachingTier<?, ?> getCachingTier() {
+      return this.cachingTier;
+    }
   }
 }
@@ -17,24 +17,129 @@
 package org.ehcache.clustered.client.internal.store;
 
 import org.ehcache.clustered.client.internal.EhcacheClientEntity;
+import org.ehcache.clustered.common.Consistency;
+import org.ehcache.clustered.common.messages.ConcurrencyBuckets;
 import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.clustered.common.store.ServerStore;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Provides client-side access to the services of a {@code ServerStore}.
+ * <P>
+ *   For {@link Consistency#STRONG STRONG} stores, the modifications of a mapping only return once the server reported
+ *   that all the other clients caching that mapping acknowledged its invalidation.  Modifications of a given key
+ *   hash are then performed one at a time.
+ * </P>
  */
 public class ServerStoreProxy implements ServerStore {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServerStoreProxy.class);
+
+  /**
+   * Receives the invalidations the server pushes for the mappings held locally by this client.
+   */
+  public interface InvalidationListener {
+
+    /**
+     * Called when the mappings for the given key hash must be invalidated.
+     *
+     * @param hash the key hash
+     */
+    void onInvalidateHash(long hash);
+  }
+
   private final String cacheId;
+  private final int storeId;
+  private final int concurrency;
   private final EhcacheClientEntity entity;
+  private final boolean strong;
+  private final EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.InvalidateHash> invalidateHashListener;
+  private final EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.HashInvalidationDone> hashInvalidationDoneListener;
+
+  /**
+   * The modifications of a {@link Consistency#STRONG STRONG} store awaiting the server's
+   * {@link EhcacheEntityResponse.HashInvalidationDone HashInvalidationDone}, by the key hash their message was
+   * routed on.
+   */
+  private final ConcurrentMap<Long, CountDownLatch> hashInvalidationsInProgress = new ConcurrentHashMap<Long, CountDownLatch>();
+
+  private volatile InvalidationListener invalidationListener;
 
-  public ServerStoreProxy(String cacheId, EhcacheClientEntity entity) {
+  public ServerStoreProxy(String cacheId, int storeId, int concurrency, EhcacheClientEntity entity) {
+    this(cacheId, storeId, concurrency, entity, Consistency.EVENTUAL);
+  }
+
+  public ServerStoreProxy(String cacheId, final int storeId, int concurrency, final EhcacheClientEntity entity, Consistency consistency) {
     this.cacheId = cacheId;
+    this.storeId = storeId;
+    this.concurrency = concurrency;
     this.entity = entity;
+    this.strong = consistency == Consistency.STRONG;
+    this.invalidateHashListener = new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.InvalidateHash>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.InvalidateHash response) {
+        if (response.getStoreId() != storeId) {
+          return;
+        }
+        InvalidationListener listener = invalidationListener;
+        if (listener != null) {
+          listener.onInvalidateHash(response.getKey());
+        }
+        if (response.getInvalidationId() != EhcacheEntityResponse.InvalidateHash.NO_ACK) {
+          try {
+            entity.invokeAsync(EhcacheEntityMessage.clientInvalidationAck(storeId, response.getKey(), response.getInvalidationId()));
+          } catch (Exception e) {
+            LOGGER.error("Unable to acknowledge the invalidation of key hash {}", response.getKey(), e);
+          }
+        }
+      }
+    };
+    this.hashInvalidationDoneListener = new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.HashInvalidationDone>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.HashInvalidationDone response) {
+        if (response.getStoreId() == storeId) {
+          CountDownLatch latch = hashInvalidationsInProgress.remove(response.getKey());
+          if (latch != null) {
+            latch.countDown();
+          }
+        }
+      }
+    };
+    entity.addResponseListener(EhcacheEntityResponse.InvalidateHash.class, invalidateHashListener);
+    entity.addResponseListener(EhcacheEntityResponse.HashInvalidationDone.class, hashInvalidationDoneListener);
+  }
+
+  /**
+   * Sets the listener receiving the invalidations pushed by the server for this store.
+   *
+   * @param invalidationListener the listener
+   */
+  public void setInvalidationListener(InvalidationListener invalidationListener) {
+    this.invalidationListener = invalidationListener;
+  }
+
+  /**
+   * Stops receiving the invalidations pushed by the server for this store.
+   */
+  public void close() {
+    entity.removeResponseListener(EhcacheEntityResponse.InvalidateHash.class, invalidateHashListener);
+    entity.removeResponseListener(EhcacheEntityResponse.HashInvalidationDone.class, hashInvalidationDoneListener);
   }
 
   /**
@@ -46,11 +151,20 @@ public class ServerStoreProxy implements ServerStore {
     return cacheId;
   }
 
+  /**
+   * Gets the identifier the server assigned to the {@code ServerStore} instance, carried by store operations.
+   *
+   * @return the store identifier
+   */
+  public int getStoreId() {
+    return storeId;
+  }
+
   @Override
   public Chain get(long key) {
     EhcacheEntityResponse response;
     try {
-      response = entity.invoke(EhcacheEntityMessage.getOperation(cacheId, key), false);
+      response = entity.invoke(EhcacheEntityMessage.getOperation(storeId, key), false);
     } catch (Exception e) {
       throw new ServerStoreProxyException(e);
     }
@@ -64,21 +178,27 @@ public class ServerStoreProxy implements ServerStore {
 
   @Override
   public void append(long key, ByteBuffer payLoad) {
+    CountDownLatch invalidation = beginHashInvalidation(key);
     try {
-      entity.invoke(EhcacheEntityMessage.appendOperation(cacheId, key, payLoad), true);
+      entity.invoke(EhcacheEntityMessage.appendOperation(storeId, key, payLoad), true);
     } catch (Exception e) {
+      abortHashInvalidation(key, invalidation);
       throw new ServerStoreProxyException(e);
     }
+    awaitHashInvalidation(invalidation);
   }
 
   @Override
   public Chain getAndAppend(long key, ByteBuffer payLoad) {
     EhcacheEntityResponse response;
+    CountDownLatch invalidation = beginHashInvalidation(key);
     try {
-      response = entity.invoke(EhcacheEntityMessage.getAndAppendOperation(cacheId, key, payLoad), true);
+      response = entity.invoke(EhcacheEntityMessage.getAndAppendOperation(storeId, key, payLoad), true);
     } catch (Exception e) {
+      abortHashInvalidation(key, invalidation);
       throw new ServerStoreProxyException(e);
     }
+    awaitHashInvalidation(invalidation);
     if (response != null && response.getType() == EhcacheEntityResponse.Type.GET_RESPONSE) {
       return ((EhcacheEntityResponse.GetResponse)response).getChain();
     } else {
@@ -91,9 +211,187 @@ public class ServerStoreProxy implements ServerStore {
   public void replaceAtHead(long key, Chain expect, Chain update) {
     // TODO: Optimize this method to just send sequences for expect Chain
     try {
-      entity.invoke(EhcacheEntityMessage.replaceAtHeadOperation(cacheId, key, expect, update), true);
+      entity.invoke(EhcacheEntityMessage.replaceAtHeadOperation(storeId, key, expect, update), true);
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+  }
+
+  /**
+   * Replaces the head of the chains of several keys, without waiting for the server to apply them.  Replacements
+   * are grouped in one message per server concurrency bucket, so that each is ordered with the other operations on
+   * its key.  As with {@link #replaceAtHead(long, Chain, Chain)}, each replacement only happens if its expected chain
+   * is still a prefix of the current one.
+   *
+   * @param replacements the expected and updated chains, by key hash
+   */
+  public void replaceAtHeadAsync(Map<Long, ? extends Map.Entry<Chain, Chain>> replacements) {
+    Map<Integer, Map<Long, Map.Entry<Chain, Chain>>> buckets = new LinkedHashMap<Integer, Map<Long, Map.Entry<Chain, Chain>>>();
+    for (Map.Entry<Long, ? extends Map.Entry<Chain, Chain>> replacement : replacements.entrySet()) {
+      int bucket = ConcurrencyBuckets.bucket(storeId, replacement.getKey(), concurrency);
+      Map<Long, Map.Entry<Chain, Chain>> bucketReplacements = buckets.get(bucket);
+      if (bucketReplacements == null) {
+        bucketReplacements = new LinkedHashMap<Long, Map.Entry<Chain, Chain>>();
+        buckets.put(bucket, bucketReplacements);
+      }
+      bucketReplacements.put(replacement.getKey(), replacement.getValue());
+    }
+
+    try {
+      for (Map<Long, Map.Entry<Chain, Chain>> bucket : buckets.values()) {
+        entity.invokeAsync(EhcacheEntityMessage.replaceAtHeadBatchOperation(storeId, bucket));
+      }
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+  }
+
+  /**
+   * Gets the chains of several keys.  Keys are grouped in one message per server concurrency bucket, all sent
+   * before awaiting any response.
+   *
+   * @param keys the key hashes
+   * @return the chains, by key hash
+   */
+  public Map<Long, Chain> getAll(Collection<Long> keys) {
+    List<EhcacheEntityMessage> messages = new ArrayList<EhcacheEntityMessage>();
+    List<long[]> messageKeys = new ArrayList<long[]>();
+    for (List<Long> bucket : byBucket(keys).values()) {
+      long[] bucketKeys = new long[bucket.size()];
+      for (int i = 0; i < bucketKeys.length; i++) {
+        bucketKeys[i] = bucket.get(i);
+      }
+      messages.add(EhcacheEntityMessage.getAllOperation(storeId, bucketKeys));
+      messageKeys.add(bucketKeys);
+    }
+
+    List<EhcacheEntityResponse> responses;
+    try {
+      responses = entity.invokeAll(messages, false);
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+
+    Map<Long, Chain> chains = new HashMap<Long, Chain>();
+    for (int i = 0; i < responses.size(); i++) {
+      EhcacheEntityResponse response = responses.get(i);
+      if (response == null || response.getType() != EhcacheEntityResponse.Type.GET_ALL_RESPONSE) {
+        throw new ServerStoreProxyException("Response for getAll operation was invalid : " +
+                                            (response != null ? response.getType().toString() : "null message"));
+      }
+      long[] bucketKeys = messageKeys.get(i);
+      List<Chain> bucketChains = ((EhcacheEntityResponse.GetAllResponse)response).getChains();
+      for (int j = 0; j < bucketKeys.length; j++) {
+        chains.put(bucketKeys[j], bucketChains.get(j));
+      }
+    }
+    return chains;
+  }
+
+  /**
+   * Appends to the chains of several keys.  Appends are grouped in one message per server concurrency bucket, all
+   * sent before awaiting any response; appends to a given key are applied in order.
+   *
+   * @param appends the payloads to append, by key hash
+   */
+  public void appendAll(List<? extends Map.Entry<Long, ByteBuffer>> appends) {
+    Map<Integer, List<Map.Entry<Long, ByteBuffer>>> buckets = new LinkedHashMap<Integer, List<Map.Entry<Long, ByteBuffer>>>();
+    for (Map.Entry<Long, ByteBuffer> append : appends) {
+      int bucket = ConcurrencyBuckets.bucket(storeId, append.getKey(), concurrency);
+      List<Map.Entry<Long, ByteBuffer>> bucketAppends = buckets.get(bucket);
+      if (bucketAppends == null) {
+        bucketAppends = new ArrayList<Map.Entry<Long, ByteBuffer>>();
+        buckets.put(bucket, bucketAppends);
+      }
+      bucketAppends.add(append);
+    }
+
+    // sorted by routing key, so that concurrent callers begin their hash invalidations in the same order
+    Map<Long, EhcacheEntityMessage> messages = new TreeMap<Long, EhcacheEntityMessage>();
+    for (List<Map.Entry<Long, ByteBuffer>> bucket : buckets.values()) {
+      long[] keys = new long[bucket.size()];
+      ByteBuffer[] payloads = new ByteBuffer[bucket.size()];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = bucket.get(i).getKey();
+        payloads[i] = bucket.get(i).getValue();
+      }
+      messages.put(keys[0], EhcacheEntityMessage.appendBatchOperation(storeId, keys, payloads));
+    }
+
+    Map<Long, CountDownLatch> invalidations = new HashMap<Long, CountDownLatch>();
+    for (Long routingKey : messages.keySet()) {
+      invalidations.put(routingKey, beginHashInvalidation(routingKey));
+    }
+    try {
+      entity.invokeAll(new ArrayList<EhcacheEntityMessage>(messages.values()), true);
     } catch (Exception e) {
+      for (Map.Entry<Long, CountDownLatch> invalidation : invalidations.entrySet()) {
+        abortHashInvalidation(invalidation.getKey(), invalidation.getValue());
+      }
       throw new ServerStoreProxyException(e);
     }
+    for (CountDownLatch invalidation : invalidations.values()) {
+      awaitHashInvalidation(invalidation);
+    }
+  }
+
+  /**
+   * Registers a modification routed on {@code key}, once no other modification routed on it is in progress.
+   *
+   * @param key the key hash the modifying message is routed on
+   * @return the latch released on the server's {@code HashInvalidationDone}, {@code null} unless the store is
+   *        {@link Consistency#STRONG STRONG}
+   */
+  private CountDownLatch beginHashInvalidation(long key) {
+    if (!strong) {
+      return null;
+    }
+    CountDownLatch latch = new CountDownLatch(1);
+    while (true) {
+      CountDownLatch existing = hashInvalidationsInProgress.putIfAbsent(key, latch);
+      if (existing == null) {
+        return latch;
+      }
+      awaitHashInvalidation(existing);
+    }
+  }
+
+  private void abortHashInvalidation(long key, CountDownLatch latch) {
+    if (latch != null) {
+      hashInvalidationsInProgress.remove(key, latch);
+      latch.countDown();
+    }
+  }
+
+  private static void awaitHashInvalidation(CountDownLatch latch) {
+    if (latch == null) {
+      return;
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Map<Integer, List<Long>> byBucket(Collection<Long> keys) {
+    Map<Integer, List<Long>> buckets = new LinkedHashMap<Integer, List<Long>>();
+    for (Long key : keys) {
+      int bucket = ConcurrencyBuckets.bucket(storeId, key, concurrency);
+      List<Long> bucketKeys = buckets.get(bucket);
+      if (bucketKeys == null) {
+        bucketKeys = new ArrayList<Long>();
+        buckets.put(bucket, bucketKeys);
+      }
+      bucketKeys.add(key);
+    }
+    return buckets;
   }
 }
@@ -22,6 +22,13 @@ import static org.ehcache.clustered.client.internal.store.operations.codecs.Oper
 import static org.ehcache.clustered.client.internal.store.operations.codecs.OperationCodecFactory.RemoveOperationCodecFactory;
 import static org.ehcache.clustered.client.internal.store.operations.codecs.OperationCodecFactory.PutIfAbsentOperationCodecFactory;
 
+/**
+ * Operation type tags, leading every encoded operation.
+ * <P>
+ *   The server compacts chains by reading these tags, see {@code OperationChainResolver}: values and encodings
+ *   must not change without updating it.
+ * </P>
+ */
 public enum OperationCode {
 
   PUT((byte)1, new PutOperationCodecFactory()),
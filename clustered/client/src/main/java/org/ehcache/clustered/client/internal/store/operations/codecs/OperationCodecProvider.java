@@ -43,6 +43,10 @@ public class OperationCodecProvider<K, V> {
     return map;
   }
 
+  public Serializer<K> getKeySerializer() {
+    return keySerializer;
+  }
+
   public OperationCodec<K> getOperationCodec(OperationCode code) {
     return operationCodeVsCodecMap.get(code);
   }
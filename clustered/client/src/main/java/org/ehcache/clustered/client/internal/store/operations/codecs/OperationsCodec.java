@@ -38,6 +38,38 @@ public class OperationsCodec<K, V> {
     return codecProvider.getOperationCodec(opCode).encode(operation);
   }
 
+  /**
+   * Serializes a key the way operations encode it.
+   *
+   * @param key the key
+   * @return the serialized key
+   */
+  public ByteBuffer encodeKey(K key) {
+    return codecProvider.getKeySerializer().serialize(key);
+  }
+
+  /**
+   * Returns the serialized key of an encoded operation, without copying it.
+   *
+   * @param encodedOperation an operation encoded by this codec, left unmodified
+   * @return a view of the serialized key
+   */
+  public static ByteBuffer encodedKey(ByteBuffer encodedOperation) {
+    ByteBuffer key = encodedOperation.duplicate();
+    int start = key.position();
+    switch (OperationCode.valueOf(key.get(start))) {
+      case PUT:
+      case PUT_IF_ABSENT:
+        key.position(start + BYTE_SIZE_BYTES + INT_SIZE_BYTES);
+        key.limit(key.position() + key.getInt(start + BYTE_SIZE_BYTES));
+        break;
+      default:
+        key.position(start + BYTE_SIZE_BYTES);
+        break;
+    }
+    return key.slice();
+  }
+
   public Operation<K> decode(ByteBuffer buffer) {
     OperationCode opCode = OperationCode.valueOf(buffer.get());
     buffer.rewind();
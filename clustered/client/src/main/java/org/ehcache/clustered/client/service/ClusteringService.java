@@ -17,7 +17,9 @@
 package org.ehcache.clustered.client.service;
 
 import org.ehcache.clustered.client.config.ClusteringServiceConfiguration;
+import org.ehcache.clustered.client.config.KeyHasher;
 import org.ehcache.clustered.client.internal.store.ServerStoreProxy;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.spi.service.PersistableResourceService;
 import org.ehcache.spi.service.ServiceConfiguration;
@@ -36,12 +38,16 @@ public interface ClusteringService extends PersistableResourceService {
    *                        {@code ServerStoreProxy} is requested
    * @param storeConfig the configuration used for the {@link Store} for which the {@code ServerStoreProxy}
    *                    is requested
+   * @param consistency the consistency with which clients holding mappings locally are invalidated
+   * @param keyHasher the hash function the store addresses its chains with
+   * @param caching whether the store holds mappings in a local caching tier, to be invalidated by the server
    * @param <K> the cache-exposed key type
    * @param <V> the cache-exposed value type
    *
    * @return a new {@code ServerStoreProxy}
    */
-  <K, V> ServerStoreProxy getServerStoreProxy(ClusteredCacheIdentifier cacheIdentifier, final Store.Configuration<K, V> storeConfig);
+  <K, V> ServerStoreProxy getServerStoreProxy(ClusteredCacheIdentifier cacheIdentifier, final Store.Configuration<K, V> storeConfig,
+                                              Consistency consistency, KeyHasher keyHasher, boolean caching);
 
   /**
    * Releases access to a {@link ServerStoreProxy} and the server-resident {@code ServerStore} it represents.
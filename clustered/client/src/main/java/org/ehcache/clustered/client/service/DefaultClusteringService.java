@@ -31,6 +31,8 @@ import org.ehcache.clustered.client.internal.EhcacheEntityCreationException;
 import org.ehcache.clustered.client.internal.store.ServerStoreProxy;
 import org.ehcache.clustered.common.ClusteredStoreCreationException;
 import org.ehcache.clustered.common.ClusteredStoreValidationException;
+import org.ehcache.clustered.client.config.KeyHasher;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.client.internal.EhcacheClientEntity;
 
@@ -38,6 +40,7 @@ import org.ehcache.clustered.client.internal.EhcacheClientEntityFactory;
 import org.ehcache.clustered.client.config.ClusteredResourceType;
 import org.ehcache.clustered.client.config.ClusteringServiceConfiguration;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.ResourcePool;
 import org.ehcache.config.ResourceType;
@@ -220,7 +223,8 @@ class DefaultClusteringService implements ClusteringService {
 
   @Override
   public <K, V> ServerStoreProxy getServerStoreProxy(final ClusteredCacheIdentifier cacheIdentifier,
-                                                     final Store.Configuration<K, V> storeConfig) {
+                                                     final Store.Configuration<K, V> storeConfig,
+                                                     Consistency consistency, KeyHasher keyHasher, boolean caching) {
     final String cacheId = cacheIdentifier.getId();
 
     /*
@@ -247,33 +251,37 @@ class DefaultClusteringService implements ClusteringService {
         null, // TODO: Need actual key type -- cache wrappers can wrap key/value types
         null, // TODO: Need actual value type -- cache wrappers can wrap key/value types
         (storeConfig.getKeySerializer() == null ? null : storeConfig.getKeySerializer().getClass().getName()),
-        (storeConfig.getValueSerializer() == null ? null : storeConfig.getValueSerializer().getClass().getName())
+        (storeConfig.getValueSerializer() == null ? null : storeConfig.getValueSerializer().getClass().getName()),
+        consistency,
+        keyHasher.getAlgorithm()
     );
 
+    EhcacheEntityResponse.StoreIdResponse store;
     if (autoCreate) {
       try {
-        this.entity.validateCache(cacheId, clientStoreConfiguration);
+        store = this.entity.validateCache(cacheId, clientStoreConfiguration, caching);
       } catch (CachePersistenceException e) {
         try {
-          this.entity.createCache(cacheId, clientStoreConfiguration);
+          store = this.entity.createCache(cacheId, clientStoreConfiguration, caching);
         } catch (CachePersistenceException ex) {
           throw new ClusteredStoreCreationException("Error creating server-side cache for " + cacheId, ex);
         }
       }
     } else {
       try {
-        this.entity.validateCache(cacheId, clientStoreConfiguration);
+        store = this.entity.validateCache(cacheId, clientStoreConfiguration, caching);
       } catch (CachePersistenceException e) {
         throw new ClusteredStoreValidationException("Error validating server-side cache for " + cacheId, e);
       }
     }
 
-    return new ServerStoreProxy(cacheId, entity);
+    return new ServerStoreProxy(cacheId, store.getStoreId(), store.getConcurrency(), entity, consistency);
   }
 
   @Override
   public void releaseServerStoreProxy(ServerStoreProxy storeProxy) {
     final String cacheId = storeProxy.getCacheId();
+    storeProxy.close();
 
     try {
       this.entity.releaseCache(cacheId);
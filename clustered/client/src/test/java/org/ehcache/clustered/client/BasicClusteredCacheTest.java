@@ -20,8 +20,10 @@ import org.ehcache.Cache;
 import org.ehcache.PersistentCacheManager;
 import org.ehcache.clustered.client.internal.UnitTestConnectionService;
 import org.ehcache.clustered.client.config.builders.ClusteredResourcePoolBuilder;
+import org.ehcache.clustered.client.config.ClusteredStoreConfiguration;
 import org.ehcache.clustered.client.config.builders.ClusteringServiceConfigurationBuilder;
 import org.ehcache.clustered.client.internal.UnitTestConnectionService.PassthroughServerBuilder;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
@@ -33,8 +35,14 @@ import org.junit.Test;
 import org.terracotta.passthrough.PassthroughServer;
 
 import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -80,6 +88,45 @@ public class BasicClusteredCacheTest {
     cacheManager.close();
   }
 
+  @Test
+  public void testClusteredCacheBulkOperationsTwoClients() throws Exception {
+
+    final CacheManagerBuilder<PersistentCacheManager> clusteredCacheManagerBuilder =
+        CacheManagerBuilder.newCacheManagerBuilder()
+            .with(ClusteringServiceConfigurationBuilder.cluster(CLUSTER_URI)
+                .defaultServerResource("primary-server-resource"))
+            .withCache("clustered-cache", CacheConfigurationBuilder.newCacheConfigurationBuilder(Long.class, String.class,
+                ResourcePoolsBuilder.newResourcePoolsBuilder()
+                    .with(ClusteredResourcePoolBuilder.fixed("primary-server-resource", 2, MemoryUnit.MB))));
+
+    final PersistentCacheManager cacheManager1 = clusteredCacheManagerBuilder.build(true);
+    final PersistentCacheManager cacheManager2 = clusteredCacheManagerBuilder.build(true);
+
+    final Cache<Long, String> cache1 = cacheManager1.getCache("clustered-cache", Long.class, String.class);
+    final Cache<Long, String> cache2 = cacheManager2.getCache("clustered-cache", Long.class, String.class);
+
+    Map<Long, String> entries = new HashMap<Long, String>();
+    for (long i = 0; i < 100; i++) {
+      entries.put(i, "value" + i);
+    }
+    cache1.putAll(entries);
+
+    Set<Long> keys = new HashSet<Long>(entries.keySet());
+    keys.add(100L);
+    Map<Long, String> all = cache2.getAll(keys);
+    assertThat(all.size(), is(101));
+    for (long i = 0; i < 100; i++) {
+      assertThat(all.get(i), is("value" + i));
+    }
+    assertThat(all.get(100L), is(nullValue()));
+
+    cache2.removeAll(entries.keySet());
+    assertThat(cache1.get(42L), is(nullValue()));
+
+    cacheManager2.close();
+    cacheManager1.close();
+  }
+
   @Test
   public void testClusteredCacheTwoClients() throws Exception {
 
@@ -108,4 +155,34 @@ public class BasicClusteredCacheTest {
     cacheManager2.close();
     cacheManager1.close();
   }
+
+  @Test
+  public void testTieredClusteredCacheTwoClients() throws Exception {
+
+    final CacheManagerBuilder<PersistentCacheManager> clusteredCacheManagerBuilder =
+        CacheManagerBuilder.newCacheManagerBuilder()
+            .with(ClusteringServiceConfigurationBuilder.cluster(CLUSTER_URI)
+                .defaultServerResource("primary-server-resource"))
+            .withCache("clustered-cache", CacheConfigurationBuilder.newCacheConfigurationBuilder(Long.class, String.class,
+                ResourcePoolsBuilder.newResourcePoolsBuilder()
+                    .heap(10, EntryUnit.ENTRIES)
+                    .with(ClusteredResourcePoolBuilder.fixed("primary-server-resource", 2, MemoryUnit.MB)))
+                .add(new ClusteredStoreConfiguration(Consistency.STRONG)));
+
+    final PersistentCacheManager cacheManager1 = clusteredCacheManagerBuilder.build(true);
+    final PersistentCacheManager cacheManager2 = clusteredCacheManagerBuilder.build(true);
+
+    final Cache<Long, String> cache1 = cacheManager1.getCache("clustered-cache", Long.class, String.class);
+    final Cache<Long, String> cache2 = cacheManager2.getCache("clustered-cache", Long.class, String.class);
+
+    cache1.put(1L, "value");
+    assertThat(cache2.get(1L), is("value"));
+
+    cache1.put(1L, "newValue");
+    assertThat(cache1.get(1L), is("newValue"));
+    assertThat(cache2.get(1L), is("newValue"));
+
+    cacheManager2.close();
+    cacheManager1.close();
+  }
 }
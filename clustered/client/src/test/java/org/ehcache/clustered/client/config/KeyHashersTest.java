@@ -0,0 +1,58 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.config;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class KeyHashersTest {
+
+  @Test
+  public void testHashCodeIgnoresSerializedKey() {
+    assertThat(KeyHashers.HASH_CODE.hash(-42, ByteBuffer.wrap(new byte[] {1})), is(-42L));
+    assertThat(KeyHashers.HASH_CODE.hash(-42, ByteBuffer.wrap(new byte[] {2})), is(-42L));
+  }
+
+  @Test
+  public void testSerializedKeyKeepsHashCodeInLowerHalf() {
+    long hash = KeyHashers.SERIALIZED_KEY.hash(-42, ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    assertThat((int) hash, is(-42));
+  }
+
+  @Test
+  public void testSerializedKeySeparatesCollidingHashCodes() {
+    long first = KeyHashers.SERIALIZED_KEY.hash(0, ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}));
+    long second = KeyHashers.SERIALIZED_KEY.hash(0, ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 10}));
+    long third = KeyHashers.SERIALIZED_KEY.hash(0, ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}));
+    assertThat(first, not(second));
+    assertThat(first, not(third));
+    assertThat(second, not(third));
+  }
+
+  @Test
+  public void testSerializedKeyIsStableAndReadOnly() {
+    ByteBuffer key = ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    key.position(1);
+    long hash = KeyHashers.SERIALIZED_KEY.hash(7, key);
+    assertThat(key.position(), is(1));
+    assertThat(KeyHashers.SERIALIZED_KEY.hash(7, ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})), is(hash));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.ehcache.clustered.common.store.Util.createPayload;
+import static org.ehcache.clustered.common.store.Util.getChain;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class ChainCompactorTest {
+
+  @Test
+  public void testLengthThreshold() {
+    ChainCompactor compactor = new ChainCompactor(mock(ServerStoreProxy.class), 2, Integer.MAX_VALUE, 1);
+
+    assertThat(compactor.requiresCompaction(getChain(false)), is(false));
+    assertThat(compactor.requiresCompaction(getChain(false, createPayload(1L), createPayload(2L))), is(false));
+    assertThat(compactor.requiresCompaction(getChain(false, createPayload(1L), createPayload(2L), createPayload(3L))), is(true));
+  }
+
+  @Test
+  public void testByteThreshold() {
+    ChainCompactor compactor = new ChainCompactor(mock(ServerStoreProxy.class), Integer.MAX_VALUE, 16, 1);
+
+    assertThat(compactor.requiresCompaction(getChain(false, createPayload(1L), createPayload(2L))), is(false));
+    assertThat(compactor.requiresCompaction(getChain(false, createPayload(1L), createPayload(2L), createPayload(3L))), is(true));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCompactionsAreBatched() {
+    ServerStoreProxy storeProxy = mock(ServerStoreProxy.class);
+    ChainCompactor compactor = new ChainCompactor(storeProxy, 0, 0, 3);
+
+    Chain expect = getChain(false, createPayload(1L), createPayload(2L));
+    Chain update = getChain(false, createPayload(2L));
+    compactor.compact(1L, getChain(false, createPayload(1L)), getChain(false));
+    compactor.compact(2L, getChain(false, createPayload(3L)), getChain(false));
+    verifyZeroInteractions(storeProxy);
+    compactor.compact(1L, expect, update);
+
+    ArgumentCaptor<Map> batch = ArgumentCaptor.forClass(Map.class);
+    verify(storeProxy).replaceAtHeadAsync(batch.capture());
+    Map<Long, Map.Entry<Chain, Chain>> replacements = batch.getValue();
+    assertThat(replacements.keySet(), contains(1L, 2L));
+    assertThat(replacements.get(1L).getKey(), sameInstance(expect));
+    assertThat(replacements.get(1L).getValue(), sameInstance(update));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFlushSendsPendingCompactions() {
+    ServerStoreProxy storeProxy = mock(ServerStoreProxy.class);
+    ChainCompactor compactor = new ChainCompactor(storeProxy, 0, 0, 8);
+
+    compactor.flush();
+    verifyZeroInteractions(storeProxy);
+
+    compactor.compact(1L, getChain(false, createPayload(1L)), getChain(false));
+    compactor.flush();
+    ArgumentCaptor<Map> batch = ArgumentCaptor.forClass(Map.class);
+    verify(storeProxy).replaceAtHeadAsync(batch.capture());
+    assertThat(((Map<Long, Map.Entry<Chain, Chain>>) batch.getValue()).keySet(), contains(1L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFlushIfDueWaitsForTheMaximumDelay() throws Exception {
+    ServerStoreProxy storeProxy = mock(ServerStoreProxy.class);
+    ChainCompactor compactor = new ChainCompactor(storeProxy, 0, 0, 8, 50, TimeUnit.MILLISECONDS);
+
+    compactor.flushIfDue();
+    compactor.compact(1L, getChain(false, createPayload(1L)), getChain(false));
+    compactor.flushIfDue();
+    verifyZeroInteractions(storeProxy);
+
+    TimeUnit.MILLISECONDS.sleep(100);
+    compactor.flushIfDue();
+    verify(storeProxy).replaceAtHeadAsync(any(Map.class));
+  }
+}
@@ -23,6 +23,7 @@ import org.ehcache.clustered.client.internal.UnitTestConnectionService;
 import org.ehcache.clustered.client.internal.UnitTestConnectionService.PassthroughServerBuilder;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.clustered.common.store.Element;
 import org.ehcache.config.units.MemoryUnit;
@@ -33,8 +34,13 @@ import org.junit.Test;
 import org.terracotta.connection.Connection;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.junit.Assert.assertThat;
@@ -66,10 +72,10 @@ public class ServerStoreProxyTest {
 
     ClusteredResourcePool resourcePool = ClusteredResourcePoolBuilder.fixed(16L, MemoryUnit.MB);
 
-    clientEntity.createCache(CACHE_IDENTIFIER, new ServerStoreConfiguration(resourcePool.getPoolAllocation(), Long.class.getName(),
+    EhcacheEntityResponse.StoreIdResponse store = clientEntity.createCache(CACHE_IDENTIFIER, new ServerStoreConfiguration(resourcePool.getPoolAllocation(), Long.class.getName(),
         Long.class.getName(), Long.class.getName(), Long.class.getName(), LongSerializer.class.getName(), LongSerializer.class
         .getName()));
-    serverStoreProxy = new ServerStoreProxy(CACHE_IDENTIFIER, clientEntity);
+    serverStoreProxy = new ServerStoreProxy(CACHE_IDENTIFIER, store.getStoreId(), store.getConcurrency(), clientEntity);
   }
 
   @AfterClass
@@ -136,6 +142,22 @@ public class ServerStoreProxyTest {
     assertChainHas(chain, 5L, 55L, 555L);
   }
 
+  @Test
+  public void testAppendAllAndGetAll() {
+    List<Map.Entry<Long, ByteBuffer>> appends = Arrays.<Map.Entry<Long, ByteBuffer>>asList(
+        new AbstractMap.SimpleImmutableEntry<Long, ByteBuffer>(6L, createPayload(6L)),
+        new AbstractMap.SimpleImmutableEntry<Long, ByteBuffer>(7L, createPayload(7L)),
+        new AbstractMap.SimpleImmutableEntry<Long, ByteBuffer>(6L, createPayload(66L)));
+    serverStoreProxy.appendAll(appends);
+
+    Map<Long, Chain> chains = serverStoreProxy.getAll(Arrays.asList(6L, 7L, 8L));
+
+    assertThat(chains.size(), is(3));
+    assertChainHas(chains.get(6L), 6L, 66L);
+    assertChainHas(chains.get(7L), 7L);
+    assertThat(chains.get(8L).isEmpty(), is(true));
+  }
+
   @Test
   public void testReplaceAtHeadSuccessFull() {
     serverStoreProxy.append(20L, createPayload(200L));
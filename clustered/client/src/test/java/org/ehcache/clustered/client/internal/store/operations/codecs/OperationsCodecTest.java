@@ -18,6 +18,9 @@ package org.ehcache.clustered.client.internal.store.operations.codecs;
 
 import org.ehcache.clustered.client.internal.store.operations.OperationCode;
 import org.ehcache.clustered.client.internal.store.operations.PutOperation;
+import org.ehcache.clustered.client.internal.store.operations.RemoveOperation;
+import org.ehcache.impl.serialization.LongSerializer;
+import org.ehcache.impl.serialization.StringSerializer;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
@@ -63,6 +66,21 @@ public class OperationsCodecTest {
     verify(putOperationCodec).decode(buffer);
   }
 
+  @Test
+  public void encodedKey() throws Exception {
+    OperationsCodec<Long, String> codec = new OperationsCodec<Long, String>(
+        new OperationCodecProvider<Long, String>(new LongSerializer(), new StringSerializer()));
+    ByteBuffer key = codec.encodeKey(42L);
+
+    ByteBuffer put = codec.encode(new PutOperation<Long, String>(42L, "value"));
+    assertEquals(key, OperationsCodec.encodedKey(put));
+    assertEquals(0, put.position());
+
+    ByteBuffer remove = codec.encode(new RemoveOperation<Long>(42L));
+    assertEquals(key, OperationsCodec.encodedKey(remove));
+    assertEquals(0, remove.position());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void decodeInvalidOperation() throws Exception {
     ByteBuffer buffer = mock(ByteBuffer.class);
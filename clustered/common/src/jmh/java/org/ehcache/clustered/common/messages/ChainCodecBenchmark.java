@@ -0,0 +1,104 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common.messages;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.common.store.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding and decoding of chains, on their own and as part of the replaceAtHead messages and get
+ * responses carrying them, for chains of increasing length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChainCodecBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  public int chainLength;
+
+  @Param({"64"})
+  public int payloadSize;
+
+  private Chain chain;
+  private byte[] encodedChain;
+  private ServerStoreOpMessage replaceAtHeadMessage;
+  private byte[] encodedReplaceAtHeadMessage;
+  private EhcacheEntityResponse getResponse;
+  private byte[] encodedGetResponse;
+
+  @Setup
+  public void setUp() {
+    ByteBuffer[] payloads = new ByteBuffer[chainLength];
+    for (int i = 0; i < chainLength; i++) {
+      payloads[i] = ByteBuffer.allocate(payloadSize);
+    }
+    chain = Util.getChain(true, payloads);
+    encodedChain = ChainCodec.encode(chain);
+    replaceAtHeadMessage = (ServerStoreOpMessage) EhcacheEntityMessage.replaceAtHeadOperation(0, 42L, chain,
+        Util.getChain(false, ByteBuffer.allocate(payloadSize)));
+    encodedReplaceAtHeadMessage = ServerStoreOpCodec.encode(replaceAtHeadMessage);
+    getResponse = EhcacheEntityResponse.response(chain);
+    encodedGetResponse = ResponseCodec.encode(getResponse);
+  }
+
+  @Benchmark
+  public byte[] encodeChain() {
+    return ChainCodec.encode(chain);
+  }
+
+  @Benchmark
+  public Chain decodeChain() {
+    return ChainCodec.decode(encodedChain);
+  }
+
+  @Benchmark
+  public byte[] encodeReplaceAtHead() {
+    return ServerStoreOpCodec.encode(replaceAtHeadMessage);
+  }
+
+  @Benchmark
+  public EhcacheEntityMessage decodeReplaceAtHead() {
+    return ServerStoreOpCodec.decode(encodedReplaceAtHeadMessage);
+  }
+
+  @Benchmark
+  public byte[] encodeGetResponse() {
+    return ResponseCodec.encode(getResponse);
+  }
+
+  @Benchmark
+  public EhcacheEntityResponse decodeGetResponse() {
+    return ResponseCodec.decode(encodedGetResponse);
+  }
+}
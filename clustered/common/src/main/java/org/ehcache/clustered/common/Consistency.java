@@ -0,0 +1,32 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common;
+
+/**
+ * Consistency guarantees of a clustered cache holding mappings in local caching tiers.
+ */
+public enum Consistency {
+
+  /**
+   * A write completes only once all other clients holding the mapping locally have invalidated it.
+   */
+  STRONG,
+
+  /**
+   * A write completes without waiting for other clients holding the mapping locally to invalidate it.
+   */
+  EVENTUAL
+}
@@ -70,6 +70,8 @@ public class ServerStoreCompatibility {
     isCompatible &= compareField(sb, "actualValueType", serverConfiguration.getActualValueType(), clientConfiguration.getActualValueType());
     isCompatible &= compareField(sb, "keySerializerType", serverConfiguration.getKeySerializerType(), clientConfiguration.getKeySerializerType());
     isCompatible &= compareField(sb, "valueSerializerType", serverConfiguration.getValueSerializerType(), clientConfiguration.getValueSerializerType());
+    isCompatible &= compareField(sb, "consistency", String.valueOf(serverConfiguration.getConsistency()), String.valueOf(clientConfiguration.getConsistency()));
+    isCompatible &= compareField(sb, "keyHashing", serverConfiguration.getKeyHashing(), clientConfiguration.getKeyHashing());
 
     if (!isCompatible) {
       throw new ClusteredStoreValidationException(sb.toString());
@@ -35,6 +35,8 @@ public class ServerStoreConfiguration implements Serializable {
   private final String actualValueType;
   private final String keySerializerType;
   private final String valueSerializerType;
+  private final Consistency consistency;
+  private final String keyHashing;
   // TODO: Loader/Writer configuration ...
 
   public ServerStoreConfiguration(PoolAllocation poolAllocation,
@@ -44,6 +46,31 @@ public class ServerStoreConfiguration implements Serializable {
                                   String actualValueType,
                                   String keySerializerType,
                                   String valueSerializerType) {
+    this(poolAllocation, storedKeyType, storedValueType, actualKeyType, actualValueType, keySerializerType,
+        valueSerializerType, Consistency.EVENTUAL);
+  }
+
+  public ServerStoreConfiguration(PoolAllocation poolAllocation,
+                                  String storedKeyType,
+                                  String storedValueType,
+                                  String actualKeyType,
+                                  String actualValueType,
+                                  String keySerializerType,
+                                  String valueSerializerType,
+                                  Consistency consistency) {
+    this(poolAllocation, storedKeyType, storedValueType, actualKeyType, actualValueType, keySerializerType,
+        valueSerializerType, consistency, null);
+  }
+
+  public ServerStoreConfiguration(PoolAllocation poolAllocation,
+                                  String storedKeyType,
+                                  String storedValueType,
+                                  String actualKeyType,
+                                  String actualValueType,
+                                  String keySerializerType,
+                                  String valueSerializerType,
+                                  Consistency consistency,
+                                  String keyHashing) {
     this.poolAllocation = poolAllocation;
     this.storedKeyType = storedKeyType;
     this.storedValueType = storedValueType;
@@ -51,6 +78,8 @@ public class ServerStoreConfiguration implements Serializable {
     this.actualValueType = actualValueType;
     this.keySerializerType = keySerializerType;
     this.valueSerializerType = valueSerializerType;
+    this.consistency = consistency;
+    this.keyHashing = keyHashing;
   }
 
   public PoolAllocation getPoolAllocation() {
@@ -81,6 +110,24 @@ public class ServerStoreConfiguration implements Serializable {
     return valueSerializerType;
   }
 
+  /**
+   * Gets the consistency with which clients holding mappings of this store locally are invalidated.
+   *
+   * @return the store consistency
+   */
+  public Consistency getConsistency() {
+    return consistency;
+  }
+
+  /**
+   * Gets the name of the hash function clients address the chains of this store with.
+   *
+   * @return the key hashing algorithm, {@code null} if unspecified
+   */
+  public String getKeyHashing() {
+    return keyHashing;
+  }
+
   public interface PoolAllocation extends Serializable {
 
     /**
@@ -18,101 +18,103 @@ package org.ehcache.clustered.common.messages;
 import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.clustered.common.store.Element;
 import org.ehcache.clustered.common.store.SequencedElement;
-import org.ehcache.clustered.common.store.Util;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 import static org.ehcache.clustered.common.store.Util.getElement;
 import static org.ehcache.clustered.common.store.Util.getChain;
 
 /**
- *
+ * Encodes {@link Chain}s to, and decodes them from, their binary representation.
+ * <P>
+ *   Encoding sizes the chain in a first pass so that it is written to a single buffer, possibly shared with the
+ *   enclosing message.  Decoded elements are views over the decoded buffer rather than copies of it.
+ * </P>
  */
 public class ChainCodec {
 
   private static final byte NON_SEQUENCED_CHAIN = 0;
   private static final byte SEQUENCED_CHAIN = 1;
+  private static final byte CHAIN_TYPE_OFFSET = 1;
   private static final byte SEQ_NUM_OFFSET = 8;
   private static final byte ELEMENT_PAYLOAD_OFFSET = 4;
 
-  //TODO: optimize too many bytebuffer allocation
   public static byte[] encode(Chain chain) {
-    ByteBuffer msg = null;
-    boolean firstIteration = true ;
+    ByteBuffer msg = ByteBuffer.allocate(encodedSize(chain));
+    encode(chain, msg);
+    return msg.array();
+  }
+
+  /**
+   * Returns the number of bytes {@link #encode(Chain, ByteBuffer)} writes for the given chain.
+   *
+   * @param chain the chain to encode
+   * @return the encoded size
+   */
+  public static int encodedSize(Chain chain) {
+    int size = 0;
     for (Element element : chain) {
-      if (firstIteration) {
-        firstIteration = false;
-        ByteBuffer buffer = ByteBuffer.allocate(1);
-        if (element instanceof SequencedElement) {
-          buffer.put(SEQUENCED_CHAIN);
-        } else {
-          buffer.put(NON_SEQUENCED_CHAIN);
-        }
-        buffer.flip();
-        msg = combine(buffer, encodeElement(element));
-        continue;
+      if (size == 0) {
+        size = CHAIN_TYPE_OFFSET;
       }
-      if (msg == null) {
-        throw new IllegalArgumentException("Message cannot be null");
+      if (element instanceof SequencedElement) {
+        size += SEQ_NUM_OFFSET;
       }
-      msg = combine(msg, encodeElement(element));
+      size += ELEMENT_PAYLOAD_OFFSET + element.getPayload().remaining();
     }
-    return msg != null ? msg.array() : new byte[0];
+    return size;
   }
 
-  public static Chain decode(byte[] payload) {
-    final List<Element> elements = new ArrayList<Element>();
-    if (payload.length != 0) {
-      ByteBuffer buffer = ByteBuffer.wrap(payload);
-      boolean isSequenced = buffer.get() == 1;
-      if (isSequenced) {
-        while (buffer.hasRemaining()) {
-          long sequence = buffer.getLong();
-          int payloadSize = buffer.getInt();
-          buffer.limit(buffer.position() + payloadSize);
-          ByteBuffer elementPayload = buffer.slice();
-          buffer.position(buffer.limit());
-          buffer.limit(buffer.capacity());
-          elements.add(getElement(sequence, elementPayload));
-        }
-      } else {
-        while (buffer.hasRemaining()) {
-          int payloadSize = buffer.getInt();
-          buffer.limit(buffer.position() + payloadSize);
-          ByteBuffer elementPayload = buffer.slice();
-          buffer.position(buffer.limit());
-          buffer.limit(buffer.capacity());
-          elements.add(getElement(elementPayload));
-        }
+  /**
+   * Writes the given chain at the position of {@code msg}, which must have {@link #encodedSize(Chain)} bytes
+   * remaining.
+   *
+   * @param chain the chain to encode
+   * @param msg the buffer to write to
+   */
+  public static void encode(Chain chain, ByteBuffer msg) {
+    boolean firstIteration = true;
+    for (Element element : chain) {
+      if (firstIteration) {
+        firstIteration = false;
+        msg.put(element instanceof SequencedElement ? SEQUENCED_CHAIN : NON_SEQUENCED_CHAIN);
+      }
+      ByteBuffer payload = element.getPayload();
+      if (element instanceof SequencedElement) {
+        msg.putLong(((SequencedElement)element).getSequenceNumber());
       }
+      msg.putInt(payload.remaining());
+      msg.put(payload);
     }
-    return getChain(elements);
   }
 
-  private static ByteBuffer combine(ByteBuffer buffer1, ByteBuffer buffer2) {
-    ByteBuffer byteBuffer = ByteBuffer.allocate(buffer1.remaining() + buffer2.remaining());
-    byteBuffer.put(buffer1);
-    byteBuffer.put(buffer2);
-    byteBuffer.flip();
-    return byteBuffer;
+  public static Chain decode(byte[] payload) {
+    return decode(ByteBuffer.wrap(payload));
   }
 
-  private static ByteBuffer encodeElement(Element element) {
-    ByteBuffer buffer = null;
-    if (element instanceof SequencedElement) {
-      buffer = ByteBuffer.allocate(SEQ_NUM_OFFSET + ELEMENT_PAYLOAD_OFFSET + element.getPayload().remaining());
-      buffer.putLong(((SequencedElement)element).getSequenceNumber());
-    } else {
-      buffer = ByteBuffer.allocate(ELEMENT_PAYLOAD_OFFSET + element.getPayload().remaining());
+  /**
+   * Decodes the chain held by the remaining bytes of {@code buffer}, whose position is left unchanged.  The
+   * payloads of the returned elements are slices of {@code buffer}.
+   *
+   * @param buffer the encoded chain
+   * @return the decoded chain
+   */
+  public static Chain decode(ByteBuffer buffer) {
+    final List<Element> elements = new ArrayList<Element>();
+    ByteBuffer msg = buffer.slice();
+    if (msg.hasRemaining()) {
+      boolean isSequenced = msg.get() == SEQUENCED_CHAIN;
+      while (msg.hasRemaining()) {
+        long sequence = isSequenced ? msg.getLong() : 0L;
+        int payloadSize = msg.getInt();
+        ByteBuffer elementPayload = msg.slice();
+        elementPayload.limit(payloadSize);
+        msg.position(msg.position() + payloadSize);
+        elements.add(isSequenced ? getElement(sequence, elementPayload) : getElement(elementPayload));
+      }
     }
-    buffer.putInt(element.getPayload().remaining());
-    buffer.put(element.getPayload());
-    buffer.flip();
-    return buffer;
-
+    return getChain(elements);
   }
 }
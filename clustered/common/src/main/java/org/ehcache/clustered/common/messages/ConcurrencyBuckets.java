@@ -0,0 +1,45 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common.messages;
+
+/**
+ * Spreads the keys of server stores over the concurrency keys the server runs {@link ServerStoreOpMessage}s on.
+ * <P>
+ *   Clients group the keys of multi-key operations by bucket so that every key of such an operation shares the
+ *   concurrency key of its single-key operations, keeping their ordering.
+ * </P>
+ */
+public final class ConcurrencyBuckets {
+
+  private ConcurrencyBuckets() {
+    // static only
+  }
+
+  /**
+   * Returns the bucket of a key of a store.
+   *
+   * @param storeId the store identifier
+   * @param key the key hash
+   * @param bucketCount the number of buckets
+   * @return the bucket, between {@code 0} inclusive and {@code bucketCount} exclusive
+   */
+  public static int bucket(int storeId, long key, int bucketCount) {
+    int hash = storeId * 31 + (int) (key ^ (key >>> 32));
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    hash ^= (hash >>> 7) ^ (hash >>> 4);
+    return (hash & Integer.MAX_VALUE) % bucketCount;
+  }
+}
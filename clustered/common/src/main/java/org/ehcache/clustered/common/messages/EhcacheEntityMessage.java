@@ -16,6 +16,9 @@
 package org.ehcache.clustered.common.messages;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.ehcache.clustered.common.ServerStoreConfiguration;
 import org.ehcache.clustered.common.ServerSideConfiguration;
@@ -23,6 +26,7 @@ import org.ehcache.clustered.common.store.Chain;
 import org.terracotta.entity.EntityMessage;
 
 import static org.ehcache.clustered.common.messages.LifecycleMessage.CreateServerStore;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.ServerStoreCreated;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ReleaseServerStore;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ValidateServerStore;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ValidateCacheManager;
@@ -37,7 +41,8 @@ public abstract class EhcacheEntityMessage implements EntityMessage {
   public enum Type {
 
     SERVER_STORE_OP((byte)0),
-    LIFECYCLE_OP((byte)1);
+    LIFECYCLE_OP((byte)1),
+    SYNC_OP((byte)2);
 
     private final byte opCode;
 
@@ -61,11 +66,23 @@ public abstract class EhcacheEntityMessage implements EntityMessage {
   }
 
   public static EhcacheEntityMessage createServerStore(String name, ServerStoreConfiguration serverStoreConfiguration) {
-    return new CreateServerStore(name, serverStoreConfiguration);
+    return createServerStore(name, serverStoreConfiguration, false);
+  }
+
+  public static EhcacheEntityMessage createServerStore(String name, ServerStoreConfiguration serverStoreConfiguration, boolean caching) {
+    return new CreateServerStore(name, serverStoreConfiguration, caching);
+  }
+
+  public static EhcacheEntityMessage serverStoreCreated(String name, ServerStoreConfiguration serverStoreConfiguration, int storeId) {
+    return new ServerStoreCreated(name, serverStoreConfiguration, storeId);
   }
 
   public static EhcacheEntityMessage validateServerStore(String name, ServerStoreConfiguration serverStoreConfiguration) {
-    return new ValidateServerStore(name, serverStoreConfiguration);
+    return validateServerStore(name, serverStoreConfiguration, false);
+  }
+
+  public static EhcacheEntityMessage validateServerStore(String name, ServerStoreConfiguration serverStoreConfiguration, boolean caching) {
+    return new ValidateServerStore(name, serverStoreConfiguration, caching);
   }
 
   public static EhcacheEntityMessage releaseServerStore(String name) {
@@ -76,21 +93,66 @@ public abstract class EhcacheEntityMessage implements EntityMessage {
     return new DestroyServerStore(name);
   }
 
-  public static EhcacheEntityMessage getOperation(String cacheId, long key) {
-    return new ServerStoreOpMessage.GetMessage(cacheId, key);
+  public static EhcacheEntityMessage stateSync(ServerSideConfiguration configuration,
+                                               Map<String, ServerStoreConfiguration> storeConfigurations,
+                                               Map<String, Integer> storeIds) {
+    return new EntitySyncMessage.StateSyncMessage(configuration, storeConfigurations, storeIds);
+  }
+
+  public static EhcacheEntityMessage dataSync(int storeId, Map<Long, Chain> chains) {
+    return new EntitySyncMessage.DataSyncMessage(storeId, chains);
+  }
+
+  public static EhcacheEntityMessage getOperation(int storeId, long key) {
+    return new ServerStoreOpMessage.GetMessage(storeId, key);
+  }
+
+  public static EhcacheEntityMessage getAndAppendOperation(int storeId, long key, ByteBuffer payload) {
+    return new ServerStoreOpMessage.GetAndAppendMessage(storeId, key, payload);
   }
 
-  public static EhcacheEntityMessage getAndAppendOperation(String cacheId, long key, ByteBuffer payload) {
-    return new ServerStoreOpMessage.GetAndAppendMessage(cacheId, key, payload);
+  public static EhcacheEntityMessage appendOperation(int storeId, long key, ByteBuffer payload) {
+    return new ServerStoreOpMessage.AppendMessage(storeId, key, payload);
   }
 
-  public static EhcacheEntityMessage appendOperation(String cacheId, long key, ByteBuffer payload) {
-    return new ServerStoreOpMessage.AppendMessage(cacheId, key, payload);
+  public static EhcacheEntityMessage replaceAtHeadOperation(int storeId, long key, Chain expect, Chain update) {
+    return new ServerStoreOpMessage.ReplaceAtHeadMessage(storeId, key, expect, update);
   }
 
-  public static EhcacheEntityMessage replaceAtHeadOperation(String cacheId, long key, Chain expect, Chain update) {
-    return new ServerStoreOpMessage.ReplaceAtHeadMessage(cacheId, key, expect, update);
+  public static EhcacheEntityMessage replaceAtHeadBatchOperation(int storeId, Map<Long, ? extends Map.Entry<Chain, Chain>> replacements) {
+    if (replacements.isEmpty()) {
+      throw new IllegalArgumentException("A batch must hold at least one replacement");
+    }
+    List<ServerStoreOpMessage.ReplaceAtHeadMessage> messages = new ArrayList<ServerStoreOpMessage.ReplaceAtHeadMessage>(replacements.size());
+    for (Map.Entry<Long, ? extends Map.Entry<Chain, Chain>> replacement : replacements.entrySet()) {
+      messages.add(new ServerStoreOpMessage.ReplaceAtHeadMessage(storeId, replacement.getKey(),
+          replacement.getValue().getKey(), replacement.getValue().getValue()));
+    }
+    return new ServerStoreOpMessage.ReplaceAtHeadBatchMessage(storeId, messages);
   }
 
+  public static EhcacheEntityMessage clientInvalidationAck(int storeId, long key, int invalidationId) {
+    return new ServerStoreOpMessage.ClientInvalidationAck(storeId, key, invalidationId);
+  }
 
+  public static EhcacheEntityMessage getAllOperation(int storeId, long[] keys) {
+    if (keys.length == 0) {
+      throw new IllegalArgumentException("A batch must hold at least one key");
+    }
+    return new ServerStoreOpMessage.GetAllMessage(storeId, keys);
+  }
+
+  public static EhcacheEntityMessage appendBatchOperation(int storeId, long[] keys, ByteBuffer[] payloads) {
+    if (keys.length == 0) {
+      throw new IllegalArgumentException("A batch must hold at least one append");
+    }
+    if (keys.length != payloads.length) {
+      throw new IllegalArgumentException("Got " + keys.length + " keys for " + payloads.length + " payloads");
+    }
+    List<ServerStoreOpMessage.AppendMessage> messages = new ArrayList<ServerStoreOpMessage.AppendMessage>(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      messages.add(new ServerStoreOpMessage.AppendMessage(storeId, keys[i], payloads[i]));
+    }
+    return new ServerStoreOpMessage.AppendBatchMessage(storeId, messages);
+  }
 }
@@ -19,6 +19,8 @@ package org.ehcache.clustered.common.messages;
 import org.ehcache.clustered.common.store.Chain;
 import org.terracotta.entity.EntityResponse;
 
+import java.util.List;
+
 /**
  *
  * @author cdennis
@@ -28,7 +30,11 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
   public enum Type {
     SUCCESS((byte) 0),
     FAILURE((byte) 1),
-    GET_RESPONSE((byte) 2);
+    GET_RESPONSE((byte) 2),
+    INVALIDATE_HASH((byte) 3),
+    STORE_ID((byte) 4),
+    GET_ALL_RESPONSE((byte) 5),
+    HASH_INVALIDATION_DONE((byte) 6);
 
     private final byte opCode;
 
@@ -48,6 +54,14 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
           return FAILURE;
         case 2:
           return GET_RESPONSE;
+        case 3:
+          return INVALIDATE_HASH;
+        case 4:
+          return STORE_ID;
+        case 5:
+          return GET_ALL_RESPONSE;
+        case 6:
+          return HASH_INVALIDATION_DONE;
         default:
           throw new IllegalArgumentException("Store operation not defined for : " + opCode);
       }
@@ -118,4 +132,148 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
     }
   }
 
+  public static InvalidateHash invalidateHash(int storeId, long key) {
+    return invalidateHash(storeId, key, InvalidateHash.NO_ACK);
+  }
+
+  public static InvalidateHash invalidateHash(int storeId, long key, int invalidationId) {
+    return new InvalidateHash(storeId, key, invalidationId);
+  }
+
+  /**
+   * Sent by the server to the clients that may hold a mapping for {@code key} in a local caching tier,
+   * once that mapping has been modified by another client.
+   * <P>
+   *   Unless its invalidation id is {@link #NO_ACK}, the client acknowledges it with a
+   *   {@link ServerStoreOpMessage.ClientInvalidationAck} carrying that id.
+   * </P>
+   */
+  public static class InvalidateHash extends EhcacheEntityResponse {
+
+    /**
+     * The invalidation id of invalidations not awaiting any acknowledgement.
+     */
+    public static final int NO_ACK = -1;
+
+    private final int storeId;
+    private final long key;
+    private final int invalidationId;
+
+    private InvalidateHash(int storeId, long key, int invalidationId) {
+      this.storeId = storeId;
+      this.key = key;
+      this.invalidationId = invalidationId;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.INVALIDATE_HASH;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public long getKey() {
+      return key;
+    }
+
+    public int getInvalidationId() {
+      return invalidationId;
+    }
+  }
+
+  public static HashInvalidationDone hashInvalidationDone(int storeId, long key) {
+    return new HashInvalidationDone(storeId, key);
+  }
+
+  /**
+   * Sent by the server to a client which modified a mapping of a {@link org.ehcache.clustered.common.Consistency#STRONG
+   * strongly} consistent store, once all the other clients holding that mapping acknowledged its invalidation.
+   * <P>
+   *   The key is the one the modifying message was routed on.
+   * </P>
+   */
+  public static class HashInvalidationDone extends EhcacheEntityResponse {
+
+    private final int storeId;
+    private final long key;
+
+    private HashInvalidationDone(int storeId, long key) {
+      this.storeId = storeId;
+      this.key = key;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.HASH_INVALIDATION_DONE;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public long getKey() {
+      return key;
+    }
+  }
+
+  public static StoreIdResponse storeId(int storeId, int concurrency) {
+    return new StoreIdResponse(storeId, concurrency);
+  }
+
+  /**
+   * Returned to a client creating or validating a {@code ServerStore}: the identifier to address that store with
+   * in subsequent {@link ServerStoreOpMessage}s, and the number of {@link ConcurrencyBuckets concurrency buckets}
+   * its operations are spread over.
+   */
+  public static class StoreIdResponse extends EhcacheEntityResponse {
+
+    private final int storeId;
+    private final int concurrency;
+
+    private StoreIdResponse(int storeId, int concurrency) {
+      this.storeId = storeId;
+      this.concurrency = concurrency;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.STORE_ID;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public int getConcurrency() {
+      return concurrency;
+    }
+  }
+
+  public static GetAllResponse response(List<Chain> chains) {
+    return new GetAllResponse(chains);
+  }
+
+  /**
+   * The chains of the keys of a {@link ServerStoreOpMessage.GetAllMessage}, in the order of those keys.
+   */
+  public static class GetAllResponse extends EhcacheEntityResponse {
+
+    private final List<Chain> chains;
+
+    private GetAllResponse(List<Chain> chains) {
+      this.chains = chains;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.GET_ALL_RESPONSE;
+    }
+
+    public List<Chain> getChains() {
+      return chains;
+    }
+  }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common.messages;
+
+import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.store.Chain;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Messages an {@code EhcacheActiveEntity} sends to its passives while bringing them up to date.
+ * <P>
+ *   Each synchronized concurrency key starts with a {@link StateSyncMessage}, which passives apply only once, followed
+ *   by the {@link DataSyncMessage}s carrying the chains of the keys mapped to that concurrency key.
+ * </P>
+ */
+public abstract class EntitySyncMessage extends EhcacheEntityMessage {
+
+  public enum SyncOp {
+    STATE((byte) 0),
+    DATA((byte) 1);
+
+    private final byte syncOpCode;
+
+    SyncOp(byte syncOpCode) {
+      this.syncOpCode = syncOpCode;
+    }
+
+    public byte getSyncOpCode() {
+      return syncOpCode;
+    }
+
+    public static SyncOp syncOp(byte syncOpCode) {
+      switch (syncOpCode) {
+        case 0:
+          return STATE;
+        case 1:
+          return DATA;
+        default:
+          throw new IllegalArgumentException("Sync operation not defined for : " + syncOpCode);
+      }
+    }
+  }
+
+  @Override
+  public Type getType() {
+    return Type.SYNC_OP;
+  }
+
+  public abstract SyncOp operation();
+
+  /**
+   * Carries the configuration of the entity and of all its stores.
+   */
+  public static class StateSyncMessage extends EntitySyncMessage implements Serializable {
+    private static final long serialVersionUID = -2924538637392548462L;
+
+    private final ServerSideConfiguration configuration;
+    private final Map<String, ServerStoreConfiguration> storeConfigurations;
+    private final Map<String, Integer> storeIds;
+
+    StateSyncMessage(ServerSideConfiguration configuration, Map<String, ServerStoreConfiguration> storeConfigurations,
+                     Map<String, Integer> storeIds) {
+      this.configuration = configuration;
+      this.storeConfigurations = new LinkedHashMap<String, ServerStoreConfiguration>(storeConfigurations);
+      this.storeIds = new LinkedHashMap<String, Integer>(storeIds);
+    }
+
+    @Override
+    public SyncOp operation() {
+      return SyncOp.STATE;
+    }
+
+    public ServerSideConfiguration getConfiguration() {
+      return configuration;
+    }
+
+    public Map<String, ServerStoreConfiguration> getStoreConfigurations() {
+      return Collections.unmodifiableMap(storeConfigurations);
+    }
+
+    public Map<String, Integer> getStoreIds() {
+      return Collections.unmodifiableMap(storeIds);
+    }
+  }
+
+  /**
+   * Carries a chunk of the chains of a store, in their stored binary form.
+   */
+  public static class DataSyncMessage extends EntitySyncMessage {
+
+    private final int storeId;
+    private final Map<Long, Chain> chains;
+
+    DataSyncMessage(int storeId, Map<Long, Chain> chains) {
+      this.storeId = storeId;
+      this.chains = new LinkedHashMap<Long, Chain>(chains);
+    }
+
+    @Override
+    public SyncOp operation() {
+      return SyncOp.DATA;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public Map<Long, Chain> getChains() {
+      return Collections.unmodifiableMap(chains);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common.messages;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.entity.SyncMessageCodec;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.DataSyncMessage;
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.StateSyncMessage;
+
+/**
+ * Encodes the {@link EntitySyncMessage}s sent from an active to its passives.
+ * <P>
+ *   State messages are serialized.  Data messages are written as a sequence of key and encoded chain pairs, so that
+ *   chains are copied as they are stored rather than decoded into operations.
+ * </P>
+ */
+public class EntitySyncMessageCodec implements SyncMessageCodec<EhcacheEntityMessage> {
+
+  private static final SyncMessageCodec<EhcacheEntityMessage> INSTANCE = new EntitySyncMessageCodec();
+
+  private static final byte HEADER_SIZE = 2;
+  private static final byte STORE_ID_SIZE = 4;
+  private static final byte CHAIN_COUNT_SIZE = 4;
+  private static final byte KEY_SIZE = 8;
+  private static final byte CHAIN_LEN_SIZE = 4;
+
+  public static SyncMessageCodec<EhcacheEntityMessage> syncMessageCodec() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the number of bytes a chain adds to an encoded {@link DataSyncMessage}.
+   *
+   * @param chain the chain
+   * @return the encoded size of the chain and its key
+   */
+  public static int encodedSize(Chain chain) {
+    return KEY_SIZE + CHAIN_LEN_SIZE + ChainCodec.encodedSize(chain);
+  }
+
+  @Override
+  public byte[] encode(int concurrencyKey, EhcacheEntityMessage message) throws MessageCodecException {
+    if (message.getType() != EhcacheEntityMessage.Type.SYNC_OP) {
+      throw new MessageCodecException("Unexpected synchronization message " + message, null);
+    }
+    EntitySyncMessage syncMessage = (EntitySyncMessage) message;
+    switch (syncMessage.operation()) {
+      case STATE: {
+        byte[] state = LifeCycleOpCodec.marshall(syncMessage);
+        ByteBuffer encodedMsg = encodeHeader(syncMessage, state.length);
+        encodedMsg.put(state);
+        return encodedMsg.array();
+      }
+      case DATA: {
+        DataSyncMessage dataMessage = (DataSyncMessage) syncMessage;
+        int size = STORE_ID_SIZE + CHAIN_COUNT_SIZE;
+        for (Chain chain : dataMessage.getChains().values()) {
+          size += encodedSize(chain);
+        }
+        ByteBuffer encodedMsg = encodeHeader(syncMessage, size);
+        encodedMsg.putInt(dataMessage.getStoreId());
+        encodedMsg.putInt(dataMessage.getChains().size());
+        for (Map.Entry<Long, Chain> entry : dataMessage.getChains().entrySet()) {
+          encodedMsg.putLong(entry.getKey());
+          encodedMsg.putInt(ChainCodec.encodedSize(entry.getValue()));
+          ChainCodec.encode(entry.getValue(), encodedMsg);
+        }
+        return encodedMsg.array();
+      }
+      default:
+        throw new MessageCodecException("Unknown synchronization operation " + syncMessage.operation(), null);
+    }
+  }
+
+  @Override
+  public EhcacheEntityMessage decode(int concurrencyKey, byte[] payload) throws MessageCodecException {
+    ByteBuffer msg = ByteBuffer.wrap(payload);
+    if (msg.get() != EhcacheEntityMessage.Type.SYNC_OP.getOpCode()) {
+      throw new MessageCodecException("Unexpected synchronization message type " + payload[0], null);
+    }
+    try {
+      switch (EntitySyncMessage.SyncOp.syncOp(msg.get())) {
+        case STATE: {
+          byte[] state = new byte[msg.remaining()];
+          msg.get(state);
+          return (StateSyncMessage) LifeCycleOpCodec.unmarshall(state);
+        }
+        case DATA: {
+          int storeId = msg.getInt();
+          int count = msg.getInt();
+          Map<Long, Chain> chains = new LinkedHashMap<Long, Chain>(count * 2);
+          for (int i = 0; i < count; i++) {
+            long key = msg.getLong();
+            int chainLength = msg.getInt();
+            ByteBuffer chain = msg.slice();
+            chain.limit(chainLength);
+            msg.position(msg.position() + chainLength);
+            chains.put(key, ChainCodec.decode(chain));
+          }
+          return new DataSyncMessage(storeId, chains);
+        }
+        default:
+          throw new AssertionError();
+      }
+    } catch (IllegalArgumentException e) {
+      throw new MessageCodecException("Unable to decode synchronization message", e);
+    }
+  }
+
+  private static ByteBuffer encodeHeader(EntitySyncMessage message, int bodySize) {
+    ByteBuffer encodedMsg = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+    encodedMsg.put(EhcacheEntityMessage.Type.SYNC_OP.getOpCode());
+    encodedMsg.put(message.operation().getSyncOpCode());
+    return encodedMsg;
+  }
+}
@@ -31,7 +31,8 @@ public abstract class LifecycleMessage extends EhcacheEntityMessage implements S
     CREATE_SERVER_STORE,
     VALIDATE_SERVER_STORE,
     RELEASE_SERVER_STORE,
-    DESTROY_SERVER_STORE
+    DESTROY_SERVER_STORE,
+    SERVER_STORE_CREATED
   }
 
   @Override
@@ -84,10 +85,12 @@ public abstract class LifecycleMessage extends EhcacheEntityMessage implements S
 
     private final String name;
     private final ServerStoreConfiguration storeConfiguration;
+    private final boolean caching;
 
-    protected BaseServerStore(String name, ServerStoreConfiguration storeConfiguration) {
+    protected BaseServerStore(String name, ServerStoreConfiguration storeConfiguration, boolean caching) {
       this.name = name;
       this.storeConfiguration = storeConfiguration;
+      this.caching = caching;
     }
 
     public String getName() {
@@ -98,6 +101,16 @@ public abstract class LifecycleMessage extends EhcacheEntityMessage implements S
       return storeConfiguration;
     }
 
+    /**
+     * Indicates whether the client holds mappings of the store in a local caching tier, and so must be sent the
+     * invalidations of the mappings it read.
+     *
+     * @return {@code true} if the client caches mappings locally
+     */
+    public boolean isCaching() {
+      return caching;
+    }
+
   }
 
   /**
@@ -106,8 +119,8 @@ public abstract class LifecycleMessage extends EhcacheEntityMessage implements S
   public static class CreateServerStore extends BaseServerStore {
     private static final long serialVersionUID = -5832725455629624613L;
 
-    CreateServerStore(String name, ServerStoreConfiguration storeConfiguration) {
-      super(name, storeConfiguration);
+    CreateServerStore(String name, ServerStoreConfiguration storeConfiguration, boolean caching) {
+      super(name, storeConfiguration, caching);
     }
 
     @Override
@@ -116,14 +129,39 @@ public abstract class LifecycleMessage extends EhcacheEntityMessage implements S
     }
   }
 
+  /**
+   * Message confirming the <i>creation</i> of a {@code ServerStore} by the active, carrying the identifier the active
+   * assigned to it.  Sent by the creating client once its {@link CreateServerStore} succeeded, so that passives
+   * create the store under the same identifier, and only if the active did create it.
+   */
+  public static class ServerStoreCreated extends BaseServerStore {
+    private static final long serialVersionUID = 2364858201519237469L;
+
+    private final int storeId;
+
+    ServerStoreCreated(String name, ServerStoreConfiguration storeConfiguration, int storeId) {
+      super(name, storeConfiguration, false);
+      this.storeId = storeId;
+    }
+
+    @Override
+    public LifeCycleOp operation() {
+      return LifeCycleOp.SERVER_STORE_CREATED;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+  }
+
   /**
    * Message directing the <i>lookup</i> of a previously created {@code ServerStore}.
    */
   public static class ValidateServerStore extends BaseServerStore {
     private static final long serialVersionUID = 8762670006846832185L;
 
-    ValidateServerStore(String name, ServerStoreConfiguration storeConfiguration) {
-      super(name, storeConfiguration);
+    ValidateServerStore(String name, ServerStoreConfiguration storeConfiguration, boolean caching) {
+      super(name, storeConfiguration, caching);
     }
 
     @Override
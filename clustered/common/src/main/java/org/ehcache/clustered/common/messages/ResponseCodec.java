@@ -15,14 +15,28 @@
  */
 package org.ehcache.clustered.common.messages;
 
+import org.ehcache.clustered.common.store.Chain;
+
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.Failure;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.GetAllResponse;
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.GetResponse;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.HashInvalidationDone;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.InvalidateHash;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.StoreIdResponse;
 
 public class ResponseCodec {
 
   private static final byte OP_CODE_OFFSET = 1;
+  private static final byte KEY_OFFSET = 8;
+  private static final byte STORE_ID_OFFSET = 4;
+  private static final byte CONCURRENCY_OFFSET = 4;
+  private static final byte CHAIN_COUNT_OFFSET = 4;
+  private static final byte CHAIN_LEN_OFFSET = 4;
+  private static final byte INVALIDATION_ID_OFFSET = 4;
 
   public static byte[] encode(EhcacheEntityResponse response) {
     switch (response.getType()) {
@@ -39,11 +53,45 @@ public class ResponseCodec {
         return buffer.array();
       case GET_RESPONSE:
         GetResponse getResponse = (GetResponse)response;
-        byte[] encodedChain = ChainCodec.encode(getResponse.getChain());
-        int chainLen = encodedChain.length;
-        buffer = ByteBuffer.allocate(OP_CODE_OFFSET + chainLen);
+        buffer = ByteBuffer.allocate(OP_CODE_OFFSET + ChainCodec.encodedSize(getResponse.getChain()));
         buffer.put(EhcacheEntityResponse.Type.GET_RESPONSE.getOpCode());
-        buffer.put(encodedChain);
+        ChainCodec.encode(getResponse.getChain(), buffer);
+        return buffer.array();
+      case INVALIDATE_HASH:
+        InvalidateHash invalidateHash = (InvalidateHash)response;
+        buffer = ByteBuffer.allocate(OP_CODE_OFFSET + STORE_ID_OFFSET + KEY_OFFSET + INVALIDATION_ID_OFFSET);
+        buffer.put(EhcacheEntityResponse.Type.INVALIDATE_HASH.getOpCode());
+        buffer.putInt(invalidateHash.getStoreId());
+        buffer.putLong(invalidateHash.getKey());
+        buffer.putInt(invalidateHash.getInvalidationId());
+        return buffer.array();
+      case HASH_INVALIDATION_DONE:
+        HashInvalidationDone hashInvalidationDone = (HashInvalidationDone)response;
+        buffer = ByteBuffer.allocate(OP_CODE_OFFSET + STORE_ID_OFFSET + KEY_OFFSET);
+        buffer.put(EhcacheEntityResponse.Type.HASH_INVALIDATION_DONE.getOpCode());
+        buffer.putInt(hashInvalidationDone.getStoreId());
+        buffer.putLong(hashInvalidationDone.getKey());
+        return buffer.array();
+      case STORE_ID:
+        StoreIdResponse storeIdResponse = (StoreIdResponse)response;
+        buffer = ByteBuffer.allocate(OP_CODE_OFFSET + STORE_ID_OFFSET + CONCURRENCY_OFFSET);
+        buffer.put(EhcacheEntityResponse.Type.STORE_ID.getOpCode());
+        buffer.putInt(storeIdResponse.getStoreId());
+        buffer.putInt(storeIdResponse.getConcurrency());
+        return buffer.array();
+      case GET_ALL_RESPONSE:
+        List<Chain> chains = ((GetAllResponse)response).getChains();
+        int size = OP_CODE_OFFSET + CHAIN_COUNT_OFFSET;
+        for (Chain chain : chains) {
+          size += CHAIN_LEN_OFFSET + ChainCodec.encodedSize(chain);
+        }
+        buffer = ByteBuffer.allocate(size);
+        buffer.put(EhcacheEntityResponse.Type.GET_ALL_RESPONSE.getOpCode());
+        buffer.putInt(chains.size());
+        for (Chain chain : chains) {
+          buffer.putInt(ChainCodec.encodedSize(chain));
+          ChainCodec.encode(chain, buffer);
+        }
         return buffer.array();
       default:
         throw new UnsupportedOperationException("The operation is not supported : " + response.getType());
@@ -54,16 +102,36 @@ public class ResponseCodec {
     ByteBuffer buffer = ByteBuffer.wrap(payload);
     byte opCode = buffer.get();
     EhcacheEntityResponse.Type type = EhcacheEntityResponse.Type.responseType(opCode);
-    byte[] payArr = new byte[buffer.remaining()];
-    buffer.get(payArr);
     switch (type) {
       case SUCCESS:
         return EhcacheEntityResponse.success();
       case FAILURE:
+        byte[] payArr = new byte[buffer.remaining()];
+        buffer.get(payArr);
         Exception exception = (Exception)LifeCycleOpCodec.unmarshall(payArr);
         return EhcacheEntityResponse.failure(exception);
       case GET_RESPONSE:
-        return EhcacheEntityResponse.response(ChainCodec.decode(payArr));
+        return EhcacheEntityResponse.response(ChainCodec.decode(buffer));
+      case INVALIDATE_HASH:
+        int storeId = buffer.getInt();
+        long key = buffer.getLong();
+        return EhcacheEntityResponse.invalidateHash(storeId, key, buffer.getInt());
+      case HASH_INVALIDATION_DONE:
+        int doneStoreId = buffer.getInt();
+        return EhcacheEntityResponse.hashInvalidationDone(doneStoreId, buffer.getLong());
+      case STORE_ID:
+        return EhcacheEntityResponse.storeId(buffer.getInt(), buffer.getInt());
+      case GET_ALL_RESPONSE:
+        int chainCount = buffer.getInt();
+        List<Chain> chains = new ArrayList<Chain>(chainCount);
+        for (int i = 0; i < chainCount; i++) {
+          int chainLen = buffer.getInt();
+          ByteBuffer encodedChain = buffer.slice();
+          encodedChain.limit(chainLen);
+          buffer.position(buffer.position() + chainLen);
+          chains.add(ChainCodec.decode(encodedChain));
+        }
+        return EhcacheEntityResponse.response(chains);
       default:
         throw new UnsupportedOperationException("The operation is not supported with opCode : " + opCode);
     }
@@ -16,116 +16,191 @@
 package org.ehcache.clustered.common.messages;
 
 
+import org.ehcache.clustered.common.store.Chain;
+
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.AppendBatchMessage;
 import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.AppendMessage;
+import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.ClientInvalidationAck;
+import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.GetAllMessage;
 import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.GetAndAppendMessage;
+import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.ReplaceAtHeadBatchMessage;
 import static org.ehcache.clustered.common.messages.ServerStoreOpMessage.ReplaceAtHeadMessage;
 
 /**
- *
+ * Encodes {@link ServerStoreOpMessage}s to, and decodes them from, their binary representation.
+ * <P>
+ *   Messages address their store through the integer identifier the server assigned to it, rather than its name.
+ *   Messages are sized up front and encoded into a single array.  Decoded payloads and chains are views over the
+ *   decoded array rather than copies of it.
+ * </P>
  */
 public class ServerStoreOpCodec {
 
-  private static final Charset UTF_8 = Charset.forName("UTF-8");
-
   private static final byte MSG_TYPE_OFFSET = 1;
   private static final byte STORE_OP_CODE_OFFSET = 1;
-  private static final byte CACHE_ID_LEN_OFFSET = 4;
+  private static final byte STORE_ID_OFFSET = 4;
   private static final byte KEY_OFFSET = 8;
   private static final byte CHAIN_LEN_OFFSET = 4;
+  private static final byte BATCH_SIZE_OFFSET = 4;
+  private static final byte PAYLOAD_LEN_OFFSET = 4;
+  private static final byte INVALIDATION_ID_OFFSET = 4;
 
   public static byte[] encode(ServerStoreOpMessage message) {
-    // TODO: improve data send over n/w by optimizing cache Id
-    int cacheIdLen = message.getCacheId().length();
+    ByteBuffer encodedMsg;
     switch (message.operation()) {
       case GET:
-        ByteBuffer encodedMsg = ByteBuffer.allocate(MSG_TYPE_OFFSET + STORE_OP_CODE_OFFSET + CACHE_ID_LEN_OFFSET + KEY_OFFSET + cacheIdLen);
-        encodedMsg.put(EhcacheEntityMessage.Type.SERVER_STORE_OP.getOpCode());
-        encodedMsg.putInt(cacheIdLen);
-        encodedMsg.put(message.getCacheId().getBytes(UTF_8));
-        encodedMsg.putLong(message.getKey());
-        encodedMsg.put(message.operation().getStoreOpCode());
-        return encodedMsg.array();
+        encodedMsg = encodeHeader(message, 0);
+        break;
       case APPEND:
-        AppendMessage appendMessage = (AppendMessage)message;
-        encodedMsg = ByteBuffer.allocate(MSG_TYPE_OFFSET + STORE_OP_CODE_OFFSET + CACHE_ID_LEN_OFFSET + KEY_OFFSET + cacheIdLen + appendMessage
-            .getPayload()
-            .remaining());
-        encodedMsg.put(EhcacheEntityMessage.Type.SERVER_STORE_OP.getOpCode());
-        encodedMsg.putInt(cacheIdLen);
-        encodedMsg.put(message.getCacheId().getBytes(UTF_8));
-        encodedMsg.putLong(message.getKey());
-        encodedMsg.put(message.operation().getStoreOpCode());
-        encodedMsg.put(appendMessage.getPayload());
-        return encodedMsg.array();
+        ByteBuffer appendPayload = ((AppendMessage)message).getPayload().duplicate();
+        encodedMsg = encodeHeader(message, appendPayload.remaining());
+        encodedMsg.put(appendPayload);
+        break;
       case GET_AND_APPEND:
-        GetAndAppendMessage getAndAppendMessage = (GetAndAppendMessage)message;
-        encodedMsg = ByteBuffer.allocate(MSG_TYPE_OFFSET + STORE_OP_CODE_OFFSET + CACHE_ID_LEN_OFFSET + KEY_OFFSET + cacheIdLen + getAndAppendMessage
-            .getPayload()
-            .remaining());
-        encodedMsg.put(EhcacheEntityMessage.Type.SERVER_STORE_OP.getOpCode());
-        encodedMsg.putInt(cacheIdLen);
-        encodedMsg.put(message.getCacheId().getBytes(UTF_8));
-        encodedMsg.putLong(message.getKey());
-        encodedMsg.put(message.operation().getStoreOpCode());
-        encodedMsg.put(getAndAppendMessage.getPayload());
-        return encodedMsg.array();
+        ByteBuffer getAndAppendPayload = ((GetAndAppendMessage)message).getPayload().duplicate();
+        encodedMsg = encodeHeader(message, getAndAppendPayload.remaining());
+        encodedMsg.put(getAndAppendPayload);
+        break;
       case REPLACE:
         ReplaceAtHeadMessage replaceAtHeadMessage = (ReplaceAtHeadMessage)message;
-        byte[] encodedExpectedChain = ChainCodec.encode(replaceAtHeadMessage.getExpect());
-        byte[] encodedUpdatedChain = ChainCodec.encode(replaceAtHeadMessage.getUpdate());
-        encodedMsg = ByteBuffer.allocate(MSG_TYPE_OFFSET + STORE_OP_CODE_OFFSET + CACHE_ID_LEN_OFFSET + KEY_OFFSET + cacheIdLen +
-              2 * CHAIN_LEN_OFFSET + encodedExpectedChain.length + encodedUpdatedChain.length);
-        encodedMsg.put(EhcacheEntityMessage.Type.SERVER_STORE_OP.getOpCode());
-        encodedMsg.putInt(cacheIdLen);
-        encodedMsg.put(message.getCacheId().getBytes(UTF_8));
-        encodedMsg.putLong(message.getKey());
-        encodedMsg.put(message.operation().getStoreOpCode());
-        encodedMsg.putInt(encodedExpectedChain.length);
-        encodedMsg.put(encodedExpectedChain);
-        encodedMsg.putInt(encodedUpdatedChain.length);
-        encodedMsg.put(encodedUpdatedChain);
-        return encodedMsg.array();
+        encodedMsg = encodeHeader(message, replacementSize(replaceAtHeadMessage));
+        encodeReplacement(encodedMsg, replaceAtHeadMessage);
+        break;
+      case REPLACE_BATCH:
+        List<ReplaceAtHeadMessage> replacements = ((ReplaceAtHeadBatchMessage)message).getReplacements();
+        int batchLen = BATCH_SIZE_OFFSET;
+        for (ReplaceAtHeadMessage replacement : replacements) {
+          batchLen += KEY_OFFSET + replacementSize(replacement);
+        }
+        encodedMsg = encodeHeader(message, batchLen);
+        encodedMsg.putInt(replacements.size());
+        for (ReplaceAtHeadMessage replacement : replacements) {
+          encodedMsg.putLong(replacement.getKey());
+          encodeReplacement(encodedMsg, replacement);
+        }
+        break;
+      case GET_ALL:
+        long[] keys = ((GetAllMessage)message).getKeys();
+        encodedMsg = encodeHeader(message, BATCH_SIZE_OFFSET + keys.length * KEY_OFFSET);
+        encodedMsg.putInt(keys.length);
+        for (long key : keys) {
+          encodedMsg.putLong(key);
+        }
+        break;
+      case APPEND_BATCH:
+        List<AppendMessage> appends = ((AppendBatchMessage)message).getAppends();
+        int appendsLen = BATCH_SIZE_OFFSET;
+        for (AppendMessage append : appends) {
+          appendsLen += KEY_OFFSET + PAYLOAD_LEN_OFFSET + append.getPayload().remaining();
+        }
+        encodedMsg = encodeHeader(message, appendsLen);
+        encodedMsg.putInt(appends.size());
+        for (AppendMessage append : appends) {
+          ByteBuffer payload = append.getPayload().duplicate();
+          encodedMsg.putLong(append.getKey());
+          encodedMsg.putInt(payload.remaining());
+          encodedMsg.put(payload);
+        }
+        break;
+      case CLIENT_INVALIDATION_ACK:
+        encodedMsg = encodeHeader(message, INVALIDATION_ID_OFFSET);
+        encodedMsg.putInt(((ClientInvalidationAck)message).getInvalidationId());
+        break;
       default:
         throw new UnsupportedOperationException("This operation is not supported : " + message.operation());
     }
+    return encodedMsg.array();
+  }
+
+  private static ByteBuffer encodeHeader(ServerStoreOpMessage message, int bodyLen) {
+    ByteBuffer encodedMsg = ByteBuffer.allocate(MSG_TYPE_OFFSET + STORE_ID_OFFSET + KEY_OFFSET + STORE_OP_CODE_OFFSET + bodyLen);
+    encodedMsg.put(EhcacheEntityMessage.Type.SERVER_STORE_OP.getOpCode());
+    encodedMsg.putInt(message.getStoreId());
+    encodedMsg.putLong(message.getKey());
+    encodedMsg.put(message.operation().getStoreOpCode());
+    return encodedMsg;
+  }
+
+  private static int replacementSize(ReplaceAtHeadMessage replacement) {
+    return 2 * CHAIN_LEN_OFFSET + ChainCodec.encodedSize(replacement.getExpect()) + ChainCodec.encodedSize(replacement.getUpdate());
+  }
+
+  private static void encodeReplacement(ByteBuffer encodedMsg, ReplaceAtHeadMessage replacement) {
+    encodeChain(encodedMsg, replacement.getExpect());
+    encodeChain(encodedMsg, replacement.getUpdate());
+  }
+
+  private static void encodeChain(ByteBuffer encodedMsg, Chain chain) {
+    int lengthPosition = encodedMsg.position();
+    encodedMsg.position(lengthPosition + CHAIN_LEN_OFFSET);
+    ChainCodec.encode(chain, encodedMsg);
+    encodedMsg.putInt(lengthPosition, encodedMsg.position() - lengthPosition - CHAIN_LEN_OFFSET);
   }
 
   public static EhcacheEntityMessage decode(byte[] payload) {
     ByteBuffer msg = ByteBuffer.wrap(payload);
     msg.get();
-    int cacheIdLen = msg.getInt();
-    byte[] idArr = new byte[cacheIdLen];
-    msg.get(idArr);
-    String cacheId = new String(idArr, UTF_8);
+    int storeId = msg.getInt();
     long key = msg.getLong();
     byte opCode = msg.get();
     ServerStoreOpMessage.ServerStoreOp storeOp = ServerStoreOpMessage.ServerStoreOp.getServerStoreOp(opCode);
-    byte[] remaining = new byte[msg.remaining()];
-    msg.get(remaining);
     switch (storeOp) {
       case GET:
-        return EhcacheEntityMessage.getOperation(cacheId, key);
+        return EhcacheEntityMessage.getOperation(storeId, key);
       case GET_AND_APPEND:
-        return EhcacheEntityMessage.getAndAppendOperation(cacheId, key, ByteBuffer.wrap(remaining).asReadOnlyBuffer());
+        return EhcacheEntityMessage.getAndAppendOperation(storeId, key, msg.slice().asReadOnlyBuffer());
       case APPEND:
-        return EhcacheEntityMessage.appendOperation(cacheId, key, ByteBuffer.wrap(remaining).asReadOnlyBuffer());
+        return EhcacheEntityMessage.appendOperation(storeId, key, msg.slice().asReadOnlyBuffer());
       case REPLACE:
-        ByteBuffer replaceBuf = ByteBuffer.wrap(remaining);
-        int expectChainLen = replaceBuf.getInt();
-        byte[] encodedExpectChain = new byte[expectChainLen];
-        replaceBuf.get(encodedExpectChain);
-        int updateChainLen = replaceBuf.getInt();
-        byte[] encodedUpdateChain = new byte[updateChainLen];
-        replaceBuf.get(encodedUpdateChain);
-        return EhcacheEntityMessage.replaceAtHeadOperation(cacheId, key, ChainCodec.decode(encodedExpectChain),
-            ChainCodec.decode(encodedUpdateChain));
+        Chain expect = decodeChain(msg);
+        Chain update = decodeChain(msg);
+        return EhcacheEntityMessage.replaceAtHeadOperation(storeId, key, expect, update);
+      case REPLACE_BATCH:
+        int batchSize = msg.getInt();
+        List<ReplaceAtHeadMessage> replacements = new ArrayList<ReplaceAtHeadMessage>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+          long replacementKey = msg.getLong();
+          Chain replacementExpect = decodeChain(msg);
+          Chain replacementUpdate = decodeChain(msg);
+          replacements.add(new ReplaceAtHeadMessage(storeId, replacementKey, replacementExpect, replacementUpdate));
+        }
+        return new ReplaceAtHeadBatchMessage(storeId, replacements);
+      case GET_ALL:
+        long[] keys = new long[msg.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = msg.getLong();
+        }
+        return EhcacheEntityMessage.getAllOperation(storeId, keys);
+      case APPEND_BATCH:
+        int appendCount = msg.getInt();
+        List<AppendMessage> appends = new ArrayList<AppendMessage>(appendCount);
+        for (int i = 0; i < appendCount; i++) {
+          long appendKey = msg.getLong();
+          int payloadLen = msg.getInt();
+          ByteBuffer appendPayload = msg.slice();
+          appendPayload.limit(payloadLen);
+          msg.position(msg.position() + payloadLen);
+          appends.add(new AppendMessage(storeId, appendKey, appendPayload.asReadOnlyBuffer()));
+        }
+        return new AppendBatchMessage(storeId, appends);
+      case CLIENT_INVALIDATION_ACK:
+        return EhcacheEntityMessage.clientInvalidationAck(storeId, key, msg.getInt());
       default:
         throw new UnsupportedOperationException("This operation code is not supported : " + opCode);
 
     }
   }
 
-}
\ No newline at end of file
+  private static Chain decodeChain(ByteBuffer msg) {
+    int chainLen = msg.getInt();
+    ByteBuffer encodedChain = msg.slice();
+    encodedChain.limit(chainLen);
+    msg.position(msg.position() + chainLen);
+    return ChainCodec.decode(encodedChain);
+  }
+
+}
@@ -18,6 +18,7 @@ package org.ehcache.clustered.common.messages;
 import org.ehcache.clustered.common.store.Chain;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  */
@@ -27,7 +28,11 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     GET((byte) 0),
     GET_AND_APPEND((byte) 1),
     APPEND((byte) 2),
-    REPLACE((byte) 3);
+    REPLACE((byte) 3),
+    REPLACE_BATCH((byte) 4),
+    GET_ALL((byte) 5),
+    APPEND_BATCH((byte) 6),
+    CLIENT_INVALIDATION_ACK((byte) 7);
 
     private final byte storeOpCode;
 
@@ -49,17 +54,25 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
           return APPEND;
         case 3:
           return REPLACE;
+        case 4:
+          return REPLACE_BATCH;
+        case 5:
+          return GET_ALL;
+        case 6:
+          return APPEND_BATCH;
+        case 7:
+          return CLIENT_INVALIDATION_ACK;
         default:
           throw new IllegalArgumentException("Store operation not defined for : " + storeOpCode);
       }
     }
   }
 
-  private final String cacheId;
+  private final int storeId;
   private final long key;
 
-  protected ServerStoreOpMessage(String cacheId, long key) {
-    this.cacheId = cacheId;
+  protected ServerStoreOpMessage(int storeId, long key) {
+    this.storeId = storeId;
     this.key = key;
   }
 
@@ -68,8 +81,13 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     return Type.SERVER_STORE_OP;
   }
 
-  public String getCacheId() {
-    return cacheId;
+  /**
+   * Returns the identifier assigned by the server to the targeted store when it was created or validated.
+   *
+   * @return the store identifier
+   */
+  public int getStoreId() {
+    return storeId;
   }
 
   public long getKey() {
@@ -80,8 +98,8 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
 
   public static class GetMessage extends ServerStoreOpMessage {
 
-    GetMessage(String cacheId, long key) {
-      super(cacheId, key);
+    GetMessage(int storeId, long key) {
+      super(storeId, key);
     }
 
     @Override
@@ -94,8 +112,8 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
 
     private final ByteBuffer payload;
 
-    GetAndAppendMessage(String cacheId, long key, ByteBuffer payload) {
-      super(cacheId, key);
+    GetAndAppendMessage(int storeId, long key, ByteBuffer payload) {
+      super(storeId, key);
       this.payload = payload;
     }
 
@@ -113,8 +131,8 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
 
     private final ByteBuffer payload;
 
-    AppendMessage(String cacheId, long key, ByteBuffer payload) {
-      super(cacheId, key);
+    AppendMessage(int storeId, long key, ByteBuffer payload) {
+      super(storeId, key);
       this.payload = payload;
     }
 
@@ -133,8 +151,8 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     private final Chain expect;
     private final Chain update;
 
-    ReplaceAtHeadMessage(String cacheId, long key, Chain expect, Chain update) {
-      super(cacheId, key);
+    ReplaceAtHeadMessage(int storeId, long key, Chain expect, Chain update) {
+      super(storeId, key);
       this.expect = expect;
       this.update = update;
     }
@@ -153,5 +171,108 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     }
   }
 
-}
+  /**
+   * Head replacements for several keys of a store, sent as a single message.
+   * <P>
+   *   The message is routed on the key of its first replacement: senders only group keys sharing a
+   *   {@link ConcurrencyBuckets#bucket(int, long, int) concurrency bucket}.
+   * </P>
+   */
+  public static class ReplaceAtHeadBatchMessage extends ServerStoreOpMessage {
+
+    private final List<ReplaceAtHeadMessage> replacements;
+
+    ReplaceAtHeadBatchMessage(int storeId, List<ReplaceAtHeadMessage> replacements) {
+      super(storeId, replacements.get(0).getKey());
+      this.replacements = replacements;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.REPLACE_BATCH;
+    }
+
+    public List<ReplaceAtHeadMessage> getReplacements() {
+      return replacements;
+    }
+  }
+
+  /**
+   * Reads the chains of several keys of a store in a single message.
+   * <P>
+   *   The message is routed on its first key: senders only group keys sharing a
+   *   {@link ConcurrencyBuckets#bucket(int, long, int) concurrency bucket}.
+   * </P>
+   */
+  public static class GetAllMessage extends ServerStoreOpMessage {
+
+    private final long[] keys;
+
+    GetAllMessage(int storeId, long[] keys) {
+      super(storeId, keys[0]);
+      this.keys = keys;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.GET_ALL;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+  }
+
+  /**
+   * Appends to the chains of several keys of a store in a single message, in order.
+   * <P>
+   *   The message is routed on the key of its first append: senders only group keys sharing a
+   *   {@link ConcurrencyBuckets#bucket(int, long, int) concurrency bucket}.
+   * </P>
+   */
+  public static class AppendBatchMessage extends ServerStoreOpMessage {
 
+    private final List<AppendMessage> appends;
+
+    AppendBatchMessage(int storeId, List<AppendMessage> appends) {
+      super(storeId, appends.get(0).getKey());
+      this.appends = appends;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.APPEND_BATCH;
+    }
+
+    public List<AppendMessage> getAppends() {
+      return appends;
+    }
+  }
+
+  /**
+   * Sent by a client once it invalidated the mapping of an {@link EhcacheEntityResponse.InvalidateHash} requiring
+   * acknowledgement.
+   * <P>
+   *   The message is routed on the invalidated key, alongside the other operations on that key.
+   * </P>
+   */
+  public static class ClientInvalidationAck extends ServerStoreOpMessage {
+
+    private final int invalidationId;
+
+    ClientInvalidationAck(int storeId, long key, int invalidationId) {
+      super(storeId, key);
+      this.invalidationId = invalidationId;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.CLIENT_INVALIDATION_ACK;
+    }
+
+    public int getInvalidationId() {
+      return invalidationId;
+    }
+  }
+
+}
@@ -18,6 +18,7 @@ package org.ehcache.clustered.common.messages;
 import org.ehcache.clustered.common.store.*;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 import static org.junit.Assert.assertEquals;
@@ -103,6 +104,38 @@ public class ChainCodecTest {
     assertThat(decoded.isEmpty(), is(true));
   }
 
+  @Test
+  public void testEncodeIntoSharedBuffer() {
+    Chain chain = getChain(true, createPayload(1L), createPayload(2L), createPayload(3L));
+    int size = ChainCodec.encodedSize(chain);
+    assertThat(size, is(ChainCodec.encode(chain).length));
+
+    ByteBuffer buffer = ByteBuffer.allocate(size + 2);
+    buffer.put((byte) 42);
+    ChainCodec.encode(chain, buffer);
+    buffer.put((byte) 43);
+    assertThat(buffer.hasRemaining(), is(false));
+
+    buffer.position(1).limit(1 + size);
+    Chain decoded = ChainCodec.decode(buffer);
+    assertThat(buffer.position(), is(1));
+    Util.assertChainHas(decoded, 1L, 2L, 3L);
+    assertSameSequenceChain(chain, decoded);
+  }
+
+  @Test
+  public void testLongChain() {
+    ByteBuffer[] payloads = new ByteBuffer[1000];
+    long[] values = new long[payloads.length];
+    for (int i = 0; i < payloads.length; i++) {
+      payloads[i] = createPayload(i);
+      values[i] = i;
+    }
+    Chain decoded = ChainCodec.decode(ChainCodec.encode(getChain(false, payloads)));
+
+    Util.assertChainHas(decoded, values);
+  }
+
   private static void assertSameSequenceChain(Chain original, Chain decoded) {
     Iterator<Element> decodedIterator = decoded.iterator();
     for (Element element : original) {
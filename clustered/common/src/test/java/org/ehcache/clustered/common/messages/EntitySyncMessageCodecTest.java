@@ -0,0 +1,70 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.common.messages;
+
+import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.store.Chain;
+import org.junit.Test;
+import org.terracotta.entity.SyncMessageCodec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.DataSyncMessage;
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.StateSyncMessage;
+import static org.ehcache.clustered.common.store.Util.createPayload;
+import static org.ehcache.clustered.common.store.Util.getChain;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EntitySyncMessageCodecTest {
+
+  private static final SyncMessageCodec<EhcacheEntityMessage> CODEC = EntitySyncMessageCodec.syncMessageCodec();
+
+  @Test
+  public void testStateSyncMessage() throws Exception {
+    ServerSideConfiguration configuration = new ServerSideConfiguration("default",
+        Collections.singletonMap("primary", new ServerSideConfiguration.Pool("default", 1024L)));
+    ServerStoreConfiguration storeConfiguration = new ServerStoreConfiguration(new ServerStoreConfiguration.PoolAllocation.Shared("primary"),
+        "java.lang.Long", "java.lang.String", null, null, null, null);
+
+    EhcacheEntityMessage message = EhcacheEntityMessage.stateSync(configuration,
+        Collections.singletonMap("cache", storeConfiguration), Collections.singletonMap("cache", 3));
+    StateSyncMessage decoded = (StateSyncMessage) CODEC.decode(1, CODEC.encode(1, message));
+
+    assertThat(decoded.getConfiguration().getDefaultServerResource(), is("default"));
+    assertThat(decoded.getConfiguration().getResourcePools().get("primary").size(), is(1024L));
+    assertThat(decoded.getStoreConfigurations().get("cache").getStoredKeyType(), is("java.lang.Long"));
+    assertThat(decoded.getStoreIds().get("cache"), is(3));
+  }
+
+  @Test
+  public void testDataSyncMessage() throws Exception {
+    Map<Long, Chain> chains = new LinkedHashMap<Long, Chain>();
+    chains.put(1L, getChain(false, createPayload(1L), createPayload(2L)));
+    chains.put(-7L, getChain(false, createPayload(3L)));
+
+    DataSyncMessage decoded = (DataSyncMessage) CODEC.decode(2, CODEC.encode(2, EhcacheEntityMessage.dataSync(5, chains)));
+
+    assertThat(decoded.getStoreId(), is(5));
+    assertThat(decoded.getChains().keySet(), contains(1L, -7L));
+    Util.assertChainHas(decoded.getChains().get(1L), 1L, 2L);
+    Util.assertChainHas(decoded.getChains().get(-7L), 3L);
+  }
+}
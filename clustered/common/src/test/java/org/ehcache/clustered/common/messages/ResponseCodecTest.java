@@ -18,6 +18,9 @@ package org.ehcache.clustered.common.messages;
 import org.ehcache.clustered.common.store.Chain;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 
 import static org.junit.Assert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -46,4 +49,49 @@ public class ResponseCodecTest {
 
     Util.assertChainHas(decodedChain, 1L, 11L, 111L);
   }
+
+  @Test
+  public void testInvalidateHashCodec() {
+    EhcacheEntityResponse invalidateHash = EhcacheEntityResponse.invalidateHash(3, 42L, 7);
+
+    EhcacheEntityResponse decoded = ResponseCodec.decode(ResponseCodec.encode(invalidateHash));
+
+    assertThat(((EhcacheEntityResponse.InvalidateHash) decoded).getStoreId(), is(3));
+    assertThat(((EhcacheEntityResponse.InvalidateHash) decoded).getKey(), is(42L));
+    assertThat(((EhcacheEntityResponse.InvalidateHash) decoded).getInvalidationId(), is(7));
+  }
+
+  @Test
+  public void testHashInvalidationDoneCodec() {
+    EhcacheEntityResponse done = EhcacheEntityResponse.hashInvalidationDone(3, 42L);
+
+    EhcacheEntityResponse decoded = ResponseCodec.decode(ResponseCodec.encode(done));
+
+    assertThat(((EhcacheEntityResponse.HashInvalidationDone) decoded).getStoreId(), is(3));
+    assertThat(((EhcacheEntityResponse.HashInvalidationDone) decoded).getKey(), is(42L));
+  }
+
+  @Test
+  public void testStoreIdCodec() {
+    EhcacheEntityResponse storeId = EhcacheEntityResponse.storeId(5, 16);
+
+    EhcacheEntityResponse decoded = ResponseCodec.decode(ResponseCodec.encode(storeId));
+
+    assertThat(((EhcacheEntityResponse.StoreIdResponse) decoded).getStoreId(), is(5));
+    assertThat(((EhcacheEntityResponse.StoreIdResponse) decoded).getConcurrency(), is(16));
+  }
+
+  @Test
+  public void testGetAllResponseCodec() {
+    EhcacheEntityResponse getAllResponse = EhcacheEntityResponse.response(Arrays.asList(
+        getChain(false, createPayload(1L), createPayload(11L)), getChain(false), getChain(false, createPayload(2L))));
+
+    EhcacheEntityResponse decoded = ResponseCodec.decode(ResponseCodec.encode(getAllResponse));
+
+    List<Chain> decodedChains = ((EhcacheEntityResponse.GetAllResponse) decoded).getChains();
+    assertThat(decodedChains.size(), is(3));
+    Util.assertChainHas(decodedChains.get(0), 1L, 11L);
+    assertThat(decodedChains.get(1).isEmpty(), is(true));
+    Util.assertChainHas(decodedChains.get(2), 2L);
+  }
 }
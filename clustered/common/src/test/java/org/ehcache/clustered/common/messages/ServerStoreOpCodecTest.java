@@ -15,8 +15,15 @@
  */
 package org.ehcache.clustered.common.messages;
 
+import org.ehcache.clustered.common.store.Chain;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.ehcache.clustered.common.store.Util.createPayload;
@@ -27,52 +34,118 @@ public class ServerStoreOpCodecTest {
 
   @Test
   public void testAppendMessageCodec() {
-    EhcacheEntityMessage appendMessage = EhcacheEntityMessage.appendOperation("test", 1L, createPayload(1L));
+    EhcacheEntityMessage appendMessage = EhcacheEntityMessage.appendOperation(7, 1L, createPayload(1L));
 
     EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
         .encode((ServerStoreOpMessage)appendMessage));
 
-    assertThat(((ServerStoreOpMessage)decodedMsg).getCacheId(), is("test"));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
     assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(1L));
     assertThat(readPayLoad(((ServerStoreOpMessage.AppendMessage)decodedMsg).getPayload()), is(1L));
   }
 
   @Test
   public void testGetMessageCodec() {
-    EhcacheEntityMessage getMessage = EhcacheEntityMessage.getOperation("test", 2L);
+    EhcacheEntityMessage getMessage = EhcacheEntityMessage.getOperation(7, 2L);
 
     EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
         .encode((ServerStoreOpMessage)getMessage));
 
-    assertThat(((ServerStoreOpMessage)decodedMsg).getCacheId(), is("test"));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
     assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(2L));
   }
 
   @Test
   public void testGetAndAppendMessageCodec() {
-    EhcacheEntityMessage getAndAppendMessage = EhcacheEntityMessage.getAndAppendOperation("test", 10L, createPayload(10L));
+    EhcacheEntityMessage getAndAppendMessage = EhcacheEntityMessage.getAndAppendOperation(7, 10L, createPayload(10L));
 
     EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
         .encode((ServerStoreOpMessage)getAndAppendMessage));
 
-    assertThat(((ServerStoreOpMessage)decodedMsg).getCacheId(), is("test"));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
     assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(10L));
     assertThat(readPayLoad(((ServerStoreOpMessage.GetAndAppendMessage)decodedMsg).getPayload()), is(10L));
   }
 
   @Test
   public void testReplaceAtHeadMessageCodec() {
-    EhcacheEntityMessage replaceAtHeadMessage = EhcacheEntityMessage.replaceAtHeadOperation("test", 10L,
+    EhcacheEntityMessage replaceAtHeadMessage = EhcacheEntityMessage.replaceAtHeadOperation(7, 10L,
         getChain(true, createPayload(10L), createPayload(100L), createPayload(1000L)),
         getChain(false, createPayload(2000L)));
 
     EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
         .encode((ServerStoreOpMessage)replaceAtHeadMessage));
 
-    assertThat(((ServerStoreOpMessage)decodedMsg).getCacheId(), is("test"));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
     assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(10L));
     Util.assertChainHas(((ServerStoreOpMessage.ReplaceAtHeadMessage)decodedMsg).getExpect(), 10L, 100L, 1000L);
     Util.assertChainHas(((ServerStoreOpMessage.ReplaceAtHeadMessage)decodedMsg).getUpdate(), 2000L);
   }
 
+  @Test
+  public void testReplaceAtHeadBatchMessageCodec() {
+    Map<Long, Map.Entry<Chain, Chain>> replacements = new LinkedHashMap<Long, Map.Entry<Chain, Chain>>();
+    replacements.put(10L, new AbstractMap.SimpleImmutableEntry<Chain, Chain>(
+        getChain(true, createPayload(10L), createPayload(100L)), getChain(false, createPayload(1000L))));
+    replacements.put(20L, new AbstractMap.SimpleImmutableEntry<Chain, Chain>(
+        getChain(true, createPayload(20L)), getChain(false, createPayload(2000L), createPayload(20000L))));
+    EhcacheEntityMessage batchMessage = EhcacheEntityMessage.replaceAtHeadBatchOperation(7, replacements);
+
+    EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
+        .encode((ServerStoreOpMessage)batchMessage));
+
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(10L));
+    List<ServerStoreOpMessage.ReplaceAtHeadMessage> decodedReplacements = ((ServerStoreOpMessage.ReplaceAtHeadBatchMessage)decodedMsg).getReplacements();
+    assertThat(decodedReplacements.size(), is(2));
+    assertThat(decodedReplacements.get(0).getKey(), is(10L));
+    Util.assertChainHas(decodedReplacements.get(0).getExpect(), 10L, 100L);
+    Util.assertChainHas(decodedReplacements.get(0).getUpdate(), 1000L);
+    assertThat(decodedReplacements.get(1).getKey(), is(20L));
+    Util.assertChainHas(decodedReplacements.get(1).getExpect(), 20L);
+    Util.assertChainHas(decodedReplacements.get(1).getUpdate(), 2000L, 20000L);
+  }
+
+  @Test
+  public void testGetAllMessageCodec() {
+    EhcacheEntityMessage getAllMessage = EhcacheEntityMessage.getAllOperation(7, new long[] {3L, 1L, 2L});
+
+    EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
+        .encode((ServerStoreOpMessage)getAllMessage));
+
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(3L));
+    assertThat(((ServerStoreOpMessage.GetAllMessage)decodedMsg).getKeys(), is(new long[] {3L, 1L, 2L}));
+  }
+
+  @Test
+  public void testAppendBatchMessageCodec() {
+    EhcacheEntityMessage appendBatchMessage = EhcacheEntityMessage.appendBatchOperation(7, new long[] {3L, 1L, 3L},
+        new ByteBuffer[] {createPayload(30L), createPayload(10L), createPayload(31L)});
+
+    EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec
+        .encode((ServerStoreOpMessage)appendBatchMessage));
+
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(3L));
+    List<ServerStoreOpMessage.AppendMessage> appends = ((ServerStoreOpMessage.AppendBatchMessage)decodedMsg).getAppends();
+    assertThat(appends.size(), is(3));
+    assertThat(appends.get(0).getKey(), is(3L));
+    assertThat(readPayLoad(appends.get(0).getPayload()), is(30L));
+    assertThat(appends.get(1).getKey(), is(1L));
+    assertThat(readPayLoad(appends.get(1).getPayload()), is(10L));
+    assertThat(appends.get(2).getKey(), is(3L));
+    assertThat(readPayLoad(appends.get(2).getPayload()), is(31L));
+  }
+
+  @Test
+  public void testClientInvalidationAckCodec() {
+    EhcacheEntityMessage ack = EhcacheEntityMessage.clientInvalidationAck(7, 42L, 123);
+
+    EhcacheEntityMessage decodedMsg = ServerStoreOpCodec.decode(ServerStoreOpCodec.encode((ServerStoreOpMessage)ack));
+
+    assertThat(((ServerStoreOpMessage)decodedMsg).getStoreId(), is(7));
+    assertThat(((ServerStoreOpMessage)decodedMsg).getKey(), is(42L));
+    assertThat(((ServerStoreOpMessage.ClientInvalidationAck)decodedMsg).getInvalidationId(), is(123));
+  }
 }
@@ -15,7 +15,13 @@
  */
 package org.ehcache.clustered.server;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
+
+import org.ehcache.clustered.common.messages.ConcurrencyBuckets;
+import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
+import org.ehcache.clustered.common.messages.ServerStoreOpMessage;
 import org.terracotta.entity.ConcurrencyStrategy;
 
 import static java.util.Collections.singleton;
@@ -23,6 +29,11 @@ import org.terracotta.entity.EntityMessage;
 
 public final class ConcurrencyStrategies {
 
+  /**
+   * The concurrency key the platform runs exclusively of every other key.
+   */
+  public static final int MANAGEMENT_KEY = 0;
+
   private static final ConcurrencyStrategy NO_CONCURRENCY = new ConcurrencyStrategy<EntityMessage>() {
     @Override
     public int concurrencyKey(EntityMessage message) {
@@ -42,4 +53,51 @@ public final class ConcurrencyStrategies {
   public static final <T extends EntityMessage> ConcurrencyStrategy<T> noConcurrency() {
     return NO_CONCURRENCY;
   }
+
+  /**
+   * Returns a strategy spreading server store operations over {@code bucketCount} concurrency keys.
+   * <P>
+   *   Operations are routed on their store id and key hash, so that all operations on a given key of a given cache
+   *   share a concurrency key and keep their ordering. Every other message runs on the {@link #MANAGEMENT_KEY}.
+   * </P>
+   *
+   * @param bucketCount the number of concurrency keys used by server store operations
+   * @return the key-hash concurrency strategy
+   */
+  public static ConcurrencyStrategy<EhcacheEntityMessage> defaultConcurrency(int bucketCount) {
+    return new DefaultConcurrencyStrategy(bucketCount);
+  }
+
+  static class DefaultConcurrencyStrategy implements ConcurrencyStrategy<EhcacheEntityMessage> {
+
+    private final int bucketCount;
+    private final Set<Integer> dataKeys;
+
+    DefaultConcurrencyStrategy(int bucketCount) {
+      if (bucketCount < 1) {
+        throw new IllegalArgumentException("Bucket count must be positive, was: " + bucketCount);
+      }
+      this.bucketCount = bucketCount;
+      Set<Integer> keys = new LinkedHashSet<Integer>();
+      for (int i = 0; i < bucketCount; i++) {
+        keys.add(MANAGEMENT_KEY + 1 + i);
+      }
+      this.dataKeys = Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public int concurrencyKey(EhcacheEntityMessage message) {
+      if (message instanceof ServerStoreOpMessage) {
+        ServerStoreOpMessage storeOpMessage = (ServerStoreOpMessage) message;
+        return MANAGEMENT_KEY + 1 + ConcurrencyBuckets.bucket(storeOpMessage.getStoreId(), storeOpMessage.getKey(), bucketCount);
+      } else {
+        return MANAGEMENT_KEY;
+      }
+    }
+
+    @Override
+    public Set<Integer> getKeysForSynchronization() {
+      return dataKeys;
+    }
+  }
 }
@@ -15,17 +15,23 @@
  */
 package org.ehcache.clustered.server;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ehcache.clustered.common.ClusteredStoreValidationException;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.ServerStoreCompatibility;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
@@ -37,37 +43,39 @@ import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 
 import org.ehcache.clustered.common.messages.LifecycleMessage;
 import org.ehcache.clustered.common.messages.ServerStoreOpMessage;
+import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.clustered.common.store.ServerStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.terracotta.entity.ActiveServerEntity;
+import org.terracotta.entity.BasicServiceConfiguration;
+import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.MessageCodecException;
 import org.terracotta.entity.PassiveSynchronizationChannel;
 import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.offheapresource.OffHeapResource;
 import org.terracotta.offheapresource.OffHeapResourceIdentifier;
-import org.terracotta.offheapstore.buffersource.OffHeapBufferSource;
-import org.terracotta.offheapstore.paging.OffHeapStorageArea;
-import org.terracotta.offheapstore.paging.Page;
-import org.terracotta.offheapstore.paging.PageSource;
-import org.terracotta.offheapstore.paging.UpfrontAllocatingPageSource;
-
-import static org.terracotta.offheapstore.util.MemoryUnit.GIGABYTES;
-import static org.terracotta.offheapstore.util.MemoryUnit.MEGABYTES;
 
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.failure;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.hashInvalidationDone;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.InvalidateHash;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.invalidateHash;
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.response;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.storeId;
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.success;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ConfigureCacheManager;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.CreateServerStore;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.DestroyServerStore;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ReleaseServerStore;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.ServerStoreCreated;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ValidateServerStore;
 import static org.ehcache.clustered.common.messages.LifecycleMessage.ValidateCacheManager;
 
 // TODO: Provide some mechanism to report on storage utilization -- PageSource provides little visibility
-// TODO: Ensure proper operations for concurrent requests
+// Server store operations run concurrently on their key-hash concurrency key, lifecycle operations run alone on the
+// management key, see ConcurrencyStrategies
 class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, EhcacheEntityResponse> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EhcacheActiveEntity.class);
@@ -75,6 +83,18 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   private final UUID identity;
   private final ServiceRegistry services;
 
+  /**
+   * The communicator used to push invalidations to clients, looked up on first use.
+   */
+  private volatile ClientCommunicator clientCommunicator;
+
+  /**
+   * The invalidations of {@link Consistency#STRONG STRONG} stores awaiting acknowledgement, by invalidation id.
+   */
+  private final ConcurrentHashMap<Integer, PendingInvalidation> pendingInvalidations = new ConcurrentHashMap<Integer, PendingInvalidation>();
+
+  private final AtomicInteger invalidationIds = new AtomicInteger();
+
   /**
    * The name of the resource to use for fixed resource pools not identifying a resource from which
    * space for the pool is obtained.  This value may be {@code null};
@@ -97,23 +117,63 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    * The clustered stores representing the server-side of a {@code ClusterStore}.
    * The index is the cache alias/identifier.
    */
-  private Map<String, ServerStoreImpl> stores = Collections.emptyMap();
+  private volatile Map<String, ServerStoreImpl> stores = Collections.emptyMap();
+
+  /**
+   * The clustered stores indexed by the identifier assigned to them on creation, which store operation messages
+   * carry in place of the cache alias.  Replaced on store creation and destruction, which are serialized with one
+   * another, and read without locking by store operations.
+   */
+  private volatile ServerStoreImpl[] storesById = new ServerStoreImpl[0];
 
   /**
    * Tracks the state of a connected client.  An entry is added to this map when the
    * {@link #connected(ClientDescriptor)} method is invoked for a client and removed when the
-   * {@link #disconnected(ClientDescriptor)} method is invoked for the client.
+   * {@link #disconnected(ClientDescriptor)} method is invoked for the client.  Concurrent, as connection callbacks
+   * are not ordered with the management concurrency key.
    */
-  private final Map<ClientDescriptor, ClientState> clientStateMap = new HashMap<ClientDescriptor, ClientState>();
+  private final ConcurrentHashMap<ClientDescriptor, ClientState> clientStateMap = new ConcurrentHashMap<ClientDescriptor, ClientState>();
 
   private final ConcurrentHashMap<String, Set<ClientDescriptor>> storeClientMap =
       new ConcurrentHashMap<String, Set<ClientDescriptor>>();
 
   private final ServerStoreCompatibility storeCompatibility = new ServerStoreCompatibility();
 
+  /**
+   * The number of concurrency keys store operations are spread over, which clients group multi-key operations by.
+   */
+  private final int concurrency;
+
+  /**
+   * The resolver server stores compact their chains with, {@code null} if they do not.
+   */
+  private final ServerChainResolver chainResolver;
+
+  /**
+   * The number of appends to a key after which server stores compact its chain.
+   */
+  private final int compactionThreshold;
+
+  /**
+   * Streams the chains of the stores to passives, counting what it sent.
+   */
+  private final PassiveSynchronizer synchronizer = new PassiveSynchronizer();
+
   EhcacheActiveEntity(ServiceRegistry services, byte[] config) {
+    this(services, config, EhcacheServerEntityService.DEFAULT_CONCURRENCY);
+  }
+
+  EhcacheActiveEntity(ServiceRegistry services, byte[] config, int concurrency) {
+    this(services, config, concurrency, new OperationChainResolver(), EhcacheServerEntityService.DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  EhcacheActiveEntity(ServiceRegistry services, byte[] config, int concurrency,
+                      ServerChainResolver chainResolver, int compactionThreshold) {
     this.identity = ClusteredEhcacheIdentity.deserialize(config);
     this.services = services;
+    this.concurrency = concurrency;
+    this.chainResolver = chainResolver;
+    this.compactionThreshold = compactionThreshold;
   }
 
   /**
@@ -188,11 +248,30 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     return Collections.unmodifiableSet(new HashSet<String>(fixedResourcePools.keySet()));
   }
 
+  /**
+   * Gets the number of chains sent to passives.
+   *
+   * @return the synchronized chain count
+   */
+  // This method is intended for unit test use; modifications are likely needed for other (monitoring) purposes
+  long getSyncedChainCount() {
+    return synchronizer.getSyncedChainCount();
+  }
+
+  /**
+   * Gets the rate at which chains were sent to passives.
+   *
+   * @return the passive synchronization throughput, in bytes per second
+   */
+  // This method is intended for unit test use; modifications are likely needed for other (monitoring) purposes
+  double getSyncThroughput() {
+    return synchronizer.getThroughput();
+  }
+
   @Override
   public void connected(ClientDescriptor clientDescriptor) {
-    if (!clientStateMap.containsKey(clientDescriptor)) {
+    if (clientStateMap.putIfAbsent(clientDescriptor, new ClientState()) == null) {
       LOGGER.info("Connecting {}", clientDescriptor);
-      clientStateMap.put(clientDescriptor, new ClientState());
     } else {
       // This is logically an AssertionError
       LOGGER.error("Client {} already registered as connected", clientDescriptor);
@@ -217,7 +296,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   public EhcacheEntityResponse invoke(ClientDescriptor clientDescriptor, EhcacheEntityMessage message) {
     switch (message.getType()) {
       case LIFECYCLE_OP: return invokeLifeCycleOperation(clientDescriptor, (LifecycleMessage) message);
-      case SERVER_STORE_OP: return invokeServerStoreOperation((ServerStoreOpMessage) message);
+      case SERVER_STORE_OP: return invokeServerStoreOperation(clientDescriptor, (ServerStoreOpMessage) message);
       default: throw new IllegalArgumentException("Unknown message " + message);
     }
   }
@@ -227,9 +306,46 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     //nothing to do
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   *   The configuration of this entity and of its stores is sent first, for every concurrency key, so that the
+   *   passive owns the stores whatever the order keys are synchronized in.  The chains of the keys mapped to
+   *   {@code concurrencyKey} follow, see {@link PassiveSynchronizer}.
+   * </p>
+   */
   @Override
+  @SuppressWarnings("unchecked")
   public void synchronizeKeyToPassive(PassiveSynchronizationChannel syncChannel, int concurrencyKey) {
-    throw new UnsupportedOperationException("Active/passive is not supported yet");
+    if (!isConfigured()) {
+      return;
+    }
+    Map<String, Pool> pools = new HashMap<String, Pool>();
+    for (Entry<String, ResourcePageSource> pool : sharedResourcePools.entrySet()) {
+      pools.put(pool.getKey(), pool.getValue().getPool());
+    }
+    Map<String, ServerStoreConfiguration> storeConfigurations = new HashMap<String, ServerStoreConfiguration>();
+    Map<String, Integer> storeIds = new HashMap<String, Integer>();
+    for (Entry<String, ServerStoreImpl> store : stores.entrySet()) {
+      storeConfigurations.put(store.getKey(), store.getValue().getStoreConfiguration());
+      storeIds.put(store.getKey(), store.getValue().getId());
+    }
+    syncChannel.synchronizeToPassive(EhcacheEntityMessage.stateSync(
+        new ServerSideConfiguration(defaultServerResource, pools), storeConfigurations, storeIds));
+
+    int bucket = concurrencyKey - ConcurrencyStrategies.MANAGEMENT_KEY - 1;
+    if (bucket < 0 || bucket >= concurrency) {
+      return;
+    }
+    long chains = 0L;
+    long start = System.nanoTime();
+    for (ServerStoreImpl store : storesById) {
+      if (store != null) {
+        chains += synchronizer.synchronize(store, bucket, concurrency, syncChannel);
+      }
+    }
+    LOGGER.info("Synchronized {} chains of concurrency key {} to passive in {} ms", chains,
+        concurrencyKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
   }
 
   @Override
@@ -248,6 +364,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         case CONFIGURE: return configure(clientDescriptor, (LifecycleMessage.ConfigureCacheManager) message);
         case VALIDATE: return validate(clientDescriptor, (ValidateCacheManager) message);
         case CREATE_SERVER_STORE: return createServerStore(clientDescriptor, (CreateServerStore) message);
+        case SERVER_STORE_CREATED: return serverStoreCreated((ServerStoreCreated) message);
         case VALIDATE_SERVER_STORE: return validateServerStore(clientDescriptor, (ValidateServerStore) message);
         case RELEASE_SERVER_STORE: return releaseServerStore(clientDescriptor, (ReleaseServerStore) message);
         case DESTROY_SERVER_STORE: return destroyServerStore(clientDescriptor, (DestroyServerStore) message);
@@ -263,25 +380,58 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
   }
 
-  private EhcacheEntityResponse invokeServerStoreOperation(ServerStoreOpMessage message) {
-    ServerStore cacheStore = stores.get(message.getCacheId());
+  private EhcacheEntityResponse invokeServerStoreOperation(ClientDescriptor clientDescriptor, ServerStoreOpMessage message) {
+    ServerStoreImpl cacheStore = getStore(message.getStoreId());
     if (cacheStore == null) {
       // An operation on a non-existent store should never get out of the client
-      String msg = "Server Store not present for cacheId :" + message.getCacheId();
+      String msg = "Server Store not present for storeId :" + message.getStoreId();
       IllegalStateException cause = new IllegalStateException(msg);
       LOGGER.error(msg, cause);
       return failure(cause);
     }
     try {
       switch (message.operation()) {
-        case GET: return response(cacheStore.get(message.getKey()));
+        case GET:
+          Chain chain = cacheStore.get(message.getKey());
+          invalidateUntracked(cacheStore, cacheStore.getInvalidationTracker().held(message.getKey(), clientDescriptor));
+          return response(chain);
         case APPEND: cacheStore.append(message.getKey(), ((ServerStoreOpMessage.AppendMessage)message).getPayload());
+          invalidateHolders(clientDescriptor, cacheStore, message.getKey(), message.getKey());
           return success();
-        case GET_AND_APPEND: return response(cacheStore.getAndAppend(message.getKey(), ((ServerStoreOpMessage.GetAndAppendMessage)message).getPayload()));
+        case GET_AND_APPEND:
+          Chain previous = cacheStore.getAndAppend(message.getKey(), ((ServerStoreOpMessage.GetAndAppendMessage)message).getPayload());
+          invalidateHolders(clientDescriptor, cacheStore, message.getKey(), message.getKey());
+          return response(previous);
         case REPLACE:
           ServerStoreOpMessage.ReplaceAtHeadMessage replaceAtHeadMessage = (ServerStoreOpMessage.ReplaceAtHeadMessage)message;
           cacheStore.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate());
           return success();
+        case REPLACE_BATCH:
+          for (ServerStoreOpMessage.ReplaceAtHeadMessage replacement : ((ServerStoreOpMessage.ReplaceAtHeadBatchMessage)message).getReplacements()) {
+            cacheStore.replaceAtHead(replacement.getKey(), replacement.getExpect(), replacement.getUpdate());
+          }
+          return success();
+        case GET_ALL:
+          long[] keys = ((ServerStoreOpMessage.GetAllMessage)message).getKeys();
+          List<Chain> chains = new ArrayList<Chain>(keys.length);
+          for (long key : keys) {
+            chains.add(cacheStore.get(key));
+            invalidateUntracked(cacheStore, cacheStore.getInvalidationTracker().held(key, clientDescriptor));
+          }
+          return response(chains);
+        case APPEND_BATCH:
+          List<ServerStoreOpMessage.AppendMessage> appends = ((ServerStoreOpMessage.AppendBatchMessage)message).getAppends();
+          long[] appendedKeys = new long[appends.size()];
+          for (int i = 0; i < appendedKeys.length; i++) {
+            ServerStoreOpMessage.AppendMessage append = appends.get(i);
+            cacheStore.append(append.getKey(), append.getPayload());
+            appendedKeys[i] = append.getKey();
+          }
+          invalidateHolders(clientDescriptor, cacheStore, message.getKey(), appendedKeys);
+          return success();
+        case CLIENT_INVALIDATION_ACK:
+          acknowledgeInvalidation(clientDescriptor, ((ServerStoreOpMessage.ClientInvalidationAck)message).getInvalidationId());
+          return success();
         default:
           String msg = "Unknown Server Store operation " + message;
           IllegalArgumentException cause = new IllegalArgumentException(msg);
@@ -290,9 +440,168 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       }
     } catch (Exception e) {
       return failure(e);
+    } finally {
+      invalidateEvicted(cacheStore);
+    }
+  }
+
+  /**
+   * Invalidates, in all the clients holding them, the mappings {@code store} evicted to stay within its resource pool.
+   *
+   * @param store the store
+   */
+  private void invalidateEvicted(ServerStoreImpl store) {
+    Long key;
+    while ((key = store.pollEvictedKey()) != null) {
+      sendInvalidations(store, key, store.getInvalidationTracker().invalidate(key, null), InvalidateHash.NO_ACK);
+    }
+  }
+
+  /**
+   * Invalidates the mappings the invalidation tracker of {@code store} stopped tracking to stay within its capacity.
+   *
+   * @param store the store
+   * @param untracked the holders of the untracked mappings, by key hash
+   */
+  private void invalidateUntracked(ServerStoreImpl store, Map<Long, Set<ClientDescriptor>> untracked) {
+    for (Map.Entry<Long, Set<ClientDescriptor>> holders : untracked.entrySet()) {
+      sendInvalidations(store, holders.getKey(), holders.getValue(), InvalidateHash.NO_ACK);
     }
   }
 
+  /**
+   * Invalidates the mappings for {@code keys} in the local caching tier of all the clients, except {@code writer},
+   * which read them since they were last invalidated.
+   * <p>
+   *   For {@link Consistency#STRONG STRONG} stores, the invalidations are to be acknowledged and {@code writer} is
+   *   sent a {@link EhcacheEntityResponse.HashInvalidationDone HashInvalidationDone} for {@code routingKey} once they
+   *   all were, or right away if there is nothing to invalidate.  This method never waits on the clients.
+   * </p>
+   *
+   * @param writer the client which modified the mappings
+   * @param store the store
+   * @param routingKey the key hash the modifying message was routed on
+   * @param keys the modified key hashes
+   */
+  private void invalidateHolders(ClientDescriptor writer, ServerStoreImpl store, long routingKey, long... keys) {
+    InvalidationTracker tracker = store.getInvalidationTracker();
+    if (store.getStoreConfiguration().getConsistency() != Consistency.STRONG) {
+      for (long key : keys) {
+        sendInvalidations(store, key, tracker.invalidate(key, writer), InvalidateHash.NO_ACK);
+      }
+      return;
+    }
+
+    int invalidationId = invalidationIds.getAndIncrement() & Integer.MAX_VALUE;
+    PendingInvalidation pending = new PendingInvalidation(writer, store.getId(), routingKey);
+    Map<Long, Set<ClientDescriptor>> invalidations = new HashMap<Long, Set<ClientDescriptor>>();
+    for (long key : keys) {
+      Set<ClientDescriptor> clients = tracker.invalidate(key, writer);
+      if (!clients.isEmpty()) {
+        invalidations.put(key, clients);
+        for (ClientDescriptor client : clients) {
+          pending.expect(client);
+        }
+      }
+    }
+
+    pendingInvalidations.put(invalidationId, pending);
+    for (Map.Entry<Long, Set<ClientDescriptor>> invalidation : invalidations.entrySet()) {
+      for (ClientDescriptor client : sendInvalidations(store, invalidation.getKey(), invalidation.getValue(), invalidationId)) {
+        pending.acknowledge(client);
+      }
+    }
+    // a client detaching concurrently may have missed this invalidation when forgetting its pending ones
+    for (Set<ClientDescriptor> clients : invalidations.values()) {
+      for (ClientDescriptor client : clients) {
+        if (!tracker.isRegistered(client)) {
+          pending.forget(client);
+        }
+      }
+    }
+    completeIfAcknowledged(invalidationId, pending);
+  }
+
+  /**
+   * Sends the invalidation of a key hash to clients, without waiting for its delivery.
+   *
+   * @param store the store
+   * @param key the key hash
+   * @param clients the clients to invalidate
+   * @param invalidationId the id to acknowledge the invalidation with, {@link InvalidateHash#NO_ACK} if none
+   * @return the clients the invalidation could not be sent to
+   */
+  private Set<ClientDescriptor> sendInvalidations(ServerStoreImpl store, long key, Set<ClientDescriptor> clients, int invalidationId) {
+    if (clients.isEmpty()) {
+      return Collections.emptySet();
+    }
+    ClientCommunicator clientCommunicator = clientCommunicator();
+    EhcacheEntityResponse invalidation = invalidateHash(store.getId(), key, invalidationId);
+    Set<ClientDescriptor> failed = Collections.emptySet();
+    for (ClientDescriptor client : clients) {
+      try {
+        clientCommunicator.sendNoResponse(client, invalidation);
+      } catch (MessageCodecException e) {
+        LOGGER.error("Unable to invalidate key hash {} of store {} on client {}", key, store.getId(), client, e);
+        if (failed.isEmpty()) {
+          failed = new HashSet<ClientDescriptor>();
+        }
+        failed.add(client);
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Records a client acknowledging an invalidation.
+   *
+   * @param clientDescriptor the client
+   * @param invalidationId the invalidation id
+   */
+  private void acknowledgeInvalidation(ClientDescriptor clientDescriptor, int invalidationId) {
+    PendingInvalidation pending = pendingInvalidations.get(invalidationId);
+    if (pending != null) {
+      pending.acknowledge(clientDescriptor);
+      completeIfAcknowledged(invalidationId, pending);
+    }
+  }
+
+  /**
+   * Stops awaiting the acknowledgements of a client detaching from a store.
+   *
+   * @param clientDescriptor the client
+   * @param storeId the store id
+   */
+  private void forgetInvalidations(ClientDescriptor clientDescriptor, int storeId) {
+    for (Map.Entry<Integer, PendingInvalidation> entry : pendingInvalidations.entrySet()) {
+      PendingInvalidation pending = entry.getValue();
+      if (pending.storeId == storeId) {
+        pending.forget(clientDescriptor);
+        completeIfAcknowledged(entry.getKey(), pending);
+      }
+    }
+  }
+
+  private void completeIfAcknowledged(int invalidationId, PendingInvalidation pending) {
+    if (pending.isAcknowledged() && pendingInvalidations.remove(invalidationId, pending)) {
+      try {
+        clientCommunicator().sendNoResponse(pending.writer, hashInvalidationDone(pending.storeId, pending.key));
+      } catch (MessageCodecException e) {
+        LOGGER.error("Unable to notify client {} of the invalidation of key hash {} of store {}", pending.writer,
+            pending.key, pending.storeId, e);
+      }
+    }
+  }
+
+  private ClientCommunicator clientCommunicator() {
+    ClientCommunicator communicator = clientCommunicator;
+    if (communicator == null) {
+      communicator = services.getService(new BasicServiceConfiguration<ClientCommunicator>(ClientCommunicator.class));
+      clientCommunicator = communicator;
+    }
+    return communicator;
+  }
+
   /**
    * {@inheritDoc}
    * <p>
@@ -321,12 +630,13 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       storeClientMap.remove(storeEntry.getKey());
       storeIterator.remove();
     }
+    storesById = new ServerStoreImpl[0];
 
     /*
      * Remove the reservation for resource pool memory of resource pools.
      */
-    releasePools("shared", this.sharedResourcePools);
-    releasePools("fixed", this.fixedResourcePools);
+    ResourcePageSource.releasePools(services, "shared", this.sharedResourcePools);
+    ResourcePageSource.releasePools(services, "fixed", this.fixedResourcePools);
   }
 
   /**
@@ -357,11 +667,11 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       }
 
       try {
-        this.sharedResourcePools = createPools(configuration.getResourcePools());
+        this.sharedResourcePools = ResourcePageSource.createPools(services, configuration.getResourcePools());
       } catch (RuntimeException e) {
         return failure(e);
       }
-      this.stores = new HashMap<String, ServerStoreImpl>();
+      this.stores = new ConcurrentHashMap<String, ServerStoreImpl>();
 
       clientState.attach();
       return success();
@@ -374,6 +684,34 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     return (sharedResourcePools != null);
   }
 
+  private ServerStoreImpl getStore(int storeId) {
+    ServerStoreImpl[] storesById = this.storesById;
+    if (storeId >= 0 && storeId < storesById.length) {
+      return storesById[storeId];
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the lowest identifier not assigned to a live store.
+   */
+  private int nextStoreId() {
+    ServerStoreImpl[] storesById = this.storesById;
+    for (int i = 0; i < storesById.length; i++) {
+      if (storesById[i] == null) {
+        return i;
+      }
+    }
+    return storesById.length;
+  }
+
+  private void publishStore(int storeId, ServerStoreImpl store) {
+    ServerStoreImpl[] storesById = Arrays.copyOf(this.storesById, Math.max(this.storesById.length, storeId + 1));
+    storesById[storeId] = store;
+    this.storesById = storesById;
+  }
+
   /**
    * Handles the {@link ValidateCacheManager ValidateCacheManager} message.  This message is used by a client to
    * connect to an established {@code EhcacheActiveEntity}.  This method validates the client-provided configuration
@@ -425,7 +763,8 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    * @param clientDescriptor the client identifier requesting store creation
    * @param createServerStore the {@code CreateServerStore} message carrying the desire store configuration
    *
-   * @return an {@code EhcacheEntityResponse} indicating the success or failure of the store creation operation
+   * @return an {@code EhcacheEntityResponse} carrying the identifier of the new store, or indicating the failure of the
+   *      store creation operation
    */
   private EhcacheEntityResponse createServerStore(ClientDescriptor clientDescriptor, CreateServerStore createServerStore) {
     ClientState clientState = this.clientStateMap.get(clientDescriptor);
@@ -470,7 +809,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
               resourceName = defaultServerResource;
             }
           }
-          resourcePageSource = createPageSource(name, new Pool(resourceName, fixedAllocation.getSize()));
+          resourcePageSource = ResourcePageSource.createPageSource(services, name, new Pool(resourceName, fixedAllocation.getSize()));
         } catch (RuntimeException e) {
           return failure(e);
         }
@@ -491,8 +830,29 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       return failure(cause);
     }
 
-    stores.put(name, new ServerStoreImpl(storeConfiguration, resourcePageSource));
-    attachStore(clientDescriptor, name);
+    ServerStoreImpl store = new ServerStoreImpl(nextStoreId(), storeConfiguration, resourcePageSource,
+        chainResolver, compactionThreshold);
+    stores.put(name, store);
+    publishStore(store.getId(), store);
+    attachStore(clientDescriptor, name, createServerStore.isCaching());
+    return storeId(store.getId(), concurrency);
+  }
+
+  /**
+   * Handles the {@link ServerStoreCreated ServerStoreCreated} message.  The store was created by a preceding
+   * {@link CreateServerStore CreateServerStore} message: this message only exists to carry the store identifier to
+   * passives, so it merely checks the store still goes by that identifier.
+   *
+   * @param serverStoreCreated the {@code ServerStoreCreated} message carrying the name and identifier of the store
+   *
+   * @return an {@code EhcacheEntityResponse} indicating whether the store is known under that identifier
+   */
+  private EhcacheEntityResponse serverStoreCreated(ServerStoreCreated serverStoreCreated) {
+    ServerStoreImpl store = stores.get(serverStoreCreated.getName());
+    if (store == null || store.getId() != serverStoreCreated.getStoreId()) {
+      return failure(new IllegalStateException("Store '" + serverStoreCreated.getName() + "' does not exist with id "
+          + serverStoreCreated.getStoreId()));
+    }
     return success();
   }
 
@@ -507,7 +867,8 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    * @param clientDescriptor the client identifier requesting attachment to an existing store
    * @param validateServerStore the {@code ValidateServerStore} message carrying the desired store configuration
    *
-   * @return an {@code EhcacheEntityResponse} indicating the success or failure of the store attachment operation
+   * @return an {@code EhcacheEntityResponse} carrying the identifier of the store, or indicating the failure of the
+   *      store attachment operation
    */
   private EhcacheEntityResponse validateServerStore(ClientDescriptor clientDescriptor, ValidateServerStore validateServerStore) {
     ClientState clientState = this.clientStateMap.get(clientDescriptor);
@@ -532,8 +893,8 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       } catch (ClusteredStoreValidationException e) {
         return failure(e);
       }
-      attachStore(clientDescriptor, name);
-      return success();
+      attachStore(clientDescriptor, name, validateServerStore.isCaching());
+      return storeId(store.getId(), concurrency);
     } else {
       return failure(new IllegalStateException("Store '" + name + "' does not exist"));
     }
@@ -615,6 +976,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     if (store == null) {
       return failure(new IllegalStateException("Store '" + name + "' does not exist"));
     } else {
+      publishStore(store.getId(), null);
       /*
        * A ServerStore using a fixed resource pool is the only referent to that pool.  When such a
        * ServerStore is destroyed, the associated fixed resource pool must also be discarded.
@@ -623,7 +985,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       if (expectedPageSource != null) {
         if (store.getPageSource() == expectedPageSource) {
           fixedResourcePools.remove(name);
-          releasePool("fixed", name, expectedPageSource);
+          ResourcePageSource.releasePool(services, "fixed", name, expectedPageSource);
         } else {
           LOGGER.error("Client {} attempting to destroy server-side store '{}' with unmatched page source", clientDescriptor, name);
         }
@@ -635,65 +997,6 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
   }
 
-  private Map<String, ResourcePageSource> createPools(Map<String, Pool> resourcePools) {
-    Map<String, ResourcePageSource> pools = new HashMap<String, ResourcePageSource>();
-    try {
-      for (Entry<String, Pool> e : resourcePools.entrySet()) {
-        pools.put(e.getKey(), createPageSource(e.getKey(), e.getValue()));
-      }
-    } catch (RuntimeException e) {
-      /*
-       * If we fail during pool creation, back out any pools successfully created during this call.
-       */
-      if (!pools.isEmpty()) {
-        LOGGER.warn("Failed to create shared resource pools; reversing reservations", e);
-        releasePools("shared", pools);
-      }
-      throw e;
-    }
-    return pools;
-  }
-
-  private ResourcePageSource createPageSource(String poolName, Pool pool) {
-    ResourcePageSource pageSource;
-    OffHeapResource source = services.getService(OffHeapResourceIdentifier.identifier(pool.source()));
-    if (source == null) {
-      throw new IllegalArgumentException("Non-existent server side resource '" + pool.source() + "'");
-    } else if (source.reserve(pool.size())) {
-      try {
-        pageSource = new ResourcePageSource(pool);
-      } catch (RuntimeException t) {
-        source.release(pool.size());
-        throw new IllegalArgumentException("Failure allocating pool " + pool, t);
-      }
-      LOGGER.info("Reserved {} bytes from resource '{}' for pool '{}'", pool.size(), pool.source(), poolName);
-    } else {
-      throw new IllegalArgumentException("Insufficient defined resources to allocate pool " + poolName + "=" + pool);
-    }
-    return pageSource;
-  }
-
-  private void releasePools(String poolType, Map<String, ResourcePageSource> resourcePools) {
-    if (resourcePools == null) {
-      return;
-    }
-    final Iterator<Entry<String, ResourcePageSource>> fixedPoolIterator = resourcePools.entrySet().iterator();
-    while (fixedPoolIterator.hasNext()) {
-      Entry<String, ResourcePageSource> poolEntry = fixedPoolIterator.next();
-      releasePool(poolType, poolEntry.getKey(), poolEntry.getValue());
-      fixedPoolIterator.remove();
-    }
-  }
-
-  private void releasePool(String poolType, String poolName, ResourcePageSource resourcePageSource) {
-    Pool pool = resourcePageSource.getPool();
-    OffHeapResource source = services.getService(OffHeapResourceIdentifier.identifier(pool.source()));
-    if (source != null) {
-      source.release(pool.size());
-      LOGGER.info("Released {} bytes from resource '{}' for {} pool '{}'", pool.size(), pool.source(), poolType, poolName);
-    }
-  }
-
   /**
    * Establishes a registration of a client against a store.
    * <p>
@@ -703,8 +1006,9 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    *
    * @param clientDescriptor the client to connect
    * @param storeId the store id to which the client is connecting
+   * @param caching whether the client holds mappings of the store in a local caching tier
    */
-  private void attachStore(ClientDescriptor clientDescriptor, String storeId) {
+  private void attachStore(ClientDescriptor clientDescriptor, String storeId, boolean caching) {
     boolean updated = false;
     while (!updated) {
       Set<ClientDescriptor> clients = storeClientMap.get(storeId);
@@ -725,6 +1029,10 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       }
     }
 
+    if (caching) {
+      stores.get(storeId).getInvalidationTracker().register(clientDescriptor);
+    }
+
     final ClientState clientState = clientStateMap.get(clientDescriptor);
     clientState.addStore(storeId);
 
@@ -757,6 +1065,11 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
 
     if (wasRegistered) {
+      ServerStoreImpl store = stores.get(storeId);
+      if (store != null) {
+        store.getInvalidationTracker().remove(clientDescriptor);
+        forgetInvalidations(clientDescriptor, store.getId());
+      }
       LOGGER.info("Client {} detached from store '{}'", clientDescriptor, storeId);
     }
 
@@ -764,77 +1077,83 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   }
 
   /**
-   * Represents a client's state against an {@link EhcacheActiveEntity}.
+   * An invalidation of a {@link Consistency#STRONG STRONG} store, awaiting the acknowledgements of the clients it
+   * was sent to before notifying the client which modified the mappings.
    */
-  private static class ClientState {
-    /**
-     * Indicates if the client has either configured or validated with clustered store manager.
-     */
-    private boolean attached = false;
+  private static final class PendingInvalidation {
+
+    private final ClientDescriptor writer;
+    private final int storeId;
+    private final long key;
 
     /**
-     * The set of stores to which the client has attached.
+     * The number of {@code InvalidateHash} messages each client has yet to acknowledge.
      */
-    private final Set<String> attachedStores = new HashSet<String>();
+    private final Map<ClientDescriptor, Integer> outstanding = new HashMap<ClientDescriptor, Integer>();
 
-    boolean isAttached() {
-      return attached;
+    PendingInvalidation(ClientDescriptor writer, int storeId, long key) {
+      this.writer = writer;
+      this.storeId = storeId;
+      this.key = key;
     }
 
-    void attach() {
-      this.attached = true;
+    synchronized void expect(ClientDescriptor client) {
+      Integer count = outstanding.get(client);
+      outstanding.put(client, count == null ? 1 : count + 1);
     }
 
-    boolean addStore(String storeName) {
-      return this.attachedStores.add(storeName);
+    synchronized void acknowledge(ClientDescriptor client) {
+      Integer count = outstanding.get(client);
+      if (count != null) {
+        if (count == 1) {
+          outstanding.remove(client);
+        } else {
+          outstanding.put(client, count - 1);
+        }
+      }
     }
 
-    boolean removeStore(String storeName) {
-      return this.attachedStores.remove(storeName);
+    synchronized void forget(ClientDescriptor client) {
+      outstanding.remove(client);
     }
 
-    Set<String> getAttachedStores() {
-      return Collections.unmodifiableSet(new HashSet<String>(this.attachedStores));
+    synchronized boolean isAcknowledged() {
+      return outstanding.isEmpty();
     }
   }
 
   /**
-   * Pairs a {@link Pool} and an {@link UpfrontAllocatingPageSource} instance providing storage
-   * for the pool.
+   * Represents a client's state against an {@link EhcacheActiveEntity}.
    */
-  private static class ResourcePageSource implements PageSource {
+  private static class ClientState {
     /**
-     * A description of the resource allocation underlying this {@code PageSource}.
+     * Indicates if the client has either configured or validated with clustered store manager.
      */
-    private final Pool pool;
-    private final UpfrontAllocatingPageSource delegatePageSource;
+    private volatile boolean attached = false;
 
-    private ResourcePageSource(Pool pool) {
-      this.pool = pool;
-      this.delegatePageSource = new UpfrontAllocatingPageSource(new OffHeapBufferSource(), pool.size(), GIGABYTES.toBytes(1), MEGABYTES.toBytes(128));
+    /**
+     * The set of stores to which the client has attached.
+     */
+    private final Set<String> attachedStores = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    boolean isAttached() {
+      return attached;
     }
 
-    private Pool getPool() {
-      return pool;
+    void attach() {
+      this.attached = true;
     }
 
-    @Override
-    public Page allocate(int size, boolean thief, boolean victim, OffHeapStorageArea owner) {
-      return delegatePageSource.allocate(size, thief, victim, owner);
+    boolean addStore(String storeName) {
+      return this.attachedStores.add(storeName);
     }
 
-    @Override
-    public void free(Page page) {
-      delegatePageSource.free(page);
+    boolean removeStore(String storeName) {
+      return this.attachedStores.remove(storeName);
     }
 
-    @Override
-    public String toString() {
-      final StringBuilder sb = new StringBuilder("ResourcePageSource{");
-      sb.append("pool=").append(pool);
-      sb.append(", delegatePageSource=").append(delegatePageSource);
-      sb.append('}');
-      return sb.toString();
+    Set<String> getAttachedStores() {
+      return Collections.unmodifiableSet(new HashSet<String>(this.attachedStores));
     }
   }
 }
@@ -0,0 +1,327 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.ServerSideConfiguration.Pool;
+import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.ServerStoreConfiguration.PoolAllocation;
+import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
+import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
+import org.ehcache.clustered.common.messages.EntitySyncMessage;
+import org.ehcache.clustered.common.messages.LifecycleMessage;
+import org.ehcache.clustered.common.messages.ServerStoreOpMessage;
+import org.ehcache.clustered.common.store.Chain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.entity.PassiveServerEntity;
+import org.terracotta.entity.ServiceRegistry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.DataSyncMessage;
+import static org.ehcache.clustered.common.messages.EntitySyncMessage.StateSyncMessage;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.ConfigureCacheManager;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.CreateServerStore;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.DestroyServerStore;
+import static org.ehcache.clustered.common.messages.LifecycleMessage.ServerStoreCreated;
+
+/**
+ * Mirrors the stores of an {@link EhcacheActiveEntity}.
+ * <p>
+ *   A passive is brought up to date by the {@link EntitySyncMessage}s its active streams to it, then kept so by the
+ *   replicated lifecycle and store mutation messages.  Client attachment is not tracked: a passive only applies what
+ *   changes the stores.  Stores are created on the {@link ServerStoreCreated} confirmation rather than on the
+ *   replicated {@link CreateServerStore}, so that they only exist if the active created them, and under the
+ *   identifier the active assigned.
+ * </p>
+ * <p>
+ *   Synchronization messages are received on every concurrency key, possibly concurrently: configuring the entity and
+ *   creating or destroying stores is serialized on this entity, and applying the same state twice is harmless.
+ * </p>
+ */
+class EhcachePassiveEntity implements PassiveServerEntity<EhcacheEntityMessage, EhcacheEntityResponse> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EhcachePassiveEntity.class);
+
+  private final ServiceRegistry services;
+  private final ServerChainResolver chainResolver;
+  private final int compactionThreshold;
+
+  private volatile String defaultServerResource;
+  private volatile Map<String, ResourcePageSource> sharedResourcePools;
+  private final Map<String, ResourcePageSource> fixedResourcePools = new ConcurrentHashMap<String, ResourcePageSource>();
+  private final Map<String, ServerStoreImpl> stores = new ConcurrentHashMap<String, ServerStoreImpl>();
+  private volatile ServerStoreImpl[] storesById = new ServerStoreImpl[0];
+
+  EhcachePassiveEntity(ServiceRegistry services, byte[] config) {
+    this(services, config, new OperationChainResolver(), EhcacheServerEntityService.DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  EhcachePassiveEntity(ServiceRegistry services, byte[] config, ServerChainResolver chainResolver, int compactionThreshold) {
+    this.services = services;
+    this.chainResolver = chainResolver;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  /**
+   * Gets the set of {@code ServerStore} identifiers defined in this {@code EhcachePassiveEntity}.
+   *
+   * @return an unmodifiable copy of the store ids
+   */
+  // This method is intended for unit test use; modifications are likely needed for other (monitoring) purposes
+  Set<String> getStores() {
+    return Collections.unmodifiableSet(new HashSet<String>(stores.keySet()));
+  }
+
+  /**
+   * Gets the chain of a key of a store.
+   *
+   * @param storeId the store identifier
+   * @param key the key hash
+   * @return the chain, {@code null} if the store does not exist
+   */
+  // This method is intended for unit test use; modifications are likely needed for other (monitoring) purposes
+  Chain getChain(int storeId, long key) {
+    ServerStoreImpl store = getStore(storeId);
+    return store == null ? null : store.get(key);
+  }
+
+  @Override
+  public void invoke(EhcacheEntityMessage message) {
+    try {
+      switch (message.getType()) {
+        case LIFECYCLE_OP:
+          invokeLifeCycleOperation((LifecycleMessage) message);
+          break;
+        case SERVER_STORE_OP:
+          invokeServerStoreOperation((ServerStoreOpMessage) message);
+          break;
+        case SYNC_OP:
+          invokeSyncOperation((EntitySyncMessage) message);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown message " + message);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Unexpected exception raised applying {} on passive", message, e);
+    }
+  }
+
+  @Override
+  public void startSyncEntity() {
+    LOGGER.info("Starting synchronization from active");
+  }
+
+  @Override
+  public void endSyncEntity() {
+    LOGGER.info("Synchronization from active complete: {} stores", stores.size());
+  }
+
+  @Override
+  public void startSyncConcurrencyKey(int concurrencyKey) {
+    LOGGER.debug("Starting synchronization of concurrency key {}", concurrencyKey);
+  }
+
+  @Override
+  public void endSyncConcurrencyKey(int concurrencyKey) {
+    LOGGER.debug("Synchronization of concurrency key {} complete", concurrencyKey);
+  }
+
+  @Override
+  public void createNew() {
+    //nothing to do
+  }
+
+  @Override
+  public void loadExisting() {
+    //nothing to do
+  }
+
+  @Override
+  public synchronized void destroy() {
+    stores.clear();
+    storesById = new ServerStoreImpl[0];
+    ResourcePageSource.releasePools(services, "shared", sharedResourcePools);
+    ResourcePageSource.releasePools(services, "fixed", fixedResourcePools);
+  }
+
+  private void invokeLifeCycleOperation(LifecycleMessage message) {
+    switch (message.operation()) {
+      case CONFIGURE:
+        configure(((ConfigureCacheManager) message).getConfiguration());
+        break;
+      case SERVER_STORE_CREATED:
+        ServerStoreCreated serverStoreCreated = (ServerStoreCreated) message;
+        createStore(serverStoreCreated.getName(), serverStoreCreated.getStoreId(), serverStoreCreated.getStoreConfiguration());
+        break;
+      case DESTROY_SERVER_STORE:
+        destroyStore(((DestroyServerStore) message).getName());
+        break;
+      case CREATE_SERVER_STORE:
+        // the active may reject the creation: the store is created on its confirmation
+      case VALIDATE:
+      case VALIDATE_SERVER_STORE:
+      case RELEASE_SERVER_STORE:
+        // client attachments are not tracked on passives
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown LifeCycle operation " + message);
+    }
+  }
+
+  private void invokeServerStoreOperation(ServerStoreOpMessage message) {
+    ServerStoreImpl store = getStore(message.getStoreId());
+    if (store == null) {
+      throw new IllegalStateException("Server Store not present for storeId :" + message.getStoreId());
+    }
+    try {
+      switch (message.operation()) {
+        case GET:
+        case GET_ALL:
+        case CLIENT_INVALIDATION_ACK:
+          break;
+        case APPEND:
+          store.append(message.getKey(), ((ServerStoreOpMessage.AppendMessage) message).getPayload());
+          break;
+        case GET_AND_APPEND:
+          store.getAndAppend(message.getKey(), ((ServerStoreOpMessage.GetAndAppendMessage) message).getPayload());
+          break;
+        case REPLACE:
+          ServerStoreOpMessage.ReplaceAtHeadMessage replaceAtHeadMessage = (ServerStoreOpMessage.ReplaceAtHeadMessage) message;
+          store.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate());
+          break;
+        case REPLACE_BATCH:
+          for (ServerStoreOpMessage.ReplaceAtHeadMessage replacement : ((ServerStoreOpMessage.ReplaceAtHeadBatchMessage) message).getReplacements()) {
+            store.replaceAtHead(replacement.getKey(), replacement.getExpect(), replacement.getUpdate());
+          }
+          break;
+        case APPEND_BATCH:
+          for (ServerStoreOpMessage.AppendMessage append : ((ServerStoreOpMessage.AppendBatchMessage) message).getAppends()) {
+            store.append(append.getKey(), append.getPayload());
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown Server Store operation " + message);
+      }
+    } finally {
+      // the active invalidates the clients of evicted keys, nothing to do here but forget them
+      while (store.pollEvictedKey() != null) {
+        // discard
+      }
+    }
+  }
+
+  private void invokeSyncOperation(EntitySyncMessage message) {
+    switch (message.operation()) {
+      case STATE:
+        StateSyncMessage stateMessage = (StateSyncMessage) message;
+        configure(stateMessage.getConfiguration());
+        for (Entry<String, ServerStoreConfiguration> store : stateMessage.getStoreConfigurations().entrySet()) {
+          createStore(store.getKey(), stateMessage.getStoreIds().get(store.getKey()), store.getValue());
+        }
+        break;
+      case DATA:
+        DataSyncMessage dataMessage = (DataSyncMessage) message;
+        ServerStoreImpl store = getStore(dataMessage.getStoreId());
+        if (store == null) {
+          throw new IllegalStateException("Server Store not present for storeId :" + dataMessage.getStoreId());
+        }
+        for (Entry<Long, Chain> chain : dataMessage.getChains().entrySet()) {
+          store.put(chain.getKey(), chain.getValue());
+        }
+        while (store.pollEvictedKey() != null) {
+          // discard
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown synchronization operation " + message);
+    }
+  }
+
+  private synchronized void configure(ServerSideConfiguration configuration) {
+    if (sharedResourcePools == null) {
+      LOGGER.info("Configuring passive server-side clustered store manager");
+      this.defaultServerResource = configuration.getDefaultServerResource();
+      this.sharedResourcePools = ResourcePageSource.createPools(services, configuration.getResourcePools());
+    }
+  }
+
+  /**
+   * Creates a store, unless it already exists.
+   */
+  private synchronized void createStore(String name, int storeId, ServerStoreConfiguration storeConfiguration) {
+    if (sharedResourcePools == null) {
+      throw new IllegalStateException("Store '" + name + "' created before the passive was configured");
+    }
+    if (stores.containsKey(name)) {
+      return;
+    }
+    ResourcePageSource resourcePageSource;
+    PoolAllocation allocation = storeConfiguration.getPoolAllocation();
+    if (allocation instanceof PoolAllocation.Fixed) {
+      PoolAllocation.Fixed fixedAllocation = (PoolAllocation.Fixed) allocation;
+      String resourceName = fixedAllocation.getResourceName();
+      if (resourceName == null) {
+        resourceName = defaultServerResource;
+      }
+      resourcePageSource = ResourcePageSource.createPageSource(services, name, new Pool(resourceName, fixedAllocation.getSize()));
+      fixedResourcePools.put(name, resourcePageSource);
+    } else if (allocation instanceof PoolAllocation.Shared) {
+      resourcePageSource = sharedResourcePools.get(((PoolAllocation.Shared) allocation).getResourcePoolName());
+    } else {
+      throw new IllegalStateException("Unexpected PoolAllocation type: " + allocation.getClass().getName());
+    }
+
+    LOGGER.info("Creating passive server-side store '{}'", name);
+    ServerStoreImpl store = new ServerStoreImpl(storeId, storeConfiguration, resourcePageSource, chainResolver, compactionThreshold);
+    stores.put(name, store);
+    publishStore(storeId, store);
+  }
+
+  private synchronized void destroyStore(String name) {
+    ServerStoreImpl store = stores.remove(name);
+    if (store != null) {
+      LOGGER.info("Destroying passive server-side store '{}'", name);
+      publishStore(store.getId(), null);
+      ResourcePageSource pageSource = fixedResourcePools.remove(name);
+      if (pageSource != null) {
+        ResourcePageSource.releasePool(services, "fixed", name, pageSource);
+      }
+    }
+  }
+
+  private ServerStoreImpl getStore(int storeId) {
+    ServerStoreImpl[] storesById = this.storesById;
+    if (storeId >= 0 && storeId < storesById.length) {
+      return storesById[storeId];
+    } else {
+      return null;
+    }
+  }
+
+  private void publishStore(int storeId, ServerStoreImpl store) {
+    ServerStoreImpl[] storesById = Arrays.copyOf(this.storesById, Math.max(this.storesById.length, storeId + 1));
+    storesById[storeId] = store;
+    this.storesById = storesById;
+  }
+}
@@ -18,18 +18,64 @@ package org.ehcache.clustered.server;
 import org.ehcache.clustered.common.messages.EhcacheCodec;
 import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
+import org.ehcache.clustered.common.messages.EntitySyncMessageCodec;
 import org.terracotta.entity.ConcurrencyStrategy;
 import org.terracotta.entity.MessageCodec;
-import org.terracotta.entity.PassiveServerEntity;
 import org.terracotta.entity.ServerEntityService;
 import org.terracotta.entity.ServiceRegistry;
 
-import static org.ehcache.clustered.server.ConcurrencyStrategies.noConcurrency;
+import static org.ehcache.clustered.server.ConcurrencyStrategies.defaultConcurrency;
 import org.terracotta.entity.SyncMessageCodec;
 
 public class EhcacheServerEntityService implements ServerEntityService<EhcacheEntityMessage, EhcacheEntityResponse> {
 
   private static final long ENTITY_VERSION = 1L;
+
+  /**
+   * System property overriding the number of concurrency keys server store operations are spread over.
+   */
+  public static final String CONCURRENCY_PROPERTY = "org.ehcache.clustered.server.concurrency";
+
+  /**
+   * Default number of concurrency keys, matching the number of segments of a server store.
+   */
+  public static final int DEFAULT_CONCURRENCY = 16;
+
+  /**
+   * System property overriding the number of appends to a key after which the server compacts its chain,
+   * {@code 0} leaving compaction to clients.
+   */
+  public static final String COMPACTION_THRESHOLD_PROPERTY = "org.ehcache.clustered.server.compaction.threshold";
+
+  /**
+   * Default number of appends to a key after which the server compacts its chain.
+   */
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+
+  private final int concurrency;
+  private final ServerChainResolver chainResolver;
+  private final int compactionThreshold;
+
+  public EhcacheServerEntityService() {
+    this(Integer.getInteger(CONCURRENCY_PROPERTY, DEFAULT_CONCURRENCY));
+  }
+
+  public EhcacheServerEntityService(int concurrency) {
+    this(concurrency, new OperationChainResolver(), Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, DEFAULT_COMPACTION_THRESHOLD));
+  }
+
+  public EhcacheServerEntityService(int concurrency, ServerChainResolver chainResolver, int compactionThreshold) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be positive, was: " + concurrency);
+    }
+    if (compactionThreshold < 0) {
+      throw new IllegalArgumentException("Compaction threshold must not be negative, was: " + compactionThreshold);
+    }
+    this.concurrency = concurrency;
+    this.chainResolver = chainResolver;
+    this.compactionThreshold = compactionThreshold;
+  }
+
   @Override
   public long getVersion() {
     return ENTITY_VERSION;
@@ -42,17 +88,17 @@ public class EhcacheServerEntityService implements ServerEntityService<EhcacheEn
 
   @Override
   public EhcacheActiveEntity createActiveEntity(ServiceRegistry registry, byte[] configuration) {
-    return new EhcacheActiveEntity(registry, configuration);
+    return new EhcacheActiveEntity(registry, configuration, concurrency, chainResolver, compactionThreshold);
   }
 
   @Override
-  public PassiveServerEntity<EhcacheEntityMessage, EhcacheEntityResponse> createPassiveEntity(ServiceRegistry registry, byte[] configuration) {
-    throw new UnsupportedOperationException("Active/passive is not supported yet");
+  public EhcachePassiveEntity createPassiveEntity(ServiceRegistry registry, byte[] configuration) {
+    return new EhcachePassiveEntity(registry, configuration, chainResolver, compactionThreshold);
   }
 
   @Override
   public ConcurrencyStrategy<EhcacheEntityMessage> getConcurrencyStrategy(byte[] config) {
-    return noConcurrency();
+    return defaultConcurrency(concurrency);
   }
 
   @Override
@@ -62,6 +108,6 @@ public class EhcacheServerEntityService implements ServerEntityService<EhcacheEn
 
   @Override
   public SyncMessageCodec<EhcacheEntityMessage> getSyncMessageCodec() {
-    return null;
+    return EntitySyncMessageCodec.syncMessageCodec();
   }
 }
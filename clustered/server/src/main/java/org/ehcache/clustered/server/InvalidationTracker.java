@@ -0,0 +1,214 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.terracotta.entity.ClientDescriptor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks, for each key hash of a {@code ServerStore}, the clients which may hold the mapping in a local
+ * caching tier.
+ * <p>
+ *   Only {@link #register(ClientDescriptor) registered} clients, those caching mappings locally, are tracked.  A client
+ *   becomes a holder when it reads the key, and stops being one when the key is invalidated.  Operations on a given
+ *   key are expected to be serialized by the concurrency strategy of the entity.
+ * </p>
+ * <p>
+ *   At most {@code capacity} key hashes are tracked, spread over lock stripes each evicting its least recently read
+ *   key hash once full.  As the tracker then no longer knows who holds an evicted mapping, its holders are handed
+ *   back to the caller to be invalidated.
+ * </p>
+ */
+class InvalidationTracker {
+
+  /**
+   * The default maximum number of key hashes tracked.
+   */
+  static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+  private static final int STRIPES = 64;
+
+  private final Set<ClientDescriptor> cachingClients = Collections.newSetFromMap(new ConcurrentHashMap<ClientDescriptor, Boolean>());
+  private final Stripe[] stripes;
+
+  InvalidationTracker() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  InvalidationTracker(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive, was: " + capacity);
+    }
+    int stripeCount = Math.min(STRIPES, capacity);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0));
+    }
+  }
+
+  /**
+   * Starts tracking the mappings read by a client holding them in a local caching tier.
+   *
+   * @param clientDescriptor the client
+   */
+  void register(ClientDescriptor clientDescriptor) {
+    cachingClients.add(clientDescriptor);
+  }
+
+  /**
+   * Indicates whether a client is tracked.
+   *
+   * @param clientDescriptor the client
+   * @return {@code true} if the client registered and was not removed since
+   */
+  boolean isRegistered(ClientDescriptor clientDescriptor) {
+    return cachingClients.contains(clientDescriptor);
+  }
+
+  /**
+   * Records that a client may now hold a mapping for the given key hash, if that client is registered.
+   *
+   * @param key the key hash
+   * @param clientDescriptor the reading client
+   * @return the holders, by key hash, of the mappings which stopped being tracked to make room for this one
+   */
+  Map<Long, Set<ClientDescriptor>> held(long key, ClientDescriptor clientDescriptor) {
+    Stripe stripe = stripeFor(key);
+    synchronized (stripe) {
+      // checked under the stripe lock so that remove(...) cannot miss this holder
+      if (!cachingClients.contains(clientDescriptor)) {
+        return Collections.emptyMap();
+      }
+      Set<ClientDescriptor> clients = stripe.get(key);
+      if (clients == null) {
+        clients = new HashSet<ClientDescriptor>();
+        stripe.put(key, clients);
+      }
+      clients.add(clientDescriptor);
+      return stripe.drainEvicted();
+    }
+  }
+
+  /**
+   * Stops tracking the given key hash, returning the clients to invalidate.
+   *
+   * @param key the key hash
+   * @param writer the client modifying the mapping, which invalidates its own copy, or {@code null} if the server
+   *               evicted it
+   * @return the clients other than {@code writer} holding the mapping
+   */
+  Set<ClientDescriptor> invalidate(long key, ClientDescriptor writer) {
+    Stripe stripe = stripeFor(key);
+    Set<ClientDescriptor> clients;
+    synchronized (stripe) {
+      clients = stripe.remove(key);
+    }
+    if (clients == null) {
+      return Collections.emptySet();
+    }
+    if (writer != null) {
+      clients.remove(writer);
+    }
+    return clients;
+  }
+
+  /**
+   * Forgets a client, typically once it detached from the store.
+   *
+   * @param clientDescriptor the client
+   */
+  void remove(ClientDescriptor clientDescriptor) {
+    if (!cachingClients.remove(clientDescriptor)) {
+      return;
+    }
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        for (Iterator<Set<ClientDescriptor>> it = stripe.values().iterator(); it.hasNext(); ) {
+          Set<ClientDescriptor> clients = it.next();
+          if (clients.remove(clientDescriptor) && clients.isEmpty()) {
+            it.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of key hashes tracked.
+   *
+   * @return the tracked key hash count
+   */
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  private Stripe stripeFor(long key) {
+    int hash = (int) (key ^ (key >>> 32));
+    hash ^= (hash >>> 16);
+    return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+  }
+
+  /**
+   * An access ordered map of holders, guarded by its own monitor, evicting its eldest entry beyond its capacity.
+   */
+  private static final class Stripe extends LinkedHashMap<Long, Set<ClientDescriptor>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+    private Map<Long, Set<ClientDescriptor>> evicted;
+
+    Stripe(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Set<ClientDescriptor>> eldest) {
+      if (size() > capacity) {
+        if (evicted == null) {
+          evicted = new HashMap<Long, Set<ClientDescriptor>>();
+        }
+        evicted.put(eldest.getKey(), eldest.getValue());
+        return true;
+      }
+      return false;
+    }
+
+    Map<Long, Set<ClientDescriptor>> drainEvicted() {
+      Map<Long, Set<ClientDescriptor>> drained = evicted;
+      if (drained == null) {
+        return Collections.emptyMap();
+      }
+      evicted = null;
+      return drained;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.common.store.Element;
+import org.ehcache.clustered.common.store.Util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ServerChainResolver} understanding the operation encoding of the clustered store client.
+ * <P>
+ *   Operations are told apart by their serialized key only, so two keys are considered the same when their bytes
+ *   are. An operation is dropped when a later put or remove of the same key supersedes it, and a remove is dropped
+ *   when no earlier operation of its key remains. Chains holding anything this resolver cannot parse are left as is.
+ * </P>
+ */
+public class OperationChainResolver implements ServerChainResolver {
+
+  static final byte PUT = 1;
+  static final byte REMOVE = 2;
+  static final byte PUT_IF_ABSENT = 3;
+
+  @Override
+  public Chain resolve(Chain chain) {
+    List<Element> elements = new ArrayList<Element>();
+    List<ByteBuffer> keys = new ArrayList<ByteBuffer>();
+    for (Element element : chain) {
+      ByteBuffer key = key(element.getPayload());
+      if (key == null) {
+        return null;
+      }
+      elements.add(element);
+      keys.add(key);
+    }
+
+    int size = elements.size();
+    boolean[] dropped = new boolean[size];
+    boolean compacted = false;
+    Set<ByteBuffer> overwritten = new HashSet<ByteBuffer>();
+    for (int i = size - 1; i >= 0; i--) {
+      if (overwritten.contains(keys.get(i))) {
+        dropped[i] = compacted = true;
+      } else if (opCode(elements.get(i)) != PUT_IF_ABSENT) {
+        overwritten.add(keys.get(i));
+      }
+    }
+    Set<ByteBuffer> present = new HashSet<ByteBuffer>();
+    for (int i = 0; i < size; i++) {
+      if (!dropped[i]) {
+        if (opCode(elements.get(i)) == REMOVE && !present.contains(keys.get(i))) {
+          dropped[i] = compacted = true;
+        } else {
+          present.add(keys.get(i));
+        }
+      }
+    }
+    if (!compacted) {
+      return null;
+    }
+
+    List<Element> resolved = new ArrayList<Element>();
+    for (int i = 0; i < size; i++) {
+      if (!dropped[i]) {
+        resolved.add(Util.getElement(elements.get(i).getPayload()));
+      }
+    }
+    return Util.getChain(resolved);
+  }
+
+  private static byte opCode(Element element) {
+    return element.getPayload().get();
+  }
+
+  /**
+   * Extracts the serialized key of an encoded operation.
+   *
+   * @param payload the encoded operation
+   * @return the key bytes, or {@code null} if the payload is not a known operation
+   */
+  static ByteBuffer key(ByteBuffer payload) {
+    if (!payload.hasRemaining()) {
+      return null;
+    }
+    switch (payload.get()) {
+      case PUT:
+      case PUT_IF_ABSENT:
+        if (payload.remaining() < 4) {
+          return null;
+        }
+        int keySize = payload.getInt();
+        if (keySize < 0 || payload.remaining() < keySize + 4) {
+          return null;
+        }
+        ByteBuffer key = payload.slice();
+        key.limit(keySize);
+        payload.position(payload.position() + keySize);
+        int valueSize = payload.getInt();
+        if (valueSize != payload.remaining()) {
+          return null;
+        }
+        return key;
+      case REMOVE:
+        return payload.slice();
+      default:
+        return null;
+    }
+  }
+}
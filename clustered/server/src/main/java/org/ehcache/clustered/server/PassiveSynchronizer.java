@@ -0,0 +1,233 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.messages.ConcurrencyBuckets;
+import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
+import org.ehcache.clustered.common.messages.EntitySyncMessageCodec;
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.server.offheap.ChainVisitor;
+import org.terracotta.entity.PassiveSynchronizationChannel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.ehcache.clustered.common.messages.EhcacheEntityMessage.dataSync;
+
+/**
+ * Streams the chains of server stores to a passive server, one concurrency key at a time.
+ * <P>
+ *   The segments of a store are scanned in parallel, each scan sending the chains of the keys mapped to the
+ *   synchronized concurrency key in chunks of about {@code chunkSize} bytes.  Chains travel in their stored binary
+ *   form: they are neither decoded nor resolved.
+ * </P>
+ */
+class PassiveSynchronizer {
+
+  /**
+   * Default size, in bytes, above which a chunk of chains is sent.
+   */
+  static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+  /**
+   * Default number of segments scanned concurrently.
+   */
+  static final int DEFAULT_PARALLELISM = 4;
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final int chunkSize;
+  private final int parallelism;
+
+  private final AtomicLong syncedChains = new AtomicLong();
+  private final AtomicLong syncedBytes = new AtomicLong();
+  private final AtomicLong syncNanos = new AtomicLong();
+
+  PassiveSynchronizer() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM);
+  }
+
+  PassiveSynchronizer(int chunkSize, int parallelism) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive, was: " + chunkSize);
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive, was: " + parallelism);
+    }
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sends the chains of {@code store} mapped to {@code bucket} to {@code channel}.
+   *
+   * @param store the store
+   * @param bucket the bucket of the synchronized concurrency key
+   * @param bucketCount the number of buckets keys are spread over
+   * @param channel the channel to the passive
+   * @return the number of chains sent
+   */
+  long synchronize(final ServerStoreImpl store, final int bucket, final int bucketCount,
+                   final PassiveSynchronizationChannel<EhcacheEntityMessage> channel) {
+    final AtomicLong sent = new AtomicLong();
+    long start = System.nanoTime();
+    try {
+      int segmentCount = store.getSegmentCount();
+      int threads = Math.min(parallelism, segmentCount);
+      if (threads <= 1) {
+        for (int segment = 0; segment < segmentCount; segment++) {
+          synchronizeSegment(store, segment, bucket, bucketCount, channel, sent);
+        }
+      } else {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ehcache-passive-sync-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+        try {
+          List<Future<?>> scans = new ArrayList<Future<?>>(segmentCount);
+          for (int i = 0; i < segmentCount; i++) {
+            final int segment = i;
+            scans.add(executor.submit(new Runnable() {
+              @Override
+              public void run() {
+                synchronizeSegment(store, segment, bucket, bucketCount, channel, sent);
+              }
+            }));
+          }
+          awaitAll(scans);
+        } finally {
+          executor.shutdownNow();
+        }
+      }
+    } finally {
+      syncNanos.addAndGet(System.nanoTime() - start);
+    }
+    return sent.get();
+  }
+
+  private void synchronizeSegment(ServerStoreImpl store, int segment, final int bucket, final int bucketCount,
+                                  final PassiveSynchronizationChannel<EhcacheEntityMessage> channel, final AtomicLong sent) {
+    final int storeId = store.getId();
+    final Map<Long, Chain> chunk = new LinkedHashMap<Long, Chain>();
+    final long[] chunkBytes = new long[1];
+    store.visitSegment(segment, new ChainVisitor<Long>() {
+      @Override
+      public boolean accept(Long key) {
+        return ConcurrencyBuckets.bucket(storeId, key, bucketCount) == bucket;
+      }
+
+      @Override
+      public void visit(Long key, Chain chain) {
+        chunk.put(key, chain);
+        chunkBytes[0] += EntitySyncMessageCodec.encodedSize(chain);
+        if (chunkBytes[0] >= chunkSize) {
+          send(channel, storeId, chunk, chunkBytes[0], sent);
+          chunk.clear();
+          chunkBytes[0] = 0;
+        }
+      }
+    });
+    if (!chunk.isEmpty()) {
+      send(channel, storeId, chunk, chunkBytes[0], sent);
+    }
+  }
+
+  private void send(PassiveSynchronizationChannel<EhcacheEntityMessage> channel, int storeId, Map<Long, Chain> chunk,
+                    long bytes, AtomicLong sent) {
+    EhcacheEntityMessage message = dataSync(storeId, chunk);
+    synchronized (channel) {
+      channel.synchronizeToPassive(message);
+    }
+    sent.addAndGet(chunk.size());
+    syncedChains.addAndGet(chunk.size());
+    syncedBytes.addAndGet(bytes);
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    boolean interrupted = false;
+    try {
+      for (Future<?> future : futures) {
+        while (true) {
+          try {
+            future.get();
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+              throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+              throw (Error) cause;
+            } else {
+              throw new IllegalStateException(cause);
+            }
+          }
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of chains sent to passives.
+   *
+   * @return the synchronized chain count
+   */
+  long getSyncedChainCount() {
+    return syncedChains.get();
+  }
+
+  /**
+   * Returns the number of chain bytes sent to passives.
+   *
+   * @return the synchronized byte count
+   */
+  long getSyncedByteCount() {
+    return syncedBytes.get();
+  }
+
+  /**
+   * Returns the rate at which chains were sent to passives, over the time spent synchronizing.
+   *
+   * @return the synchronization throughput in bytes per second, {@code 0} before any synchronization
+   */
+  double getThroughput() {
+    long nanos = syncNanos.get();
+    if (nanos == 0) {
+      return 0d;
+    } else {
+      return (double) syncedBytes.get() * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+  }
+}
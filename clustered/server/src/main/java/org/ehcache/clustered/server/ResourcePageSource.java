@@ -0,0 +1,138 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.ServerSideConfiguration.Pool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.offheapresource.OffHeapResource;
+import org.terracotta.offheapresource.OffHeapResourceIdentifier;
+import org.terracotta.offheapstore.buffersource.OffHeapBufferSource;
+import org.terracotta.offheapstore.paging.OffHeapStorageArea;
+import org.terracotta.offheapstore.paging.Page;
+import org.terracotta.offheapstore.paging.PageSource;
+import org.terracotta.offheapstore.paging.UpfrontAllocatingPageSource;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.terracotta.offheapstore.util.MemoryUnit.GIGABYTES;
+import static org.terracotta.offheapstore.util.MemoryUnit.MEGABYTES;
+
+/**
+ * Pairs a {@link Pool} and an {@link UpfrontAllocatingPageSource} instance providing storage
+ * for the pool.
+ */
+class ResourcePageSource implements PageSource {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResourcePageSource.class);
+
+  /**
+   * A description of the resource allocation underlying this {@code PageSource}.
+   */
+  private final Pool pool;
+  private final UpfrontAllocatingPageSource delegatePageSource;
+
+  private ResourcePageSource(Pool pool) {
+    this.pool = pool;
+    this.delegatePageSource = new UpfrontAllocatingPageSource(new OffHeapBufferSource(), pool.size(), GIGABYTES.toBytes(1), MEGABYTES.toBytes(128));
+  }
+
+  Pool getPool() {
+    return pool;
+  }
+
+  @Override
+  public Page allocate(int size, boolean thief, boolean victim, OffHeapStorageArea owner) {
+    return delegatePageSource.allocate(size, thief, victim, owner);
+  }
+
+  @Override
+  public void free(Page page) {
+    delegatePageSource.free(page);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("ResourcePageSource{");
+    sb.append("pool=").append(pool);
+    sb.append(", delegatePageSource=").append(delegatePageSource);
+    sb.append('}');
+    return sb.toString();
+  }
+
+  static Map<String, ResourcePageSource> createPools(ServiceRegistry services, Map<String, Pool> resourcePools) {
+    Map<String, ResourcePageSource> pools = new HashMap<String, ResourcePageSource>();
+    try {
+      for (Entry<String, Pool> e : resourcePools.entrySet()) {
+        pools.put(e.getKey(), createPageSource(services, e.getKey(), e.getValue()));
+      }
+    } catch (RuntimeException e) {
+      /*
+       * If we fail during pool creation, back out any pools successfully created during this call.
+       */
+      if (!pools.isEmpty()) {
+        LOGGER.warn("Failed to create shared resource pools; reversing reservations", e);
+        releasePools(services, "shared", pools);
+      }
+      throw e;
+    }
+    return pools;
+  }
+
+  static ResourcePageSource createPageSource(ServiceRegistry services, String poolName, Pool pool) {
+    ResourcePageSource pageSource;
+    OffHeapResource source = services.getService(OffHeapResourceIdentifier.identifier(pool.source()));
+    if (source == null) {
+      throw new IllegalArgumentException("Non-existent server side resource '" + pool.source() + "'");
+    } else if (source.reserve(pool.size())) {
+      try {
+        pageSource = new ResourcePageSource(pool);
+      } catch (RuntimeException t) {
+        source.release(pool.size());
+        throw new IllegalArgumentException("Failure allocating pool " + pool, t);
+      }
+      LOGGER.info("Reserved {} bytes from resource '{}' for pool '{}'", pool.size(), pool.source(), poolName);
+    } else {
+      throw new IllegalArgumentException("Insufficient defined resources to allocate pool " + poolName + "=" + pool);
+    }
+    return pageSource;
+  }
+
+  static void releasePools(ServiceRegistry services, String poolType, Map<String, ResourcePageSource> resourcePools) {
+    if (resourcePools == null) {
+      return;
+    }
+    final Iterator<Entry<String, ResourcePageSource>> fixedPoolIterator = resourcePools.entrySet().iterator();
+    while (fixedPoolIterator.hasNext()) {
+      Entry<String, ResourcePageSource> poolEntry = fixedPoolIterator.next();
+      releasePool(services, poolType, poolEntry.getKey(), poolEntry.getValue());
+      fixedPoolIterator.remove();
+    }
+  }
+
+  static void releasePool(ServiceRegistry services, String poolType, String poolName, ResourcePageSource resourcePageSource) {
+    Pool pool = resourcePageSource.getPool();
+    OffHeapResource source = services.getService(OffHeapResourceIdentifier.identifier(pool.source()));
+    if (source != null) {
+      source.release(pool.size());
+      LOGGER.info("Released {} bytes from resource '{}' for {} pool '{}'", pool.size(), pool.source(), poolType, poolName);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.store.Chain;
+
+/**
+ * Compacts the {@link Chain}s of a server store without client involvement.
+ * <P>
+ *   A resolver only ever sees the opaque payloads clients appended, so it must restrict itself to rewrites that
+ *   preserve what any client would resolve from the chain, whatever the key and value types.
+ * </P>
+ */
+public interface ServerChainResolver {
+
+  /**
+   * Computes a shorter chain equivalent to the given one.
+   *
+   * @param chain the chain to compact
+   * @return the compacted chain, possibly empty, or {@code null} if the chain cannot be compacted
+   */
+  Chain resolve(Chain chain);
+}
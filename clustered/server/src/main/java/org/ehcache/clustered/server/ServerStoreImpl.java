@@ -19,23 +19,77 @@ package org.ehcache.clustered.server;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
 import org.ehcache.clustered.common.store.Chain;
 import org.ehcache.clustered.common.store.ServerStore;
+import org.ehcache.clustered.server.offheap.ChainEvictionListener;
+import org.ehcache.clustered.server.offheap.ChainVisitor;
 import org.ehcache.clustered.server.offheap.OffHeapServerStore;
 import org.terracotta.offheapstore.paging.PageSource;
 
 import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 class ServerStoreImpl implements ServerStore {
 
   private static final int OFFHEAP_CHAIN_SEGMENTS = 16;
+  private static final int APPEND_COUNTERS = 1024;
 
+  private final int id;
   private final ServerStoreConfiguration storeConfiguration;
   private final PageSource pageSource;
   private final OffHeapServerStore store;
+  private final InvalidationTracker invalidationTracker = new InvalidationTracker();
+  private final Queue<Long> evictedKeys = new ConcurrentLinkedQueue<Long>();
+  private final ServerChainResolver resolver;
+  private final int compactionThreshold;
+  private final AtomicIntegerArray appendCounts;
 
-  ServerStoreImpl(ServerStoreConfiguration storeConfiguration, PageSource pageSource) {
+  ServerStoreImpl(int id, ServerStoreConfiguration storeConfiguration, PageSource pageSource) {
+    this(id, storeConfiguration, pageSource, null, 0);
+  }
+
+  /**
+   * Creates a {@code ServerStore} compacting its chains on the server.
+   * <P>
+   *   Appends are counted per key, over a fixed number of counters shared between colliding keys. Once a counter
+   *   reaches {@code compactionThreshold}, the chain of the key that reached it is handed to the {@code resolver}.
+   * </P>
+   *
+   * @param id the identifier of this store
+   * @param storeConfiguration the configuration of this store
+   * @param pageSource the storage of this store
+   * @param resolver the resolver compacting chains, {@code null} to leave compaction to clients
+   * @param compactionThreshold the number of appends to a key triggering a compaction
+   */
+  ServerStoreImpl(int id, ServerStoreConfiguration storeConfiguration, PageSource pageSource,
+                  ServerChainResolver resolver, int compactionThreshold) {
+    this.id = id;
     this.storeConfiguration = storeConfiguration;
     this.pageSource = pageSource;
-    this.store = new OffHeapServerStore(pageSource, OFFHEAP_CHAIN_SEGMENTS);
+    this.store = new OffHeapServerStore(pageSource, OFFHEAP_CHAIN_SEGMENTS, new ChainEvictionListener<Long>() {
+      @Override
+      public void onEviction(Long key) {
+        evictedKeys.add(key);
+      }
+    });
+    if (resolver == null || compactionThreshold <= 0) {
+      this.resolver = null;
+      this.compactionThreshold = 0;
+      this.appendCounts = null;
+    } else {
+      this.resolver = resolver;
+      this.compactionThreshold = compactionThreshold;
+      this.appendCounts = new AtomicIntegerArray(APPEND_COUNTERS);
+    }
+  }
+
+  /**
+   * Gets the identifier addressing this {@code ServerStore} in store operation messages.
+   *
+   * @return the store identifier
+   */
+  int getId() {
+    return id;
   }
 
   /**
@@ -51,6 +105,33 @@ class ServerStoreImpl implements ServerStore {
     return storeConfiguration;
   }
 
+  /**
+   * Gets the {@link InvalidationTracker} recording which clients hold mappings of this {@code ServerStore}.
+   *
+   * @return the invalidation tracker of this {@code ServerStore}
+   */
+  InvalidationTracker getInvalidationTracker() {
+    return invalidationTracker;
+  }
+
+  /**
+   * Removes and returns the key of a chain evicted from this store, for its holders to be invalidated.
+   *
+   * @return an evicted key, or {@code null} if none is pending
+   */
+  Long pollEvictedKey() {
+    return evictedKeys.poll();
+  }
+
+  /**
+   * Returns the number of chains this store evicted to stay within its resource pool.
+   *
+   * @return the eviction count
+   */
+  long getEvictionCount() {
+    return store.getEvictionCount();
+  }
+
   @Override
   public Chain get(long key) {
     return store.get(key);
@@ -59,15 +140,78 @@ class ServerStoreImpl implements ServerStore {
   @Override
   public void append(long key, ByteBuffer payLoad) {
     store.append(key, payLoad);
+    appended(key);
   }
 
   @Override
   public Chain getAndAppend(long key, ByteBuffer payLoad) {
-    return store.getAndAppend(key, payLoad);
+    Chain chain = store.getAndAppend(key, payLoad);
+    appended(key);
+    return chain;
   }
 
   @Override
   public void replaceAtHead(long key, Chain expect, Chain update) {
     store.replaceAtHead(key, expect, update);
   }
+
+  /**
+   * Replaces the chain of {@code key} with a copy of {@code chain}, as received from the active server.
+   *
+   * @param key the key
+   * @param chain the chain
+   */
+  void put(long key, Chain chain) {
+    store.put(key, chain);
+  }
+
+  /**
+   * Returns the number of segments of this store, which can be visited concurrently with one another.
+   *
+   * @return the segment count
+   */
+  int getSegmentCount() {
+    return store.getSegmentCount();
+  }
+
+  /**
+   * Visits the chains of a segment of this store.
+   *
+   * @param segment the segment index
+   * @param visitor the visitor
+   */
+  void visitSegment(int segment, ChainVisitor<Long> visitor) {
+    store.visitSegment(segment, visitor);
+  }
+
+  private void appended(long key) {
+    if (appendCounts != null) {
+      int counter = (int) ((key ^ (key >>> 32)) & (APPEND_COUNTERS - 1));
+      if (appendCounts.incrementAndGet(counter) >= compactionThreshold) {
+        appendCounts.set(counter, 0);
+        compact(key);
+      }
+    }
+  }
+
+  /**
+   * Compacts the chain of the given key with the configured {@link ServerChainResolver}.
+   * <P>
+   *   The chain is replaced through {@link #replaceAtHead(long, Chain, Chain)}, so elements appended since it was read
+   *   are retained and a concurrent client side compaction wins.
+   * </P>
+   *
+   * @param key the key to compact
+   */
+  void compact(long key) {
+    if (resolver != null) {
+      Chain chain = store.get(key);
+      if (!chain.isEmpty()) {
+        Chain resolved = resolver.resolve(chain);
+        if (resolved != null) {
+          store.replaceAtHead(key, chain, resolved);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server.offheap;
+
+/**
+ * Notified of the chains a server store evicts to make room for new elements.
+ * <P>
+ *   Listeners are called while the evicting segment is write locked: they must neither block nor access the store.
+ * </P>
+ *
+ * @param <K> the key type
+ */
+public interface ChainEvictionListener<K> {
+
+  /**
+   * Called when the whole chain of {@code key} is evicted.
+   *
+   * @param key the key of the evicted chain
+   */
+  void onEviction(K key);
+}
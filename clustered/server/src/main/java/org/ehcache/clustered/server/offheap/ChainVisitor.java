@@ -0,0 +1,46 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server.offheap;
+
+import org.ehcache.clustered.common.store.Chain;
+
+/**
+ * Visits the chains of a server store, for instance to copy them to a passive server.
+ * <P>
+ *   Visitors are called without any lock held: the store may be modified while it is visited.
+ * </P>
+ *
+ * @param <K> the key type
+ */
+public interface ChainVisitor<K> {
+
+  /**
+   * Tells whether the chain of {@code key} is to be visited.  Called before the chain is copied, so that the chains of
+   * keys not accepted are never read.
+   *
+   * @param key the key of the chain
+   * @return {@code true} if the chain of {@code key} is to be visited
+   */
+  boolean accept(K key);
+
+  /**
+   * Called for each non-empty chain whose key was accepted.
+   *
+   * @param key the key of the chain
+   * @param chain a detached copy of the chain
+   */
+  void visit(K key, Chain chain);
+}
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 import org.ehcache.clustered.common.store.Chain;
@@ -35,10 +37,59 @@ class OffHeapChainMap<K> implements MapInternals {
 
   private final ReadWriteLockedOffHeapClockCache<K, InternalChain> heads;
   private final OffHeapChainStorageEngine chainStorage;
+  private final AtomicLong evictions = new AtomicLong();
 
   public OffHeapChainMap(PageSource source, Portability<? super K> keyPortability, int minPageSize, int maxPageSize, boolean shareByThieving) {
+    this(source, keyPortability, minPageSize, maxPageSize, shareByThieving, null);
+  }
+
+  /**
+   * Creates a chain map evicting whole chains, in clock order, when {@code source} runs out of space.
+   *
+   * @param source the storage of this map
+   * @param keyPortability the key encoding
+   * @param minPageSize the minimum chain storage page size
+   * @param maxPageSize the maximum chain storage page size
+   * @param shareByThieving whether this map takes storage from, and yields it to, other maps sharing {@code source}
+   * @param evictionListener notified of each evicted chain, may be {@code null}
+   */
+  public OffHeapChainMap(PageSource source, Portability<? super K> keyPortability, int minPageSize, int maxPageSize, boolean shareByThieving,
+                         final ChainEvictionListener<K> evictionListener) {
     this.chainStorage = new OffHeapChainStorageEngine(source, keyPortability, minPageSize, maxPageSize, shareByThieving, shareByThieving);
-    this.heads = new ReadWriteLockedOffHeapClockCache<K, InternalChain>(source, shareByThieving, chainStorage);
+    this.heads = new ReadWriteLockedOffHeapClockCache<K, InternalChain>(source, shareByThieving, chainStorage) {
+      @Override
+      public boolean evict(int index, boolean shrink) {
+        Lock lock = writeLock();
+        lock.lock();
+        try {
+          K key = null;
+          if (evictionListener != null) {
+            Map.Entry<K, InternalChain> entry = getEntryAtTableOffset(index);
+            entry.getValue().close();
+            key = entry.getKey();
+          }
+          boolean evicted = super.evict(index, shrink);
+          if (evicted) {
+            evictions.incrementAndGet();
+            if (evictionListener != null) {
+              evictionListener.onEviction(key);
+            }
+          }
+          return evicted;
+        } finally {
+          lock.unlock();
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the number of chains this map evicted.
+   *
+   * @return the eviction count
+   */
+  long getEvictionCount() {
+    return evictions.get();
   }
 
   public Chain get(K key) {
@@ -129,6 +180,69 @@ class OffHeapChainMap<K> implements MapInternals {
     }
   }
 
+  /**
+   * Maps {@code key} to a copy of {@code chain}, discarding its current chain.
+   *
+   * @param key the key
+   * @param chain the new chain of the key, removing the key when empty
+   */
+  public void put(K key, Chain chain) {
+    final Lock lock = heads.writeLock();
+    lock.lock();
+    try {
+      InternalChain current = heads.remove(key);
+      if (current != null) {
+        current.close();
+      }
+      Iterator<Element> elements = chain.iterator();
+      if (elements.hasNext()) {
+        heads.put(key, chainStorage.newChain(elements.next().getPayload()));
+        if (elements.hasNext()) {
+          InternalChain stored = heads.get(key);
+          try {
+            while (elements.hasNext()) {
+              if (!stored.append(elements.next().getPayload())) {
+                heads.remove(key).close();
+                break;
+              }
+            }
+          } finally {
+            stored.close();
+          }
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Visits the chains of this map.  The keys are read up front; the chains of the keys the visitor accepts are then
+   * copied one at a time, so that writers are only held up while a single chain is read.  Chains removed in the
+   * meantime are skipped.
+   *
+   * @param visitor the visitor
+   */
+  void visitChains(ChainVisitor<K> visitor) {
+    List<K> keys;
+    final Lock lock = heads.readLock();
+    lock.lock();
+    try {
+      keys = new ArrayList<K>(heads.keySet());
+    } finally {
+      lock.unlock();
+    }
+    for (K key : keys) {
+      if (!visitor.accept(key)) {
+        continue;
+      }
+      Chain chain = get(key);
+      if (!chain.isEmpty()) {
+        visitor.visit(key, chain);
+      }
+    }
+  }
+
   private static final Chain EMPTY_CHAIN = new Chain() {
     @Override
     public Iterator<Element> reverseIterator() {
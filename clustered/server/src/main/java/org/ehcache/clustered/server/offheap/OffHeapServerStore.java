@@ -31,10 +31,34 @@ public class OffHeapServerStore implements ServerStore {
   private final List<OffHeapChainMap<Long>> segments;
 
   public OffHeapServerStore(PageSource source, int concurrency) {
+    this(source, concurrency, null);
+  }
+
+  /**
+   * Creates a server store evicting whole chains when {@code source} runs out of space.
+   *
+   * @param source the storage of this store, bounding its size
+   * @param concurrency the number of segments
+   * @param evictionListener notified of each evicted chain, may be {@code null}
+   */
+  public OffHeapServerStore(PageSource source, int concurrency, ChainEvictionListener<Long> evictionListener) {
     segments = new ArrayList<OffHeapChainMap<Long>>(concurrency);
     for (int i = 0; i < concurrency; i++) {
-      segments.add(new OffHeapChainMap<Long>(source, LongPortability.INSTANCE, KILOBYTES.toBytes(4), MEGABYTES.toBytes(8), false));
+      segments.add(new OffHeapChainMap<Long>(source, LongPortability.INSTANCE, KILOBYTES.toBytes(4), MEGABYTES.toBytes(8), false, evictionListener));
+    }
+  }
+
+  /**
+   * Returns the number of chains this store evicted.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    long evictions = 0L;
+    for (OffHeapChainMap<Long> segment : segments) {
+      evictions += segment.getEvictionCount();
     }
+    return evictions;
   }
 
   @Override
@@ -43,98 +67,122 @@ public class OffHeapServerStore implements ServerStore {
   }
 
   @Override
-  public void append(long key, ByteBuffer payLoad) {
-    try {
-      segmentFor(key).append(key, payLoad);
-    } catch (OversizeMappingException e) {
-      if (handleOversizeMappingException(key)) {
-        try {
-          segmentFor(key).append(key, payLoad);
-          return;
-        } catch (OversizeMappingException ex) {
-          //ignore
-        }
+  public void append(final long key, final ByteBuffer payLoad) {
+    execute(key, new SegmentOperation<Void>() {
+      @Override
+      Void execute(OffHeapChainMap<Long> segment) {
+        segment.append(key, payLoad);
+        return null;
       }
+    });
+  }
 
-      writeLockAll();
-      try {
-        do {
-          try {
-            segmentFor(key).append(key, payLoad);
-            return;
-          } catch (OversizeMappingException ex) {
-            e = ex;
-          }
-        } while (handleOversizeMappingException(key));
-        throw e;
-      } finally {
-        writeUnlockAll();
+  @Override
+  public Chain getAndAppend(final long key, final ByteBuffer payLoad) {
+    return execute(key, new SegmentOperation<Chain>() {
+      @Override
+      Chain execute(OffHeapChainMap<Long> segment) {
+        return segment.getAndAppend(key, payLoad);
       }
-    }
+    });
   }
 
   @Override
-  public Chain getAndAppend(long key, ByteBuffer payLoad) {
-    try {
-      return segmentFor(key).getAndAppend(key, payLoad);
-    } catch (OversizeMappingException e) {
-      if (handleOversizeMappingException(key)) {
-        try {
-          return segmentFor(key).getAndAppend(key, payLoad);
-        } catch (OversizeMappingException ex) {
-          //ignore
-        }
+  public void replaceAtHead(final long key, final Chain expect, final Chain update) {
+    execute(key, new SegmentOperation<Void>() {
+      @Override
+      Void execute(OffHeapChainMap<Long> segment) {
+        segment.replaceAtHead(key, expect, update);
+        return null;
       }
+    });
+  }
 
-      writeLockAll();
-      try {
-        do {
-          try {
-            return segmentFor(key).getAndAppend(key, payLoad);
-          } catch (OversizeMappingException ex) {
-            e = ex;
-          }
-        } while (handleOversizeMappingException(key));
-        throw e;
-      } finally {
-        writeUnlockAll();
+  /**
+   * Maps {@code key} to a copy of {@code chain}, discarding its current chain.
+   *
+   * @param key the key
+   * @param chain the new chain of the key, removing the key when empty
+   */
+  public void put(final long key, final Chain chain) {
+    execute(key, new SegmentOperation<Void>() {
+      @Override
+      Void execute(OffHeapChainMap<Long> segment) {
+        segment.put(key, chain);
+        return null;
       }
-    }
+    });
   }
 
-  @Override
-  public void replaceAtHead(long key, Chain expect, Chain update) {
+  /**
+   * Returns the number of segments of this store, which can be visited concurrently with one another.
+   *
+   * @return the segment count
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Visits the chains of a segment of this store.
+   *
+   * @param segment the segment index, between {@code 0} inclusive and {@link #getSegmentCount()} exclusive
+   * @param visitor the visitor
+   */
+  public void visitSegment(int segment, ChainVisitor<Long> visitor) {
+    segments.get(segment).visitChains(visitor);
+  }
+
+  /**
+   * Runs an operation on the segment of {@code key}, evicting from the other segments while it does not fit.
+   * <P>
+   *   Segments evict from themselves first. When that is not enough, the other segments are shrunk and the operation
+   *   retried, once per segment, without blocking them. Only when space freed that way keeps being taken by concurrent
+   *   writers are all segments locked, so that the space freed by the last resort shrinking is guaranteed to the
+   *   operation.
+   * </P>
+   */
+  private <T> T execute(long key, SegmentOperation<T> operation) {
+    OffHeapChainMap<Long> segment = segmentFor(key);
+    OversizeMappingException failure;
     try {
-      segmentFor(key).replaceAtHead(key, expect, update);
+      return operation.execute(segment);
     } catch (OversizeMappingException e) {
-      if (handleOversizeMappingException(key)) {
-        try {
-          segmentFor(key).replaceAtHead(key, expect, update);
-          return;
-        } catch (OversizeMappingException ex) {
-          //ignore
-        }
-      }
+      failure = e;
+    }
 
-      writeLockAll();
+    for (int attempt = 0; attempt < segments.size() && handleOversizeMappingException(key); attempt++) {
       try {
-        do {
-          try {
-            segmentFor(key).replaceAtHead(key, expect, update);
-            return;
-          } catch (OversizeMappingException ex) {
-            e = ex;
-          }
-        } while (handleOversizeMappingException(key));
-        throw e;
-      } finally {
-        writeUnlockAll();
+        return operation.execute(segment);
+      } catch (OversizeMappingException e) {
+        failure = e;
       }
     }
+
+    writeLockAll();
+    try {
+      do {
+        try {
+          return operation.execute(segment);
+        } catch (OversizeMappingException e) {
+          failure = e;
+        }
+      } while (handleOversizeMappingException(key));
+      throw failure;
+    } finally {
+      writeUnlockAll();
+    }
+  }
+
+  private abstract static class SegmentOperation<T> {
+    abstract T execute(OffHeapChainMap<Long> segment);
   }
 
   private OffHeapChainMap<Long> segmentFor(long key) {
-    return segments.get(Math.abs((int) (key % segments.size())));
+    // both halves matter: clients may fill either with a poorly distributed key hashCode
+    int hash = (int) (key ^ (key >>> 32));
+    hash ^= (hash >>> 16);
+    return segments.get((hash & Integer.MAX_VALUE) % segments.size());
   }
 
   private void writeLockAll() {
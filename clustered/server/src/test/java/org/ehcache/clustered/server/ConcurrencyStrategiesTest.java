@@ -0,0 +1,74 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
+import org.junit.Test;
+import org.terracotta.entity.ConcurrencyStrategy;
+
+import static org.ehcache.clustered.server.ConcurrencyStrategies.MANAGEMENT_KEY;
+import static org.ehcache.clustered.server.ConcurrencyStrategies.defaultConcurrency;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isIn;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrencyStrategiesTest {
+
+  @Test
+  public void testLifecycleMessagesUseManagementKey() {
+    ConcurrencyStrategy<EhcacheEntityMessage> strategy = defaultConcurrency(8);
+    assertThat(strategy.concurrencyKey(EhcacheEntityMessage.configure(new ServerSideConfiguration("primary", Collections.<String, ServerSideConfiguration.Pool>emptyMap()))), is(MANAGEMENT_KEY));
+    assertThat(strategy.concurrencyKey(EhcacheEntityMessage.destroyServerStore("cache")), is(MANAGEMENT_KEY));
+  }
+
+  @Test
+  public void testAllOperationsOnAKeyShareAConcurrencyKey() {
+    ConcurrencyStrategy<EhcacheEntityMessage> strategy = defaultConcurrency(8);
+    for (long key = -100; key < 100; key++) {
+      int concurrencyKey = strategy.concurrencyKey(EhcacheEntityMessage.getOperation(0, key));
+      assertThat(concurrencyKey, isIn(strategy.getKeysForSynchronization()));
+      assertThat(strategy.concurrencyKey(EhcacheEntityMessage.appendOperation(0, key, ByteBuffer.allocate(0))), is(concurrencyKey));
+      assertThat(strategy.concurrencyKey(EhcacheEntityMessage.getAndAppendOperation(0, key, ByteBuffer.allocate(0))), is(concurrencyKey));
+      assertThat(strategy.concurrencyKey(EhcacheEntityMessage.replaceAtHeadOperation(0, key, null, null)), is(concurrencyKey));
+    }
+  }
+
+  @Test
+  public void testOperationsAreSpreadOverAllKeys() {
+    ConcurrencyStrategy<EhcacheEntityMessage> strategy = defaultConcurrency(8);
+    Set<Integer> used = new HashSet<Integer>();
+    for (long key = 0; key < 1000; key++) {
+      used.add(strategy.concurrencyKey(EhcacheEntityMessage.getOperation((int) (key % 3), key)));
+    }
+    assertThat(used, is(strategy.getKeysForSynchronization()));
+    assertThat(strategy.getKeysForSynchronization().size(), is(8));
+    for (Integer key : strategy.getKeysForSynchronization()) {
+      assertThat(key, greaterThan(MANAGEMENT_KEY));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveBucketCount() {
+    defaultConcurrency(0);
+  }
+}
@@ -17,6 +17,7 @@ package org.ehcache.clustered.server;
 
 import org.ehcache.clustered.common.ClusteredEhcacheIdentity;
 import org.ehcache.clustered.common.ClusteredStoreValidationException;
+import org.ehcache.clustered.common.Consistency;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.ServerSideConfiguration.Pool;
 import org.ehcache.clustered.common.ServerStoreConfiguration;
@@ -24,31 +25,51 @@ import org.ehcache.clustered.common.ServerStoreConfiguration.PoolAllocation;
 import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.messages.EhcacheEntityResponse.Failure;
+import org.ehcache.clustered.common.messages.EntitySyncMessageCodec;
 import org.ehcache.clustered.common.messages.LifecycleMessage.ConfigureCacheManager;
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.common.store.Element;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.EntityResponse;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.entity.PassiveSynchronizationChannel;
 import org.terracotta.entity.ServiceConfiguration;
 import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.offheapresource.OffHeapResource;
 import org.terracotta.offheapresource.OffHeapResourceIdentifier;
 import org.terracotta.offheapstore.util.MemoryUnit;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.Type.FAILURE;
+import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.Type.STORE_ID;
 import static org.ehcache.clustered.common.messages.EhcacheEntityResponse.success;
+import static org.ehcache.clustered.common.store.Util.getChain;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -1408,10 +1429,375 @@ public class EhcacheActiveEntityTest {
     assertThat(registry.getResource("serverResource2").getUsed(), is(MemoryUnit.MEGABYTES.toBytes(0L)));
   }
 
+  @Test
+  public void testAppendInvalidatesOtherHolders() throws Exception {
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    TestClientCommunicator communicator = invalidationTest(Consistency.EVENTUAL, holder, writer);
+    assertThat(communicator.sent(holder).isEmpty(), is(true));
+    assertInvalidated(communicator.sentNoResponse(holder), 0, 1L);
+    assertThat(communicator.sentNoResponse(writer).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testEvictionInvalidatesHolders() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry(32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder().build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .fixed("serverResource1", 1, MemoryUnit.MEGABYTES)
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID);
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    activeEntity.connected(writer);
+    activeEntity.connected(holder);
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int storeId = assertStoreId(activeEntity.invoke(writer, EhcacheEntityMessage.createServerStore("cacheAlias", serverStoreConfiguration)));
+    assertSuccess(activeEntity.invoke(holder, EhcacheEntityMessage.validate(serverSideConfiguration)));
+    assertStoreId(activeEntity.invoke(holder, EhcacheEntityMessage.validateServerStore("cacheAlias", serverStoreConfiguration, true)));
+
+    List<EhcacheEntityResponse> invalidations = registry.clientCommunicator.sentNoResponse(holder);
+    for (long key = 0; invalidations.isEmpty(); key++) {
+      assertThat(key, lessThan(10000L));
+      assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(storeId, key, ByteBuffer.allocate(1024))));
+      activeEntity.invoke(holder, EhcacheEntityMessage.getOperation(storeId, key));
+      invalidations = registry.clientCommunicator.sentNoResponse(holder);
+    }
+
+    long evicted = ((EhcacheEntityResponse.InvalidateHash)invalidations.get(0)).getKey();
+    assertThat(readChain(activeEntity, writer, storeId, evicted).isEmpty(), is(true));
+    assertThat(registry.clientCommunicator.sentNoResponse(writer).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testStrongAppendAwaitsInvalidationAcks() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    EhcacheActiveEntity activeEntity = invalidationEntity(registry, Consistency.STRONG, holder, writer, true);
+    TestClientCommunicator communicator = registry.clientCommunicator;
+
+    activeEntity.invoke(holder, EhcacheEntityMessage.getOperation(0, 1L));
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertThat(communicator.sent(holder).isEmpty(), is(true));
+    assertInvalidated(communicator.sentNoResponse(holder), 0, 1L);
+    int invalidationId = ((EhcacheEntityResponse.InvalidateHash)communicator.sentNoResponse(holder).get(0)).getInvalidationId();
+    assertThat(invalidationId, is(not(EhcacheEntityResponse.InvalidateHash.NO_ACK)));
+    assertThat(communicator.sentNoResponse(writer).isEmpty(), is(true));
+
+    assertSuccess(activeEntity.invoke(holder, EhcacheEntityMessage.clientInvalidationAck(0, 1L, invalidationId)));
+    assertInvalidationDone(communicator.sentNoResponse(writer), 0, 1L);
+    assertThat(communicator.sent(writer).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testStrongAppendWithoutHoldersIsDoneRightAway() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    EhcacheActiveEntity activeEntity = invalidationEntity(registry, Consistency.STRONG, holder, writer, true);
+
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertThat(registry.clientCommunicator.sentNoResponse(holder).isEmpty(), is(true));
+    assertInvalidationDone(registry.clientCommunicator.sentNoResponse(writer), 0, 1L);
+  }
+
+  @Test
+  public void testStrongInvalidationIsDoneWhenHolderDetaches() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    EhcacheActiveEntity activeEntity = invalidationEntity(registry, Consistency.STRONG, holder, writer, true);
+
+    activeEntity.invoke(holder, EhcacheEntityMessage.getOperation(0, 1L));
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertThat(registry.clientCommunicator.sentNoResponse(writer).isEmpty(), is(true));
+
+    activeEntity.disconnected(holder);
+    assertInvalidationDone(registry.clientCommunicator.sentNoResponse(writer), 0, 1L);
+  }
+
+  @Test
+  public void testClientsWithoutCachingTierAreNotInvalidated() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    ClientDescriptor holder = new TestClientDescriptor();
+    ClientDescriptor writer = new TestClientDescriptor();
+    EhcacheActiveEntity activeEntity = invalidationEntity(registry, Consistency.EVENTUAL, holder, writer, false);
+
+    activeEntity.invoke(holder, EhcacheEntityMessage.getOperation(0, 1L));
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertThat(registry.clientCommunicator.sentNoResponse(holder).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testStoreIds() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .shared("primary")
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int firstId = assertStoreId(activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("first", serverStoreConfiguration)));
+    int secondId = assertStoreId(activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("second", serverStoreConfiguration)));
+    assertThat(secondId, is(not(firstId)));
+
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(secondId, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertChainHas(readChain(activeEntity, client, secondId, 1L), (byte) 1);
+    assertChainHas(readChain(activeEntity, client, firstId, 1L));
+
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.releaseServerStore("first")));
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.destroyServerStore("first")));
+    assertFailure(activeEntity.invoke(client, EhcacheEntityMessage.getOperation(firstId, 1L)), IllegalStateException.class);
+
+    int thirdId = assertStoreId(activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("third", serverStoreConfiguration)));
+    assertThat(thirdId, is(firstId));
+    assertChainHas(readChain(activeEntity, client, thirdId, 1L));
+    assertChainHas(readChain(activeEntity, client, secondId, 1L), (byte) 1);
+  }
+
+  @Test
+  public void testGetAllAndAppendBatch() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .shared("primary")
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, 4);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    EhcacheEntityResponse created = activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("cacheAlias", serverStoreConfiguration));
+    int storeId = assertStoreId(created);
+    assertThat(((EhcacheEntityResponse.StoreIdResponse)created).getConcurrency(), is(4));
+
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendBatchOperation(storeId, new long[] {1L, 2L, 1L},
+        new ByteBuffer[] {ByteBuffer.wrap(new byte[] {1}), ByteBuffer.wrap(new byte[] {2}), ByteBuffer.wrap(new byte[] {3})})));
+
+    EhcacheEntityResponse response = activeEntity.invoke(client, EhcacheEntityMessage.getAllOperation(storeId, new long[] {2L, 3L, 1L}));
+    List<Chain> chains = ((EhcacheEntityResponse.GetAllResponse)response).getChains();
+    assertThat(chains.size(), is(3));
+    assertChainHas(chains.get(0), (byte) 2);
+    assertChainHas(chains.get(1));
+    assertChainHas(chains.get(2), (byte) 1, (byte) 3);
+  }
+
+  @Test
+  public void testReplaceAtHeadBatch() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .shared("primary")
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int storeId = assertStoreId(activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("cacheAlias", serverStoreConfiguration)));
+
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(storeId, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(storeId, 1L, ByteBuffer.wrap(new byte[] {2}))));
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(storeId, 2L, ByteBuffer.wrap(new byte[] {3}))));
+
+    Map<Long, Map.Entry<Chain, Chain>> replacements = new LinkedHashMap<Long, Map.Entry<Chain, Chain>>();
+    replacements.put(1L, new AbstractMap.SimpleImmutableEntry<Chain, Chain>(
+        readChain(activeEntity, client, storeId, 1L), getChain(false, ByteBuffer.wrap(new byte[] {12}))));
+    replacements.put(2L, new AbstractMap.SimpleImmutableEntry<Chain, Chain>(
+        readChain(activeEntity, client, storeId, 2L), getChain(false, ByteBuffer.wrap(new byte[] {13}))));
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.replaceAtHeadBatchOperation(storeId, replacements)));
+
+    assertChainHas(readChain(activeEntity, client, storeId, 1L), (byte) 12);
+    assertChainHas(readChain(activeEntity, client, storeId, 2L), (byte) 13);
+  }
+
+  @Test
+  public void testServerSideCompaction() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .shared("primary")
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, 4, new OperationChainResolver(), 3);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int storeId = assertStoreId(activeEntity.invoke(client, EhcacheEntityMessage.createServerStore("cacheAlias", serverStoreConfiguration)));
+
+    ByteBuffer first = OperationChainResolverTest.put((byte) 1, (byte) 1);
+    ByteBuffer second = OperationChainResolverTest.put((byte) 1, (byte) 2);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(storeId, 1L, first.duplicate())));
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(storeId, 1L, second.duplicate())));
+    assertThat(chainPayloads(readChain(activeEntity, client, storeId, 1L)), contains(first, second));
+
+    ByteBuffer third = OperationChainResolverTest.put((byte) 1, (byte) 3);
+    Chain previous = ((EhcacheEntityResponse.GetResponse)activeEntity.invoke(client,
+        EhcacheEntityMessage.getAndAppendOperation(storeId, 1L, third.duplicate()))).getChain();
+    assertThat(chainPayloads(previous), contains(first, second));
+    assertThat(chainPayloads(readChain(activeEntity, client, storeId, 1L)), contains(third));
+  }
+
+  @Test
+  public void testSynchronizeKeysToPassive() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .defaultResource("serverResource1")
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, 4);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int sharedId = assertStoreId(activeEntity.invoke(client,
+        EhcacheEntityMessage.createServerStore("shared", new ServerStoreConfigBuilder().shared("primary").build())));
+    int fixedId = assertStoreId(activeEntity.invoke(client,
+        EhcacheEntityMessage.createServerStore("fixed", new ServerStoreConfigBuilder().fixed("serverResource1", 4, MemoryUnit.MEGABYTES).build())));
+    for (long key = 0; key < 100; key++) {
+      assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(sharedId, key, ByteBuffer.wrap(new byte[] {(byte) key}))));
+      assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(sharedId, key, ByteBuffer.wrap(new byte[] {(byte) -key}))));
+    }
+    assertSuccess(activeEntity.invoke(client, EhcacheEntityMessage.appendOperation(fixedId, 1L, ByteBuffer.wrap(new byte[] {42}))));
+
+    final EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+    PassiveSynchronizationChannel<EhcacheEntityMessage> channel = new PassiveSynchronizationChannel<EhcacheEntityMessage>() {
+      @Override
+      public void synchronizeToPassive(EhcacheEntityMessage payload) {
+        try {
+          passiveEntity.invoke(EntitySyncMessageCodec.syncMessageCodec().decode(0,
+              EntitySyncMessageCodec.syncMessageCodec().encode(0, payload)));
+        } catch (MessageCodecException e) {
+          throw new AssertionError(e);
+        }
+      }
+    };
+    passiveEntity.startSyncEntity();
+    for (int concurrencyKey : ConcurrencyStrategies.defaultConcurrency(4).getKeysForSynchronization()) {
+      passiveEntity.startSyncConcurrencyKey(concurrencyKey);
+      activeEntity.synchronizeKeyToPassive(channel, concurrencyKey);
+      passiveEntity.endSyncConcurrencyKey(concurrencyKey);
+    }
+    passiveEntity.endSyncEntity();
+
+    assertThat(passiveEntity.getStores(), containsInAnyOrder("shared", "fixed"));
+    for (long key = 0; key < 100; key++) {
+      assertThat(chainPayloads(passiveEntity.getChain(sharedId, key)), is(chainPayloads(readChain(activeEntity, client, sharedId, key))));
+    }
+    assertChainHas(passiveEntity.getChain(fixedId, 1L), (byte) 42);
+    assertThat(activeEntity.getSyncedChainCount(), is(101L));
+    assertThat(activeEntity.getSyncThroughput(), greaterThan(0d));
+
+    passiveEntity.invoke(EhcacheEntityMessage.appendOperation(fixedId, 1L, ByteBuffer.wrap(new byte[] {43})));
+    assertChainHas(passiveEntity.getChain(fixedId, 1L), (byte) 42, (byte) 43);
+    passiveEntity.invoke(EhcacheEntityMessage.destroyServerStore("fixed"));
+    assertThat(passiveEntity.getStores(), containsInAnyOrder("shared"));
+  }
+
+  private static List<ByteBuffer> chainPayloads(Chain chain) {
+    List<ByteBuffer> payloads = new ArrayList<ByteBuffer>();
+    for (Element element : chain) {
+      payloads.add(element.getPayload());
+    }
+    return payloads;
+  }
+
+  private static Chain readChain(EhcacheActiveEntity activeEntity, ClientDescriptor client, int storeId, long key) {
+    EhcacheEntityResponse response = activeEntity.invoke(client, EhcacheEntityMessage.getOperation(storeId, key));
+    return ((EhcacheEntityResponse.GetResponse)response).getChain();
+  }
+
+  private static void assertChainHas(Chain chain, byte... payloads) {
+    Iterator<Element> elements = chain.iterator();
+    for (byte payload : payloads) {
+      assertThat(elements.next().getPayload().get(), is(payload));
+    }
+    assertThat(elements.hasNext(), is(false));
+  }
+
+  /**
+   * Has {@code holder} and {@code writer} read key {@code 1}, then {@code writer} append twice to it.
+   */
+  private TestClientCommunicator invalidationTest(Consistency consistency, ClientDescriptor holder, ClientDescriptor writer) throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    EhcacheActiveEntity activeEntity = invalidationEntity(registry, consistency, holder, writer, true);
+
+    activeEntity.invoke(holder, EhcacheEntityMessage.getOperation(0, 1L));
+    activeEntity.invoke(writer, EhcacheEntityMessage.getOperation(0, 1L));
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {1}))));
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.appendOperation(0, 1L, ByteBuffer.wrap(new byte[] {2}))));
+    return registry.clientCommunicator;
+  }
+
+  /**
+   * Creates an entity with a single store, of id {@code 0}, created by {@code writer} and validated by {@code holder}.
+   */
+  private EhcacheActiveEntity invalidationEntity(OffHeapIdentifierRegistry registry, Consistency consistency,
+                                                 ClientDescriptor holder, ClientDescriptor writer, boolean holderCaching) throws Exception {
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .shared("primary")
+        .consistency(consistency)
+        .build();
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID);
+    activeEntity.connected(writer);
+    activeEntity.connected(holder);
+    assertSuccess(activeEntity.invoke(writer, EhcacheEntityMessage.configure(serverSideConfiguration)));
+    int storeId = assertStoreId(activeEntity.invoke(writer, EhcacheEntityMessage.createServerStore("cacheAlias", serverStoreConfiguration, true)));
+    assertThat(storeId, is(0));
+    assertSuccess(activeEntity.invoke(holder, EhcacheEntityMessage.validate(serverSideConfiguration)));
+    assertThat(assertStoreId(activeEntity.invoke(holder,
+        EhcacheEntityMessage.validateServerStore("cacheAlias", serverStoreConfiguration, holderCaching))), is(storeId));
+    return activeEntity;
+  }
+
+  private static void assertInvalidationDone(List<EhcacheEntityResponse> messages, int storeId, long key) {
+    assertThat(messages.size(), is(1));
+    EhcacheEntityResponse.HashInvalidationDone done = (EhcacheEntityResponse.HashInvalidationDone)messages.get(0);
+    assertThat(done.getStoreId(), is(storeId));
+    assertThat(done.getKey(), is(key));
+  }
+
+  private static void assertInvalidated(List<EhcacheEntityResponse> messages, int storeId, long key) {
+    assertThat(messages.size(), is(1));
+    EhcacheEntityResponse.InvalidateHash invalidation = (EhcacheEntityResponse.InvalidateHash)messages.get(0);
+    assertThat(invalidation.getStoreId(), is(storeId));
+    assertThat(invalidation.getKey(), is(key));
+  }
+
   private void assertSuccess(EhcacheEntityResponse response) throws Exception {
-    if (!response.equals(success())) {
+    if (!response.equals(success()) && response.getType() != STORE_ID) {
+      throw ((Failure)response).getCause();
+    }
+  }
+
+  private static int assertStoreId(EhcacheEntityResponse response) throws Exception {
+    if (response.getType() != STORE_ID) {
       throw ((Failure)response).getCause();
     }
+    return ((EhcacheEntityResponse.StoreIdResponse)response).getStoreId();
   }
 
   private void assertFailure(EhcacheEntityResponse response, Class<? extends Exception> expectedException) {
@@ -1460,6 +1846,7 @@ public class EhcacheActiveEntityTest {
     private String actualValueType;
     private String keySerializerType;
     private String valueSerializerType;
+    private Consistency consistency = Consistency.EVENTUAL;
 
     ServerStoreConfigBuilder fixed(String resourceName, int size, MemoryUnit unit) {
       this.poolAllocation = new PoolAllocation.Fixed(resourceName, unit.toBytes(size));
@@ -1501,9 +1888,14 @@ public class EhcacheActiveEntityTest {
       return this;
     }
 
+    ServerStoreConfigBuilder consistency(Consistency consistency) {
+      this.consistency = consistency;
+      return this;
+    }
+
     ServerStoreConfiguration build() {
       return new ServerStoreConfiguration(poolAllocation, storedKeyType, storedValueType,
-          actualKeyType, actualValueType, keySerializerType, valueSerializerType);
+          actualKeyType, actualValueType, keySerializerType, valueSerializerType, consistency);
     }
   }
 
@@ -1528,6 +1920,8 @@ public class EhcacheActiveEntityTest {
     private final Map<OffHeapResourceIdentifier, TestOffHeapResource> pools =
         new HashMap<OffHeapResourceIdentifier, TestOffHeapResource>();
 
+    private final TestClientCommunicator clientCommunicator = new TestClientCommunicator();
+
     /**
      * Instantiate an "open" {@code ServiceRegistry}.  Using this constructor creates a
      * registry that creates {@code OffHeapResourceIdentifier} entries as they are
@@ -1575,12 +1969,62 @@ public class EhcacheActiveEntityTest {
           this.pools.put(resourceIdentifier, offHeapResource);
         }
         return (T)offHeapResource;    // unchecked
+      } else if (ClientCommunicator.class.equals(serviceConfiguration.getServiceType())) {
+        return (T)clientCommunicator;    // unchecked
       }
 
       throw new UnsupportedOperationException("Registry.getService does not support " + serviceConfiguration.getClass().getName());
     }
   }
 
+  /**
+   * Testing implementation of {@link ClientCommunicator} recording the messages sent to each client.
+   */
+  private static final class TestClientCommunicator implements ClientCommunicator {
+
+    private final Map<ClientDescriptor, List<EhcacheEntityResponse>> sentNoResponse =
+        new HashMap<ClientDescriptor, List<EhcacheEntityResponse>>();
+    private final Map<ClientDescriptor, List<EhcacheEntityResponse>> sent =
+        new HashMap<ClientDescriptor, List<EhcacheEntityResponse>>();
+
+    @Override
+    public synchronized void sendNoResponse(ClientDescriptor clientDescriptor, EntityResponse message) {
+      record(sentNoResponse, clientDescriptor, message);
+    }
+
+    @Override
+    public synchronized Future<Void> send(ClientDescriptor clientDescriptor, EntityResponse message) {
+      record(sent, clientDescriptor, message);
+      FutureTask<Void> delivery = new FutureTask<Void>(new Runnable() {
+        @Override
+        public void run() {
+        }
+      }, null);
+      delivery.run();
+      return delivery;
+    }
+
+    private static void record(Map<ClientDescriptor, List<EhcacheEntityResponse>> messages,
+                               ClientDescriptor clientDescriptor, EntityResponse message) {
+      List<EhcacheEntityResponse> clientMessages = messages.get(clientDescriptor);
+      if (clientMessages == null) {
+        clientMessages = new ArrayList<EhcacheEntityResponse>();
+        messages.put(clientDescriptor, clientMessages);
+      }
+      clientMessages.add((EhcacheEntityResponse)message);
+    }
+
+    synchronized List<EhcacheEntityResponse> sentNoResponse(ClientDescriptor clientDescriptor) {
+      List<EhcacheEntityResponse> clientMessages = sentNoResponse.get(clientDescriptor);
+      return clientMessages == null ? Collections.<EhcacheEntityResponse>emptyList() : clientMessages;
+    }
+
+    synchronized List<EhcacheEntityResponse> sent(ClientDescriptor clientDescriptor) {
+      List<EhcacheEntityResponse> clientMessages = sent.get(clientDescriptor);
+      return clientMessages == null ? Collections.<EhcacheEntityResponse>emptyList() : clientMessages;
+    }
+  }
+
   /**
    * Testing implementation of {@link OffHeapResource}.  This is a "server-side" object.
    */
@@ -0,0 +1,224 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.ClusteredEhcacheIdentity;
+import org.ehcache.clustered.common.Consistency;
+import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.ServerSideConfiguration.Pool;
+import org.ehcache.clustered.common.ServerStoreConfiguration;
+import org.ehcache.clustered.common.ServerStoreConfiguration.PoolAllocation;
+import org.ehcache.clustered.common.messages.EhcacheEntityMessage;
+import org.ehcache.clustered.common.store.Element;
+import org.junit.Test;
+import org.terracotta.entity.ServiceConfiguration;
+import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.offheapresource.OffHeapResource;
+import org.terracotta.offheapresource.OffHeapResourceIdentifier;
+import org.terracotta.offheapstore.util.MemoryUnit;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class EhcachePassiveEntityTest {
+
+  private static final byte[] ENTITY_ID = ClusteredEhcacheIdentity.serialize(UUID.randomUUID());
+
+  private static final long MB = MemoryUnit.MEGABYTES.toBytes(1);
+
+  @Test
+  public void testConfigureReservesSharedPoolsOnce() throws Exception {
+    TestRegistry registry = new TestRegistry();
+    EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+
+    passiveEntity.invoke(EhcacheEntityMessage.configure(configuration()));
+    passiveEntity.invoke(EhcacheEntityMessage.configure(configuration()));
+    passiveEntity.invoke(EhcacheEntityMessage.stateSync(configuration(),
+        Collections.<String, ServerStoreConfiguration>emptyMap(), Collections.<String, Integer>emptyMap()));
+
+    assertThat(registry.resource.used, is(4 * MB));
+  }
+
+  @Test
+  public void testReplicatedCreateIsAppliedOnConfirmation() throws Exception {
+    TestRegistry registry = new TestRegistry();
+    EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+    passiveEntity.invoke(EhcacheEntityMessage.configure(configuration()));
+
+    passiveEntity.invoke(EhcacheEntityMessage.createServerStore("cache", sharedStore()));
+    assertThat(passiveEntity.getStores(), is(empty()));
+
+    passiveEntity.invoke(EhcacheEntityMessage.serverStoreCreated("cache", sharedStore(), 3));
+    assertThat(passiveEntity.getStores(), contains("cache"));
+    assertThat(passiveEntity.getChain(0, 1L), nullValue());
+
+    passiveEntity.invoke(EhcacheEntityMessage.appendOperation(3, 1L, ByteBuffer.wrap(new byte[] {42})));
+    assertThat(payloads(passiveEntity, 3, 1L), contains((byte) 42));
+  }
+
+  @Test
+  public void testConfirmedCreateIsIdempotent() throws Exception {
+    TestRegistry registry = new TestRegistry();
+    EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+    passiveEntity.invoke(EhcacheEntityMessage.configure(configuration()));
+
+    passiveEntity.invoke(EhcacheEntityMessage.serverStoreCreated("fixed", fixedStore(), 0));
+    passiveEntity.invoke(EhcacheEntityMessage.serverStoreCreated("fixed", fixedStore(), 0));
+    passiveEntity.invoke(EhcacheEntityMessage.stateSync(configuration(),
+        Collections.singletonMap("fixed", fixedStore()), Collections.singletonMap("fixed", 0)));
+
+    assertThat(passiveEntity.getStores(), contains("fixed"));
+    assertThat(registry.resource.used, is(4 * MB + 2 * MB));
+
+    passiveEntity.invoke(EhcacheEntityMessage.destroyServerStore("fixed"));
+    assertThat(registry.resource.used, is(4 * MB));
+  }
+
+  @Test
+  public void testCreateBeforeConfigurationIsIgnored() throws Exception {
+    TestRegistry registry = new TestRegistry();
+    EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+
+    passiveEntity.invoke(EhcacheEntityMessage.serverStoreCreated("cache", sharedStore(), 0));
+
+    assertThat(passiveEntity.getStores(), is(empty()));
+  }
+
+  @Test
+  public void testConcurrentStateSyncsCreateStoresOnce() throws Exception {
+    TestRegistry registry = new TestRegistry();
+    final EhcachePassiveEntity passiveEntity = new EhcachePassiveEntity(registry, ENTITY_ID);
+    Map<String, ServerStoreConfiguration> storeConfigurations = new HashMap<String, ServerStoreConfiguration>();
+    storeConfigurations.put("shared", sharedStore());
+    storeConfigurations.put("fixed", fixedStore());
+    Map<String, Integer> storeIds = new HashMap<String, Integer>();
+    storeIds.put("shared", 0);
+    storeIds.put("fixed", 1);
+    final EhcacheEntityMessage stateSync = EhcacheEntityMessage.stateSync(configuration(), storeConfigurations, storeIds);
+
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          passiveEntity.invoke(stateSync);
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(passiveEntity.getStores(), containsInAnyOrder("shared", "fixed"));
+    assertThat(registry.resource.used, is(4 * MB + 2 * MB));
+  }
+
+  private static ServerSideConfiguration configuration() {
+    return new ServerSideConfiguration("serverResource",
+        Collections.singletonMap("primary", new Pool("serverResource", 4 * MB)));
+  }
+
+  private static ServerStoreConfiguration sharedStore() {
+    return storeConfiguration(new PoolAllocation.Shared("primary"));
+  }
+
+  private static ServerStoreConfiguration fixedStore() {
+    return storeConfiguration(new PoolAllocation.Fixed("serverResource", 2 * MB));
+  }
+
+  private static ServerStoreConfiguration storeConfiguration(PoolAllocation allocation) {
+    return new ServerStoreConfiguration(allocation, null, null, null, null, null, null, Consistency.EVENTUAL);
+  }
+
+  private static List<Byte> payloads(EhcachePassiveEntity passiveEntity, int storeId, long key) {
+    List<Byte> payloads = new ArrayList<Byte>();
+    Iterator<Element> elements = passiveEntity.getChain(storeId, key).iterator();
+    while (elements.hasNext()) {
+      payloads.add(elements.next().getPayload().get(0));
+    }
+    return payloads;
+  }
+
+  /**
+   * Provides a single off-heap resource of 32MB named {@code serverResource}.
+   */
+  private static final class TestRegistry implements ServiceRegistry {
+
+    private final TestOffHeapResource resource = new TestOffHeapResource(32 * MB);
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getService(ServiceConfiguration<T> serviceConfiguration) {
+      if (OffHeapResourceIdentifier.identifier("serverResource").equals(serviceConfiguration)) {
+        return (T) resource;    // unchecked
+      }
+      return null;
+    }
+  }
+
+  private static final class TestOffHeapResource implements OffHeapResource {
+
+    private final long capacity;
+    private long used;
+
+    private TestOffHeapResource(long capacity) {
+      this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized boolean reserve(long size) {
+      if (size > capacity - used) {
+        return false;
+      } else {
+        used += size;
+        return true;
+      }
+    }
+
+    @Override
+    public synchronized void release(long size) {
+      used -= size;
+    }
+
+    @Override
+    public synchronized long available() {
+      return capacity - used;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.terracotta.entity.ClientDescriptor;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class InvalidationTrackerTest {
+
+  @Test
+  public void testUnregisteredClientsAreNotTracked() {
+    InvalidationTracker tracker = new InvalidationTracker();
+    ClientDescriptor client = mock(ClientDescriptor.class);
+
+    tracker.held(1L, client);
+    assertThat(tracker.size(), is(0));
+    assertThat(tracker.invalidate(1L, null).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testInvalidateReturnsOtherHolders() {
+    InvalidationTracker tracker = new InvalidationTracker();
+    ClientDescriptor holder = mock(ClientDescriptor.class);
+    ClientDescriptor writer = mock(ClientDescriptor.class);
+    tracker.register(holder);
+    tracker.register(writer);
+
+    tracker.held(1L, holder);
+    tracker.held(1L, writer);
+    assertThat(tracker.invalidate(1L, writer), contains(holder));
+    assertThat(tracker.size(), is(0));
+  }
+
+  @Test
+  public void testRemoveDropsEmptyEntries() {
+    InvalidationTracker tracker = new InvalidationTracker();
+    ClientDescriptor first = mock(ClientDescriptor.class);
+    ClientDescriptor second = mock(ClientDescriptor.class);
+    tracker.register(first);
+    tracker.register(second);
+
+    tracker.held(1L, first);
+    tracker.held(2L, first);
+    tracker.held(2L, second);
+    tracker.remove(first);
+
+    assertThat(tracker.size(), is(1));
+    assertThat(tracker.isRegistered(first), is(false));
+    assertThat(tracker.invalidate(2L, null), contains(second));
+    tracker.held(3L, first);
+    assertThat(tracker.size(), is(0));
+  }
+
+  @Test
+  public void testLeastRecentlyReadKeysAreEvictedBeyondCapacity() {
+    InvalidationTracker tracker = new InvalidationTracker(1);
+    ClientDescriptor first = mock(ClientDescriptor.class);
+    ClientDescriptor second = mock(ClientDescriptor.class);
+    tracker.register(first);
+    tracker.register(second);
+
+    assertThat(tracker.held(1L, first).isEmpty(), is(true));
+    tracker.held(1L, second);
+    Map<Long, Set<ClientDescriptor>> evicted = tracker.held(2L, first);
+
+    assertThat(evicted.keySet(), contains(1L));
+    assertThat(evicted.get(1L), containsInAnyOrder(first, second));
+    assertThat(tracker.size(), is(1));
+    assertThat(tracker.invalidate(1L, null).isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.clustered.server;
+
+import org.ehcache.clustered.common.store.Chain;
+import org.ehcache.clustered.common.store.Element;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.ehcache.clustered.common.store.Util.getChain;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OperationChainResolverTest {
+
+  private final OperationChainResolver resolver = new OperationChainResolver();
+
+  @Test
+  public void testPutSupersedesEarlierOperations() {
+    ByteBuffer put = put((byte) 1, (byte) 3);
+    Chain resolved = resolver.resolve(getChain(true, put((byte) 1, (byte) 1), putIfAbsent((byte) 1, (byte) 2), put));
+    assertThat(payloads(resolved), contains(put));
+  }
+
+  @Test
+  public void testOperationsOnOtherKeysAreKept() {
+    ByteBuffer other = put((byte) 2, (byte) 2);
+    ByteBuffer put = put((byte) 1, (byte) 3);
+    Chain resolved = resolver.resolve(getChain(true, put((byte) 1, (byte) 1), other, put));
+    assertThat(payloads(resolved), contains(other, put));
+  }
+
+  @Test
+  public void testRemoveDroppedOnceAtHead() {
+    ByteBuffer other = put((byte) 2, (byte) 2);
+    Chain resolved = resolver.resolve(getChain(true, put((byte) 1, (byte) 1), other, remove((byte) 1)));
+    assertThat(payloads(resolved), contains(other));
+
+    assertThat(payloads(resolver.resolve(getChain(true, remove((byte) 1)))), empty());
+  }
+
+  @Test
+  public void testPutIfAbsentDoesNotSupersede() {
+    ByteBuffer put = put((byte) 1, (byte) 1);
+    ByteBuffer putIfAbsent = putIfAbsent((byte) 1, (byte) 2);
+    assertThat(resolver.resolve(getChain(true, put, putIfAbsent)), nullValue());
+    assertThat(payloads(resolver.resolve(getChain(true, remove((byte) 1), putIfAbsent))), contains(putIfAbsent));
+  }
+
+  @Test
+  public void testKeysComparedBySerializedForm() {
+    ByteBuffer first = put(new byte[] {1, 2}, (byte) 1);
+    ByteBuffer second = put(new byte[] {1}, (byte) 2);
+    assertThat(resolver.resolve(getChain(true, first, second)), nullValue());
+  }
+
+  @Test
+  public void testUnknownPayloadsAreNotResolved() {
+    assertThat(resolver.resolve(getChain(true, put((byte) 1, (byte) 1), ByteBuffer.wrap(new byte[] {42}), put((byte) 1, (byte) 2))), nullValue());
+    assertThat(resolver.resolve(getChain(true, put((byte) 1, (byte) 1), ByteBuffer.wrap(new byte[] {1, 0, 0}))), nullValue());
+  }
+
+  static ByteBuffer put(byte key, byte value) {
+    return put(new byte[] {key}, value);
+  }
+
+  static ByteBuffer putIfAbsent(byte key, byte value) {
+    ByteBuffer buffer = put(key, value);
+    buffer.put(0, OperationChainResolver.PUT_IF_ABSENT);
+    return buffer;
+  }
+
+  static ByteBuffer remove(byte key) {
+    return ByteBuffer.wrap(new byte[] {OperationChainResolver.REMOVE, key});
+  }
+
+  private static ByteBuffer put(byte[] key, byte value) {
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + key.length + 4 + 1);
+    buffer.put(OperationChainResolver.PUT).putInt(key.length).put(key).putInt(1).put(value);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static List<ByteBuffer> payloads(Chain chain) {
+    List<ByteBuffer> payloads = new ArrayList<ByteBuffer>();
+    for (Element element : chain) {
+      payloads.add(element.getPayload());
+    }
+    return payloads;
+  }
+}
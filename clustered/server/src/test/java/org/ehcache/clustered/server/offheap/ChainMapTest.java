@@ -16,6 +16,8 @@
 package org.ehcache.clustered.server.offheap;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.ehcache.clustered.common.store.Element;
 
@@ -322,6 +324,28 @@ public class ChainMapTest {
     }
   }
 
+  @Test
+  public void testEvictionNotifiesListener() {
+    UpfrontAllocatingPageSource pageSource = new UpfrontAllocatingPageSource(new OffHeapBufferSource(), KILOBYTES.toBytes(1024L), KILOBYTES.toBytes(1024));
+    final List<String> evicted = new ArrayList<String>();
+    OffHeapChainMap<String> map = new OffHeapChainMap<String>(pageSource, StringPortability.INSTANCE, minPageSize, maxPageSize, steal,
+        new ChainEvictionListener<String>() {
+          @Override
+          public void onEviction(String key) {
+            evicted.add(key);
+          }
+        });
+
+    for (int i = 0; evicted.isEmpty(); i++) {
+      map.append(Integer.toString(i), buffer(128));
+    }
+
+    assertThat(map.getEvictionCount(), is((long) evicted.size()));
+    for (String key : evicted) {
+      assertThat(map.get(key), emptyIterable());
+    }
+  }
+
   private static ByteBuffer buffer(int i) {
     ByteBuffer buffer = ByteBuffer.allocate(i);
     while (buffer.hasRemaining()) {
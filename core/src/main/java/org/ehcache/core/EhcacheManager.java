@@ -27,6 +27,7 @@ import org.ehcache.config.ResourceType;
 import org.ehcache.core.config.BaseCacheConfiguration;
 import org.ehcache.core.config.DefaultConfiguration;
 import org.ehcache.core.config.store.StoreEventSourceConfiguration;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.internal.store.StoreConfigurationImpl;
 import org.ehcache.core.events.CacheEventDispatcher;
 import org.ehcache.core.events.CacheEventDispatcherFactory;
@@ -37,6 +38,7 @@ import org.ehcache.core.spi.store.InternalCacheManager;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.internal.store.StoreSupport;
 import org.ehcache.core.spi.service.CacheManagerProviderService;
+import org.ehcache.core.spi.service.StatisticsService;
 import org.ehcache.core.internal.util.ClassLoading;
 import org.ehcache.event.CacheEventListener;
 import org.ehcache.core.events.CacheEventListenerConfiguration;
@@ -494,7 +496,12 @@ public class EhcacheManager implements PersistentCacheManager, InternalCacheMana
       dispatcherConcurrency = StoreEventSourceConfiguration.DEFAULT_DISPATCHER_CONCURRENCY;
     }
 
-    Store.Configuration<K, V> storeConfiguration = new StoreConfigurationImpl<K, V>(config, dispatcherConcurrency, keySerializer, valueSerializer);
+    StoreStatisticsConfiguration statisticsConfiguration = ServiceLocator.findSingletonAmongst(StoreStatisticsConfiguration.class, config
+        .getServiceConfigurations()
+        .toArray());
+
+    Store.Configuration<K, V> storeConfiguration = new StoreConfigurationImpl<K, V>(config, dispatcherConcurrency,
+        statisticsConfiguration, keySerializer, valueSerializer);
     final Store<K, V> store = storeProvider.createStore(storeConfiguration, serviceConfigArray);
 
     lifeCycledList.add(new LifeCycled() {
@@ -530,11 +537,18 @@ public class EhcacheManager implements PersistentCacheManager, InternalCacheMana
     if (cacheClassLoader == null) {
       cacheClassLoader = cacheManagerClassLoader;
     }
-    if (cacheClassLoader != config.getClassLoader() ) {
+    List<ServiceConfiguration<?>> serviceConfigurations = new ArrayList<ServiceConfiguration<?>>(config.getServiceConfigurations());
+    StatisticsService statisticsService = serviceLocator.getService(StatisticsService.class);
+    boolean addStatisticsConfiguration = statisticsService != null &&
+        ServiceLocator.findSingletonAmongst(StoreStatisticsConfiguration.class, serviceConfigurations) == null;
+    if (addStatisticsConfiguration) {
+      serviceConfigurations.add(statisticsService.getDefaultStatisticsConfiguration());
+    }
+    if (cacheClassLoader != config.getClassLoader() || addStatisticsConfiguration) {
       config = new BaseCacheConfiguration<K, V>(config.getKeyType(), config.getValueType(),
           config.getEvictionAdvisor(), cacheClassLoader, config.getExpiry(),
-          config.getResourcePools(), config.getServiceConfigurations().toArray(
-          new ServiceConfiguration<?>[config.getServiceConfigurations().size()]));
+          config.getResourcePools(), serviceConfigurations.toArray(
+          new ServiceConfiguration<?>[serviceConfigurations.size()]));
     }
     return config;
   }
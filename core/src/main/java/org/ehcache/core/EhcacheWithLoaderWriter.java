@@ -20,6 +20,7 @@ import org.ehcache.Cache;
 import org.ehcache.Status;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.events.CacheEventDispatcher;
 import org.ehcache.core.exceptions.StorePassThroughException;
 import org.ehcache.spi.loaderwriter.BulkCacheLoadingException;
@@ -39,6 +40,8 @@ import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.Store.ValueHolder;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.core.statistics.BulkOps;
+import org.ehcache.core.statistics.HeavyHitters;
+import org.ehcache.core.statistics.MissRatioCurve;
 import org.ehcache.core.statistics.CacheOperationOutcomes.CacheLoadingOutcome;
 import org.ehcache.core.statistics.CacheOperationOutcomes.ConditionalRemoveOutcome;
 import org.ehcache.core.statistics.CacheOperationOutcomes.GetAllOutcome;
@@ -58,6 +61,7 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -75,7 +79,8 @@ import static org.ehcache.core.internal.util.Functions.memoize;
 import static org.ehcache.core.exceptions.ExceptionFactory.newCacheLoadingException;
 import static org.ehcache.core.exceptions.ExceptionFactory.newCacheWritingException;
 import static org.ehcache.core.internal.util.ValueSuppliers.supplierOf;
-import static org.terracotta.statistics.StatisticBuilder.operation;
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
 
 /**
  * Implementation of the {@link Cache} interface when a {@link CacheLoaderWriter} is involved.
@@ -98,18 +103,21 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
   private final boolean useLoaderInAtomics;
   protected final Logger logger;
 
-  private final OperationObserver<GetOutcome> getObserver = operation(GetOutcome.class).named("get").of(this).tag("cache").build();
-  private final OperationObserver<GetAllOutcome> getAllObserver = operation(GetAllOutcome.class).named("getAll").of(this).tag("cache").build();
-  private final OperationObserver<PutOutcome> putObserver = operation(PutOutcome.class).named("put").of(this).tag("cache").build();
-  private final OperationObserver<PutAllOutcome> putAllObserver = operation(PutAllOutcome.class).named("putAll").of(this).tag("cache").build();
-  private final OperationObserver<RemoveOutcome> removeObserver = operation(RemoveOutcome.class).named("remove").of(this).tag("cache").build();
-  private final OperationObserver<RemoveAllOutcome> removeAllObserver = operation(RemoveAllOutcome.class).named("removeAll").of(this).tag("cache").build();
-  private final OperationObserver<ConditionalRemoveOutcome> conditionalRemoveObserver = operation(ConditionalRemoveOutcome.class).named("conditionalRemove").of(this).tag("cache").build();
-  private final OperationObserver<CacheLoadingOutcome> cacheLoadingObserver = operation(CacheLoadingOutcome.class).named("cacheLoading").of(this).tag("cache").build();
-  private final OperationObserver<PutIfAbsentOutcome> putIfAbsentObserver = operation(PutIfAbsentOutcome.class).named("putIfAbsent").of(this).tag("cache").build();
-  private final OperationObserver<ReplaceOutcome> replaceObserver = operation(ReplaceOutcome.class).named("replace").of(this).tag("cache").build();
+  private final OperationObserver<GetOutcome> getObserver;
+  private final OperationObserver<GetAllOutcome> getAllObserver;
+  private final OperationObserver<PutOutcome> putObserver;
+  private final OperationObserver<PutAllOutcome> putAllObserver;
+  private final OperationObserver<RemoveOutcome> removeObserver;
+  private final OperationObserver<RemoveAllOutcome> removeAllObserver;
+  private final OperationObserver<ConditionalRemoveOutcome> conditionalRemoveObserver;
+  private final OperationObserver<CacheLoadingOutcome> cacheLoadingObserver;
+  private final OperationObserver<PutIfAbsentOutcome> putIfAbsentObserver;
+  private final OperationObserver<ReplaceOutcome> replaceObserver;
   private final Map<BulkOps, LongAdder> bulkMethodEntries = new EnumMap<BulkOps, LongAdder>(BulkOps.class);
 
+  private volatile HeavyHitters<? super K> heavyHitters;
+  private volatile MissRatioCurve<? super K> missRatioCurve;
+
   private static final NullaryFunction<Boolean> REPLACE_FALSE = new NullaryFunction<Boolean>() {
     @Override
     public Boolean apply() {
@@ -162,6 +170,20 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
     this.useLoaderInAtomics = useLoaderInAtomics;
     this.logger=logger;
     this.statusTransitioner = statusTransitioner;
+
+    StoreStatisticsConfiguration statisticsConfiguration = findSingletonAmongst(StoreStatisticsConfiguration.class,
+        runtimeConfiguration.getServiceConfigurations());
+    this.getObserver = operation(GetOutcome.class, statisticsConfiguration).named("get").of(this).tag("cache").build();
+    this.getAllObserver = operation(GetAllOutcome.class, statisticsConfiguration).named("getAll").of(this).tag("cache").build();
+    this.putObserver = operation(PutOutcome.class, statisticsConfiguration).named("put").of(this).tag("cache").build();
+    this.putAllObserver = operation(PutAllOutcome.class, statisticsConfiguration).named("putAll").of(this).tag("cache").build();
+    this.removeObserver = operation(RemoveOutcome.class, statisticsConfiguration).named("remove").of(this).tag("cache").build();
+    this.removeAllObserver = operation(RemoveAllOutcome.class, statisticsConfiguration).named("removeAll").of(this).tag("cache").build();
+    this.conditionalRemoveObserver = operation(ConditionalRemoveOutcome.class, statisticsConfiguration).named("conditionalRemove").of(this).tag("cache").build();
+    this.cacheLoadingObserver = operation(CacheLoadingOutcome.class, statisticsConfiguration).named("cacheLoading").of(this).tag("cache").build();
+    this.putIfAbsentObserver = operation(PutIfAbsentOutcome.class, statisticsConfiguration).named("putIfAbsent").of(this).tag("cache").build();
+    this.replaceObserver = operation(ReplaceOutcome.class, statisticsConfiguration).named("replace").of(this).tag("cache").build();
+
     for (BulkOps bulkOp : BulkOps.values()) {
       bulkMethodEntries.put(bulkOp, new LongAdder());
     }
@@ -236,9 +258,11 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
       // Check for expiry first
       if (valueHolder == null) {
         getObserver.end(GetOutcome.MISS_WITH_LOADER);
+        recordAccess(key, true);
         return null;
       } else {
         getObserver.end(GetOutcome.HIT_WITH_LOADER);
+        recordAccess(key, false);
         return valueHolder.value();
       }
     } catch (StoreAccessException e) {
@@ -264,6 +288,7 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
     putObserver.begin();
     statusTransitioner.checkAvailable();
     checkNonNull(key, value);
+    recordAccess(key, false);
     final AtomicReference<V> previousMapping = new AtomicReference<V>();
 
     final BiFunction<K, V, V> remappingFunction = memoize(new BiFunction<K, V, V>() {
@@ -1109,6 +1134,49 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
     statusTransitioner.removeHook(hook);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public HeavyHitters<? super K> getHeavyHitters() {
+    return heavyHitters;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setHeavyHitters(HeavyHitters<? super K> heavyHitters) {
+    this.heavyHitters = heavyHitters;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MissRatioCurve<? super K> getMissRatioCurve() {
+    return missRatioCurve;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setMissRatioCurve(MissRatioCurve<? super K> missRatioCurve) {
+    this.missRatioCurve = missRatioCurve;
+  }
+
+  private void recordAccess(K key, boolean miss) {
+    HeavyHitters<? super K> tracker = heavyHitters;
+    if (tracker != null) {
+      tracker.access(key, miss);
+    }
+    MissRatioCurve<? super K> curve = missRatioCurve;
+    if (curve != null) {
+      curve.access(key);
+    }
+  }
+
   private static void checkNonNull(Object thing) {
     if(thing == null) {
       throw new NullPointerException();
@@ -1281,6 +1349,170 @@ public class EhcacheWithLoaderWriter<K, V> implements InternalCache<K, V> {
       }
     }
 
+    @Override
+    public Map<K, Exception> bulkCompute(Set<? extends K> keys, final BiFunction<? super K, ? super V, ? extends V> computeFunction,
+        final Function<? super K, Boolean> replaceEqual, final Function<? super K, Boolean> invokeWriter,
+        final Function<? super K, Boolean> withStatsAndEvents) {
+      final Map<K, Exception> failures = new HashMap<K, Exception>();
+      final Map<K, V> equalReplacements = new HashMap<K, V>();
+      final Set<K> applied = new HashSet<K>();
+      final Set<K> inFlight = new HashSet<K>();
+
+      Store.OptimisticRemappingFunction<K, V> fn = new Store.OptimisticRemappingFunction<K, V>() {
+        @Override
+        public void conflicted(K key) {
+          failures.put(key, new ConcurrentModificationException("Mapping for key " + key + " changed while its value was computed"));
+          equalReplacements.remove(key);
+        }
+
+        @Override
+        public Iterable<? extends Map.Entry<? extends K, ? extends V>> apply(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+          // the store hands a batch over once the previous one is installed
+          applied.addAll(inFlight);
+          inFlight.clear();
+          Map<K, V> results = new LinkedHashMap<K, V>();
+          Map<K, V> newValues = new LinkedHashMap<K, V>();
+          Map<K, V> toWrite = new LinkedHashMap<K, V>();
+          Set<K> toDelete = new LinkedHashSet<K>();
+
+          for (Map.Entry<? extends K, ? extends V> entry : entries) {
+            K key = entry.getKey();
+            V mappedValue = entry.getValue();
+            results.put(key, mappedValue);
+            inFlight.add(key);
+
+            getObserver.begin();
+            if (mappedValue == null) {
+              getObserver.end(GetOutcome.MISS_NO_LOADER);
+            } else {
+              getObserver.end(GetOutcome.HIT_NO_LOADER);
+            }
+
+            V newValue;
+            try {
+              newValue = computeFunction.apply(key, mappedValue);
+            } catch (RuntimeException e) {
+              failures.put(key, e);
+              continue;
+            }
+
+            if (newValue == mappedValue && !replaceEqual.apply(key)) {
+              continue;
+            }
+            newValues.put(key, newValue);
+            if (invokeWriter.apply(key)) {
+              if (newValue == null) {
+                toDelete.add(key);
+              } else {
+                toWrite.put(key, newValue);
+              }
+            }
+          }
+
+          cacheLoaderWriterBulkCall(toWrite, toDelete, failures);
+
+          for (Map.Entry<K, V> entry : newValues.entrySet()) {
+            K key = entry.getKey();
+            V mappedValue = results.get(key);
+            V newValue = entry.getValue();
+            if (failures.containsKey(key)) {
+              continue;
+            }
+            if (newValueAlreadyExpired(key, mappedValue, newValue)) {
+              results.put(key, null);
+              continue;
+            }
+
+            if (withStatsAndEvents.apply(key)) {
+              if (newValue == null) {
+                removeObserver.begin();
+                removeObserver.end(RemoveOutcome.SUCCESS);
+              } else {
+                putObserver.begin();
+                putObserver.end(PutOutcome.PUT);
+              }
+            }
+            if (newValue != null && newValue.equals(mappedValue)) {
+              equalReplacements.put(key, newValue);
+            }
+            results.put(key, newValue);
+          }
+          return results.entrySet();
+        }
+      };
+
+      try {
+        store.bulkCompute(keys, fn, new NullaryFunction<Boolean>() {
+          @Override
+          public Boolean apply() {
+            return Boolean.FALSE;
+          }
+        });
+        // replacing an equal value cannot be decided per key by a bulk compute, so these are replaced one by one
+        for (final Map.Entry<K, V> replacement : equalReplacements.entrySet()) {
+          final AtomicBoolean unchanged = new AtomicBoolean();
+          store.compute(replacement.getKey(), new BiFunction<K, V, V>() {
+            @Override
+            public V apply(K mappedKey, V mappedValue) {
+              unchanged.set(replacement.getValue().equals(mappedValue));
+              return mappedValue;
+            }
+          }, new NullaryFunction<Boolean>() {
+            @Override
+            public Boolean apply() {
+              return unchanged.get();
+            }
+          });
+        }
+      } catch (StoreAccessException e) {
+        failUnapplied(keys, applied, failures, e);
+      } catch (RuntimeException e) {
+        failUnapplied(keys, applied, failures, e);
+      }
+      return failures;
+    }
+
+    /**
+     * Reports the failure against every key not in a batch the store installed before failing.
+     */
+    private void failUnapplied(Set<? extends K> keys, Set<K> applied, Map<K, Exception> failures, Exception e) {
+      for (K key : keys) {
+        if (!applied.contains(key) && !failures.containsKey(key)) {
+          failures.put(key, e);
+        }
+      }
+    }
+
+    private void cacheLoaderWriterBulkCall(Map<K, V> toWrite, Set<K> toDelete, Map<K, Exception> failures) {
+      Set<K> successes = new HashSet<K>();
+      Map<K, Exception> writerFailures = new HashMap<K, Exception>();
+      if (!toWrite.isEmpty()) {
+        try {
+          cacheLoaderWriter.writeAll(toWrite.entrySet());
+        } catch (BulkCacheWritingException bcwe) {
+          collectSuccessesAndFailures(bcwe, successes, writerFailures);
+        } catch (Exception e) {
+          for (K key : toWrite.keySet()) {
+            writerFailures.put(key, e);
+          }
+        }
+      }
+      if (!toDelete.isEmpty()) {
+        try {
+          cacheLoaderWriter.deleteAll(toDelete);
+        } catch (BulkCacheWritingException bcwe) {
+          collectSuccessesAndFailures(bcwe, successes, writerFailures);
+        } catch (Exception e) {
+          for (K key : toDelete) {
+            writerFailures.put(key, e);
+          }
+        }
+      }
+      for (Map.Entry<K, Exception> failure : writerFailures.entrySet()) {
+        failures.put(failure.getKey(), newCacheWritingException(failure.getValue()));
+      }
+    }
+
     @Override
     public V getAndRemove(K key) {
       getObserver.begin();
@@ -21,6 +21,8 @@ import org.ehcache.UserManagedCache;
 import org.ehcache.core.spi.LifeCycled;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.core.statistics.BulkOps;
+import org.ehcache.core.statistics.HeavyHitters;
+import org.ehcache.core.statistics.MissRatioCurve;
 import org.terracotta.statistics.jsr166e.LongAdder;
 
 /**
@@ -61,4 +63,32 @@ public interface InternalCache<K, V> extends UserManagedCache<K, V> {
    */
   void addHook(LifeCycled hook);
 
+  /**
+   * Returns the tracker of the most accessed keys of this cache.
+   *
+   * @return the heavy hitters tracker, {@code null} if keys are not tracked
+   */
+  HeavyHitters<? super K> getHeavyHitters();
+
+  /**
+   * Installs the tracker gets and puts report their keys to, replacing any previous one.
+   *
+   * @param heavyHitters the heavy hitters tracker, {@code null} to stop tracking keys
+   */
+  void setHeavyHitters(HeavyHitters<? super K> heavyHitters);
+
+  /**
+   * Returns the estimator of the miss ratio of this cache at other sizes.
+   *
+   * @return the miss ratio curve estimator, {@code null} if reuse distances are not measured
+   */
+  MissRatioCurve<? super K> getMissRatioCurve();
+
+  /**
+   * Installs the estimator gets and puts report their keys to, replacing any previous one.
+   *
+   * @param missRatioCurve the miss ratio curve estimator, {@code null} to stop measuring reuse distances
+   */
+  void setMissRatioCurve(MissRatioCurve<? super K> missRatioCurve);
+
 }
@@ -89,6 +89,27 @@ public interface Jsr107Cache<K, V> {
       NullaryFunction<Boolean> replaceEqual, final NullaryFunction<Boolean> invokeWriter,
       final NullaryFunction<Boolean> withStatsAndEvents);
 
+  /**
+   * Invokes the {@code computeFunction} for each of the provided keys as {@link #compute} does for a single key, with
+   * the behaviour functions being passed the key just computed.
+   * <P>
+   *   The store hands the keys over in batches, and the writer is invoked once per batch for all the mappings to write
+   *   and once for all the mappings to delete. A failure of the compute function or of the writer leaves the mapping
+   *   untouched and is reported against its key rather than thrown. So is a computed value the store could not install,
+   *   its mapping having changed meanwhile, and a store failure, against the keys of the batches not yet installed.
+   * </P>
+   *
+   * @param keys the keys to lookup
+   * @param computeFunction the function potentially mutating the mappings
+   * @param replaceEqual should equal value be replaced
+   * @param invokeWriter should the writer be invoked
+   * @param withStatsAndEvents should statistics be updated and events fired
+   * @return the failures, by key
+   */
+  Map<K, Exception> bulkCompute(Set<? extends K> keys, BiFunction<? super K, ? super V, ? extends V> computeFunction,
+      Function<? super K, Boolean> replaceEqual, Function<? super K, Boolean> invokeWriter,
+      Function<? super K, Boolean> withStatsAndEvents);
+
   /**
    * Invokes the cache loader for the given keys, optionally replacing the cache mappings with the loaded values.
    *
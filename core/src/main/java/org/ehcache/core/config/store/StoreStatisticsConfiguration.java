@@ -0,0 +1,52 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.config.store;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+/**
+ * {@link ServiceConfiguration} used by the {@link org.ehcache.core.EhcacheManager} to populate the statistics
+ * configuration in the {@link org.ehcache.core.internal.store.StoreConfigurationImpl}, and by the caches to build
+ * their own operation observers.
+ */
+public interface StoreStatisticsConfiguration extends ServiceConfiguration<Store.Provider> {
+
+  /**
+   * Default statistics level
+   */
+  StatisticsLevel DEFAULT_STATISTICS_LEVEL = StatisticsLevel.SAMPLED;
+
+  /**
+   * Default sample rate, every operation being sampled
+   */
+  int DEFAULT_SAMPLE_RATE = 1;
+
+  /**
+   * Indicates how much bookkeeping the operation observers perform
+   *
+   * @return the statistics level
+   */
+  StatisticsLevel getStatisticsLevel();
+
+  /**
+   * Indicates one out of how many operations is timed when the level is {@link StatisticsLevel#SAMPLED}
+   *
+   * @return the sample rate
+   */
+  int getSampleRate();
+}
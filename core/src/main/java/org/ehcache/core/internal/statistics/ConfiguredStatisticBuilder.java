@@ -0,0 +1,146 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.internal.statistics;
+
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.terracotta.statistics.StatisticBuilder;
+import org.terracotta.statistics.StatisticsManager;
+import org.terracotta.statistics.observer.OperationObserver;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counterpart of {@link StatisticBuilder#operation(Class)} building the {@link OperationObserver}s of caches and stores
+ * according to their {@link StoreStatisticsConfiguration}.
+ */
+public final class ConfiguredStatisticBuilder {
+
+  private ConfiguredStatisticBuilder() {
+    // no instance
+  }
+
+  /**
+   * Starts building an operation observer for the given outcome type.
+   *
+   * @param type the operation outcome type
+   * @param configuration the statistics configuration, {@code null} for the defaults
+   * @param <T> the operation outcome type
+   * @return the observer builder
+   */
+  public static <T extends Enum<T>> OperationObserverBuilder<T> operation(Class<T> type, StoreStatisticsConfiguration configuration) {
+    return new OperationObserverBuilder<T>(type, configuration);
+  }
+
+  /**
+   * Builder for an {@link OperationObserver} also registered as an
+   * {@link org.terracotta.statistics.OperationStatistic} of its context.
+   *
+   * @param <T> the operation outcome type
+   */
+  public static final class OperationObserverBuilder<T extends Enum<T>> {
+
+    private final Class<T> type;
+    private final StatisticsLevel level;
+    private final int sampleRate;
+    private final Set<String> tags = new HashSet<String>();
+    private Object context;
+    private String name;
+
+    private OperationObserverBuilder(Class<T> type, StoreStatisticsConfiguration configuration) {
+      this.type = type;
+      if (configuration == null) {
+        this.level = StoreStatisticsConfiguration.DEFAULT_STATISTICS_LEVEL;
+        this.sampleRate = StoreStatisticsConfiguration.DEFAULT_SAMPLE_RATE;
+      } else {
+        this.level = configuration.getStatisticsLevel();
+        this.sampleRate = configuration.getSampleRate();
+      }
+    }
+
+    /**
+     * Names the statistic.
+     *
+     * @param name the statistic name
+     * @return this builder
+     */
+    public OperationObserverBuilder<T> named(String name) {
+      if (this.name != null) {
+        throw new IllegalStateException("Name already defined");
+      }
+      this.name = name;
+      return this;
+    }
+
+    /**
+     * Sets the object the statistic is attached to.
+     *
+     * @param context the statistic context
+     * @return this builder
+     */
+    public OperationObserverBuilder<T> of(Object context) {
+      if (this.context != null) {
+        throw new IllegalStateException("Context already defined");
+      }
+      this.context = context;
+      return this;
+    }
+
+    /**
+     * Adds tags to the statistic.
+     *
+     * @param tags the tags to add
+     * @return this builder
+     */
+    public OperationObserverBuilder<T> tag(String... tags) {
+      Collections.addAll(this.tags, tags);
+      return this;
+    }
+
+    /**
+     * Builds the observer and registers its statistic as a child of the context.
+     *
+     * @return the operation observer
+     */
+    public OperationObserver<T> build() {
+      if (context == null || name == null) {
+        throw new IllegalStateException();
+      }
+      LeveledOperationStatistic<T> statistic;
+      switch (level) {
+        case SAMPLED:
+          if (sampleRate == 1) {
+            // plain statistic, timing every operation
+            return StatisticBuilder.operation(type).named(name).of(context).tag(tags.toArray(new String[tags.size()])).build();
+          }
+          statistic = new LeveledOperationStatistic<T>(name, tags, type, true, sampleRate);
+          break;
+        case COUNTERS_ONLY:
+          statistic = new LeveledOperationStatistic<T>(name, tags, type, true, 0);
+          break;
+        case OFF:
+          statistic = new LeveledOperationStatistic<T>(name, tags, type, false, 0);
+          break;
+        default:
+          throw new AssertionError("Unsupported statistics level " + level);
+      }
+      StatisticsManager.associate(context).withChild(statistic);
+      return statistic;
+    }
+  }
+}
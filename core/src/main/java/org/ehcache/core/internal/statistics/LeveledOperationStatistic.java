@@ -0,0 +1,190 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.internal.statistics;
+
+import org.terracotta.context.annotations.ContextAttribute;
+import org.terracotta.statistics.AbstractSourceStatistic;
+import org.terracotta.statistics.OperationStatistic;
+import org.terracotta.statistics.Time;
+import org.terracotta.statistics.ValueStatistic;
+import org.terracotta.statistics.jsr166e.LongAdder;
+import org.terracotta.statistics.observer.ChainedOperationObserver;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link OperationStatistic} doing only the bookkeeping its {@link org.ehcache.core.statistics.StatisticsLevel}
+ * asks for.
+ * <P>
+ *   Outcome counts are exact whenever they are kept. Derived statistics however only see one {@code begin}/{@code end}
+ *   pair out of every {@code sampleRate} on a given thread, so the rates and latencies they compute describe a sample
+ *   of the operations rather than all of them.
+ * </P>
+ *
+ * @param <T> the operation outcome type
+ */
+@ContextAttribute("this")
+class LeveledOperationStatistic<T extends Enum<T>> extends AbstractSourceStatistic<ChainedOperationObserver<? super T>> implements OperationStatistic<T> {
+
+  @ContextAttribute("name") public final String name;
+  @ContextAttribute("tags") public final Set<String> tags;
+  @ContextAttribute("properties") public final Map<String, Object> properties;
+  @ContextAttribute("type") public final Class<T> type;
+
+  private final LongAdder[] counts;
+  private final int sampleRate;
+  private final ThreadLocal<long[]> sampling = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      // countdown to the next sampled operation, and whether the ongoing one is sampled
+      return new long[] { 1L, 0L };
+    }
+  };
+
+  /**
+   * Creates a new statistic.
+   *
+   * @param name the statistic name
+   * @param tags the statistic tags
+   * @param type the operation outcome type
+   * @param counting whether outcomes are counted
+   * @param sampleRate one out of how many operations is handed to the derived statistics, {@code 0} for none
+   */
+  LeveledOperationStatistic(String name, Set<String> tags, Class<T> type, boolean counting, int sampleRate) {
+    this.name = name;
+    this.tags = Collections.unmodifiableSet(new HashSet<String>(tags));
+    this.properties = Collections.unmodifiableMap(new HashMap<String, Object>());
+    this.type = type;
+    if (counting) {
+      this.counts = new LongAdder[type.getEnumConstants().length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = new LongAdder();
+      }
+    } else {
+      this.counts = null;
+    }
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  public Class<T> type() {
+    return type;
+  }
+
+  @Override
+  public ValueStatistic<Long> statistic(final T result) {
+    return new ValueStatistic<Long>() {
+      @Override
+      public Long value() {
+        return count(result);
+      }
+    };
+  }
+
+  @Override
+  public ValueStatistic<Long> statistic(final Set<T> results) {
+    return new ValueStatistic<Long>() {
+      @Override
+      public Long value() {
+        return sum(results);
+      }
+    };
+  }
+
+  @Override
+  public long count(T result) {
+    return counts == null ? 0L : counts[result.ordinal()].sum();
+  }
+
+  @Override
+  public long sum(Set<T> results) {
+    long sum = 0L;
+    for (T result : results) {
+      sum += count(result);
+    }
+    return sum;
+  }
+
+  @Override
+  public long sum() {
+    return sum(EnumSet.allOf(type));
+  }
+
+  @Override
+  public void begin() {
+    if (sampleRate == 0 || derivedStatistics.isEmpty()) {
+      return;
+    }
+    long[] state = sampling.get();
+    if (--state[0] > 0L) {
+      return;
+    }
+    state[0] = sampleRate;
+    state[1] = 1L;
+    long time = Time.time();
+    for (ChainedOperationObserver<? super T> observer : derivedStatistics) {
+      observer.begin(time);
+    }
+  }
+
+  @Override
+  public void end(T result) {
+    if (counts != null) {
+      counts[result.ordinal()].increment();
+    }
+    if (endSample()) {
+      long time = Time.time();
+      for (ChainedOperationObserver<? super T> observer : derivedStatistics) {
+        observer.end(time, result);
+      }
+    }
+  }
+
+  @Override
+  public void end(T result, long... parameters) {
+    if (counts != null) {
+      counts[result.ordinal()].increment();
+    }
+    if (endSample()) {
+      long time = Time.time();
+      for (ChainedOperationObserver<? super T> observer : derivedStatistics) {
+        observer.end(time, result, parameters);
+      }
+    }
+  }
+
+  private boolean endSample() {
+    if (sampleRate == 0 || derivedStatistics.isEmpty()) {
+      return false;
+    }
+    long[] state = sampling.get();
+    if (state[1] == 0L) {
+      return false;
+    }
+    state[1] = 0L;
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return name + (counts == null ? "[disabled]" : "[sample rate " + sampleRate + "]");
+  }
+}
@@ -19,6 +19,7 @@ package org.ehcache.core.internal.store;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourcePools;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.expiry.Expiry;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.spi.serialization.Serializer;
@@ -38,6 +39,7 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
   private final Serializer<K> keySerializer;
   private final Serializer<V> valueSerializer;
   private final int dispatcherConcurrency;
+  private final StoreStatisticsConfiguration statisticsConfiguration;
 
   /**
    * Creates a new {@code StoreConfigurationImpl} based on the provided parameters.
@@ -49,9 +51,46 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
    */
   public StoreConfigurationImpl(CacheConfiguration<K, V> cacheConfig, int dispatcherConcurrency,
                                 Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this(cacheConfig, dispatcherConcurrency, null, keySerializer, valueSerializer);
+  }
+
+  /**
+   * Creates a new {@code StoreConfigurationImpl} based on the provided parameters.
+   *
+   * @param cacheConfig the cache configuration
+   * @param dispatcherConcurrency the level of concurrency for ordered events
+   * @param statisticsConfiguration the statistics configuration, {@code null} for the defaults
+   * @param keySerializer the key serializer
+   * @param valueSerializer the value serializer
+   */
+  public StoreConfigurationImpl(CacheConfiguration<K, V> cacheConfig, int dispatcherConcurrency,
+                                StoreStatisticsConfiguration statisticsConfiguration,
+                                Serializer<K> keySerializer, Serializer<V> valueSerializer) {
     this(cacheConfig.getKeyType(), cacheConfig.getValueType(), cacheConfig.getEvictionAdvisor(),
         cacheConfig.getClassLoader(), cacheConfig.getExpiry(), cacheConfig.getResourcePools(),
-        dispatcherConcurrency, keySerializer, valueSerializer);
+        dispatcherConcurrency, statisticsConfiguration, keySerializer, valueSerializer);
+  }
+
+  /**
+   * Creates a new {@code StoreConfigurationImpl} based on the provided parameters.
+   *
+   * @param keyType the key type
+   * @param valueType the value type
+   * @param evictionAdvisor the eviction advisor
+   * @param classLoader the class loader
+   * @param expiry the expiry policy
+   * @param resourcePools the resource pools
+   * @param dispatcherConcurrency the level of concurrency for ordered events
+   * @param keySerializer the key serializer
+   * @param valueSerializer the value serializer
+   */
+  public StoreConfigurationImpl(Class<K> keyType, Class<V> valueType,
+                                EvictionAdvisor<? super K, ? super V> evictionAdvisor,
+                                ClassLoader classLoader, Expiry<? super K, ? super V> expiry,
+                                ResourcePools resourcePools, int dispatcherConcurrency,
+                                Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this(keyType, valueType, evictionAdvisor, classLoader, expiry, resourcePools, dispatcherConcurrency, null,
+        keySerializer, valueSerializer);
   }
 
   /**
@@ -64,6 +103,7 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
    * @param expiry the expiry policy
    * @param resourcePools the resource pools
    * @param dispatcherConcurrency the level of concurrency for ordered events
+   * @param statisticsConfiguration the statistics configuration, {@code null} for the defaults
    * @param keySerializer the key serializer
    * @param valueSerializer the value serializer
    */
@@ -71,6 +111,7 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
                                 EvictionAdvisor<? super K, ? super V> evictionAdvisor,
                                 ClassLoader classLoader, Expiry<? super K, ? super V> expiry,
                                 ResourcePools resourcePools, int dispatcherConcurrency,
+                                StoreStatisticsConfiguration statisticsConfiguration,
                                 Serializer<K> keySerializer, Serializer<V> valueSerializer) {
     this.keyType = keyType;
     this.valueType = valueType;
@@ -81,6 +122,7 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
     this.keySerializer = keySerializer;
     this.valueSerializer = valueSerializer;
     this.dispatcherConcurrency = dispatcherConcurrency;
+    this.statisticsConfiguration = statisticsConfiguration;
   }
 
   /**
@@ -154,4 +196,12 @@ public class StoreConfigurationImpl<K, V> implements Store.Configuration<K, V> {
   public int getDispatcherConcurrency() {
     return dispatcherConcurrency;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StoreStatisticsConfiguration getStatisticsConfiguration() {
+    return statisticsConfiguration;
+  }
 }
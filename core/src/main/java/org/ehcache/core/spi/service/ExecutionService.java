@@ -43,6 +43,9 @@ public interface ExecutionService extends Service {
 
   /**
    * Get a pre-configured {@link ExecutorService} instance that guarantees execution in submission order.
+   * <p>
+   * Ordering is only guaranteed between tasks of the same partition, as declared by {@link PartitionedTask}. Tasks that
+   * do not declare a partition are all executed in submission order with respect to each other.
    *
    * @param poolAlias the requested pool alias.
    * @param queue the queue in which pending tasks are to be queued.
@@ -0,0 +1,39 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.spi.service;
+
+import org.ehcache.core.statistics.MetricsExporter;
+import org.ehcache.spi.service.Service;
+
+import java.io.IOException;
+
+/**
+ * {@link Service} exporting the counters, gauges and latency histograms of the caches of a
+ * {@link org.ehcache.CacheManager} and of their tiers.
+ * <P>
+ *   The statistics of a cache are resolved once, when the cache is added, so that an export only reads them.
+ * </P>
+ */
+public interface MetricsService extends Service {
+
+  /**
+   * Hands the current value of every metric to the given exporter.
+   *
+   * @param exporter the exporter rendering the metrics
+   * @throws IOException if the exporter fails
+   */
+  void export(MetricsExporter exporter) throws IOException;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.spi.service;
+
+/**
+ * A task that declares the partition it belongs to.
+ * <p>
+ * Executors returned by {@link ExecutionService#getOrderedExecutor(String, java.util.concurrent.BlockingQueue)} only
+ * guarantee submission order between tasks of the same partition. Tasks of different partitions may run concurrently,
+ * while tasks that do not implement this interface all share a single partition.
+ */
+public interface PartitionedTask extends Runnable {
+
+  /**
+   * Returns the partition of this task, typically derived from the key the task concerns.
+   *
+   * @return the partition key, {@code null} for the shared partition
+   */
+  Object getPartition();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.spi.service;
+
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.spi.service.Service;
+
+/**
+ * {@link Service} holding the statistics configuration applied to the caches of a {@link org.ehcache.CacheManager}
+ * that do not define their own {@link StoreStatisticsConfiguration}.
+ */
+public interface StatisticsService extends Service {
+
+  /**
+   * Returns the statistics configuration used by default.
+   *
+   * @return the default statistics configuration
+   */
+  StoreStatisticsConfiguration getDefaultStatisticsConfiguration();
+}
@@ -22,6 +22,7 @@ import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourcePools;
 import org.ehcache.config.ResourceType;
 import org.ehcache.expiry.Expiry;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.function.NullaryFunction;
@@ -648,6 +649,11 @@ public interface Store<K, V> extends ConfigurationChangeSupport {
      * The concurrency level of the dispatcher that processes events
      */
     int getDispatcherConcurrency();
+
+    /**
+     * The statistics configuration to build the operation observers with, {@code null} for the defaults
+     */
+    StoreStatisticsConfiguration getStatisticsConfiguration();
   }
 
   /**
@@ -676,6 +682,28 @@ public interface Store<K, V> extends ConfigurationChangeSupport {
 
   }
 
+  /**
+   * A {@link #bulkCompute(Set, Function, NullaryFunction) bulkCompute} remapping function a store may run with no lock
+   * held over the mappings handed to it.
+   * <P>
+   *   Before installing a computed value, such a store checks that the mapping is still the one handed to the function.
+   *   If it is not, the concurrent mapping is kept, the computed value is discarded and {@link #conflicted(Object)} is
+   *   called for the key. Stores not supporting this run the function as any other remapping function.
+   * </P>
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   */
+  interface OptimisticRemappingFunction<K, V> extends Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> {
+
+    /**
+     * Called for a key whose computed value was discarded, its mapping having changed while the value was computed.
+     *
+     * @param key the key of the discarded value
+     */
+    void conflicted(K key);
+  }
+
   /**
    * Put operation status
    */
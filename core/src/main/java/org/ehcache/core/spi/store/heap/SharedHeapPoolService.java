@@ -0,0 +1,45 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.spi.store.heap;
+
+import org.ehcache.spi.service.Service;
+
+import java.util.Map;
+
+/**
+ * {@link Service} sharing a single heap capacity between the caches of a {@link org.ehcache.CacheManager}.
+ * <P>
+ *   Caches opting into the pool have their heap tier resized at runtime, moving capacity toward the caches that
+ *   would benefit the most from it.
+ * </P>
+ */
+public interface SharedHeapPoolService extends Service {
+
+  /**
+   * Returns the heap size currently allocated to each pooled cache.
+   * <P>
+   *   Sizes are expressed in entries for entry based pools, and in bytes for memory based pools.
+   * </P>
+   *
+   * @return a map of cache alias to allocated heap size
+   */
+  Map<String, Long> getAllocations();
+
+  /**
+   * Moves capacity between the pooled caches based on the activity observed since the previous rebalance.
+   */
+  void rebalance();
+}
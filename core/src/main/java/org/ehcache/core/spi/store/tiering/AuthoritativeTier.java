@@ -86,6 +86,15 @@ public interface AuthoritativeTier<K, V> extends Store<K, V> {
      * @throws StoreAccessException when en error occurs while invalidating mappings
      */
     void invalidateAll() throws StoreAccessException;
+
+    /**
+     * Requests an invalidation of all {@link CachingTier} mappings whose key has the given hash code.
+     *
+     * @param hash the hash code of the keys to invalidate
+     *
+     * @throws StoreAccessException when en error occurs while invalidating mappings
+     */
+    void invalidateAllWithHash(long hash) throws StoreAccessException;
   }
 
   /**
@@ -51,6 +51,17 @@ public interface HigherCachingTier<K, V> extends CachingTier<K, V> {
    */
   void silentInvalidateAll(BiFunction<K, Store.ValueHolder<V>, Void> biFunction) throws StoreAccessException;
 
+  /**
+   * Removes all mappings whose key has the given hash code without firing an invalidation event, instead invoking
+   * the provided function.
+   *
+   * @param hash the hash code of the keys to invalidate
+   * @param biFunction the function to invoke for each mappings
+   *
+   * @throws StoreAccessException if mappings cannot be removed or the function throws
+   */
+  void silentInvalidateAllWithHash(long hash, BiFunction<K, Store.ValueHolder<V>, Void> biFunction) throws StoreAccessException;
+
   /**
    * {@link Service} interface for providing {@link HigherCachingTier} instances.
    */
@@ -76,6 +76,16 @@ public interface LowerCachingTier<K, V> extends ConfigurationChangeSupport {
    */
   void invalidateAll() throws StoreAccessException;
 
+  /**
+   * Invalidates all mappings whose key has the given hash code, invoking the
+   * {@link org.ehcache.core.spi.store.tiering.CachingTier.InvalidationListener} if registered.
+   *
+   * @param hash the hash code of the keys to invalidate
+   *
+   * @throws StoreAccessException if mappings cannot be removed
+   */
+  void invalidateAllWithHash(long hash) throws StoreAccessException;
+
   /**
    * Empty out this tier
    *
@@ -0,0 +1,425 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded memory tracker of the most accessed keys of a cache, the heavy hitters.
+ * <P>
+ *   Keys are counted with the space-saving algorithm: at most {@code capacity} keys are tracked, and an untracked key
+ *   takes over the counter of the least accessed tracked key, inheriting its count as error. The estimated access count
+ *   of a key therefore never underestimates its sampled accesses, and overestimates them by at most its error. Any key
+ *   accessed more than {@code 1/capacity} of the time is guaranteed to be tracked. Misses are counted from the moment a
+ *   key took over its counter, so they may be underestimated but never overestimated.
+ * </P>
+ * <P>
+ *   Only one access out of every {@code sampleRate} on a given thread is counted, the estimates being scaled back by
+ *   the sample rate. Skipped accesses do not leave the calling thread.
+ * </P>
+ * <P>
+ *   Counting threads are spread by id over a fixed number of stripes, each created on first use and tracking up to
+ *   {@code capacity} keys of its own, so that counted accesses only contend within a stripe. The stripes are merged when
+ *   read: a key untracked by a full stripe is accounted for with the least count of that stripe, both in its estimate
+ *   and in its error, which keeps the guarantees above.
+ * </P>
+ *
+ * @param <K> the key type
+ */
+public final class HeavyHitters<K> {
+
+  private static final int MAX_STRIPES = 16;
+
+  private final int capacity;
+  private final int sampleRate;
+  private final AtomicReferenceArray<Sketch<K>> stripes;
+  private final ThreadLocal<int[]> countdown = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[] { 1 };
+    }
+  };
+
+  /**
+   * Creates a tracker of the {@code capacity} most accessed keys, counting one access out of {@code sampleRate}, striped
+   * according to the number of available processors.
+   *
+   * @param capacity the maximum number of tracked keys
+   * @param sampleRate one out of how many accesses is counted
+   * @throws IllegalArgumentException if {@code capacity} or {@code sampleRate} is not positive
+   */
+  public HeavyHitters(int capacity, int sampleRate) {
+    this(capacity, sampleRate, Runtime.getRuntime().availableProcessors());
+  }
+
+  HeavyHitters(int capacity, int sampleRate, int concurrency) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+    }
+    this.capacity = capacity;
+    this.sampleRate = sampleRate;
+    int stripes = 1;
+    while (stripes < concurrency && stripes < MAX_STRIPES) {
+      stripes <<= 1;
+    }
+    this.stripes = new AtomicReferenceArray<Sketch<K>>(stripes);
+  }
+
+  /**
+   * Returns the maximum number of keys tracked.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns one out of how many accesses is counted.
+   *
+   * @return the sample rate
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Records an access to the given key.
+   *
+   * @param key the accessed key
+   * @param miss whether the access missed
+   */
+  public void access(K key, boolean miss) {
+    if (sampleRate > 1) {
+      int[] remaining = countdown.get();
+      if (--remaining[0] > 0) {
+        return;
+      }
+      remaining[0] = sampleRate;
+    }
+    stripe().count(key, miss);
+  }
+
+  private Sketch<K> stripe() {
+    int index = (int) (Thread.currentThread().getId() & (stripes.length() - 1));
+    Sketch<K> stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new Sketch<K>(capacity));
+      stripe = stripes.get(index);
+    }
+    return stripe;
+  }
+
+  /**
+   * Returns the estimated number of accesses recorded so far, tracked key or not.
+   *
+   * @return the estimated access count
+   */
+  public long getAccesses() {
+    long sampled = 0;
+    for (int i = 0; i < stripes.length(); i++) {
+      Sketch<K> stripe = stripes.get(i);
+      if (stripe != null) {
+        sampled += stripe.getSampled();
+      }
+    }
+    return sampled * sampleRate;
+  }
+
+  /**
+   * Returns the most accessed keys, in decreasing order of estimated access count.
+   *
+   * @param count the maximum number of keys to return
+   * @return the heavy hitters
+   */
+  public List<Entry<K>> top(int count) {
+    List<Snapshot<K>> snapshots = new ArrayList<Snapshot<K>>(stripes.length());
+    for (int i = 0; i < stripes.length(); i++) {
+      Sketch<K> stripe = stripes.get(i);
+      if (stripe != null) {
+        snapshots.add(stripe.snapshot());
+      }
+    }
+    Entry<K>[] entries = merge(snapshots);
+    Arrays.sort(entries, new Comparator<Entry<K>>() {
+      @Override
+      public int compare(Entry<K> a, Entry<K> b) {
+        return a.accesses < b.accesses ? 1 : (a.accesses == b.accesses ? 0 : -1);
+      }
+    });
+    if (count >= entries.length) {
+      return Collections.unmodifiableList(Arrays.asList(entries));
+    } else {
+      return Collections.unmodifiableList(new ArrayList<Entry<K>>(Arrays.asList(entries).subList(0, Math.max(count, 0))));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Entry<K>[] merge(List<Snapshot<K>> snapshots) {
+    Map<K, long[]> merged = new HashMap<K, long[]>();
+    for (Snapshot<K> snapshot : snapshots) {
+      for (Map.Entry<K, long[]> tracked : snapshot.counts.entrySet()) {
+        long[] counts = merged.get(tracked.getKey());
+        if (counts == null) {
+          merged.put(tracked.getKey(), tracked.getValue());
+        } else {
+          for (int i = 0; i < counts.length; i++) {
+            counts[i] += tracked.getValue()[i];
+          }
+        }
+      }
+    }
+    Entry<K>[] entries = new Entry[merged.size()];
+    int i = 0;
+    for (Map.Entry<K, long[]> key : merged.entrySet()) {
+      long accesses = key.getValue()[0];
+      long misses = key.getValue()[1];
+      long error = key.getValue()[2];
+      for (Snapshot<K> snapshot : snapshots) {
+        if (!snapshot.counts.containsKey(key.getKey())) {
+          accesses += snapshot.floor;
+          error += snapshot.floor;
+        }
+      }
+      entries[i++] = new Entry<K>(key.getKey(), accesses * sampleRate, misses * sampleRate, error * sampleRate);
+    }
+    return entries;
+  }
+
+  /**
+   * Forgets all the keys and accesses recorded so far.
+   */
+  public void reset() {
+    for (int i = 0; i < stripes.length(); i++) {
+      Sketch<K> stripe = stripes.get(i);
+      if (stripe != null) {
+        stripe.reset();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "HeavyHitters[capacity " + capacity + ", sample rate " + sampleRate + "]";
+  }
+
+  /**
+   * The space-saving sketch of one stripe.
+   */
+  private static final class Sketch<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+
+    private int size;
+    private long sampled;
+
+    @SuppressWarnings("unchecked")
+    Sketch(int capacity) {
+      this.capacity = capacity;
+      this.counters = new HashMap<K, Counter<K>>(capacity * 2);
+      this.heap = new Counter[capacity];
+    }
+
+    synchronized void count(K key, boolean miss) {
+      sampled++;
+      Counter<K> counter = counters.get(key);
+      if (counter != null) {
+        counter.increment(miss);
+        siftDown(counter.index);
+      } else if (size < capacity) {
+        counter = new Counter<K>(key, size);
+        counter.increment(miss);
+        counters.put(key, counter);
+        heap[size++] = counter;
+        siftUp(counter.index);
+      } else {
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.reassign(key);
+        counter.increment(miss);
+        counters.put(key, counter);
+        siftDown(0);
+      }
+    }
+
+    private void siftUp(int index) {
+      Counter<K> counter = heap[index];
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (heap[parent].count <= counter.count) {
+          break;
+        }
+        place(heap[parent], index);
+        index = parent;
+      }
+      place(counter, index);
+    }
+
+    private void siftDown(int index) {
+      Counter<K> counter = heap[index];
+      int half = size >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+          child++;
+        }
+        if (counter.count <= heap[child].count) {
+          break;
+        }
+        place(heap[child], index);
+        index = child;
+      }
+      place(counter, index);
+    }
+
+    private void place(Counter<K> counter, int index) {
+      heap[index] = counter;
+      counter.index = index;
+    }
+
+    synchronized long getSampled() {
+      return sampled;
+    }
+
+    synchronized Snapshot<K> snapshot() {
+      Map<K, long[]> counts = new HashMap<K, long[]>(size * 2);
+      for (int i = 0; i < size; i++) {
+        Counter<K> counter = heap[i];
+        counts.put(counter.key, new long[] { counter.count, counter.misses, counter.error });
+      }
+      // an untracked key may have been counted up to the least count, but only once the sketch is full
+      return new Snapshot<K>(counts, size == capacity ? heap[0].count : 0);
+    }
+
+    synchronized void reset() {
+      counters.clear();
+      Arrays.fill(heap, null);
+      size = 0;
+      sampled = 0;
+    }
+  }
+
+  private static final class Snapshot<K> {
+
+    private final Map<K, long[]> counts;
+    private final long floor;
+
+    Snapshot(Map<K, long[]> counts, long floor) {
+      this.counts = counts;
+      this.floor = floor;
+    }
+  }
+
+  private static final class Counter<K> {
+
+    private K key;
+    private int index;
+    private long count;
+    private long misses;
+    private long error;
+
+    Counter(K key, int index) {
+      this.key = key;
+      this.index = index;
+    }
+
+    void increment(boolean miss) {
+      count++;
+      if (miss) {
+        misses++;
+      }
+    }
+
+    void reassign(K key) {
+      this.key = key;
+      this.error = count;
+      this.misses = 0;
+    }
+  }
+
+  /**
+   * A tracked key and its estimated access counts.
+   *
+   * @param <K> the key type
+   */
+  public static final class Entry<K> {
+
+    private final K key;
+    private final long accesses;
+    private final long misses;
+    private final long error;
+
+    Entry(K key, long accesses, long misses, long error) {
+      this.key = key;
+      this.accesses = accesses;
+      this.misses = misses;
+      this.error = error;
+    }
+
+    /**
+     * Returns the tracked key.
+     *
+     * @return the key
+     */
+    public K getKey() {
+      return key;
+    }
+
+    /**
+     * Returns the estimated number of accesses to the key, which overestimates it by at most {@link #getError()}.
+     *
+     * @return the estimated access count
+     */
+    public long getAccesses() {
+      return accesses;
+    }
+
+    /**
+     * Returns the estimated number of accesses to the key that missed.
+     *
+     * @return the estimated miss count
+     */
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * Returns the maximum overestimation of the access count.
+     *
+     * @return the error bound
+     */
+    public long getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return key + "[accesses " + accesses + ", error " + error + ", misses " + misses + "]";
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size histogram of latencies, expressed in nanoseconds.
+ * <P>
+ *   Latencies are counted in log-linear buckets: each power of two is split in {@value #SUB_BUCKETS} buckets, which
+ *   bounds the error of a reported percentile to an eighth of its value. Latencies of {@code 2^36} nanoseconds (over a
+ *   minute) and above share the last bucket, the maximum being tracked exactly on the side.
+ * </P>
+ * <P>
+ *   Recording threads are spread by id over a fixed number of stripes, each created on first use, so that recording
+ *   neither allocates nor contends on a shared counter.
+ * </P>
+ */
+public final class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 2;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int MAX_EXPONENT = 36;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private static final int MAX_STRIPES = 16;
+
+  private final AtomicReferenceArray<AtomicLongArray> stripes;
+
+  /**
+   * Creates a histogram striped according to the number of available processors.
+   */
+  public LatencyHistogram() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  LatencyHistogram(int concurrency) {
+    int stripes = 1;
+    while (stripes < concurrency && stripes < MAX_STRIPES) {
+      stripes <<= 1;
+    }
+    this.stripes = new AtomicReferenceArray<AtomicLongArray>(stripes);
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency, in nanoseconds
+   */
+  public void record(long nanos) {
+    AtomicLongArray stripe = stripe();
+    stripe.incrementAndGet(indexFor(nanos));
+    long max = stripe.get(BUCKETS);
+    while (nanos > max && !stripe.compareAndSet(BUCKETS, max, nanos)) {
+      max = stripe.get(BUCKETS);
+    }
+  }
+
+  /**
+   * Returns the latencies recorded so far.
+   *
+   * @return a snapshot of this histogram
+   */
+  public Snapshot snapshot() {
+    return snapshot(false);
+  }
+
+  /**
+   * Returns the latencies recorded so far and clears them, so that the next snapshot covers a new interval.
+   * <P>
+   *   No concurrently recorded latency is lost: it is part of either the returned snapshot or the next one.
+   * </P>
+   *
+   * @return a snapshot of this histogram
+   */
+  public Snapshot snapshotAndReset() {
+    return snapshot(true);
+  }
+
+  private Snapshot snapshot(boolean reset) {
+    long[] counts = new long[BUCKETS];
+    long max = 0;
+    for (int i = 0; i < stripes.length(); i++) {
+      AtomicLongArray stripe = stripes.get(i);
+      if (stripe != null) {
+        for (int b = 0; b < BUCKETS; b++) {
+          counts[b] += reset ? stripe.getAndSet(b, 0) : stripe.get(b);
+        }
+        max = Math.max(max, reset ? stripe.getAndSet(BUCKETS, 0) : stripe.get(BUCKETS));
+      }
+    }
+    return new Snapshot(counts, max);
+  }
+
+  private AtomicLongArray stripe() {
+    int index = (int) (Thread.currentThread().getId() & (stripes.length() - 1));
+    AtomicLongArray stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 1));
+      stripe = stripes.get(index);
+    }
+    return stripe;
+  }
+
+  static int indexFor(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return nanos < 0 ? 0 : (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long width(int index) {
+    if (index < SUB_BUCKETS) {
+      return 1;
+    }
+    return 1L << (index / SUB_BUCKETS - 1);
+  }
+
+  /**
+   * An immutable view of the latencies recorded by a {@link LatencyHistogram}.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long max;
+
+    Snapshot(long[] counts, long max) {
+      long count = 0;
+      for (long c : counts) {
+        count += c;
+      }
+      this.counts = counts;
+      this.count = count;
+      this.max = max;
+    }
+
+    /**
+     * Returns the latencies recorded after the given earlier snapshot of the same histogram.
+     * <P>
+     *   The maximum of the difference is the upper bound of its highest bucket, unless that bucket holds the maximum
+     *   of this snapshot.
+     * </P>
+     *
+     * @param earlier the earlier snapshot, {@code null} for none
+     * @return the difference
+     */
+    Snapshot since(Snapshot earlier) {
+      if (earlier == null) {
+        return this;
+      }
+      long[] difference = new long[counts.length];
+      int highest = -1;
+      for (int i = 0; i < counts.length; i++) {
+        difference[i] = counts[i] - earlier.counts[i];
+        if (difference[i] != 0) {
+          highest = i;
+        }
+      }
+      long differenceMax = 0;
+      if (highest >= 0) {
+        differenceMax = Math.min(lowerBound(highest) + width(highest) - 1, max);
+        if (indexFor(max) == highest) {
+          differenceMax = max;
+        }
+      }
+      return new Snapshot(difference, differenceMax);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the latency count
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the number of latencies recorded under the given one, exact when {@code nanos} is a power of two.
+     *
+     * @param nanos the exclusive upper bound, in nanoseconds
+     * @return the count of latencies below {@code nanos}
+     */
+    public long getCountBelow(long nanos) {
+      long below = 0;
+      for (int i = 0; i < counts.length && lowerBound(i) + width(i) <= nanos; i++) {
+        below += counts[i];
+      }
+      return below;
+    }
+
+    /**
+     * Returns the sum of the latencies recorded, in nanoseconds, estimated from the middle of their buckets.
+     *
+     * @return the estimated latency sum
+     */
+    public long getSum() {
+      long sum = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          sum += counts[i] * Math.min(lowerBound(i) + (width(i) - 1) / 2, max);
+        }
+      }
+      return sum;
+    }
+
+    /**
+     * Returns the highest latency recorded, in nanoseconds.
+     *
+     * @return the maximum latency, {@code 0} if none was recorded
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Returns the latency, in nanoseconds, under which the given fraction of the recorded latencies fall.
+     *
+     * @param quantile the fraction, between {@code 0} and {@code 1}
+     * @return the latency at {@code quantile}, {@code 0} if none was recorded
+     * @throws IllegalArgumentException if {@code quantile} is out of range
+     */
+    public long getPercentile(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0) {
+        throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+      }
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(lowerBound(i) + (width(i) - 1) / 2, max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import org.terracotta.statistics.observer.ChainedOperationObserver;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A derived statistic recording the latencies of an operation in one {@link LatencyHistogram} per outcome.
+ * <P>
+ *   The start time of the operation in flight is kept per thread, so that an operation ending on a thread is measured
+ *   from its beginning on that same thread. Histograms are created the first time their outcome is observed.
+ * </P>
+ *
+ * @param <T> the operation outcome type
+ */
+final class LatencyHistogramObserver<T extends Enum<T>> implements ChainedOperationObserver<T> {
+
+  private static final long NOT_STARTED = Long.MIN_VALUE;
+
+  private final Class<T> type;
+  private final AtomicReferenceArray<LatencyHistogram> histograms;
+  private final ThreadLocal<long[]> start = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      return new long[] { NOT_STARTED };
+    }
+  };
+
+  LatencyHistogramObserver(Class<T> type) {
+    this.type = type;
+    this.histograms = new AtomicReferenceArray<LatencyHistogram>(type.getEnumConstants().length);
+  }
+
+  @Override
+  public void begin(long time) {
+    start.get()[0] = time;
+  }
+
+  @Override
+  public void end(long time, T result) {
+    long[] begin = start.get();
+    if (begin[0] != NOT_STARTED) {
+      histogram(result.ordinal()).record(time - begin[0]);
+      begin[0] = NOT_STARTED;
+    }
+  }
+
+  @Override
+  public void end(long time, T result, long... parameters) {
+    end(time, result);
+  }
+
+  Map<T, LatencyHistogram.Snapshot> snapshot() {
+    Map<T, LatencyHistogram.Snapshot> snapshots = new EnumMap<T, LatencyHistogram.Snapshot>(type);
+    for (T outcome : type.getEnumConstants()) {
+      LatencyHistogram histogram = histograms.get(outcome.ordinal());
+      if (histogram != null) {
+        snapshots.put(outcome, histogram.snapshot());
+      }
+    }
+    return snapshots;
+  }
+
+  private LatencyHistogram histogram(int ordinal) {
+    LatencyHistogram histogram = histograms.get(ordinal);
+    if (histogram == null) {
+      histograms.compareAndSet(ordinal, null, new LatencyHistogram());
+      histogram = histograms.get(ordinal);
+    }
+    return histogram;
+  }
+}
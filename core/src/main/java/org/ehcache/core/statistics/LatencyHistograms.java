@@ -0,0 +1,314 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import org.terracotta.context.ContextManager;
+import org.terracotta.context.TreeNode;
+import org.terracotta.context.query.Matcher;
+import org.terracotta.context.query.Query;
+import org.terracotta.statistics.OperationStatistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.terracotta.context.query.Matchers.attributes;
+import static org.terracotta.context.query.Matchers.context;
+import static org.terracotta.context.query.Matchers.hasAttribute;
+import static org.terracotta.context.query.QueryBuilder.queryBuilder;
+
+/**
+ * Latency histograms of all the operations of a cache, for the cache itself and each of its tiers.
+ * <P>
+ *   Histograms are attached as derived statistics to the operation statistics found under the cache when its first
+ *   instance is created, and are keyed by {@link Key}: the tier, which is the tag of the statistic, {@code cache} for the
+ *   cache itself, the operation and the outcome. All the instances over the same cache share these histograms, the
+ *   last one closed detaching them. Recording stops on {@link #close()}.
+ * </P>
+ * <P>
+ *   Each instance still covers its own interval, so that resetting the histograms of one consumer does not affect
+ *   another: an instance only reports the latencies recorded since it was created or last reset. The maximum of such an
+ *   interval is bounded by the bucket of its highest latency, unless that bucket holds the overall maximum.
+ * </P>
+ */
+public final class LatencyHistograms {
+
+  private static final Map<Object, Recorder> RECORDERS = new IdentityHashMap<Object, Recorder>();
+
+  private final Object cache;
+  private final Recorder recorder;
+  private Map<Key, LatencyHistogram.Snapshot> baseline;
+  private boolean closed;
+
+  /**
+   * Starts recording the latencies of the operations of the given cache.
+   *
+   * @param cache the cache, or any object holding statistics in its context tree
+   */
+  public LatencyHistograms(Object cache) {
+    this.cache = cache;
+    synchronized (RECORDERS) {
+      Recorder recorder = RECORDERS.get(cache);
+      if (recorder == null) {
+        recorder = new Recorder(cache);
+        RECORDERS.put(cache, recorder);
+      }
+      recorder.users++;
+      this.recorder = recorder;
+    }
+    this.baseline = recorder.snapshot();
+  }
+
+  /**
+   * Returns the tier of a statistic as it appears in keys: its tags in order, joined with {@code +}.
+   *
+   * @param tags the {@code tags} attribute of the statistic
+   * @return the tier, {@code unknown} if the statistic has no tags
+   */
+  public static String tierOf(Object tags) {
+    if (tags instanceof Set<?> && !((Set<?>) tags).isEmpty()) {
+      StringBuilder tier = new StringBuilder();
+      for (Object tag : new TreeSet<Object>((Set<?>) tags)) {
+        tier.append(tier.length() == 0 ? "" : "+").append(tag);
+      }
+      return tier.toString();
+    }
+    return "unknown";
+  }
+
+  /**
+   * Returns the keys of all the latencies that can be recorded, whether or not their outcome was observed yet.
+   *
+   * @return the keys, in order
+   */
+  public Set<Key> keys() {
+    return recorder.keys();
+  }
+
+  /**
+   * Returns the latencies recorded so far, by key.
+   * <P>
+   *   Only the outcomes observed at least once are present.
+   * </P>
+   *
+   * @return the latency snapshots
+   */
+  public synchronized Map<Key, LatencyHistogram.Snapshot> snapshot() {
+    return since(recorder.snapshot(), baseline);
+  }
+
+  /**
+   * Returns the latencies recorded so far and clears them, so that the next snapshot covers a new interval.
+   *
+   * @return the latency snapshots, by key
+   * @see #snapshot()
+   */
+  public synchronized Map<Key, LatencyHistogram.Snapshot> snapshotAndReset() {
+    Map<Key, LatencyHistogram.Snapshot> current = recorder.snapshot();
+    Map<Key, LatencyHistogram.Snapshot> interval = since(current, baseline);
+    baseline = current;
+    return interval;
+  }
+
+  private static Map<Key, LatencyHistogram.Snapshot> since(Map<Key, LatencyHistogram.Snapshot> current, Map<Key, LatencyHistogram.Snapshot> baseline) {
+    Map<Key, LatencyHistogram.Snapshot> snapshots = new TreeMap<Key, LatencyHistogram.Snapshot>();
+    for (Map.Entry<Key, LatencyHistogram.Snapshot> entry : current.entrySet()) {
+      snapshots.put(entry.getKey(), entry.getValue().since(baseline.get(entry.getKey())));
+    }
+    return snapshots;
+  }
+
+  /**
+   * Stops recording latencies.
+   */
+  public void close() {
+    synchronized (RECORDERS) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (--recorder.users == 0) {
+        RECORDERS.remove(cache);
+        recorder.detach();
+      }
+    }
+  }
+
+  /**
+   * The histograms of one cache, shared by all the instances over it.
+   */
+  private static final class Recorder {
+
+    private final List<Attached<?>> attached = new ArrayList<Attached<?>>();
+    private int users;
+
+    Recorder(Object cache) {
+      Query query = queryBuilder().descendants().filter(context(attributes(hasAttribute("this", new Matcher<Object>() {
+        @Override
+        protected boolean matchesSafely(Object object) {
+          return object instanceof OperationStatistic<?>;
+        }
+      })))).build();
+      Set<TreeNode> nodes = query.execute(Collections.singleton(ContextManager.nodeFor(cache)));
+      for (TreeNode node : nodes) {
+        Map<String, Object> attributes = node.getContext().attributes();
+        attached.add(attach((OperationStatistic<?>) attributes.get("this"), tierOf(attributes.get("tags")),
+            String.valueOf(attributes.get("name"))));
+      }
+    }
+
+    private static <T extends Enum<T>> Attached<T> attach(OperationStatistic<T> statistic, String tier, String operation) {
+      Attached<T> histograms = new Attached<T>(statistic, tier, operation);
+      statistic.addDerivedStatistic(histograms.observer);
+      return histograms;
+    }
+
+    Set<Key> keys() {
+      Set<Key> keys = new TreeSet<Key>();
+      for (Attached<?> histograms : attached) {
+        histograms.keys(keys);
+      }
+      return keys;
+    }
+
+    Map<Key, LatencyHistogram.Snapshot> snapshot() {
+      Map<Key, LatencyHistogram.Snapshot> snapshots = new TreeMap<Key, LatencyHistogram.Snapshot>();
+      for (Attached<?> histograms : attached) {
+        histograms.collect(snapshots);
+      }
+      return snapshots;
+    }
+
+    void detach() {
+      for (Attached<?> histograms : attached) {
+        histograms.detach();
+      }
+    }
+  }
+
+  private static final class Attached<T extends Enum<T>> {
+
+    private final OperationStatistic<T> statistic;
+    private final String tier;
+    private final String operation;
+    private final LatencyHistogramObserver<T> observer;
+
+    Attached(OperationStatistic<T> statistic, String tier, String operation) {
+      this.statistic = statistic;
+      this.tier = tier;
+      this.operation = operation;
+      this.observer = new LatencyHistogramObserver<T>(statistic.type());
+    }
+
+    void keys(Set<Key> keys) {
+      for (T outcome : statistic.type().getEnumConstants()) {
+        keys.add(new Key(tier, operation, outcome.name()));
+      }
+    }
+
+    void collect(Map<Key, LatencyHistogram.Snapshot> snapshots) {
+      for (Map.Entry<T, LatencyHistogram.Snapshot> outcome : observer.snapshot().entrySet()) {
+        snapshots.put(new Key(tier, operation, outcome.getKey().name()), outcome.getValue());
+      }
+    }
+
+    void detach() {
+      statistic.removeDerivedStatistic(observer);
+    }
+  }
+
+  /**
+   * Identifies the latencies of one outcome of an operation, on a tier or on the cache itself.
+   */
+  public static final class Key implements Comparable<Key> {
+
+    private final String tier;
+    private final String operation;
+    private final String outcome;
+
+    Key(String tier, String operation, String outcome) {
+      this.tier = tier;
+      this.operation = operation;
+      this.outcome = outcome;
+    }
+
+    /**
+     * Returns the tier, {@code cache} for the cache itself, several tags being joined with {@code +}.
+     *
+     * @return the tier
+     */
+    public String getTier() {
+      return tier;
+    }
+
+    /**
+     * Returns the name of the operation statistic.
+     *
+     * @return the operation
+     */
+    public String getOperation() {
+      return operation;
+    }
+
+    /**
+     * Returns the name of the outcome constant.
+     *
+     * @return the outcome
+     */
+    public String getOutcome() {
+      return outcome;
+    }
+
+    @Override
+    public int compareTo(Key other) {
+      int byTier = tier.compareTo(other.tier);
+      if (byTier != 0) {
+        return byTier;
+      }
+      int byOperation = operation.compareTo(other.operation);
+      return byOperation != 0 ? byOperation : outcome.compareTo(other.outcome);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof Key) {
+        Key other = (Key) obj;
+        return tier.equals(other.tier) && operation.equals(other.operation) && outcome.equals(other.outcome);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return (tier.hashCode() * 31 + operation.hashCode()) * 31 + outcome.hashCode();
+    }
+
+    /**
+     * Returns the key as {@code <tier>.<operation>.<outcome>}.
+     *
+     * @return the key as a string
+     */
+    @Override
+    public String toString() {
+      return tier + "." + operation + "." + outcome;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Renders the metrics of caches, one family at a time.
+ * <P>
+ *   A family groups the samples of one metric, distinguished by their labels, e.g. the cache and tier they belong to.
+ *   {@link #family(String, Type, String)} announces a family, and the samples that follow belong to it until the next
+ *   family is announced. {@link #flush()} is called once all the families are exported.
+ * </P>
+ */
+public interface MetricsExporter {
+
+  /**
+   * The type of the samples of a family.
+   */
+  enum Type {
+    /**
+     * Monotonic counts, exported through {@link #sample(Map, Number)}.
+     */
+    COUNTER,
+    /**
+     * Instantaneous values, exported through {@link #sample(Map, Number)}.
+     */
+    GAUGE,
+    /**
+     * Latency distributions, exported through {@link #histogram(Map, LatencyHistogram.Snapshot)}.
+     */
+    HISTOGRAM
+  }
+
+  /**
+   * Announces a family of metrics.
+   *
+   * @param name the family name
+   * @param type the type of its samples
+   * @param help a description of the family
+   * @throws IOException if the family cannot be rendered
+   */
+  void family(String name, Type type, String help) throws IOException;
+
+  /**
+   * Exports a counter or gauge sample of the current family.
+   *
+   * @param labels the labels of the sample
+   * @param value the sample value
+   * @throws IOException if the sample cannot be rendered
+   */
+  void sample(Map<String, String> labels, Number value) throws IOException;
+
+  /**
+   * Exports a histogram sample of the current family.
+   *
+   * @param labels the labels of the sample
+   * @param snapshot the latencies recorded
+   * @throws IOException if the sample cannot be rendered
+   */
+  void histogram(Map<String, String> labels, LatencyHistogram.Snapshot snapshot) throws IOException;
+
+  /**
+   * Completes the export.
+   *
+   * @throws IOException if the export cannot be completed
+   */
+  void flush() throws IOException;
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An online estimator of the miss ratio an LRU cache of a given number of entries would have on the keys accessed.
+ * <P>
+ *   Reuse distances are measured on a spatial sample of the keys, SHARDS style: a key is sampled when its spread hash
+ *   falls under a threshold, so that all the accesses of a sampled key are seen. Each sampled access is weighted by the
+ *   inverse of the sampling rate, and its reuse distance (the number of distinct sampled keys accessed since the
+ *   previous access to the same key) is scaled by the same factor. An access to a key of reuse distance {@code d}
+ *   misses in any cache of at most {@code d} entries.
+ * </P>
+ * <P>
+ *   Memory is bounded by {@code maxSampledKeys}: once more keys are sampled, the threshold is lowered to drop the keys of
+ *   highest hash, which lowers the sampling rate for the accesses to come. Accesses to keys that are not sampled only
+ *   cost a hash on the calling thread, sampled ones update the estimator under its lock.
+ * </P>
+ * <P>
+ *   Scaled reuse distances are counted in the log-linear buckets of {@link LatencyHistogram}, the miss ratio at a size
+ *   within a bucket being interpolated.
+ * </P>
+ *
+ * @param <K> the key type
+ */
+public final class MissRatioCurve<K> {
+
+  private static final int HASH_BITS = 24;
+  private static final int MODULUS = 1 << HASH_BITS;
+
+  private final int maxSampledKeys;
+  private final Map<K, Sample<K>> samples;
+  private final PriorityQueue<Sample<K>> byHash;
+  private final int[] marks;
+  private final double[] distances = new double[LatencyHistogram.BUCKETS];
+
+  private volatile int threshold;
+  private int clock;
+  private int live;
+  private double coldMisses;
+  private double accesses;
+  private long maxDistance;
+
+  /**
+   * Creates an estimator sampling one key out of {@code sampleRate} and keeping at most {@code maxSampledKeys} of them.
+   *
+   * @param maxSampledKeys the maximum number of sampled keys
+   * @param sampleRate one out of how many keys is initially sampled
+   * @throws IllegalArgumentException if {@code maxSampledKeys} or {@code sampleRate} is not positive
+   */
+  public MissRatioCurve(int maxSampledKeys, int sampleRate) {
+    if (maxSampledKeys <= 0) {
+      throw new IllegalArgumentException("Maximum sampled keys must be positive: " + maxSampledKeys);
+    }
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+    }
+    this.maxSampledKeys = maxSampledKeys;
+    this.samples = new HashMap<K, Sample<K>>(maxSampledKeys * 2);
+    this.byHash = new PriorityQueue<Sample<K>>(maxSampledKeys + 1, new Comparator<Sample<K>>() {
+      @Override
+      public int compare(Sample<K> a, Sample<K> b) {
+        return a.hash < b.hash ? 1 : (a.hash == b.hash ? 0 : -1);
+      }
+    });
+    this.marks = new int[2 * maxSampledKeys + 1];
+    this.threshold = Math.max(MODULUS / sampleRate, 1);
+  }
+
+  /**
+   * Records an access to the given key.
+   *
+   * @param key the accessed key
+   */
+  public void access(K key) {
+    int hash = spread(key.hashCode());
+    if (hash < threshold) {
+      synchronized (this) {
+        if (hash < threshold) {
+          record(key, hash);
+        }
+      }
+    }
+  }
+
+  private static int spread(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash & (MODULUS - 1);
+  }
+
+  private void record(K key, int hash) {
+    double rate = (double) threshold / MODULUS;
+    double weight = 1.0 / rate;
+    accesses += weight;
+    Sample<K> sample = samples.get(key);
+    if (sample == null) {
+      coldMisses += weight;
+      sample = new Sample<K>(key, hash);
+      samples.put(key, sample);
+      byHash.add(sample);
+      mark(sample);
+      if (samples.size() > maxSampledKeys) {
+        lowerThreshold();
+      }
+    } else {
+      long distance = (long) ((live - prefix(sample.time)) * weight);
+      distances[LatencyHistogram.indexFor(distance)] += weight;
+      maxDistance = Math.max(maxDistance, distance);
+      unmark(sample);
+      mark(sample);
+    }
+  }
+
+  private void lowerThreshold() {
+    threshold = byHash.peek().hash;
+    while (!byHash.isEmpty() && byHash.peek().hash >= threshold) {
+      Sample<K> sample = byHash.poll();
+      samples.remove(sample.key);
+      unmark(sample);
+    }
+  }
+
+  private void mark(Sample<K> sample) {
+    if (clock == marks.length - 1) {
+      compact();
+    }
+    sample.time = clock++;
+    add(sample.time, 1);
+    live++;
+  }
+
+  private void unmark(Sample<K> sample) {
+    add(sample.time, -1);
+    sample.time = -1;
+    live--;
+  }
+
+  /**
+   * Renumbers the access times of the sampled keys from zero, keeping their order, once all times are used.
+   */
+  private void compact() {
+    List<Sample<K>> marked = new ArrayList<Sample<K>>(samples.size());
+    for (Sample<K> sample : samples.values()) {
+      if (sample.time >= 0) {
+        marked.add(sample);
+      }
+    }
+    Collections.sort(marked, new Comparator<Sample<K>>() {
+      @Override
+      public int compare(Sample<K> a, Sample<K> b) {
+        return a.time - b.time;
+      }
+    });
+    Arrays.fill(marks, 0);
+    clock = 0;
+    for (Sample<K> sample : marked) {
+      sample.time = clock++;
+      add(sample.time, 1);
+    }
+  }
+
+  private void add(int time, int delta) {
+    for (int i = time + 1; i < marks.length; i += i & -i) {
+      marks[i] += delta;
+    }
+  }
+
+  private int prefix(int time) {
+    int sum = 0;
+    for (int i = time + 1; i > 0; i -= i & -i) {
+      sum += marks[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the estimated miss ratio of an LRU cache of the given number of entries.
+   *
+   * @param entries the cache size, in entries
+   * @return the miss ratio, {@code 0} if no access was recorded
+   */
+  public synchronized double missRatio(long entries) {
+    if (accesses == 0) {
+      return 0;
+    }
+    double misses = coldMisses;
+    for (int i = 0; i < distances.length; i++) {
+      long lower = LatencyHistogram.lowerBound(i);
+      long width = LatencyHistogram.width(i);
+      if (lower >= entries) {
+        misses += distances[i];
+      } else if (lower + width > entries) {
+        misses += distances[i] * (lower + width - entries) / width;
+      }
+    }
+    return Math.min(misses / accesses, 1.0);
+  }
+
+  /**
+   * Returns the estimated miss ratios at every power of two number of entries, up to the first one no recorded reuse
+   * distance reaches.
+   *
+   * @return the miss ratios, by cache size in entries
+   */
+  public synchronized SortedMap<Long, Double> curve() {
+    SortedMap<Long, Double> curve = new TreeMap<Long, Double>();
+    long entries = 1;
+    do {
+      curve.put(entries, missRatio(entries));
+      entries <<= 1;
+    } while (entries <= 2 * maxDistance && entries > 0);
+    return curve;
+  }
+
+  /**
+   * Returns the fraction of the keys currently sampled.
+   *
+   * @return the sampling rate
+   */
+  public double getSamplingRate() {
+    return (double) threshold / MODULUS;
+  }
+
+  /**
+   * Forgets all the accesses recorded so far, keeping the current sampling rate.
+   */
+  public synchronized void reset() {
+    samples.clear();
+    byHash.clear();
+    Arrays.fill(marks, 0);
+    Arrays.fill(distances, 0);
+    clock = 0;
+    live = 0;
+    coldMisses = 0;
+    accesses = 0;
+    maxDistance = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "MissRatioCurve[max sampled keys " + maxSampledKeys + ", sampling rate " + getSamplingRate() + "]";
+  }
+
+  private static final class Sample<K> {
+
+    private final K key;
+    private final int hash;
+    private int time = -1;
+
+    Sample(K key, int hash) {
+      this.key = key;
+      this.hash = hash;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+/**
+ * The amount of statistics bookkeeping performed by the operation observers of a cache and of its stores.
+ */
+public enum StatisticsLevel {
+
+  /**
+   * No bookkeeping at all: operation counts stay at zero and no latency or rate can be derived.
+   */
+  OFF,
+
+  /**
+   * Operation outcomes are counted, but no timing is taken and nothing can be derived from the operations.
+   */
+  COUNTERS_ONLY,
+
+  /**
+   * Operation outcomes are counted and one operation out of every {@code N} on a given thread is timed and handed
+   * over to the derived statistics, such as latencies and rates.
+   */
+  SAMPLED
+}
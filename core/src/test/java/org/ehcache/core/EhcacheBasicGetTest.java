@@ -17,9 +17,12 @@ package org.ehcache.core;
 
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 
 import org.ehcache.Status;
 import org.ehcache.core.statistics.CacheOperationOutcomes;
+import org.ehcache.core.statistics.HeavyHitters;
+import org.ehcache.core.statistics.MissRatioCurve;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.hamcrest.CoreMatchers;
 import org.junit.Test;
@@ -135,6 +138,25 @@ public class EhcacheBasicGetTest extends EhcacheBasicCrudBase {
     validateStats(ehcache, EnumSet.of(CacheOperationOutcomes.GetOutcome.FAILURE));
   }
 
+  @Test
+  public void testGetReportsAccesses() throws Exception {
+    final FakeStore fakeStore = new FakeStore(Collections.singletonMap("key", "value"));
+    this.store = spy(fakeStore);
+
+    final Ehcache<String, String> ehcache = this.getEhcache();
+    HeavyHitters<String> heavyHitters = new HeavyHitters<String>(4, 1);
+    ehcache.setHeavyHitters(heavyHitters);
+    MissRatioCurve<String> missRatioCurve = new MissRatioCurve<String>(16, 1);
+    ehcache.setMissRatioCurve(missRatioCurve);
+
+    ehcache.get("other");
+
+    List<HeavyHitters.Entry<String>> top = heavyHitters.top(1);
+    assertThat(top.get(0).getKey(), is("other"));
+    assertThat(top.get(0).getMisses(), is(1L));
+    assertThat(missRatioCurve.missRatio(1), is(1.0));
+  }
+
   /**
    * Gets an initialized {@link Ehcache Ehcache} instance
    *
@@ -0,0 +1,145 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.internal.statistics;
+
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.junit.Test;
+import org.terracotta.statistics.OperationStatistic;
+import org.terracotta.statistics.StatisticsManager;
+import org.terracotta.statistics.observer.ChainedOperationObserver;
+import org.terracotta.statistics.observer.OperationObserver;
+
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ConfiguredStatisticBuilderTest {
+
+  enum Outcome { HIT, MISS }
+
+  @Test
+  public void testDefaultsTimeEveryOperation() {
+    OperationObserver<Outcome> observer = operation(Outcome.class, null).named("get").of(new Object()).tag("test").build();
+    CountingObserver derived = derive(observer);
+
+    run(observer, 10);
+
+    assertThat(StatisticsManager.getOperationStatisticFor(observer).count(Outcome.HIT), is(10L));
+    assertThat(derived.begins, is(10));
+    assertThat(derived.ends, is(10));
+  }
+
+  @Test
+  public void testOffKeepsNothing() {
+    OperationObserver<Outcome> observer = operation(Outcome.class, new Config(StatisticsLevel.OFF, 1)).named("get").of(new Object()).tag("test").build();
+    CountingObserver derived = derive(observer);
+
+    run(observer, 10);
+
+    assertThat(StatisticsManager.getOperationStatisticFor(observer).sum(), is(0L));
+    assertThat(derived.begins, is(0));
+    assertThat(derived.ends, is(0));
+  }
+
+  @Test
+  public void testCountersOnlyCountsWithoutTiming() {
+    OperationObserver<Outcome> observer = operation(Outcome.class, new Config(StatisticsLevel.COUNTERS_ONLY, 1)).named("get").of(new Object()).tag("test").build();
+    CountingObserver derived = derive(observer);
+
+    run(observer, 10);
+
+    assertThat(StatisticsManager.getOperationStatisticFor(observer).count(Outcome.HIT), is(10L));
+    assertThat(derived.begins, is(0));
+    assertThat(derived.ends, is(0));
+  }
+
+  @Test
+  public void testSampledCountsEverythingButTimesOneInN() {
+    OperationObserver<Outcome> observer = operation(Outcome.class, new Config(StatisticsLevel.SAMPLED, 4)).named("get").of(new Object()).tag("test").build();
+    CountingObserver derived = derive(observer);
+
+    run(observer, 10);
+
+    OperationStatistic<Outcome> statistic = StatisticsManager.getOperationStatisticFor(observer);
+    assertThat(statistic.count(Outcome.HIT), is(10L));
+    assertThat(statistic.type(), sameInstance(Outcome.class));
+    assertThat(derived.begins, is(3));
+    assertThat(derived.ends, is(3));
+  }
+
+  private static CountingObserver derive(OperationObserver<Outcome> observer) {
+    CountingObserver derived = new CountingObserver();
+    StatisticsManager.getOperationStatisticFor(observer).addDerivedStatistic(derived);
+    return derived;
+  }
+
+  private static void run(OperationObserver<Outcome> observer, int operations) {
+    for (int i = 0; i < operations; i++) {
+      observer.begin();
+      observer.end(Outcome.HIT);
+    }
+  }
+
+  private static class CountingObserver implements ChainedOperationObserver<Outcome> {
+
+    int begins;
+    int ends;
+
+    @Override
+    public void begin(long time) {
+      begins++;
+    }
+
+    @Override
+    public void end(long time, Outcome result) {
+      ends++;
+    }
+
+    @Override
+    public void end(long time, Outcome result, long... parameters) {
+      ends++;
+    }
+  }
+
+  private static class Config implements StoreStatisticsConfiguration {
+
+    private final StatisticsLevel level;
+    private final int sampleRate;
+
+    Config(StatisticsLevel level, int sampleRate) {
+      this.level = level;
+      this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public StatisticsLevel getStatisticsLevel() {
+      return level;
+    }
+
+    @Override
+    public int getSampleRate() {
+      return sampleRate;
+    }
+
+    @Override
+    public Class<Store.Provider> getServiceType() {
+      return Store.Provider.class;
+    }
+  }
+}
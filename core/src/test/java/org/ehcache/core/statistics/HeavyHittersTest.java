@@ -0,0 +1,181 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class HeavyHittersTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveCapacity() {
+    new HeavyHitters<String>(0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveSampleRate() {
+    new HeavyHitters<String>(1, 0);
+  }
+
+  @Test
+  public void testExactWithinCapacity() {
+    HeavyHitters<String> heavyHitters = new HeavyHitters<String>(3, 1);
+    for (int i = 0; i < 5; i++) {
+      heavyHitters.access("a", false);
+    }
+    heavyHitters.access("b", true);
+    heavyHitters.access("b", false);
+    heavyHitters.access("c", true);
+
+    List<HeavyHitters.Entry<String>> top = heavyHitters.top(10);
+    assertThat(top.size(), is(3));
+    assertThat(top.get(0).getKey(), is("a"));
+    assertThat(top.get(0).getAccesses(), is(5L));
+    assertThat(top.get(0).getError(), is(0L));
+    assertThat(top.get(1).getKey(), is("b"));
+    assertThat(top.get(1).getAccesses(), is(2L));
+    assertThat(top.get(1).getMisses(), is(1L));
+    assertThat(top.get(2).getKey(), is("c"));
+    assertThat(heavyHitters.getAccesses(), is(8L));
+    assertThat(heavyHitters.top(1).size(), is(1));
+  }
+
+  @Test
+  public void testFindsHotKeysInSkewedStream() {
+    HeavyHitters<Integer> heavyHitters = new HeavyHitters<Integer>(16, 1);
+    for (int i = 0; i < 100000; i++) {
+      if (i % 4 < 2) {
+        heavyHitters.access(-1, false);
+      } else if (i % 4 == 2) {
+        heavyHitters.access(-2, true);
+      } else {
+        heavyHitters.access(i, false);
+      }
+    }
+
+    List<HeavyHitters.Entry<Integer>> top = heavyHitters.top(2);
+    assertThat(top.get(0).getKey(), is(-1));
+    assertThat(top.get(0).getAccesses(), greaterThanOrEqualTo(50000L));
+    assertThat(top.get(0).getAccesses() - top.get(0).getError(), lessThanOrEqualTo(50000L));
+    assertThat(top.get(1).getKey(), is(-2));
+    assertThat(top.get(1).getMisses(), lessThanOrEqualTo(25000L));
+    assertThat(heavyHitters.top(100).size(), is(16));
+  }
+
+  @Test
+  public void testSamplingScalesEstimates() {
+    HeavyHitters<String> heavyHitters = new HeavyHitters<String>(4, 10);
+    for (int i = 0; i < 1000; i++) {
+      heavyHitters.access("a", true);
+    }
+
+    List<HeavyHitters.Entry<String>> top = heavyHitters.top(1);
+    assertThat(top.get(0).getAccesses(), is(1000L));
+    assertThat(top.get(0).getMisses(), is(1000L));
+    assertThat(heavyHitters.getAccesses(), is(1000L));
+  }
+
+  @Test
+  public void testMergesStripes() throws Exception {
+    final HeavyHitters<String> heavyHitters = new HeavyHitters<String>(2, 1, 2);
+    Thread first = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 10; i++) {
+          heavyHitters.access("a", false);
+        }
+        heavyHitters.access("b", false);
+        heavyHitters.access("c", false);
+      }
+    };
+    Thread second = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 5; i++) {
+          heavyHitters.access("a", true);
+        }
+        heavyHitters.access("d", false);
+      }
+    };
+    runOnDistinctStripes(first, second);
+
+    List<HeavyHitters.Entry<String>> top = heavyHitters.top(10);
+    assertThat(top.get(0).getKey(), is("a"));
+    assertThat(top.get(0).getAccesses(), is(15L));
+    assertThat(top.get(0).getMisses(), is(5L));
+    assertThat(top.get(0).getError(), is(0L));
+    assertThat(heavyHitters.getAccesses(), is(18L));
+    for (HeavyHitters.Entry<String> entry : top.subList(1, top.size())) {
+      // each of b, c and d was counted once, and is untracked by at least one full stripe
+      assertThat(entry.getAccesses() - entry.getError(), lessThanOrEqualTo(1L));
+      assertThat(entry.getAccesses(), greaterThanOrEqualTo(1L));
+    }
+  }
+
+  @Test
+  public void testCountsConcurrentAccesses() throws Exception {
+    final HeavyHitters<Integer> heavyHitters = new HeavyHitters<Integer>(8, 1, 4);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            heavyHitters.access(i % 2 == 0 ? -1 : i, false);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(heavyHitters.getAccesses(), is(40000L));
+    HeavyHitters.Entry<Integer> top = heavyHitters.top(1).get(0);
+    assertThat(top.getKey(), is(-1));
+    assertThat(top.getAccesses(), greaterThanOrEqualTo(20000L));
+    assertThat(top.getAccesses() - top.getError(), lessThanOrEqualTo(20000L));
+  }
+
+  private static void runOnDistinctStripes(Thread first, Thread second) throws InterruptedException {
+    Assume.assumeTrue((first.getId() & 1) != (second.getId() & 1));
+    first.start();
+    first.join();
+    second.start();
+    second.join();
+  }
+
+  @Test
+  public void testReset() {
+    HeavyHitters<String> heavyHitters = new HeavyHitters<String>(4, 1);
+    heavyHitters.access("a", false);
+    heavyHitters.reset();
+
+    assertThat(heavyHitters.top(4), empty());
+    assertThat(heavyHitters.getAccesses(), is(0L));
+    heavyHitters.access("b", false);
+    assertThat(heavyHitters.top(4).size(), is(1));
+  }
+}
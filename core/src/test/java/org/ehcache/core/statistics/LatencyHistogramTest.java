@@ -0,0 +1,154 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import org.junit.Test;
+import org.terracotta.statistics.observer.OperationObserver;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.terracotta.statistics.StatisticBuilder.operation;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverAllLatencies() {
+    for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+      assertThat(LatencyHistogram.lowerBound(i + 1), is(LatencyHistogram.lowerBound(i) + LatencyHistogram.width(i)));
+      assertThat(LatencyHistogram.indexFor(LatencyHistogram.lowerBound(i)), is(i));
+      assertThat(LatencyHistogram.indexFor(LatencyHistogram.lowerBound(i + 1) - 1), is(i));
+    }
+    assertThat(LatencyHistogram.indexFor(-1L), is(0));
+    assertThat(LatencyHistogram.indexFor(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+  }
+
+  @Test
+  public void testPercentilesWithinAnEighth() {
+    LatencyHistogram histogram = new LatencyHistogram(4);
+    for (long nanos = 1; nanos <= 100000; nanos++) {
+      histogram.record(nanos);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertThat(snapshot.getCount(), is(100000L));
+    assertThat(snapshot.getMax(), is(100000L));
+    assertThat(snapshot.getPercentile(0.5), allOf(greaterThanOrEqualTo(50000L * 7 / 8), lessThanOrEqualTo(50000L * 9 / 8)));
+    assertThat(snapshot.getPercentile(0.99), allOf(greaterThanOrEqualTo(99000L * 7 / 8), lessThanOrEqualTo(99000L * 9 / 8)));
+    assertThat(snapshot.getPercentile(1.0), lessThanOrEqualTo(100000L));
+  }
+
+  @Test
+  public void testSnapshotAndResetStartsNewInterval() {
+    LatencyHistogram histogram = new LatencyHistogram(1);
+    histogram.record(1000L);
+    histogram.record(5000L);
+
+    LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+    histogram.record(10L);
+    LatencyHistogram.Snapshot second = histogram.snapshot();
+
+    assertThat(first.getCount(), is(2L));
+    assertThat(first.getMax(), is(5000L));
+    assertThat(second.getCount(), is(1L));
+    assertThat(second.getMax(), is(10L));
+    assertThat(second.getPercentile(0.999), is(10L));
+  }
+
+  @Test
+  public void testEmptySnapshot() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertThat(snapshot.getCount(), is(0L));
+    assertThat(snapshot.getPercentile(0.5), is(0L));
+  }
+
+  @Test
+  public void testHistogramsFollowOperationStatistics() {
+    Object source = new Object();
+    OperationObserver<StoreOperationOutcomes.GetOutcome> getObserver = operation(StoreOperationOutcomes.GetOutcome.class)
+        .named("get").of(source).tag("test-store").build();
+    LatencyHistograms histograms = new LatencyHistograms(source);
+
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+
+    Map<LatencyHistograms.Key, LatencyHistogram.Snapshot> snapshots = histograms.snapshotAndReset();
+    LatencyHistograms.Key hit = new LatencyHistograms.Key("test-store", "get", "HIT");
+    assertThat(snapshots.get(hit).getCount(), is(1L));
+    assertThat(snapshots, not(hasKey(new LatencyHistograms.Key("test-store", "get", "MISS"))));
+    assertThat(histograms.keys(), hasItem(hit));
+
+    histograms.close();
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+
+    assertThat(histograms.snapshot().get(hit).getCount(), is(0L));
+  }
+
+  @Test
+  public void testHistogramsOverTheSameCacheShareObserversButNotIntervals() {
+    Object source = new Object();
+    OperationObserver<StoreOperationOutcomes.GetOutcome> getObserver = operation(StoreOperationOutcomes.GetOutcome.class)
+        .named("get").of(source).tag("test-store").build();
+    LatencyHistograms first = new LatencyHistograms(source);
+    LatencyHistograms second = new LatencyHistograms(source);
+    LatencyHistograms.Key hit = new LatencyHistograms.Key("test-store", "get", "HIT");
+
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+    assertThat(first.snapshotAndReset().get(hit).getCount(), is(1L));
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+
+    assertThat(first.snapshot().get(hit).getCount(), is(1L));
+    assertThat(second.snapshot().get(hit).getCount(), is(2L));
+
+    first.close();
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+    assertThat(second.snapshot().get(hit).getCount(), is(3L));
+
+    second.close();
+    getObserver.begin();
+    getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
+    assertThat(second.snapshot().get(hit).getCount(), is(3L));
+  }
+
+  @Test
+  public void testSnapshotSinceEarlierSnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram(1);
+    histogram.record(1000L);
+    LatencyHistogram.Snapshot earlier = histogram.snapshot();
+    histogram.record(10L);
+    histogram.record(20L);
+
+    LatencyHistogram.Snapshot interval = histogram.snapshot().since(earlier);
+    assertThat(interval.getCount(), is(2L));
+    assertThat(interval.getMax(), lessThan(1000L));
+    assertThat(interval.getMax(), greaterThanOrEqualTo(20L));
+    assertThat(histogram.snapshot().since(null).getCount(), is(3L));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.core.statistics;
+
+import org.junit.Test;
+
+import java.util.SortedMap;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class MissRatioCurveTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveMaxSampledKeys() {
+    new MissRatioCurve<String>(0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveSampleRate() {
+    new MissRatioCurve<String>(1, 0);
+  }
+
+  @Test
+  public void testNoAccesses() {
+    MissRatioCurve<Integer> curve = new MissRatioCurve<Integer>(16, 1);
+    assertThat(curve.missRatio(10), is(0.0));
+  }
+
+  @Test
+  public void testExactCyclicAccesses() {
+    MissRatioCurve<Integer> curve = new MissRatioCurve<Integer>(1000, 1);
+    for (int round = 0; round < 10; round++) {
+      for (int key = 0; key < 100; key++) {
+        curve.access(key);
+      }
+    }
+
+    assertThat(curve.getSamplingRate(), is(1.0));
+    assertThat(curve.missRatio(64), is(1.0));
+    assertThat(curve.missRatio(128), closeTo(0.1, 1e-9));
+  }
+
+  @Test
+  public void testRepeatedAccessesHitInSingleEntryCache() {
+    MissRatioCurve<String> curve = new MissRatioCurve<String>(16, 1);
+    for (int i = 0; i < 10; i++) {
+      curve.access("key");
+    }
+
+    assertThat(curve.missRatio(0), is(1.0));
+    assertThat(curve.missRatio(1), closeTo(0.1, 1e-9));
+  }
+
+  @Test
+  public void testSampledCyclicAccesses() {
+    MissRatioCurve<Integer> curve = new MissRatioCurve<Integer>(500, 1);
+    for (int round = 0; round < 10; round++) {
+      for (int key = 0; key < 10000; key++) {
+        curve.access(key);
+      }
+    }
+
+    assertThat(curve.getSamplingRate(), lessThan(0.1));
+    assertThat(curve.missRatio(5000), greaterThan(0.9));
+    assertThat(curve.missRatio(20000), lessThan(0.2));
+  }
+
+  @Test
+  public void testCurveIsNonIncreasing() {
+    MissRatioCurve<Integer> curve = new MissRatioCurve<Integer>(64, 1);
+    for (int i = 0; i < 100000; i++) {
+      curve.access((i * 31) % (1 + i % 500));
+    }
+
+    SortedMap<Long, Double> ratios = curve.curve();
+    double previous = 1.0;
+    for (double ratio : ratios.values()) {
+      assertThat(ratio, lessThanOrEqualTo(previous));
+      previous = ratio;
+    }
+  }
+
+  @Test
+  public void testReset() {
+    MissRatioCurve<Integer> curve = new MissRatioCurve<Integer>(16, 1);
+    curve.access(1);
+    curve.reset();
+    assertThat(curve.missRatio(1), is(0.0));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of scheduling and cancelling short timers on the timer wheel and on the delay queue based
+ * out of band executors, with a population of already pending timers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutOfBandScheduledExecutorBenchmark {
+
+  private static final Runnable NO_OP = new Runnable() {
+    @Override
+    public void run() {
+      //no-op
+    }
+  };
+
+  @Param({"timerWheel", "delayQueue"})
+  public String scheduler;
+
+  @Param({"1000", "100000"})
+  public int pendingTimers;
+
+  private OutOfBandScheduledExecutor executor;
+  private ExecutorService worker;
+
+  @Setup
+  public void setUp() {
+    if ("timerWheel".equals(scheduler)) {
+      executor = new OutOfBandScheduledExecutor();
+    } else {
+      executor = OutOfBandScheduledExecutor.delayQueueBased();
+    }
+    worker = Executors.newSingleThreadExecutor();
+    for (int i = 0; i < pendingTimers; i++) {
+      executor.schedule(worker, NO_OP, 1 + (i % 3600), TimeUnit.SECONDS);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    worker.shutdownNow();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean scheduleThenCancel() {
+    ScheduledFuture<?> future = executor.schedule(worker, NO_OP, 100, TimeUnit.MILLISECONDS);
+    return future.cancel(false);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public ScheduledFuture<?> scheduleShortTimer() {
+    return executor.schedule(worker, NO_OP, 1, TimeUnit.MILLISECONDS);
+  }
+}
@@ -24,11 +24,13 @@ import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.config.BaseCacheConfiguration;
 import org.ehcache.core.config.store.StoreEventSourceConfiguration;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.expiry.Expiry;
 import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
 import org.ehcache.impl.config.event.DefaultCacheEventDispatcherConfiguration;
 import org.ehcache.impl.config.event.DefaultCacheEventListenerConfiguration;
 import org.ehcache.impl.config.event.DefaultEventSourceConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsConfiguration;
 import org.ehcache.impl.config.loaderwriter.DefaultCacheLoaderWriterConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
@@ -540,6 +542,36 @@ public class CacheConfigurationBuilder<K, V> implements Builder<CacheConfigurati
     return otherBuilder;
   }
 
+  /**
+   * Adds a {@link DefaultStatisticsConfiguration} with the specified statistics level to the configured builder,
+   * timing every operation when the level is {@link StatisticsLevel#SAMPLED}.
+   *
+   * @param statisticsLevel the statistics level
+   * @return a new builder with the added configuration
+   */
+  public CacheConfigurationBuilder<K, V> withStatistics(StatisticsLevel statisticsLevel) {
+    return withStatistics(statisticsLevel, DefaultStatisticsConfiguration.DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * Adds a {@link DefaultStatisticsConfiguration} with the specified statistics level and sample rate to the
+   * configured builder.
+   *
+   * @param statisticsLevel the statistics level
+   * @param sampleRate one out of how many operations is timed when the level is {@link StatisticsLevel#SAMPLED}
+   * @return a new builder with the added configuration
+   */
+  public CacheConfigurationBuilder<K, V> withStatistics(StatisticsLevel statisticsLevel, int sampleRate) {
+    DefaultStatisticsConfiguration configuration = new DefaultStatisticsConfiguration(statisticsLevel, sampleRate);
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    DefaultStatisticsConfiguration existingServiceConfiguration = otherBuilder.getExistingServiceConfiguration(DefaultStatisticsConfiguration.class);
+    if (existingServiceConfiguration != null) {
+      otherBuilder.serviceConfigurations.remove(existingServiceConfiguration);
+    }
+    otherBuilder.serviceConfigurations.add(configuration);
+    return otherBuilder;
+  }
+
   /**
    * Adds a {@link ServiceConfiguration} for the {@link org.ehcache.core.events.CacheEventDispatcherFactory} specifying
    * the thread pool alias to use.
@@ -21,15 +21,20 @@ import org.ehcache.PersistentCacheManager;
 import org.ehcache.config.Builder;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.Configuration;
+import org.ehcache.config.ResourceUnit;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.EhcacheManager;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.impl.config.copy.DefaultCopyProviderConfiguration;
 import org.ehcache.impl.config.event.CacheEventDispatcherFactoryConfiguration;
 import org.ehcache.impl.config.loaderwriter.writebehind.WriteBehindProviderConfiguration;
 import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsServiceConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreProviderConfiguration;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.serialization.Serializer;
@@ -270,6 +275,54 @@ public class CacheManagerBuilder<T extends CacheManager> implements Builder<T> {
     }
   }
 
+  /**
+   * Adds a {@link SharedHeapPoolServiceConfiguration}, that defines the heap capacity shared by the caches configured
+   * with a {@link org.ehcache.impl.config.store.heap.SharedHeapPoolConfiguration}, to the returned builder.
+   *
+   * @param size the shared heap size
+   * @param unit the shared heap size unit
+   * @return a new builder with the added configuration
+   */
+  public CacheManagerBuilder<T> withSharedHeapPool(long size, ResourceUnit unit) {
+    SharedHeapPoolServiceConfiguration configuration = configBuilder.findServiceByClass(SharedHeapPoolServiceConfiguration.class);
+    if (configuration == null) {
+      return new CacheManagerBuilder<T>(this, configBuilder.addService(new SharedHeapPoolServiceConfiguration(size, unit)));
+    } else {
+      ConfigurationBuilder builder = configBuilder.removeService(configuration);
+      return new CacheManagerBuilder<T>(this, builder.addService(new SharedHeapPoolServiceConfiguration(size, unit,
+          configuration.getRebalanceInterval(), configuration.getRebalanceIntervalUnit(), configuration.getThreadPoolAlias())));
+    }
+  }
+
+  /**
+   * Adds a {@link DefaultStatisticsServiceConfiguration}, that defines the statistics level of the caches not
+   * configuring their own, to the returned builder.
+   *
+   * @param statisticsLevel the default statistics level
+   * @return a new builder with the added configuration
+   */
+  public CacheManagerBuilder<T> withDefaultStatistics(StatisticsLevel statisticsLevel) {
+    return withDefaultStatistics(statisticsLevel, DefaultStatisticsConfiguration.DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * Adds a {@link DefaultStatisticsServiceConfiguration}, that defines the statistics level and sample rate of the
+   * caches not configuring their own, to the returned builder.
+   *
+   * @param statisticsLevel the default statistics level
+   * @param sampleRate one out of how many operations is timed when the level is {@link StatisticsLevel#SAMPLED}
+   * @return a new builder with the added configuration
+   */
+  public CacheManagerBuilder<T> withDefaultStatistics(StatisticsLevel statisticsLevel, int sampleRate) {
+    DefaultStatisticsServiceConfiguration configuration = configBuilder.findServiceByClass(DefaultStatisticsServiceConfiguration.class);
+    if (configuration == null) {
+      return new CacheManagerBuilder<T>(this, configBuilder.addService(new DefaultStatisticsServiceConfiguration(statisticsLevel, sampleRate)));
+    } else {
+      ConfigurationBuilder builder = configBuilder.removeService(configuration);
+      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultStatisticsServiceConfiguration(statisticsLevel, sampleRate)));
+    }
+  }
+
   /**
    * Adds a {@link WriteBehindProviderConfiguration}, that specifies the thread pool to use, to the returned builder.
    *
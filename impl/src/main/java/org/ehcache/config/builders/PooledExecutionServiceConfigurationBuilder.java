@@ -21,6 +21,7 @@ import org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The {@code PooledExecutionServiceConfigurationBuilder} enables building configurations for an
@@ -34,6 +35,8 @@ public class PooledExecutionServiceConfigurationBuilder implements Builder<Poole
 
   private Pool defaultPool;
   private final Set<Pool> pools = new HashSet<Pool>();
+  private long schedulerTick = 1;
+  private TimeUnit schedulerTickUnit = TimeUnit.MILLISECONDS;
 
   private PooledExecutionServiceConfigurationBuilder() {
   }
@@ -41,6 +44,8 @@ public class PooledExecutionServiceConfigurationBuilder implements Builder<Poole
   private PooledExecutionServiceConfigurationBuilder(PooledExecutionServiceConfigurationBuilder other) {
     this.defaultPool = other.defaultPool;
     this.pools.addAll(other.pools);
+    this.schedulerTick = other.schedulerTick;
+    this.schedulerTickUnit = other.schedulerTickUnit;
   }
 
   /**
@@ -80,6 +85,20 @@ public class PooledExecutionServiceConfigurationBuilder implements Builder<Poole
     return other;
   }
 
+  /**
+   * Sets the tick duration of the timer that triggers scheduled tasks on the returned builder.
+   *
+   * @param tick the tick duration
+   * @param unit the tick duration unit
+   * @return a new builder with the configured scheduler tick
+   */
+  public PooledExecutionServiceConfigurationBuilder schedulerTick(long tick, TimeUnit unit) {
+    PooledExecutionServiceConfigurationBuilder other = new PooledExecutionServiceConfigurationBuilder(this);
+    other.schedulerTick = tick;
+    other.schedulerTickUnit = unit;
+    return other;
+  }
+
   /**
    * Builds the {@link PooledExecutionServiceConfiguration}
    *
@@ -94,6 +113,7 @@ public class PooledExecutionServiceConfigurationBuilder implements Builder<Poole
     for (Pool pool : pools) {
       config.addPool(pool.alias, pool.minSize, pool.maxSize);
     }
+    config.setSchedulerTick(schedulerTick, schedulerTickUnit);
     return config;
   }
 
@@ -30,6 +30,7 @@ import org.ehcache.config.ResourcePools;
 import org.ehcache.config.ResourceType;
 import org.ehcache.core.internal.store.StoreConfigurationImpl;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.impl.events.CacheEventDispatcherImpl;
 import org.ehcache.core.internal.store.StoreSupport;
 import org.ehcache.event.CacheEventListener;
@@ -37,6 +38,7 @@ import org.ehcache.core.events.CacheEventListenerConfiguration;
 import org.ehcache.core.events.CacheEventListenerProvider;
 import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
 import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
@@ -129,6 +131,7 @@ public class UserManagedCacheBuilder<K, V, T extends UserManagedCache<K, V>> imp
   private Serializer<K> keySerializer;
   private Serializer<V> valueSerializer;
   private int dispatcherConcurrency = 4;
+  private DefaultStatisticsConfiguration statisticsConfiguration;
   private List<CacheEventListenerConfiguration> eventListenerConfigurations = new ArrayList<CacheEventListenerConfiguration>();
   private ExecutorService unOrderedExecutor;
   private ExecutorService orderedExecutor;
@@ -166,6 +169,7 @@ public class UserManagedCacheBuilder<K, V, T extends UserManagedCache<K, V>> imp
     this.objectGraphSize = toCopy.objectGraphSize;
     this.maxObjectSize = toCopy.maxObjectSize;
     this.sizeOfUnit = toCopy.sizeOfUnit;
+    this.statisticsConfiguration = toCopy.statisticsConfiguration;
   }
 
   T build(ServiceLocator serviceLocator) throws IllegalStateException {
@@ -272,11 +276,17 @@ public class UserManagedCacheBuilder<K, V, T extends UserManagedCache<K, V>> imp
     final Store.Provider storeProvider = StoreSupport.selectStoreProvider(serviceLocator, resources, serviceConfigsList);
 
     Store.Configuration<K, V> storeConfig = new StoreConfigurationImpl<K, V>(keyType, valueType, evictionAdvisor, classLoader,
-            expiry, resourcePools, dispatcherConcurrency, keySerializer, valueSerializer);
+            expiry, resourcePools, dispatcherConcurrency, statisticsConfiguration, keySerializer, valueSerializer);
     final Store<K, V> store = storeProvider.createStore(storeConfig, serviceConfigs);
 
-    CacheConfiguration<K, V> cacheConfig = new BaseCacheConfiguration<K, V>(keyType, valueType, evictionAdvisor,
-        classLoader, expiry, resourcePools);
+    CacheConfiguration<K, V> cacheConfig;
+    if (statisticsConfiguration == null) {
+      cacheConfig = new BaseCacheConfiguration<K, V>(keyType, valueType, evictionAdvisor,
+          classLoader, expiry, resourcePools);
+    } else {
+      cacheConfig = new BaseCacheConfiguration<K, V>(keyType, valueType, evictionAdvisor,
+          classLoader, expiry, resourcePools, statisticsConfiguration);
+    }
 
     lifeCycledList.add(new LifeCycled() {
       @Override
@@ -574,6 +584,30 @@ public class UserManagedCacheBuilder<K, V, T extends UserManagedCache<K, V>> imp
     return this;
   }
 
+  /**
+   * Adds a statistics configuration with the specified level to the returned builder, timing every operation when the
+   * level is {@link StatisticsLevel#SAMPLED}.
+   *
+   * @param statisticsLevel the statistics level
+   * @return a new builder with the added configuration
+   */
+  public final UserManagedCacheBuilder<K, V, T> withStatistics(StatisticsLevel statisticsLevel) {
+    return withStatistics(statisticsLevel, DefaultStatisticsConfiguration.DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * Adds a statistics configuration with the specified level and sample rate to the returned builder.
+   *
+   * @param statisticsLevel the statistics level
+   * @param sampleRate one out of how many operations is timed when the level is {@link StatisticsLevel#SAMPLED}
+   * @return a new builder with the added configuration
+   */
+  public final UserManagedCacheBuilder<K, V, T> withStatistics(StatisticsLevel statisticsLevel, int sampleRate) {
+    UserManagedCacheBuilder<K, V, T> otherBuilder = new UserManagedCacheBuilder<K, V, T>(this);
+    otherBuilder.statisticsConfiguration = new DefaultStatisticsConfiguration(statisticsLevel, sampleRate);
+    return otherBuilder;
+  }
+
   /**
    * Adds an {@link EvictionAdvisor} to the returned builder.
    *
@@ -75,6 +75,10 @@ public abstract class WriteBehindConfigurationBuilder implements Builder<WriteBe
     private long maxDelay;
     private int batchSize;
     private boolean coalescing = false;
+    private boolean adaptive = false;
+    private int retryAttempts = 0;
+    private long retryBackoff = 100;
+    private TimeUnit retryBackoffUnit = TimeUnit.MILLISECONDS;
 
     private BatchedWriteBehindConfigurationBuilder(long maxDelay, TimeUnit maxDelayUnit, int batchSize) {
       setMaxWriteDelay(maxDelay, maxDelayUnit);
@@ -87,6 +91,10 @@ public abstract class WriteBehindConfigurationBuilder implements Builder<WriteBe
       maxDelayUnit = other.maxDelayUnit;
       coalescing = other.coalescing;
       batchSize = other.batchSize;
+      adaptive = other.adaptive;
+      retryAttempts = other.retryAttempts;
+      retryBackoff = other.retryBackoff;
+      retryBackoffUnit = other.retryBackoffUnit;
     }
 
     /**
@@ -115,6 +123,75 @@ public abstract class WriteBehindConfigurationBuilder implements Builder<WriteBe
       return otherBuilder;
     }
 
+    /**
+     * Enables adaptive batching on the returned builder.
+     * <P>
+     *   With adaptive batching the configured batch size is an upper bound. Batches shrink when the writer fails or
+     *   takes longer than the max write delay to process a batch, and grow back when batches start queuing up. A batch
+     *   completing with nothing queued leaves the size unchanged.
+     * </P>
+     *
+     * @return a new builder with adaptive batching enabled
+     *
+     * @see #disableAdaptiveBatching()
+     */
+    public BatchedWriteBehindConfigurationBuilder enableAdaptiveBatching() {
+      BatchedWriteBehindConfigurationBuilder otherBuilder = new BatchedWriteBehindConfigurationBuilder(this);
+      otherBuilder.adaptive = true;
+      return otherBuilder;
+    }
+
+    /**
+     * Disables adaptive batching on the returned builder.
+     *
+     * @return a new builder with adaptive batching disabled
+     *
+     * @see #enableAdaptiveBatching()
+     */
+    public BatchedWriteBehindConfigurationBuilder disableAdaptiveBatching() {
+      BatchedWriteBehindConfigurationBuilder otherBuilder = new BatchedWriteBehindConfigurationBuilder(this);
+      otherBuilder.adaptive = false;
+      return otherBuilder;
+    }
+
+    /**
+     * Updates the number of retries of failed batch operations on the returned builder.
+     * <P>
+     *   Default is {@code 0}, failed batch operations are logged and dropped.
+     * </P>
+     *
+     * @param retryAttempts the number of retries
+     * @return a new builder with updated retry attempts
+     */
+    public BatchedWriteBehindConfigurationBuilder retryAttempts(int retryAttempts) {
+      if (retryAttempts < 0) {
+        throw new IllegalArgumentException("Retry attempts must not be negative, was: " + retryAttempts);
+      }
+      BatchedWriteBehindConfigurationBuilder otherBuilder = new BatchedWriteBehindConfigurationBuilder(this);
+      otherBuilder.retryAttempts = retryAttempts;
+      return otherBuilder;
+    }
+
+    /**
+     * Updates the delay before the first retry of a failed batch operation on the returned builder.
+     * <P>
+     *   The delay doubles on each subsequent retry. Default is 100 milliseconds.
+     * </P>
+     *
+     * @param retryBackoff the initial retry delay amount
+     * @param retryBackoffUnit the initial retry delay unit
+     * @return a new builder with updated retry delay
+     */
+    public BatchedWriteBehindConfigurationBuilder retryBackoff(long retryBackoff, TimeUnit retryBackoffUnit) {
+      if (retryBackoff < 0) {
+        throw new IllegalArgumentException("Retry backoff must not be negative, was: " + retryBackoff + " " + retryBackoffUnit);
+      }
+      BatchedWriteBehindConfigurationBuilder otherBuilder = new BatchedWriteBehindConfigurationBuilder(this);
+      otherBuilder.retryBackoff = retryBackoff;
+      otherBuilder.retryBackoffUnit = retryBackoffUnit;
+      return otherBuilder;
+    }
+
     /**
      * Updates the batch size on the returned builder.
      *
@@ -198,7 +275,8 @@ public abstract class WriteBehindConfigurationBuilder implements Builder<WriteBe
      */
     @Override
     public WriteBehindConfiguration build() {
-      return buildWith(new DefaultBatchingConfiguration(maxDelay, maxDelayUnit, batchSize, coalescing));
+      return buildWith(new DefaultBatchingConfiguration(maxDelay, maxDelayUnit, batchSize, coalescing,
+          adaptive, retryAttempts, retryBackoff, retryBackoffUnit));
     }
   }
 
@@ -18,6 +18,7 @@ package org.ehcache.impl.config.executor;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.spi.service.ServiceCreationConfiguration;
 
@@ -42,6 +43,8 @@ public class PooledExecutionServiceConfiguration implements ServiceCreationConfi
   private final Map<String, PoolConfiguration> poolConfigurations = new HashMap<String, PoolConfiguration>();
 
   private String defaultAlias;
+  private long schedulerTick = 1;
+  private TimeUnit schedulerTickUnit = TimeUnit.MILLISECONDS;
 
   /**
    * Adds a new default pool with the provided minimum and maximum.
@@ -92,6 +95,48 @@ public class PooledExecutionServiceConfiguration implements ServiceCreationConfi
     }
   }
 
+  /**
+   * Sets the tick duration of the timer that triggers scheduled tasks.
+   * <P>
+   *   Scheduled tasks may run up to one tick after their deadline. Shorter ticks improve precision at the cost of
+   *   more frequent timer wake ups while tasks are pending. Defaults to one millisecond.
+   * </P>
+   *
+   * @param tick the tick duration
+   * @param unit the tick duration unit
+   *
+   * @throws NullPointerException if unit is null
+   * @throws IllegalArgumentException if tick is not positive
+   */
+  public void setSchedulerTick(long tick, TimeUnit unit) {
+    if (unit == null) {
+      throw new NullPointerException("Tick unit cannot be null");
+    }
+    if (tick <= 0) {
+      throw new IllegalArgumentException("Tick must be positive, was: " + tick);
+    }
+    this.schedulerTick = tick;
+    this.schedulerTickUnit = unit;
+  }
+
+  /**
+   * Returns the tick duration of the timer that triggers scheduled tasks.
+   *
+   * @return the tick duration
+   */
+  public long getSchedulerTick() {
+    return schedulerTick;
+  }
+
+  /**
+   * Returns the unit of the tick duration of the timer that triggers scheduled tasks.
+   *
+   * @return the tick duration unit
+   */
+  public TimeUnit getSchedulerTickUnit() {
+    return schedulerTickUnit;
+  }
+
   /**
    * Returns the map from alias to {@link PoolConfiguration} defined by this configuration object.
    *
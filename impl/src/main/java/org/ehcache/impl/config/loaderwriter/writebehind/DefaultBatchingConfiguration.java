@@ -27,6 +27,11 @@ import org.ehcache.spi.loaderwriter.WriteBehindConfiguration.BatchingConfigurati
  *   Then a write delay must be configured. It will indicate how long an incomplete batch will wait for extra operations.
  *   Finally coalescing can be configure which will make the batch forget all but the last operation on a per key basis.
  * </P>
+ * <P>
+ *   Optionally the batch size can be made adaptive, in which case it is treated as an upper bound that the write-behind
+ *   queue shrinks and grows according to the observed latency and failures of the underlying writer. Failed batch
+ *   operations can also be retried a number of times with exponential backoff.
+ * </P>
  */
 public class DefaultBatchingConfiguration implements BatchingConfiguration {
 
@@ -34,6 +39,10 @@ public class DefaultBatchingConfiguration implements BatchingConfiguration {
   private final TimeUnit maxDelayUnit;
   private final int batchSize;
   private final boolean coalescing;
+  private final boolean adaptive;
+  private final int retryAttempts;
+  private final long retryBackoff;
+  private final TimeUnit retryBackoffUnit;
 
   /**
    * Creates a new configuration with the provided parameters.
@@ -44,10 +53,31 @@ public class DefaultBatchingConfiguration implements BatchingConfiguration {
    * @param coalescing whether the batch is to be coalesced
    */
   public DefaultBatchingConfiguration(long maxDelay, TimeUnit maxDelayUnit, int batchSize, boolean coalescing) {
+    this(maxDelay, maxDelayUnit, batchSize, coalescing, false, 0, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a new configuration with the provided parameters.
+   *
+   * @param maxDelay the maximum write delay quantity
+   * @param maxDelayUnit the maximum write delay unit
+   * @param batchSize the batch size, or the maximum batch size when adaptive
+   * @param coalescing whether the batch is to be coalesced
+   * @param adaptive whether the batch size adapts to the writer behavior
+   * @param retryAttempts the number of times a failed batch operation is retried
+   * @param retryBackoff the delay before the first retry, doubled on each subsequent retry
+   * @param retryBackoffUnit the retry delay unit
+   */
+  public DefaultBatchingConfiguration(long maxDelay, TimeUnit maxDelayUnit, int batchSize, boolean coalescing,
+                                      boolean adaptive, int retryAttempts, long retryBackoff, TimeUnit retryBackoffUnit) {
     this.maxDelay = maxDelay;
     this.maxDelayUnit = maxDelayUnit;
     this.batchSize = batchSize;
     this.coalescing = coalescing;
+    this.adaptive = adaptive;
+    this.retryAttempts = retryAttempts;
+    this.retryBackoff = retryBackoff;
+    this.retryBackoffUnit = retryBackoffUnit;
   }
 
   /**
@@ -81,4 +111,46 @@ public class DefaultBatchingConfiguration implements BatchingConfiguration {
   public int getBatchSize() {
     return batchSize;
   }
+
+  /**
+   * Whether the batch size adapts to the latency and failures of the writer.
+   * <P>
+   *   When enabled, {@link #getBatchSize()} is the upper bound of the batch size.
+   * </P>
+   *
+   * @return {@code true} if adaptive batching is enabled
+   */
+  public boolean isAdaptive() {
+    return adaptive;
+  }
+
+  /**
+   * The number of times a failed batch operation is retried before being dropped.
+   *
+   * @return the retry attempts
+   */
+  public int getRetryAttempts() {
+    return retryAttempts;
+  }
+
+  /**
+   * The delay before the first retry of a failed batch operation.
+   * <P>
+   *   The delay doubles on each subsequent retry.
+   * </P>
+   *
+   * @return the initial retry delay
+   */
+  public long getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  /**
+   * The time unit for the retry delay.
+   *
+   * @return the unit of the retry delay
+   */
+  public TimeUnit getRetryBackoffUnit() {
+    return retryBackoffUnit;
+  }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.config.statistics;
+
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.core.statistics.StatisticsLevel;
+
+/**
+ * {@link org.ehcache.spi.service.ServiceConfiguration} for a {@link org.ehcache.core.spi.store.Store.Provider}
+ * defining how much statistics bookkeeping a cache and its stores perform.
+ */
+public class DefaultStatisticsConfiguration implements StoreStatisticsConfiguration {
+
+  private final StatisticsLevel statisticsLevel;
+  private final int sampleRate;
+
+  /**
+   * Creates a new configuration with the provided level, timing every operation when it is
+   * {@link StatisticsLevel#SAMPLED}.
+   *
+   * @param statisticsLevel the statistics level
+   */
+  public DefaultStatisticsConfiguration(StatisticsLevel statisticsLevel) {
+    this(statisticsLevel, DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * Creates a new configuration with the provided level and sample rate.
+   *
+   * @param statisticsLevel the statistics level
+   * @param sampleRate one out of how many operations is timed, ignored unless the level is {@link StatisticsLevel#SAMPLED}
+   */
+  public DefaultStatisticsConfiguration(StatisticsLevel statisticsLevel, int sampleRate) {
+    if (statisticsLevel == null) {
+      throw new NullPointerException("Statistics level cannot be null");
+    }
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("Sample rate must be a value bigger than 0, was: " + sampleRate);
+    }
+    this.statisticsLevel = statisticsLevel;
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StatisticsLevel getStatisticsLevel() {
+    return statisticsLevel;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<Store.Provider> getServiceType() {
+    return Store.Provider.class;
+  }
+}
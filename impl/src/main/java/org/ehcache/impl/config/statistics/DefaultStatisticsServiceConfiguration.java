@@ -0,0 +1,69 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.config.statistics;
+
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+
+/**
+ * {@link ServiceCreationConfiguration} for the default {@link StatisticsService}.
+ * <P>
+ *   Defines the statistics bookkeeping of the caches not configured with their own
+ *   {@link DefaultStatisticsConfiguration}.
+ * </P>
+ */
+public class DefaultStatisticsServiceConfiguration implements ServiceCreationConfiguration<StatisticsService> {
+
+  private final DefaultStatisticsConfiguration defaultConfiguration;
+
+  /**
+   * Creates a new configuration with the provided default level, timing every operation when it is
+   * {@link StatisticsLevel#SAMPLED}.
+   *
+   * @param statisticsLevel the default statistics level
+   */
+  public DefaultStatisticsServiceConfiguration(StatisticsLevel statisticsLevel) {
+    this.defaultConfiguration = new DefaultStatisticsConfiguration(statisticsLevel);
+  }
+
+  /**
+   * Creates a new configuration with the provided default level and sample rate.
+   *
+   * @param statisticsLevel the default statistics level
+   * @param sampleRate one out of how many operations is timed, ignored unless the level is {@link StatisticsLevel#SAMPLED}
+   */
+  public DefaultStatisticsServiceConfiguration(StatisticsLevel statisticsLevel, int sampleRate) {
+    this.defaultConfiguration = new DefaultStatisticsConfiguration(statisticsLevel, sampleRate);
+  }
+
+  /**
+   * Returns the statistics configuration applied to the caches that do not define one.
+   *
+   * @return the default statistics configuration
+   */
+  public DefaultStatisticsConfiguration getDefaultConfiguration() {
+    return defaultConfiguration;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<StatisticsService> getServiceType() {
+    return StatisticsService.class;
+  }
+}
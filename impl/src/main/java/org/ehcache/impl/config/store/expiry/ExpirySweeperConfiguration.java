@@ -0,0 +1,124 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.config.store.expiry;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServiceConfiguration} enabling the background removal of expired mappings from the on heap and off heap
+ * {@link Store stores} of a cache.
+ * <P>
+ *   Without this configuration expired mappings are only removed when accessed or picked for eviction. With it, each
+ *   store walks its mappings incrementally on the configured thread pool, examining at most {@code batchSize}
+ *   mappings every {@code interval}, and removes the expired ones, firing the corresponding expiry events.
+ * </P>
+ */
+public class ExpirySweeperConfiguration implements ServiceConfiguration<Store.Provider> {
+
+  /**
+   * Default number of mappings examined per sweep
+   */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private final String threadPoolAlias;
+  private final long interval;
+  private final TimeUnit intervalUnit;
+  private final int batchSize;
+
+  /**
+   * Creates a new configuration examining at most {@link #DEFAULT_BATCH_SIZE} mappings per sweep.
+   *
+   * @param threadPoolAlias the thread pool alias, {@code null} for the default pool
+   * @param interval the delay between two sweeps
+   * @param intervalUnit the delay unit
+   */
+  public ExpirySweeperConfiguration(String threadPoolAlias, long interval, TimeUnit intervalUnit) {
+    this(threadPoolAlias, interval, intervalUnit, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a new configuration with the provided parameters.
+   *
+   * @param threadPoolAlias the thread pool alias, {@code null} for the default pool
+   * @param interval the delay between two sweeps
+   * @param intervalUnit the delay unit
+   * @param batchSize the maximum number of mappings examined per sweep
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public ExpirySweeperConfiguration(String threadPoolAlias, long interval, TimeUnit intervalUnit, int batchSize) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Sweep interval must be positive, was: " + interval + " " + intervalUnit);
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Sweep batch size must be positive, was: " + batchSize);
+    }
+    this.threadPoolAlias = threadPoolAlias;
+    this.interval = interval;
+    this.intervalUnit = intervalUnit;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Returns the configured thread pool alias.
+   *
+   * @return the thread pool alias
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public String getThreadPoolAlias() {
+    return threadPoolAlias;
+  }
+
+  /**
+   * Returns the delay between two sweeps.
+   *
+   * @return the sweep interval
+   */
+  public long getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the unit of the delay between two sweeps.
+   *
+   * @return the sweep interval unit
+   */
+  public TimeUnit getIntervalUnit() {
+    return intervalUnit;
+  }
+
+  /**
+   * Returns the maximum number of mappings examined per sweep.
+   *
+   * @return the sweep batch size
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<Store.Provider> getServiceType() {
+    return Store.Provider.class;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.config.store.heap;
+
+import org.ehcache.core.spi.store.heap.SharedHeapPoolService;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+/**
+ * {@link ServiceConfiguration} placing the heap tier of a cache into the pool managed by the
+ * {@link SharedHeapPoolService}.
+ * <P>
+ *   The heap size the cache was configured with only applies until the cache joins the pool. From then on its heap
+ *   size stays between the configured minimum and maximum, both expressed in the unit of the pool.
+ * </P>
+ *
+ * @see SharedHeapPoolServiceConfiguration
+ */
+public class SharedHeapPoolConfiguration implements ServiceConfiguration<SharedHeapPoolService> {
+
+  private final long min;
+  private final long max;
+
+  /**
+   * Creates a new configuration without reservation nor limit.
+   */
+  public SharedHeapPoolConfiguration() {
+    this(0L, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new configuration with the provided reservation and limit.
+   *
+   * @param min the heap size reserved to the cache
+   * @param max the maximum heap size the cache can be given
+   */
+  public SharedHeapPoolConfiguration(long min, long max) {
+    if (min < 0) {
+      throw new IllegalArgumentException("Shared heap reservation cannot be negative, was: " + min);
+    }
+    if (max <= 0 || max < min) {
+      throw new IllegalArgumentException("Shared heap limit must be positive and not lower than the reservation, was: " + max);
+    }
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Returns the heap size reserved to the cache.
+   *
+   * @return the reservation
+   */
+  public long getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the maximum heap size the cache can be given.
+   *
+   * @return the limit
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<SharedHeapPoolService> getServiceType() {
+    return SharedHeapPoolService.class;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.config.store.heap;
+
+import org.ehcache.config.ResourceUnit;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.spi.store.heap.SharedHeapPoolService;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServiceCreationConfiguration} for the default {@link SharedHeapPoolService}.
+ * <P>
+ *   Defines the heap capacity shared by the caches configured with a {@link SharedHeapPoolConfiguration}, and how
+ *   often that capacity is rebalanced between them.
+ * </P>
+ */
+public class SharedHeapPoolServiceConfiguration implements ServiceCreationConfiguration<SharedHeapPoolService> {
+
+  /**
+   * Default delay between two rebalances, in seconds
+   */
+  public static final long DEFAULT_REBALANCE_INTERVAL_SECONDS = 10L;
+
+  private final long size;
+  private final ResourceUnit unit;
+  private final long rebalanceInterval;
+  private final TimeUnit rebalanceIntervalUnit;
+  private final String threadPoolAlias;
+
+  /**
+   * Creates a new configuration rebalancing every {@link #DEFAULT_REBALANCE_INTERVAL_SECONDS} seconds on the default
+   * thread pool.
+   *
+   * @param size the shared heap size
+   * @param unit the shared heap size unit, either an {@link EntryUnit} or a {@link MemoryUnit}
+   */
+  public SharedHeapPoolServiceConfiguration(long size, ResourceUnit unit) {
+    this(size, unit, DEFAULT_REBALANCE_INTERVAL_SECONDS, TimeUnit.SECONDS, null);
+  }
+
+  /**
+   * Creates a new configuration with the provided parameters.
+   *
+   * @param size the shared heap size
+   * @param unit the shared heap size unit, either an {@link EntryUnit} or a {@link MemoryUnit}
+   * @param rebalanceInterval the delay between two rebalances
+   * @param rebalanceIntervalUnit the delay unit
+   * @param threadPoolAlias the thread pool alias, {@code null} for the default pool
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public SharedHeapPoolServiceConfiguration(long size, ResourceUnit unit, long rebalanceInterval, TimeUnit rebalanceIntervalUnit, String threadPoolAlias) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Shared heap size must be positive, was: " + size);
+    }
+    if (!(unit instanceof EntryUnit) && !(unit instanceof MemoryUnit)) {
+      throw new IllegalArgumentException("Shared heap unit must be an EntryUnit or a MemoryUnit, was: " + unit);
+    }
+    if (rebalanceInterval <= 0) {
+      throw new IllegalArgumentException("Rebalance interval must be positive, was: " + rebalanceInterval + " " + rebalanceIntervalUnit);
+    }
+    this.size = size;
+    this.unit = unit;
+    this.rebalanceInterval = rebalanceInterval;
+    this.rebalanceIntervalUnit = rebalanceIntervalUnit;
+    this.threadPoolAlias = threadPoolAlias;
+  }
+
+  /**
+   * Returns the shared heap size.
+   *
+   * @return the shared heap size
+   *
+   * @see #getUnit()
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the shared heap size unit.
+   *
+   * @return the shared heap size unit
+   *
+   * @see #getSize()
+   */
+  public ResourceUnit getUnit() {
+    return unit;
+  }
+
+  /**
+   * Returns the delay between two rebalances.
+   *
+   * @return the rebalance interval
+   */
+  public long getRebalanceInterval() {
+    return rebalanceInterval;
+  }
+
+  /**
+   * Returns the unit of the delay between two rebalances.
+   *
+   * @return the rebalance interval unit
+   */
+  public TimeUnit getRebalanceIntervalUnit() {
+    return rebalanceIntervalUnit;
+  }
+
+  /**
+   * Returns the configured thread pool alias.
+   *
+   * @return the thread pool alias
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public String getThreadPoolAlias() {
+    return threadPoolAlias;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<SharedHeapPoolService> getServiceType() {
+    return SharedHeapPoolService.class;
+  }
+}
@@ -16,6 +16,7 @@
 
 /**
  * Package for configuration classes for the default {@link org.ehcache.core.spi.store.heap.SizeOfEngineProvider sizeof
- * engine provider} implementation used by the on heap {@link org.ehcache.core.spi.store.Store store}.
+ * engine provider} implementation used by the on heap {@link org.ehcache.core.spi.store.Store store}, and for the
+ * default {@link org.ehcache.core.spi.store.heap.SharedHeapPoolService shared heap pool service}.
  */
 package org.ehcache.impl.config.store.heap;
\ No newline at end of file
@@ -17,11 +17,12 @@
 package org.ehcache.impl.events;
 
 import org.ehcache.core.internal.events.EventListenerWrapper;
+import org.ehcache.core.spi.service.PartitionedTask;
 import org.ehcache.event.CacheEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-class EventDispatchTask<K, V> implements Runnable {
+class EventDispatchTask<K, V> implements PartitionedTask {
   private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatchTask.class);
   private final CacheEvent<K, V> cacheEvent;
   private final Iterable<EventListenerWrapper> listenerWrappers;
@@ -37,6 +38,11 @@ class EventDispatchTask<K, V> implements Runnable {
     this.listenerWrappers = listener;
   }
 
+  @Override
+  public Object getPartition() {
+    return cacheEvent.getKey();
+  }
+
   @Override
   public void run() {
     for(EventListenerWrapper listenerWrapper : listenerWrappers) {
@@ -18,6 +18,7 @@ package org.ehcache.impl.internal.executor;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import static java.util.concurrent.Executors.unconfigurableExecutorService;
 import static java.util.concurrent.Executors.unconfigurableScheduledExecutorService;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -65,9 +66,16 @@ public class OnDemandExecutionService implements ExecutionService {
 
   @Override
   public ExecutorService getOrderedExecutor(String poolAlias, BlockingQueue<Runnable> queue) {
-    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, queue, ThreadFactoryUtil.threadFactory(poolAlias),  WAIT_FOR_SPACE);
+    int threads = Runtime.getRuntime().availableProcessors();
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), ThreadFactoryUtil.threadFactory(poolAlias));
     executor.allowCoreThreadTimeOut(true);
-    return unconfigurableExecutorService(executor);
+    // the backing pool is private to the ordered executor and dies with it
+    return new PartitionedOrderedExecutor(queue, executor, threads) {
+      @Override
+      protected void terminated() {
+        executor.shutdown();
+      }
+    };
   }
 
   @Override
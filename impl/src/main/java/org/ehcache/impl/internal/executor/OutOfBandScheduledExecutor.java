@@ -15,7 +15,7 @@
  */
 package org.ehcache.impl.internal.executor;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.Collection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
@@ -23,32 +23,78 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
+ * Schedules tasks on a single timer thread and hands them over to their own executor once due.
+ * <P>
+ *   By default the timer is a {@link TimerWheelScheduledExecutor}, making scheduling and cancellation constant time
+ *   operations. The {@link ScheduledThreadPoolExecutor} based timer remains available through
+ *   {@link #delayQueueBased()}.
+ * </P>
  *
  * @author cdennis
  */
 class OutOfBandScheduledExecutor {
 
-  private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1) {
+  static final long DEFAULT_TICK = 1;
+  static final TimeUnit DEFAULT_TICK_UNIT = TimeUnit.MILLISECONDS;
 
-    @Override
-    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> clbl, RunnableScheduledFuture<V> rsf) {
-      return new OutOfBandRsf(((ExecutorCarrier) clbl).executor(), rsf);
-    }
+  private final ScheduledExecutorService scheduler;
+  private final Collection<Runnable> queue;
 
-    @Override
-    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable r, RunnableScheduledFuture<V> rsf) {
-      return new OutOfBandRsf(((ExecutorCarrier) r).executor(), rsf);
-    }
-  };
+  OutOfBandScheduledExecutor() {
+    this(DEFAULT_TICK, DEFAULT_TICK_UNIT);
+  }
+
+  OutOfBandScheduledExecutor(long tick, TimeUnit unit) {
+    TimerWheelScheduledExecutor wheel = new TimerWheelScheduledExecutor(tick, unit, "Ehcache [scheduler]") {
+
+      @Override
+      protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> clbl, RunnableScheduledFuture<V> rsf) {
+        return new OutOfBandRsf<V>(((ExecutorCarrier) clbl).executor(), rsf);
+      }
+
+      @Override
+      protected <V> RunnableScheduledFuture<V> decorateTask(Runnable r, RunnableScheduledFuture<V> rsf) {
+        return new OutOfBandRsf<V>(((ExecutorCarrier) r).executor(), rsf);
+      }
+    };
+    this.scheduler = wheel;
+    this.queue = wheel.getQueue();
+  }
+
+  private OutOfBandScheduledExecutor(ScheduledThreadPoolExecutor scheduler) {
+    this.scheduler = scheduler;
+    this.queue = scheduler.getQueue();
+  }
+
+  /**
+   * Creates an out of band executor whose timer is a {@link ScheduledThreadPoolExecutor}.
+   *
+   * @return a delay queue based out of band executor
+   */
+  static OutOfBandScheduledExecutor delayQueueBased() {
+    return new OutOfBandScheduledExecutor(new ScheduledThreadPoolExecutor(1) {
+
+      @Override
+      protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> clbl, RunnableScheduledFuture<V> rsf) {
+        return new OutOfBandRsf<V>(((ExecutorCarrier) clbl).executor(), rsf);
+      }
+
+      @Override
+      protected <V> RunnableScheduledFuture<V> decorateTask(Runnable r, RunnableScheduledFuture<V> rsf) {
+        return new OutOfBandRsf<V>(((ExecutorCarrier) r).executor(), rsf);
+      }
+    });
+  }
 
-  public BlockingQueue<Runnable> getQueue() {
-    return scheduler.getQueue();
+  public Collection<Runnable> getQueue() {
+    return queue;
   }
 
   public ScheduledFuture<?> schedule(ExecutorService using, Runnable command,
@@ -15,47 +15,315 @@
  */
 package org.ehcache.impl.internal.executor;
 
+import org.ehcache.core.spi.service.PartitionedTask;
+import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Collections.emptyList;
 
+/**
+ * An executor that runs the tasks of each partition in submission order, while running distinct partitions
+ * concurrently on up to {@code maxWorkers} threads of the backing executor.
+ * <p>
+ * Partitions are declared by {@link PartitionedTask}, all other tasks share a partition backed by the queue supplied
+ * at construction. Partitions with pending tasks are kept in a single ready queue from which any idle worker takes the
+ * next one, so a slow partition never holds back the others. Keyed partitions are discarded as soon as they are
+ * drained, and the capacity of the supplied queue bounds the number of pending tasks across all partitions.
+ */
 class PartitionedOrderedExecutor extends AbstractExecutorService {
 
-  private final PartitionedUnorderedExecutor delegate;
+  private final Partition sharedPartition;
+  private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<Object, Partition>();
+  private final Queue<Partition> ready = new ConcurrentLinkedQueue<Partition>();
+  private final ExecutorService executor;
+  private final Semaphore runnerPermit;
+  private final Semaphore pendingPermit;
+  private final int maxWorkers;
+  private final int maxPending;
+  private final Set<Thread> liveThreads = new CopyOnWriteArraySet<Thread>();
+  private final CountDownLatch termination = new CountDownLatch(1);
+  private final AtomicBoolean terminating = new AtomicBoolean();
+
+  private final Runnable worker = new Runnable() {
+
+    @Override
+    public void run() {
+      try {
+        Partition partition = ready.poll();
+        if (partition != null) {
+          liveThreads.add(Thread.currentThread());
+          try {
+            runNext(partition);
+          } finally {
+            liveThreads.remove(Thread.currentThread());
+          }
+        }
+      } finally {
+        if (ready.isEmpty()) {
+          runnerPermit.release();
+          if (!ready.isEmpty() && runnerPermit.tryAcquire()) {
+            executor.submit(this);
+          } else if (isTerminated()) {
+            signalTermination();
+          }
+        } else {
+          executor.submit(this);
+        }
+      }
+    }
+  };
 
-  PartitionedOrderedExecutor(BlockingQueue<Runnable> queue, ExecutorService executor) {
-    this.delegate = new PartitionedUnorderedExecutor(queue, executor, 1);
+  private volatile boolean shutdown;
+
+  PartitionedOrderedExecutor(BlockingQueue<Runnable> queue, ExecutorService executor, int maxWorkers) {
+    this.sharedPartition = new Partition(null, queue);
+    this.executor = executor;
+    this.maxWorkers = maxWorkers;
+    this.runnerPermit = new Semaphore(maxWorkers);
+    this.maxPending = queue.remainingCapacity();
+    this.pendingPermit = new Semaphore(maxPending);
   }
 
   @Override
   public void shutdown() {
-    delegate.shutdown();
+    shutdown = true;
+    if (isTerminated()) {
+      signalTermination();
+    }
   }
 
   @Override
   public List<Runnable> shutdownNow() {
-    return delegate.shutdownNow();
+    shutdown = true;
+    if (isTerminated()) {
+      signalTermination();
+      return emptyList();
+    } else {
+      List<Runnable> failed = new ArrayList<Runnable>();
+      sharedPartition.drainTo(failed);
+      for (Partition partition : partitions.values()) {
+        partition.drainTo(failed);
+      }
+      for (Thread t : liveThreads) {
+        t.interrupt();
+      }
+      return failed;
+    }
+  }
+
+  /**
+   * Method invoked once this executor has terminated, from the thread that observed the termination.
+   */
+  protected void terminated() {
+    //no-op
+  }
+
+  private void signalTermination() {
+    if (terminating.compareAndSet(false, true)) {
+      try {
+        terminated();
+      } finally {
+        termination.countDown();
+      }
+    }
   }
 
   @Override
   public boolean isShutdown() {
-    return delegate.isShutdown();
+    return shutdown;
   }
 
   @Override
   public boolean isTerminated() {
-    return delegate.isTerminated();
+    return isShutdown() && pendingPermit.availablePermits() == maxPending && runnerPermit.availablePermits() == maxWorkers;
   }
 
   @Override
   public boolean awaitTermination(long time, TimeUnit unit) throws InterruptedException {
-    return delegate.awaitTermination(time, unit);
+    if (isTerminated()) {
+      return true;
+    } else {
+      return termination.await(time, unit);
+    }
   }
 
   @Override
   public void execute(Runnable r) {
-    delegate.execute(r);
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor is shutting down");
+    }
+
+    pendingPermit.acquireUninterruptibly();
+    Partition partition;
+    try {
+      partition = enqueue(r);
+    } catch (RuntimeException e) {
+      pendingPermit.release();
+      throw e;
+    }
+
+    if (shutdown && partition.remove(r)) {
+      pendingPermit.release();
+      throw new RejectedExecutionException("Executor is shutting down");
+    } else if (runnerPermit.tryAcquire()) {
+      executor.submit(worker);
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    if (runnable instanceof PartitionedTask) {
+      return new PartitionedFutureTask<T>(((PartitionedTask) runnable).getPartition(), runnable, value);
+    } else {
+      return super.newTaskFor(runnable, value);
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    if (callable instanceof PartitionedTask) {
+      return new PartitionedFutureTask<T>(((PartitionedTask) callable).getPartition(), callable);
+    } else {
+      return super.newTaskFor(callable);
+    }
+  }
+
+  private Partition enqueue(Runnable r) {
+    Object key = r instanceof PartitionedTask ? ((PartitionedTask) r).getPartition() : null;
+    if (key == null) {
+      sharedPartition.add(r);
+      return sharedPartition;
+    } else {
+      while (true) {
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+          partition = new Partition(key, new LinkedList<Runnable>());
+          Partition racer = partitions.putIfAbsent(key, partition);
+          if (racer != null) {
+            partition = racer;
+          }
+        }
+        if (partition.add(r)) {
+          return partition;
+        }
+      }
+    }
+  }
+
+  private void runNext(Partition partition) {
+    Runnable task = partition.poll();
+    try {
+      if (task != null) {
+        pendingPermit.release();
+        task.run();
+      }
+    } finally {
+      partition.completed();
+    }
+  }
+
+  /**
+   * The pending tasks of a single partition.
+   * <p>
+   * A partition is scheduled while it sits in the ready queue or while one of its tasks is running, which guarantees
+   * that at most one worker executes its tasks at any time.
+   */
+  private final class Partition {
+
+    private final Object key;
+    private final Queue<Runnable> tasks;
+
+    private boolean scheduled;
+    private boolean discarded;
+
+    Partition(Object key, Queue<Runnable> tasks) {
+      this.key = key;
+      this.tasks = tasks;
+    }
+
+    synchronized boolean add(Runnable r) {
+      if (discarded) {
+        return false;
+      }
+      if (!tasks.offer(r)) {
+        throw new RejectedExecutionException("Queue is full");
+      }
+      if (!scheduled) {
+        scheduled = true;
+        ready.add(this);
+      }
+      return true;
+    }
+
+    synchronized boolean remove(Runnable r) {
+      return tasks.remove(r);
+    }
+
+    synchronized Runnable poll() {
+      return tasks.poll();
+    }
+
+    synchronized void drainTo(List<Runnable> list) {
+      while (true) {
+        Runnable r = tasks.poll();
+        if (r == null) {
+          return;
+        } else {
+          pendingPermit.release();
+          list.add(r);
+        }
+      }
+    }
+
+    synchronized void completed() {
+      if (tasks.isEmpty()) {
+        scheduled = false;
+        if (key != null) {
+          discarded = true;
+          partitions.remove(key, this);
+        }
+      } else {
+        ready.add(this);
+      }
+    }
+  }
+
+  private static final class PartitionedFutureTask<T> extends FutureTask<T> implements PartitionedTask {
+
+    private final Object partition;
+
+    PartitionedFutureTask(Object partition, Runnable runnable, T value) {
+      super(runnable, value);
+      this.partition = partition;
+    }
+
+    PartitionedFutureTask(Object partition, Callable<T> callable) {
+      super(callable);
+      this.partition = partition;
+    }
+
+    @Override
+    public Object getPartition() {
+      return partition;
+    }
   }
 }
@@ -48,6 +48,8 @@ public class PooledExecutionService implements ExecutionService {
 
   private final String defaultPoolAlias;
   private final Map<String, PoolConfiguration> poolConfigurations;
+  private final long schedulerTick;
+  private final TimeUnit schedulerTickUnit;
   private final Map<String, ThreadPoolExecutor> pools = new ConcurrentHashMap<String, ThreadPoolExecutor>(8, .75f, 1);
 
   private volatile boolean running = false;
@@ -56,6 +58,8 @@ public class PooledExecutionService implements ExecutionService {
   PooledExecutionService(PooledExecutionServiceConfiguration configuration) {
     this.defaultPoolAlias = configuration.getDefaultPoolAlias();
     this.poolConfigurations = configuration.getPoolConfigurations();
+    this.schedulerTick = configuration.getSchedulerTick();
+    this.schedulerTickUnit = configuration.getSchedulerTickUnit();
   }
 
   @Override
@@ -85,7 +89,7 @@ public class PooledExecutionService implements ExecutionService {
       if (executor == null) {
         throw new IllegalArgumentException("Pool '" + poolAlias + "' is not in the set of available pools " + pools.keySet());
       } else {
-        return new PartitionedOrderedExecutor(queue, executor);
+        return new PartitionedOrderedExecutor(queue, executor, executor.getMaximumPoolSize());
       }
     } else {
       throw new IllegalStateException("Service cannot be used, it isn't running");
@@ -125,7 +129,7 @@ public class PooledExecutionService implements ExecutionService {
     } else {
       LOGGER.warn("No default pool configured, services requiring thread pools must be configured explicitly using named thread pools");
     }
-    scheduledExecutor = new OutOfBandScheduledExecutor();
+    scheduledExecutor = new OutOfBandScheduledExecutor(schedulerTick, schedulerTickUnit);
     running = true;
   }
 
@@ -0,0 +1,654 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A single threaded {@link ScheduledExecutorService} backed by a hashed hierarchical timer wheel.
+ * <P>
+ *   Time is divided in ticks of a fixed duration. The wheel has {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots,
+ *   each slot of a level spanning a full rotation of the level below. A task is linked in the slot of the lowest level
+ *   covering its deadline and moves down one level each time the slot it sits in comes around, so that scheduling and
+ *   cancelling are constant time operations. Tasks never run before their deadline but may run up to one tick late.
+ * </P>
+ * <P>
+ *   Tasks are handed over to the timer thread through a lock-free queue, and cancelled tasks are unlinked lazily by the
+ *   timer thread. The timer thread only wakes up when the lowest non-empty level needs attention, and parks
+ *   indefinitely when no task is scheduled.
+ * </P>
+ * <P>
+ *   As with {@link java.util.concurrent.ScheduledThreadPoolExecutor} the tasks can be decorated by overriding
+ *   {@link #decorateTask(Runnable, RunnableScheduledFuture)} and {@link #decorateTask(Callable, RunnableScheduledFuture)},
+ *   and periodic tasks are cancelled on shutdown while delayed tasks still run.
+ * </P>
+ */
+class TimerWheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TimerWheelScheduledExecutor.class);
+
+  static final int WHEEL_BITS = 8;
+  static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  static final int LEVELS = 4;
+
+  /**
+   * Number of hand-offs (schedules and cancellations) that wake the timer thread up to drain them, so that they do
+   * not pile up while it sleeps towards a distant deadline.
+   */
+  static final int HANDOFF_THRESHOLD = 1024;
+
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final AtomicLong SEQUENCER = new AtomicLong();
+
+  private final long tickNanos;
+  private final long origin = System.nanoTime();
+  private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+  private final Bucket overflow = new Bucket(LEVELS);
+  private final int[] levelCounts = new int[LEVELS + 1];
+
+  private final Queue<WheelTask<?>> pending = new ConcurrentLinkedQueue<WheelTask<?>>();
+  private final Queue<WheelTask<?>> cancelled = new ConcurrentLinkedQueue<WheelTask<?>>();
+  private final AtomicInteger handoffs = new AtomicInteger();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final CountDownLatch termination = new CountDownLatch(1);
+  private final Thread thread;
+
+  private long currentTick;
+
+  private volatile boolean shutdown;
+  private volatile boolean stopped;
+  private volatile boolean parkedIndefinitely;
+  private volatile long wakeAt;
+
+  TimerWheelScheduledExecutor(long tick, TimeUnit unit, String threadName) {
+    this.tickNanos = unit.toNanos(tick);
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("Tick duration must be positive, was: " + tick + " " + unit);
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+        wheels[level][slot] = new Bucket(level);
+      }
+    }
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runWheel();
+      }
+    }, threadName);
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Modifies or replaces the task used to execute a runnable.
+   *
+   * @param runnable the submitted runnable
+   * @param task the task created to execute the runnable
+   * @param <V> the type of the task's result
+   * @return the task to schedule
+   */
+  protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+    return task;
+  }
+
+  /**
+   * Modifies or replaces the task used to execute a callable.
+   *
+   * @param callable the submitted callable
+   * @param task the task created to execute the callable
+   * @param <V> the type of the task's result
+   * @return the task to schedule
+   */
+  protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+    return task;
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    WheelTask<Void> task = new WheelTask<Void>(command, null, triggerTime(delay, unit), 0);
+    return schedule(task, decorateTask(command, task));
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+    WheelTask<V> task = new WheelTask<V>(callable, triggerTime(delay, unit));
+    return schedule(task, decorateTask(callable, task));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("Period must be positive, was: " + period);
+    }
+    WheelTask<Void> task = new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), unit.toNanos(period));
+    return schedule(task, decorateTask(command, task));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+    if (delay <= 0) {
+      throw new IllegalArgumentException("Delay must be positive, was: " + delay);
+    }
+    WheelTask<Void> task = new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), -unit.toNanos(delay));
+    return schedule(task, decorateTask(command, task));
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    schedule(command, 0, NANOSECONDS);
+  }
+
+  /**
+   * Returns a view of the tasks scheduled and not yet run.
+   * <P>
+   *   The view must only be used from a task running on the timer thread, that is a task run by this executor and not
+   *   handed over to another executor by its decoration.
+   * </P>
+   *
+   * @return the scheduled tasks
+   */
+  public Collection<Runnable> getQueue() {
+    return new AbstractCollection<Runnable>() {
+      @Override
+      public Iterator<Runnable> iterator() {
+        return new QueueIterator();
+      }
+
+      @Override
+      public int size() {
+        int size = pending.size();
+        for (int count : levelCounts) {
+          size += count;
+        }
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    wakeUp();
+    if (!started.get()) {
+      termination.countDown();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    stopped = true;
+    List<Runnable> aborted = new ArrayList<Runnable>();
+    if (started.get()) {
+      if (Thread.currentThread() != thread) {
+        thread.interrupt();
+        try {
+          termination.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      for (Iterator<Runnable> it = new QueueIterator(); it.hasNext(); ) {
+        aborted.add(it.next());
+        it.remove();
+      }
+    } else {
+      termination.countDown();
+    }
+    return aborted;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return termination.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return termination.await(timeout, unit);
+  }
+
+  private long triggerTime(long delay, TimeUnit unit) {
+    return System.nanoTime() + Math.min(unit.toNanos(Math.max(0, delay)), Long.MAX_VALUE >> 1);
+  }
+
+  private <V> RunnableScheduledFuture<V> schedule(WheelTask<V> task, RunnableScheduledFuture<V> decorated) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor is shutting down");
+    }
+    task.decorated = decorated;
+    enqueue(task);
+    if (shutdown && decorated.cancel(false)) {
+      throw new RejectedExecutionException("Executor is shutting down");
+    }
+    return decorated;
+  }
+
+  private void enqueue(WheelTask<?> task) {
+    if (!started.get() && started.compareAndSet(false, true)) {
+      thread.start();
+    }
+    pending.offer(task);
+    if (handedOff() || parkedIndefinitely || task.deadline - wakeAt < 0) {
+      wakeUp();
+    }
+  }
+
+  private boolean handedOff() {
+    return handoffs.incrementAndGet() == HANDOFF_THRESHOLD;
+  }
+
+  /**
+   * Returns the number of scheduled and cancelled tasks not yet drained by the timer thread.
+   *
+   * @return the hand-off backlog
+   */
+  int getHandOffBacklog() {
+    return pending.size() + cancelled.size();
+  }
+
+  private void wakeUp() {
+    LockSupport.unpark(thread);
+  }
+
+  private void runWheel() {
+    try {
+      while (true) {
+        if (stopped) {
+          return;
+        }
+        long now = System.nanoTime();
+        handoffs.set(0);
+        processCancellations();
+        processPending(now);
+        advance((now - origin) / tickNanos, now);
+
+        if (shutdown) {
+          removePeriodicTasks();
+          if (pending.isEmpty() && isWheelEmpty()) {
+            return;
+          }
+        }
+        Thread.interrupted();
+
+        long wakeTick = nextWakeTick();
+        if (wakeTick < 0) {
+          parkedIndefinitely = true;
+          if (pending.isEmpty() && !shutdown) {
+            LockSupport.park(this);
+          }
+          parkedIndefinitely = false;
+        } else {
+          long deadline = origin + wakeTick * tickNanos;
+          wakeAt = deadline;
+          long sleep = deadline - System.nanoTime();
+          if (pending.isEmpty() && sleep > 0) {
+            LockSupport.parkNanos(this, sleep);
+          }
+        }
+      }
+    } finally {
+      termination.countDown();
+    }
+  }
+
+  private void processCancellations() {
+    for (WheelTask<?> task = cancelled.poll(); task != null; task = cancelled.poll()) {
+      if (task.bucket != null) {
+        task.bucket.unlink(task);
+      }
+    }
+  }
+
+  private void processPending(long now) {
+    for (WheelTask<?> task = pending.poll(); task != null; task = pending.poll()) {
+      insert(task, now);
+    }
+  }
+
+  private void insert(WheelTask<?> task, long now) {
+    if (task.isCancelled()) {
+      return;
+    }
+    long deadline = task.deadline;
+    if (deadline - now <= 0) {
+      fire(task);
+      return;
+    }
+    long deadlineTick = (deadline - origin + tickNanos - 1) / tickNanos;
+    if (deadlineTick <= currentTick) {
+      deadlineTick = currentTick + 1;
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = WHEEL_BITS * (level + 1);
+      if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+        wheels[level][(int) (deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK].link(task);
+        return;
+      }
+    }
+    overflow.link(task);
+  }
+
+  private void advance(long nowTick, long now) {
+    while (currentTick < nowTick) {
+      long next = currentTick + 1;
+      int emptyLevels = 0;
+      while (emptyLevels < LEVELS && levelCounts[emptyLevels] == 0) {
+        emptyLevels++;
+      }
+      if (emptyLevels == LEVELS && levelCounts[LEVELS] == 0) {
+        currentTick = nowTick;
+        return;
+      } else if (emptyLevels > 0) {
+        long boundary = ((currentTick >>> (WHEEL_BITS * emptyLevels)) + 1) << (WHEEL_BITS * emptyLevels);
+        next = Math.max(next, Math.min(boundary, nowTick));
+      }
+      currentTick = next;
+
+      for (int level = LEVELS; level > 0; level--) {
+        long span = 1L << (WHEEL_BITS * level);
+        if ((currentTick & (span - 1)) == 0) {
+          Bucket bucket = level == LEVELS ? overflow : wheels[level][(int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK];
+          for (WheelTask<?> task = bucket.detach(); task != null; ) {
+            WheelTask<?> following = task.next;
+            task.next = null;
+            insert(task, now);
+            task = following;
+          }
+        }
+      }
+      for (WheelTask<?> task = wheels[0][(int) currentTick & WHEEL_MASK].detach(); task != null; ) {
+        WheelTask<?> following = task.next;
+        task.next = null;
+        fire(task);
+        task = following;
+      }
+    }
+  }
+
+  private long nextWakeTick() {
+    if (levelCounts[0] > 0) {
+      return currentTick + 1;
+    }
+    for (int level = 1; level <= LEVELS; level++) {
+      if (levelCounts[level] > 0) {
+        return ((currentTick >>> (WHEEL_BITS * level)) + 1) << (WHEEL_BITS * level);
+      }
+    }
+    return -1;
+  }
+
+  private boolean isWheelEmpty() {
+    for (int count : levelCounts) {
+      if (count > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void removePeriodicTasks() {
+    for (Iterator<Runnable> it = new QueueIterator(); it.hasNext(); ) {
+      Runnable task = it.next();
+      if (task instanceof RunnableScheduledFuture<?> && ((RunnableScheduledFuture<?>) task).isPeriodic()) {
+        ((RunnableScheduledFuture<?>) task).cancel(false);
+        it.remove();
+      }
+    }
+  }
+
+  private void fire(WheelTask<?> task) {
+    if (task.isCancelled()) {
+      return;
+    }
+    try {
+      task.decorated.run();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Exception thrown by scheduled task {}", task.decorated, e);
+    }
+  }
+
+  /**
+   * A doubly linked list of the tasks due in one slot of the wheel.
+   */
+  private final class Bucket {
+
+    private final int level;
+    private WheelTask<?> head;
+
+    Bucket(int level) {
+      this.level = level;
+    }
+
+    void link(WheelTask<?> task) {
+      task.bucket = this;
+      task.previous = null;
+      task.next = head;
+      if (head != null) {
+        head.previous = task;
+      }
+      head = task;
+      levelCounts[level]++;
+    }
+
+    void unlink(WheelTask<?> task) {
+      if (task.previous == null) {
+        head = task.next;
+      } else {
+        task.previous.next = task.next;
+      }
+      if (task.next != null) {
+        task.next.previous = task.previous;
+      }
+      task.bucket = null;
+      task.previous = null;
+      task.next = null;
+      levelCounts[level]--;
+    }
+
+    /**
+     * Empties the bucket, returning its tasks still chained through their {@code next} link.
+     */
+    WheelTask<?> detach() {
+      WheelTask<?> tasks = head;
+      for (WheelTask<?> task = tasks; task != null; task = task.next) {
+        task.bucket = null;
+        task.previous = null;
+        levelCounts[level]--;
+      }
+      head = null;
+      return tasks;
+    }
+  }
+
+  /**
+   * Iterates over the wheel buckets and then over the tasks not yet linked in the wheel.
+   */
+  private final class QueueIterator implements Iterator<Runnable> {
+
+    private int bucketIndex = -1;
+    private WheelTask<?> next;
+    private WheelTask<?> last;
+    private Iterator<WheelTask<?>> pendingIterator;
+    private boolean lastFromPending;
+
+    QueueIterator() {
+      advanceToNext();
+    }
+
+    private void advanceToNext() {
+      if (next != null) {
+        next = next.next;
+      }
+      while (next == null && bucketIndex < LEVELS * WHEEL_SIZE) {
+        bucketIndex++;
+        Bucket bucket = bucketIndex == LEVELS * WHEEL_SIZE ? overflow : wheels[bucketIndex / WHEEL_SIZE][bucketIndex % WHEEL_SIZE];
+        next = bucket.head;
+      }
+      if (next == null) {
+        pendingIterator = pending.iterator();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null || pendingIterator.hasNext();
+    }
+
+    @Override
+    public Runnable next() {
+      if (next != null) {
+        last = next;
+        lastFromPending = false;
+        advanceToNext();
+      } else if (pendingIterator.hasNext()) {
+        last = pendingIterator.next();
+        lastFromPending = true;
+      } else {
+        throw new NoSuchElementException();
+      }
+      return last.decorated;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      } else if (lastFromPending) {
+        pendingIterator.remove();
+      } else if (last.bucket != null) {
+        last.bucket.unlink(last);
+      }
+      last = null;
+    }
+  }
+
+  private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+    private final long sequence = SEQUENCER.getAndIncrement();
+    private final long period;
+
+    private volatile long deadline;
+    private RunnableScheduledFuture<V> decorated = this;
+
+    private Bucket bucket;
+    private WheelTask<?> previous;
+    private WheelTask<?> next;
+
+    WheelTask(Runnable runnable, V result, long deadline, long period) {
+      super(runnable, result);
+      this.deadline = deadline;
+      this.period = period;
+    }
+
+    WheelTask(Callable<V> callable, long deadline) {
+      super(callable);
+      this.deadline = deadline;
+      this.period = 0;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+      return period != 0;
+    }
+
+    @Override
+    public void run() {
+      if (!isPeriodic()) {
+        super.run();
+      } else if (runAndReset()) {
+        if (period > 0) {
+          deadline += period;
+        } else {
+          deadline = System.nanoTime() - period;
+        }
+        if (shutdown) {
+          cancel(false);
+        } else {
+          enqueue(this);
+        }
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancel = super.cancel(mayInterruptIfRunning);
+      if (cancel) {
+        cancelled.offer(this);
+        if (handedOff()) {
+          wakeUp();
+        }
+      }
+      return cancel;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deadline - System.nanoTime(), NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      if (other == this) {
+        return 0;
+      } else if (other instanceof WheelTask<?>) {
+        WheelTask<?> that = (WheelTask<?>) other;
+        long diff = deadline - that.deadline;
+        if (diff < 0) {
+          return -1;
+        } else if (diff > 0) {
+          return 1;
+        } else {
+          return sequence < that.sequence ? -1 : 1;
+        }
+      } else {
+        long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+        return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+      }
+    }
+  }
+}
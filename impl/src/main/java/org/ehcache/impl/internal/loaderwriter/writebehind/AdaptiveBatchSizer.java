@@ -0,0 +1,81 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.loaderwriter.writebehind;
+
+/**
+ * Controls the size of the batches opened by a {@link BatchingLocalHeapWriteBehindQueue}.
+ * <P>
+ *   When fixed, the batch size never changes. When adaptive, the batch size varies between {@code 1} and the
+ *   configured batch size:
+ *   <UL>
+ *     <LI>a failed batch halves it,</LI>
+ *     <LI>a batch slower than the target latency shrinks it by a quarter,</LI>
+ *     <LI>a batch completing while other batches are waiting grows it by a quarter,</LI>
+ *     <LI>a batch completing with nothing waiting leaves it unchanged.</LI>
+ *   </UL>
+ * </P>
+ */
+class AdaptiveBatchSizer {
+
+  private final int maxBatchSize;
+  private final long targetLatencyNanos;
+  private final boolean adaptive;
+
+  private volatile int batchSize;
+
+  AdaptiveBatchSizer(int maxBatchSize, long targetLatencyNanos, boolean adaptive) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be a positive integer, was: " + maxBatchSize);
+    }
+    this.maxBatchSize = maxBatchSize;
+    this.targetLatencyNanos = targetLatencyNanos;
+    this.adaptive = adaptive;
+    this.batchSize = maxBatchSize;
+  }
+
+  int batchSize() {
+    return batchSize;
+  }
+
+  int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Records the outcome of a batch and adjusts the batch size accordingly.
+   *
+   * @param latencyNanos the time taken to write the batch
+   * @param success whether all operations of the batch were written
+   * @param backlog the number of batches waiting to be written
+   */
+  synchronized void batchCompleted(long latencyNanos, boolean success, int backlog) {
+    if (!adaptive) {
+      return;
+    }
+    int current = batchSize;
+    int next;
+    if (!success) {
+      next = current / 2;
+    } else if (latencyNanos > targetLatencyNanos) {
+      next = current - Math.max(1, current / 4);
+    } else if (backlog > 0) {
+      next = current + Math.max(1, current / 4);
+    } else {
+      return;
+    }
+    batchSize = Math.max(1, Math.min(maxBatchSize, next));
+  }
+}
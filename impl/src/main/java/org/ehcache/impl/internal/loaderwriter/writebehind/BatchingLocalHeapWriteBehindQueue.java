@@ -15,6 +15,7 @@
  */
 package org.ehcache.impl.internal.loaderwriter.writebehind;
 
+import org.ehcache.impl.config.loaderwriter.writebehind.DefaultBatchingConfiguration;
 import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
 import org.ehcache.impl.internal.loaderwriter.writebehind.operations.BatchOperation;
 import org.ehcache.impl.internal.loaderwriter.writebehind.operations.DeleteOperation;
@@ -22,6 +23,7 @@ import org.ehcache.impl.internal.loaderwriter.writebehind.operations.DeleteAllOp
 import org.ehcache.impl.internal.loaderwriter.writebehind.operations.SingleOperation;
 import org.ehcache.impl.internal.loaderwriter.writebehind.operations.WriteOperation;
 import org.ehcache.impl.internal.loaderwriter.writebehind.operations.WriteAllOperation;
+import org.ehcache.spi.loaderwriter.BulkCacheWritingException;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.spi.loaderwriter.WriteBehindConfiguration;
 import org.ehcache.spi.loaderwriter.WriteBehindConfiguration.BatchingConfiguration;
@@ -45,6 +47,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.ehcache.impl.internal.executor.ExecutorUtil.shutdown;
@@ -64,12 +67,16 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
   private final ConcurrentMap<K, SingleOperation<K, V>> latest = new ConcurrentHashMap<K, SingleOperation<K, V>>();
 
   private final BlockingQueue executorQueue;
+  private final int maxQueueSize;
+  private final Semaphore queueCapacity;
   private final ExecutorService executor;
   private final ScheduledExecutorService scheduledExecutor;
 
   private final long maxWriteDelayMs;
-  private final int batchSize;
   private final boolean coalescing;
+  private final AdaptiveBatchSizer batchSizer;
+  private final int retryAttempts;
+  private final long retryBackoffMs;
 
   private volatile Batch openBatch;
 
@@ -78,9 +85,25 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
     this.cacheLoaderWriter = cacheLoaderWriter;
     BatchingConfiguration batchingConfig = config.getBatchingConfiguration();
     this.maxWriteDelayMs = batchingConfig.getMaxDelayUnit().toMillis(batchingConfig.getMaxDelay());
-    this.batchSize = batchingConfig.getBatchSize();
+    int batchSize = batchingConfig.getBatchSize();
     this.coalescing = batchingConfig.isCoalescing();
-    this.executorQueue = new LinkedBlockingQueue<Runnable>(config.getMaxQueueSize() / batchSize);
+    if (batchingConfig instanceof DefaultBatchingConfiguration) {
+      DefaultBatchingConfiguration defaultBatchingConfig = (DefaultBatchingConfiguration) batchingConfig;
+      this.batchSizer = new AdaptiveBatchSizer(batchSize, MILLISECONDS.toNanos(maxWriteDelayMs), defaultBatchingConfig.isAdaptive());
+      this.retryAttempts = defaultBatchingConfig.getRetryAttempts();
+      this.retryBackoffMs = defaultBatchingConfig.getRetryBackoffUnit().toMillis(defaultBatchingConfig.getRetryBackoff());
+    } else {
+      this.batchSizer = new AdaptiveBatchSizer(batchSize, MILLISECONDS.toNanos(maxWriteDelayMs), false);
+      this.retryAttempts = 0;
+      this.retryBackoffMs = 0;
+    }
+    /*
+     * The queue is bounded in operations rather than in batches, as adaptive batches can be much smaller than the
+     * configured batch size. Every queued batch holds at least one operation, so the executor queue never fills up.
+     */
+    this.maxQueueSize = config.getMaxQueueSize();
+    this.queueCapacity = new Semaphore(maxQueueSize);
+    this.executorQueue = new LinkedBlockingQueue<Runnable>(maxQueueSize);
     if (config.getThreadPoolAlias() == null) {
       this.executor = executionService.getOrderedExecutor(defaultThreadPool, executorQueue);
     } else {
@@ -100,6 +123,7 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
 
   @Override
   protected void addOperation(SingleOperation<K, V> operation) {
+    queueCapacity.acquireUninterruptibly();
     latest.put(operation.getKey(), operation);
 
     synchronized (this) {
@@ -141,10 +165,50 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
   }
 
   private Batch newBatch() {
+    int size = batchSizer.batchSize();
     if (coalescing) {
-      return new CoalescingBatch(batchSize);
+      return new CoalescingBatch(size);
     } else {
-      return new SimpleBatch(batchSize);
+      return new SimpleBatch(size);
+    }
+  }
+
+  /**
+   * Performs the batch operation, retrying with exponential backoff on failure.
+   * <P>
+   *   When the writer reports a partial failure, only the failed keys are retried.
+   * </P>
+   *
+   * @return {@code true} if the operation eventually succeeded
+   */
+  private boolean performWithRetry(BatchOperation<K, V> batch) {
+    long backoffMs = retryBackoffMs;
+    for (int attempt = 0; ; attempt++) {
+      try {
+        batch.performBatchOperation(cacheLoaderWriter);
+        return true;
+      } catch (Exception e) {
+        if (e instanceof BulkCacheWritingException) {
+          Set<?> failedKeys = ((BulkCacheWritingException) e).getFailures().keySet();
+          if (failedKeys.isEmpty()) {
+            return true;
+          }
+          batch = batch.restrictTo(failedKeys);
+        }
+        if (attempt >= retryAttempts) {
+          LOGGER.warn("Exception while bulk processing in write behind queue", e);
+          return false;
+        }
+        LOGGER.debug("Exception while bulk processing in write behind queue, retrying in {}ms", backoffMs, e);
+        try {
+          MILLISECONDS.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          LOGGER.warn("Interrupted while retrying bulk processing in write behind queue", e);
+          return false;
+        }
+        backoffMs = backoffMs > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : backoffMs * 2;
+      }
     }
   }
 
@@ -161,14 +225,14 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
    */
   @Override
   public long getQueueSize() {
-    Batch snapshot = openBatch;
-    return executorQueue.size() * batchSize + (snapshot == null ? 0 : snapshot.size());
+    return maxQueueSize - queueCapacity.availablePermits();
   }
 
   abstract class Batch implements Runnable {
 
     private final int batchSize;
     private final ScheduledFuture<?> expireTask;
+    private int added;
 
     Batch(int size) {
       this.batchSize = size;
@@ -186,23 +250,30 @@ public class BatchingLocalHeapWriteBehindQueue<K, V> extends AbstractWriteBehind
     }
 
     public boolean add(SingleOperation<K, V> operation) {
+      int before = size();
       internalAdd(operation);
+      if (size() > before) {
+        added++;
+      } else {
+        // the operation replaced a pending one for the same key, and takes up no more queue capacity
+        queueCapacity.release();
+      }
       return size() >= batchSize;
     }
 
     @Override
     public void run() {
+      queueCapacity.release(added);
+      long start = System.nanoTime();
+      boolean success = true;
       try {
         List<BatchOperation<K, V>> batches = createMonomorphicBatches(operations());
         // execute the batch operations
         for (BatchOperation<K, V> batch : batches) {
-          try {
-            batch.performBatchOperation(cacheLoaderWriter);
-          } catch (Exception e) {
-            LOGGER.warn("Exception while bulk processing in write behind queue", e);
-          }
+          success &= performWithRetry(batch);
         }
       } finally {
+        batchSizer.batchCompleted(System.nanoTime() - start, success, executorQueue.size());
         try {
           for (SingleOperation<K, V> op : operations()) {
             latest.remove(op.getKey(), op);
@@ -18,6 +18,8 @@ package org.ehcache.impl.internal.loaderwriter.writebehind.operations;
 import org.ehcache.spi.loaderwriter.BulkCacheWritingException;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 
+import java.util.Set;
+
 /**
  *  Interface to implement batch operations that are executed on a cache writer
  *
@@ -33,4 +35,10 @@ public interface BatchOperation<K, V> {
    */
   void performBatchOperation(CacheLoaderWriter<K, V> cacheLoaderWriter) throws BulkCacheWritingException, Exception;
 
+  /**
+   * Create a batch operation covering only the given keys of this batch
+   *
+   */
+  BatchOperation<K, V> restrictTo(Set<?> keys);
+
 }
@@ -15,6 +15,10 @@
  */
 package org.ehcache.impl.internal.loaderwriter.writebehind.operations;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import org.ehcache.spi.loaderwriter.BulkCacheWritingException;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 
@@ -45,4 +49,15 @@ public class DeleteAllOperation<K, V> implements BatchOperation<K, V> {
     cacheLoaderWriter.deleteAll(entries);
   }
 
+  @Override
+  public DeleteAllOperation<K, V> restrictTo(Set<?> keys) {
+    List<K> restricted = new ArrayList<K>();
+    for (K key : entries) {
+      if (keys.contains(key)) {
+        restricted.add(key);
+      }
+    }
+    return new DeleteAllOperation<K, V>(restricted);
+  }
+
 }
@@ -15,7 +15,10 @@
  */
 package org.ehcache.impl.internal.loaderwriter.writebehind.operations;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.ehcache.spi.loaderwriter.BulkCacheWritingException;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
@@ -43,4 +46,15 @@ public class WriteAllOperation<K, V> implements BatchOperation<K, V> {
     cacheLoaderWriter.writeAll(entries);
   }
 
+  @Override
+  public WriteAllOperation<K, V> restrictTo(Set<?> keys) {
+    List<Map.Entry<? extends K, ? extends V>> restricted = new ArrayList<Map.Entry<? extends K, ? extends V>>();
+    for (Map.Entry<? extends K, ? extends V> entry : entries) {
+      if (keys.contains(entry.getKey())) {
+        restricted.add(entry);
+      }
+    }
+    return new WriteAllOperation<K, V>(restricted);
+  }
+
 }
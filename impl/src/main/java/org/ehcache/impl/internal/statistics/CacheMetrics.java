@@ -0,0 +1,203 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.core.statistics.LatencyHistogram;
+import org.ehcache.core.statistics.LatencyHistograms;
+import org.ehcache.core.statistics.MetricsExporter;
+import org.terracotta.context.ContextManager;
+import org.terracotta.context.TreeNode;
+import org.terracotta.context.query.Matcher;
+import org.terracotta.context.query.Query;
+import org.terracotta.statistics.OperationStatistic;
+import org.terracotta.statistics.ValueStatistic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.terracotta.context.query.Matchers.attributes;
+import static org.terracotta.context.query.Matchers.context;
+import static org.terracotta.context.query.Matchers.hasAttribute;
+import static org.terracotta.context.query.QueryBuilder.queryBuilder;
+
+/**
+ * The statistics of one cache and of its tiers, resolved once from its context tree.
+ * <P>
+ *   Operation statistics become one counter per outcome, value statistics one gauge each, named after the statistic,
+ *   and latency histograms are attached to every operation statistic. Every sample is labelled with the cache alias and
+ *   the tier, {@code cache} for the cache itself, the labels being built up front so that an export allocates nothing
+ *   but the values read.
+ * </P>
+ */
+final class CacheMetrics {
+
+  private final List<Counter<?>> counters = new ArrayList<Counter<?>>();
+  private final Map<String, List<Gauge>> gauges = new TreeMap<String, List<Gauge>>();
+  private final LatencyHistograms histograms;
+  private final Map<LatencyHistograms.Key, Map<String, String>> histogramLabels = new HashMap<LatencyHistograms.Key, Map<String, String>>();
+
+  CacheMetrics(String alias, Object cache) {
+    Query query = queryBuilder().descendants().filter(context(attributes(hasAttribute("this", new Matcher<Object>() {
+      @Override
+      protected boolean matchesSafely(Object object) {
+        return object instanceof OperationStatistic<?> || object instanceof ValueStatistic<?>;
+      }
+    })))).build();
+    Set<TreeNode> nodes = query.execute(Collections.singleton(ContextManager.nodeFor(cache)));
+    for (TreeNode node : nodes) {
+      Map<String, Object> attributes = node.getContext().attributes();
+      Object statistic = attributes.get("this");
+      String tier = LatencyHistograms.tierOf(attributes.get("tags"));
+      String name = String.valueOf(attributes.get("name"));
+      if (statistic instanceof OperationStatistic<?>) {
+        addCounters(alias, tier, name, (OperationStatistic<?>) statistic);
+      } else {
+        String family = "ehcache_" + toSnakeCase(name);
+        List<Gauge> familyGauges = gauges.get(family);
+        if (familyGauges == null) {
+          familyGauges = new ArrayList<Gauge>();
+          gauges.put(family, familyGauges);
+        }
+        familyGauges.add(new Gauge(labels(alias, tier, null, null), (ValueStatistic<?>) statistic));
+      }
+    }
+
+    Collections.sort(counters, new Comparator<Counter<?>>() {
+      @Override
+      public int compare(Counter<?> a, Counter<?> b) {
+        int byTier = a.labels.get("tier").compareTo(b.labels.get("tier"));
+        if (byTier != 0) {
+          return byTier;
+        }
+        int byOperation = a.labels.get("operation").compareTo(b.labels.get("operation"));
+        return byOperation != 0 ? byOperation : a.outcome.ordinal() - b.outcome.ordinal();
+      }
+    });
+
+    this.histograms = new LatencyHistograms(cache);
+    for (LatencyHistograms.Key key : histograms.keys()) {
+      histogramLabels.put(key, labels(alias, key.getTier(), key.getOperation(), key.getOutcome()));
+    }
+  }
+
+  private <T extends Enum<T>> void addCounters(String alias, String tier, String operation, OperationStatistic<T> statistic) {
+    for (T outcome : statistic.type().getEnumConstants()) {
+      counters.add(new Counter<T>(labels(alias, tier, operation, outcome.name()), statistic, outcome));
+    }
+  }
+
+  private static Map<String, String> labels(String alias, String tier, String operation, String outcome) {
+    Map<String, String> labels = new LinkedHashMap<String, String>();
+    labels.put("cache", alias);
+    labels.put("tier", tier);
+    if (operation != null) {
+      labels.put("operation", operation);
+      labels.put("outcome", outcome.toLowerCase(Locale.ENGLISH));
+    }
+    return Collections.unmodifiableMap(labels);
+  }
+
+  static String toSnakeCase(String name) {
+    StringBuilder snake = new StringBuilder(name.length() + 8);
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isUpperCase(c)) {
+        if (i > 0) {
+          snake.append('_');
+        }
+        snake.append(Character.toLowerCase(c));
+      } else if (Character.isLetterOrDigit(c)) {
+        snake.append(c);
+      } else {
+        snake.append('_');
+      }
+    }
+    return snake.toString();
+  }
+
+  Set<String> getGaugeFamilies() {
+    return gauges.keySet();
+  }
+
+  void exportCounters(MetricsExporter exporter) throws IOException {
+    for (Counter<?> counter : counters) {
+      exporter.sample(counter.labels, counter.value());
+    }
+  }
+
+  void exportGauges(String family, MetricsExporter exporter) throws IOException {
+    List<Gauge> familyGauges = gauges.get(family);
+    if (familyGauges != null) {
+      for (Gauge gauge : familyGauges) {
+        Number value;
+        try {
+          value = gauge.statistic.value();
+        } catch (RuntimeException e) {
+          // the tier is not initialized, or already closed
+          continue;
+        }
+        exporter.sample(gauge.labels, value);
+      }
+    }
+  }
+
+  void exportHistograms(MetricsExporter exporter) throws IOException {
+    for (Map.Entry<LatencyHistograms.Key, LatencyHistogram.Snapshot> entry : histograms.snapshot().entrySet()) {
+      exporter.histogram(histogramLabels.get(entry.getKey()), entry.getValue());
+    }
+  }
+
+  void close() {
+    histograms.close();
+  }
+
+  private static final class Counter<T extends Enum<T>> {
+
+    private final Map<String, String> labels;
+    private final OperationStatistic<T> statistic;
+    private final T outcome;
+
+    Counter(Map<String, String> labels, OperationStatistic<T> statistic, T outcome) {
+      this.labels = labels;
+      this.statistic = statistic;
+      this.outcome = outcome;
+    }
+
+    long value() {
+      return statistic.count(outcome);
+    }
+  }
+
+  private static final class Gauge {
+
+    private final Map<String, String> labels;
+    private final ValueStatistic<?> statistic;
+
+    Gauge(Map<String, String> labels, ValueStatistic<?> statistic) {
+      this.labels = labels;
+      this.statistic = statistic;
+    }
+  }
+}
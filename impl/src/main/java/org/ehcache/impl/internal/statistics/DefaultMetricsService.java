@@ -0,0 +1,133 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.Cache;
+import org.ehcache.Status;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.core.events.CacheManagerListener;
+import org.ehcache.core.spi.service.CacheManagerProviderService;
+import org.ehcache.core.spi.service.MetricsService;
+import org.ehcache.core.spi.store.InternalCacheManager;
+import org.ehcache.core.statistics.MetricsExporter;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceDependencies;
+import org.ehcache.spi.service.ServiceProvider;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Default {@link MetricsService}, resolving the statistics of every cache of its {@link org.ehcache.CacheManager} as
+ * the cache is added.
+ * <P>
+ *   Exports list, in this order, the {@value #OPERATIONS} counters, one gauge family per value statistic and the
+ *   {@value #LATENCIES} histograms, caches being ordered by alias within each family.
+ * </P>
+ */
+@ServiceDependencies(CacheManagerProviderService.class)
+public class DefaultMetricsService implements MetricsService, CacheManagerListener {
+
+  static final String OPERATIONS = "ehcache_operations_total";
+  static final String LATENCIES = "ehcache_operation_latency_seconds";
+
+  private final ConcurrentMap<String, CacheMetrics> caches = new ConcurrentSkipListMap<String, CacheMetrics>();
+
+  private volatile InternalCacheManager cacheManager;
+
+  @Override
+  public void start(ServiceProvider<Service> serviceProvider) {
+    this.cacheManager = serviceProvider.getService(CacheManagerProviderService.class).getCacheManager();
+    this.cacheManager.registerListener(this);
+  }
+
+  @Override
+  public void stop() {
+    for (CacheMetrics metrics : caches.values()) {
+      metrics.close();
+    }
+    caches.clear();
+  }
+
+  @Override
+  public void export(MetricsExporter exporter) throws IOException {
+    Collection<CacheMetrics> metrics = caches.values();
+
+    exporter.family(OPERATIONS, MetricsExporter.Type.COUNTER, "Operations of the caches and of their tiers, by outcome");
+    for (CacheMetrics cacheMetrics : metrics) {
+      cacheMetrics.exportCounters(exporter);
+    }
+
+    Set<String> gaugeFamilies = new TreeSet<String>();
+    for (CacheMetrics cacheMetrics : metrics) {
+      gaugeFamilies.addAll(cacheMetrics.getGaugeFamilies());
+    }
+    for (String family : gaugeFamilies) {
+      exporter.family(family, MetricsExporter.Type.GAUGE, "Value of the tier statistic " + family.substring("ehcache_".length()));
+      for (CacheMetrics cacheMetrics : metrics) {
+        cacheMetrics.exportGauges(family, exporter);
+      }
+    }
+
+    exporter.family(LATENCIES, MetricsExporter.Type.HISTOGRAM, "Latencies of the operations of the caches and of their tiers, by outcome");
+    for (CacheMetrics cacheMetrics : metrics) {
+      cacheMetrics.exportHistograms(exporter);
+    }
+
+    exporter.flush();
+  }
+
+  @Override
+  public void cacheAdded(String alias, Cache<?, ?> cache) {
+    CacheMetrics previous = caches.put(alias, new CacheMetrics(alias, cache));
+    if (previous != null) {
+      previous.close();
+    }
+  }
+
+  @Override
+  public void cacheRemoved(String alias, Cache<?, ?> cache) {
+    CacheMetrics metrics = caches.remove(alias);
+    if (metrics != null) {
+      metrics.close();
+    }
+  }
+
+  @Override
+  public void stateTransition(Status from, Status to) {
+    switch (to) {
+      case AVAILABLE:
+        // caches created at init do not fire cacheAdded as the cache manager is still transitioning
+        for (Map.Entry<String, CacheConfiguration<?, ?>> entry : cacheManager.getRuntimeConfiguration().getCacheConfigurations().entrySet()) {
+          CacheConfiguration<?, ?> cacheConfiguration = entry.getValue();
+          cacheAdded(entry.getKey(), cacheManager.getCache(entry.getKey(), cacheConfiguration.getKeyType(), cacheConfiguration.getValueType()));
+        }
+        break;
+      case UNINITIALIZED:
+        cacheManager.deregisterListener(this);
+        break;
+      case MAINTENANCE:
+        break;
+      default:
+        throw new AssertionError(to);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.impl.config.statistics.DefaultStatisticsServiceConfiguration;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceProvider;
+
+/**
+ * Default {@link StatisticsService}, handing out the configured {@link DefaultStatisticsServiceConfiguration}
+ * defaults.
+ */
+public class DefaultStatisticsService implements StatisticsService {
+
+  private final DefaultStatisticsServiceConfiguration configuration;
+
+  public DefaultStatisticsService(DefaultStatisticsServiceConfiguration configuration) {
+    this.configuration = configuration;
+  }
+
+  @Override
+  public StoreStatisticsConfiguration getDefaultStatisticsConfiguration() {
+    return configuration.getDefaultConfiguration();
+  }
+
+  @Override
+  public void start(ServiceProvider<Service> serviceProvider) {
+    // no-op
+  }
+
+  @Override
+  public void stop() {
+    // no-op
+  }
+}
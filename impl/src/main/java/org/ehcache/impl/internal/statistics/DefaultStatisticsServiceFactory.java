@@ -0,0 +1,40 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.core.spi.service.ServiceFactory;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.impl.config.statistics.DefaultStatisticsServiceConfiguration;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+
+/**
+ * {@link ServiceFactory} for the {@link DefaultStatisticsService}.
+ */
+public class DefaultStatisticsServiceFactory implements ServiceFactory<StatisticsService> {
+
+  @Override
+  public StatisticsService create(ServiceCreationConfiguration<StatisticsService> configuration) {
+    if (!(configuration instanceof DefaultStatisticsServiceConfiguration)) {
+      throw new IllegalArgumentException("Default statistics require a " + DefaultStatisticsServiceConfiguration.class.getSimpleName());
+    }
+    return new DefaultStatisticsService((DefaultStatisticsServiceConfiguration) configuration);
+  }
+
+  @Override
+  public Class<StatisticsService> getServiceType() {
+    return StatisticsService.class;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.core.statistics.LatencyHistogram;
+import org.ehcache.core.statistics.MetricsExporter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link MetricsExporter} rendering metrics in the Prometheus text exposition format.
+ * <P>
+ *   Latencies are rendered in seconds. Histogram buckets are bounded by powers of four nanoseconds, from about a
+ *   microsecond to about 17 seconds, which are bucket boundaries of {@link LatencyHistogram} so that their counts are
+ *   exact. The sum of a histogram is estimated from the middle of its buckets.
+ * </P>
+ */
+public class PrometheusTextExporter implements MetricsExporter {
+
+  private static final int MIN_BUCKET_EXPONENT = 10;
+  private static final int MAX_BUCKET_EXPONENT = 34;
+
+  private final Writer writer;
+  private String family;
+
+  /**
+   * Creates an exporter writing to the given writer, which is flushed but not closed at the end of an export.
+   *
+   * @param writer the writer
+   */
+  public PrometheusTextExporter(Writer writer) {
+    this.writer = writer;
+  }
+
+  @Override
+  public void family(String name, Type type, String help) throws IOException {
+    this.family = name;
+    writer.write("# HELP ");
+    writer.write(name);
+    writer.write(' ');
+    writer.write(escape(help, false));
+    writer.write("\n# TYPE ");
+    writer.write(name);
+    writer.write(' ');
+    writer.write(type.name().toLowerCase(Locale.ENGLISH));
+    writer.write('\n');
+  }
+
+  @Override
+  public void sample(Map<String, String> labels, Number value) throws IOException {
+    writer.write(family);
+    writeLabels(labels, null);
+    writer.write(' ');
+    writer.write(value.toString());
+    writer.write('\n');
+  }
+
+  @Override
+  public void histogram(Map<String, String> labels, LatencyHistogram.Snapshot snapshot) throws IOException {
+    for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent += 2) {
+      long bound = 1L << exponent;
+      writer.write(family);
+      writer.write("_bucket");
+      writeLabels(labels, Double.toString(toSeconds(bound)));
+      writer.write(' ');
+      writer.write(Long.toString(snapshot.getCountBelow(bound)));
+      writer.write('\n');
+    }
+    writer.write(family);
+    writer.write("_bucket");
+    writeLabels(labels, "+Inf");
+    writer.write(' ');
+    writer.write(Long.toString(snapshot.getCount()));
+    writer.write('\n');
+
+    writer.write(family);
+    writer.write("_sum");
+    writeLabels(labels, null);
+    writer.write(' ');
+    writer.write(Double.toString(toSeconds(snapshot.getSum())));
+    writer.write('\n');
+
+    writer.write(family);
+    writer.write("_count");
+    writeLabels(labels, null);
+    writer.write(' ');
+    writer.write(Long.toString(snapshot.getCount()));
+    writer.write('\n');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writer.flush();
+  }
+
+  private void writeLabels(Map<String, String> labels, String le) throws IOException {
+    if (labels.isEmpty() && le == null) {
+      return;
+    }
+    writer.write('{');
+    boolean first = true;
+    for (Map.Entry<String, String> label : labels.entrySet()) {
+      if (!first) {
+        writer.write(',');
+      }
+      writeLabel(label.getKey(), label.getValue());
+      first = false;
+    }
+    if (le != null) {
+      if (!first) {
+        writer.write(',');
+      }
+      writeLabel("le", le);
+    }
+    writer.write('}');
+  }
+
+  private void writeLabel(String name, String value) throws IOException {
+    writer.write(name);
+    writer.write("=\"");
+    writer.write(escape(value, true));
+    writer.write('"');
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / 1e9;
+  }
+
+  static String escape(String text, boolean quotes) {
+    StringBuilder escaped = null;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      String replacement;
+      if (c == '\\') {
+        replacement = "\\\\";
+      } else if (c == '\n') {
+        replacement = "\\n";
+      } else if (c == '"' && quotes) {
+        replacement = "\\\"";
+      } else {
+        replacement = null;
+      }
+      if (replacement != null && escaped == null) {
+        escaped = new StringBuilder(text.length() + 8).append(text, 0, i);
+      }
+      if (escaped != null) {
+        if (replacement == null) {
+          escaped.append(c);
+        } else {
+          escaped.append(replacement);
+        }
+      }
+    }
+    return escaped == null ? text : escaped.toString();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store;
+
+import org.ehcache.core.spi.service.ExecutionService;
+import org.ehcache.impl.config.store.expiry.ExpirySweeperConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.statistics.StatisticsManager;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.ehcache.impl.internal.executor.ExecutorUtil.shutdown;
+
+/**
+ * Periodically removes expired mappings from a {@link Sweepable} store.
+ * <P>
+ *   Each run examines a bounded number of mappings, resuming where the previous run stopped.  How locks are held is up
+ *   to the store: the off-heap stores collect a batch under the read lock of each segment it spans, holding it for as
+ *   long as it takes to walk the batch's share of the hash table, then take the segment write lock once per expired
+ *   mapping they remove.
+ * </P>
+ */
+public class ExpirySweeper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExpirySweeper.class);
+
+  /**
+   * A store whose expired mappings can be removed incrementally.
+   */
+  public interface Sweepable {
+
+    /**
+     * Examines at most {@code maxMappings} mappings, starting where the previous call stopped, and removes the
+     * expired ones.
+     *
+     * @param maxMappings the maximum number of mappings to examine
+     * @return the number of mappings removed
+     */
+    int sweepExpired(int maxMappings);
+  }
+
+  private final Sweepable store;
+  private final ExecutionService executionService;
+  private final ExpirySweeperConfiguration configuration;
+
+  private final AtomicLong sweepCount = new AtomicLong();
+  private final AtomicLong expiredCount = new AtomicLong();
+
+  private ScheduledExecutorService executor;
+  private ScheduledFuture<?> task;
+
+  public ExpirySweeper(Sweepable store, String statisticsTag, ExecutionService executionService, ExpirySweeperConfiguration configuration) {
+    this.store = store;
+    this.executionService = executionService;
+    this.configuration = configuration;
+    StatisticsManager.createPassThroughStatistic(store, "expirySweepCount", Collections.singleton(statisticsTag), new Callable<Number>() {
+      @Override
+      public Number call() throws Exception {
+        return sweepCount.get();
+      }
+    });
+    StatisticsManager.createPassThroughStatistic(store, "expirySweptMappings", Collections.singleton(statisticsTag), new Callable<Number>() {
+      @Override
+      public Number call() throws Exception {
+        return expiredCount.get();
+      }
+    });
+  }
+
+  public synchronized void start() {
+    if (task != null) {
+      throw new IllegalStateException("Expiry sweeper already started");
+    }
+    executor = executionService.getScheduledExecutor(configuration.getThreadPoolAlias());
+    task = executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        sweep();
+      }
+    }, configuration.getInterval(), configuration.getInterval(), configuration.getIntervalUnit());
+  }
+
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+      // lets a running sweep complete its batch
+      shutdown(executor);
+      executor = null;
+    }
+  }
+
+  void sweep() {
+    try {
+      expiredCount.addAndGet(store.sweepExpired(configuration.getBatchSize()));
+      sweepCount.incrementAndGet();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Exception while sweeping expired mappings", e);
+    }
+  }
+
+  /**
+   * Returns the number of sweeps run so far.
+   *
+   * @return the sweep count
+   */
+  public long getSweepCount() {
+    return sweepCount.get();
+  }
+
+  /**
+   * Returns the number of expired mappings removed by this sweeper.
+   *
+   * @return the removed mapping count
+   */
+  public long getExpiredCount() {
+    return expiredCount.get();
+  }
+}
@@ -16,23 +16,36 @@
 
 package org.ehcache.impl.internal.store.disk;
 
+import org.ehcache.core.spi.service.PartitionedTask;
 import org.terracotta.offheapstore.util.Factory;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.ehcache.core.spi.service.ExecutionService;
 
+/**
+ * Provides the write executors of the disk segments.
+ * <p>
+ * All segments share a single ordered executor, each segment being mapped onto one of {@code threads} partitions so
+ * that writes of a segment stay ordered while up to {@code threads} partitions are written concurrently.  Shutting
+ * down the executor of a segment only stops it from accepting tasks; the shared executor is shut down once the
+ * executors of all segments are.
+ */
 public class DiskWriteThreadPool implements Factory<ExecutorService> {
 
-  private final List<ExecutorService> writers = new CopyOnWriteArrayList<ExecutorService>();
   private final ExecutionService executionService;
   private final String poolAlias;
   private final int threads;
 
-  private int index   = 0;
+  private ExecutorService writer;
+  private int index = 0;
+  private int live = 0;
 
   public DiskWriteThreadPool(ExecutionService executionService, String poolAlias, int threads) {
     this.executionService = executionService;
@@ -41,17 +54,118 @@ public class DiskWriteThreadPool implements Factory<ExecutorService> {
   }
 
   @Override
-  public ExecutorService newInstance() {
-    ExecutorService writer;
-    if (writers.size() < threads) {
+  public synchronized ExecutorService newInstance() {
+    if (writer == null) {
       writer = executionService.getOrderedExecutor(poolAlias, new LinkedBlockingQueue<Runnable>());
-      writers.add(writer);
-    } else {
-      writer = writers.get(index++);
-      if (index == writers.size()) {
-        index = 0;
+    }
+    ExecutorService segmentWriter = new PartitionWriter(writer, index++);
+    if (index == threads) {
+      index = 0;
+    }
+    live++;
+    return segmentWriter;
+  }
+
+  private synchronized void partitionShutdown() {
+    if (--live == 0) {
+      writer.shutdown();
+      writer = null;
+    }
+  }
+
+  /**
+   * Submits the tasks of a segment to the shared writer under the partition of that segment.
+   * <p>
+   * Once shut down, it rejects new tasks and terminates when the tasks it submitted have run.  Even {@link #shutdownNow()}
+   * lets these run, as they sit in the queue of the shared writer among those of other segments.
+   */
+  private class PartitionWriter extends AbstractExecutorService {
+
+    private final ExecutorService writer;
+    private final Integer partition;
+
+    private boolean shutdown;
+    private int pending;
+
+    PartitionWriter(ExecutorService writer, int partition) {
+      this.writer = writer;
+      this.partition = partition;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+      synchronized (this) {
+        if (shutdown) {
+          throw new RejectedExecutionException("Disk segment writer is shut down");
+        }
+        pending++;
+      }
+      try {
+        writer.execute(new PartitionedTask() {
+          @Override
+          public Object getPartition() {
+            return partition;
+          }
+
+          @Override
+          public void run() {
+            try {
+              command.run();
+            } finally {
+              completed();
+            }
+          }
+        });
+      } catch (RuntimeException e) {
+        completed();
+        throw e;
+      }
+    }
+
+    private synchronized void completed() {
+      if (--pending == 0) {
+        notifyAll();
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      synchronized (this) {
+        if (shutdown) {
+          return;
+        }
+        shutdown = true;
+      }
+      partitionShutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown();
+      return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+      return shutdown && pending == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (!isTerminated()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
       }
+      return true;
     }
-    return writer;
   }
 }
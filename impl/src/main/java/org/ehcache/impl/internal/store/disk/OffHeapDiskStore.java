@@ -57,6 +57,7 @@ import org.terracotta.offheapstore.disk.persistent.PersistentPortability;
 import org.terracotta.offheapstore.disk.storage.FileBackedStorageEngine;
 import org.terracotta.offheapstore.storage.portability.Portability;
 import org.terracotta.offheapstore.util.Factory;
+import org.terracotta.statistics.StatisticsManager;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -73,6 +74,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -126,6 +128,14 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
     this.valueSerializer = config.getValueSerializer();
     this.sizeInBytes = sizeInBytes;
 
+    StatisticsManager.createPassThroughStatistic(this, "segmentCount", Collections.singleton("local-disk"), new Callable<Number>() {
+      @Override
+      public Number call() throws Exception {
+        EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> backingMap = map;
+        return backingMap == null ? 0 : backingMap.getSegments().size();
+      }
+    });
+
     if (!status.compareAndSet(Status.UNINITIALIZED, Status.AVAILABLE)) {
       throw new AssertionError();
     }
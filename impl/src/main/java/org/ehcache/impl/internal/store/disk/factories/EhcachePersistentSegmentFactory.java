@@ -16,6 +16,7 @@
 
 package org.ehcache.impl.internal.store.disk.factories;
 
+import org.ehcache.impl.internal.store.offheap.HashTableSegment;
 import org.ehcache.impl.internal.store.offheap.SwitchableEvictionAdvisor;
 import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory.EhcacheSegment;
 import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory.EhcacheSegment.EvictionListener;
@@ -26,6 +27,10 @@ import org.terracotta.offheapstore.disk.persistent.PersistentStorageEngine;
 import org.terracotta.offheapstore.pinning.PinnableSegment;
 import org.terracotta.offheapstore.util.Factory;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 import static org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory.EhcacheSegment.ADVISED_AGAINST_EVICTION;
@@ -64,7 +69,7 @@ public class EhcachePersistentSegmentFactory<K, V> implements Factory<PinnableSe
     }
   }
 
-  public static class EhcachePersistentSegment<K, V> extends PersistentReadWriteLockedOffHeapClockCache<K, V> {
+  public static class EhcachePersistentSegment<K, V> extends PersistentReadWriteLockedOffHeapClockCache<K, V> implements HashTableSegment<K, V> {
 
     private final SwitchableEvictionAdvisor<? super K, ? super V> evictionAdvisor;
     private final EvictionListener<K, V> evictionListener;
@@ -111,5 +116,54 @@ public class EhcachePersistentSegmentFactory<K, V> implements Factory<PinnableSe
         lock.unlock();
       }
     }
+
+    @Override
+    public int collectFromSlot(int slot, int maxMappings, Collection<? super Map.Entry<K, V>> mappings) {
+      Lock lock = readLock();
+      lock.lock();
+      try {
+        IntBuffer table = hashtable;
+        int slots = table.capacity() / ENTRY_SIZE;
+        for (int collected = 0; slot < slots; slot++) {
+          if (collected == maxMappings) {
+            return slot;
+          }
+          int offset = slot * ENTRY_SIZE;
+          if ((table.get(offset + STATUS) & STATUS_USED) != 0) {
+            mappings.add(getEntryAtTableOffset(offset));
+            collected++;
+          }
+        }
+        return -1;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public Collection<K> keysWithHash(int hash) {
+      Lock lock = readLock();
+      lock.lock();
+      try {
+        IntBuffer table = hashtable;
+        Collection<K> keys = new ArrayList<K>();
+        int start = indexFor(spread(hash), table);
+        for (int probed = 0; probed < table.capacity(); probed += ENTRY_SIZE) {
+          int offset = (start + probed) % table.capacity();
+          int status = table.get(offset + STATUS);
+          if (isTerminating(status)) {
+            break;
+          } else if ((status & STATUS_USED) != 0) {
+            K key = getEntryAtTableOffset(offset).getKey();
+            if (key.hashCode() == hash) {
+              keys.add(key);
+            }
+          }
+        }
+        return keys;
+      } finally {
+        lock.unlock();
+      }
+    }
   }
 }
@@ -51,6 +51,17 @@ interface Backend<K, V> {
 
   boolean replace(K key, OnHeapValueHolder<V> oldValue, OnHeapValueHolder<V> newValue);
 
+  /**
+   * Removes all mappings sharing their storage bin with keys of the given hash code.
+   * <P>
+   *   This always includes the mappings whose key has that hash code, but may also include other colliding mappings.
+   * </P>
+   *
+   * @param hash the key hash code
+   * @return the removed mappings
+   */
+  Map<K, OnHeapValueHolder<V>> removeAllWithHash(int hash);
+
   /**
    * Returns the number of mappings
    *
@@ -28,6 +28,7 @@ import org.ehcache.spi.copy.Copier;
 
 import java.util.AbstractMap;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
@@ -170,6 +171,16 @@ class KeyCopyBackend<K, V> implements Backend<K, V> {
     return keyCopyMap.remove(lookupOnlyKey(key));
   }
 
+  @Override
+  public Map<K, OnHeapValueHolder<V>> removeAllWithHash(int hash) {
+    Map<OnHeapKey<K>, OnHeapValueHolder<V>> removed = keyCopyMap.removeAllWithHash(hash);
+    Map<K, OnHeapValueHolder<V>> result = new HashMap<K, OnHeapValueHolder<V>>();
+    for (Map.Entry<OnHeapKey<K>, OnHeapValueHolder<V>> entry : removed.entrySet()) {
+      result.put(entry.getKey().getActualKeyObject(), entry.getValue());
+    }
+    return result;
+  }
+
   @Override
   public OnHeapValueHolder<V> computeIfPresent(final K key, final BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>> computeFunction) {
 
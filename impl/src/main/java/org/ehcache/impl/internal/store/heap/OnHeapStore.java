@@ -26,6 +26,7 @@ import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourcePools;
 import org.ehcache.config.ResourceType;
 import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.events.StoreEventDispatcher;
 import org.ehcache.core.events.StoreEventSink;
 import org.ehcache.core.spi.store.StoreAccessException;
@@ -44,6 +45,7 @@ import org.ehcache.impl.internal.sizeof.NoopSizeOfEngine;
 import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapValueHolder;
 import org.ehcache.impl.internal.store.heap.holders.OnHeapValueHolder;
 import org.ehcache.impl.internal.store.heap.holders.SerializedOnHeapValueHolder;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.core.spi.time.TimeSource;
 import org.ehcache.core.spi.time.TimeSourceService;
 import org.ehcache.sizeof.annotations.IgnoreSizeOf;
@@ -52,7 +54,9 @@ import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.events.StoreEventSource;
 import org.ehcache.core.spi.store.tiering.CachingTier;
 import org.ehcache.core.spi.store.tiering.HigherCachingTier;
+import org.ehcache.impl.config.store.expiry.ExpirySweeperConfiguration;
 import org.ehcache.impl.internal.store.BinaryValueHolder;
+import org.ehcache.impl.internal.store.ExpirySweeper;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.copy.CopyProvider;
 import org.ehcache.spi.service.Service;
@@ -89,8 +93,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.ehcache.core.exceptions.StorePassThroughException.handleRuntimeException;
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
 import static org.ehcache.core.internal.util.ValueSuppliers.supplierOf;
-import static org.terracotta.statistics.StatisticBuilder.operation;
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
 
 /**
  * {@link Store} and {@link HigherCachingTier} implementation for on heap.
@@ -106,7 +111,7 @@ import static org.terracotta.statistics.StatisticBuilder.operation;
  *
  * The storage of mappings is handled by a {@link ConcurrentHashMap} accessed through {@link Backend}.
  */
-public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
+public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V>, ExpirySweeper.Sweepable {
 
   private static final Logger LOG = LoggerFactory.getLogger(OnHeapStore.class);
 
@@ -142,6 +147,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
 
   static final int SAMPLE_SIZE = 8;
   private volatile Backend<K, V> map;
+  private java.util.Iterator<Map.Entry<K, OnHeapValueHolder<V>>> sweepIterator;
 
   private final Class<K> keyType;
   private final Class<V> valueType;
@@ -235,22 +241,23 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     }
     onHeapStoreStatsSettings = new OnHeapStoreStatsSettings(this);
     StatisticsManager.associate(onHeapStoreStatsSettings).withParent(this);
-    getObserver = operation(StoreOperationOutcomes.GetOutcome.class).named("get").of(this).tag("onheap-store").build();
-    putObserver = operation(StoreOperationOutcomes.PutOutcome.class).named("put").of(this).tag("onheap-store").build();
-    removeObserver = operation(StoreOperationOutcomes.RemoveOutcome.class).named("remove").of(this).tag("onheap-store").build();
-    putIfAbsentObserver = operation(StoreOperationOutcomes.PutIfAbsentOutcome.class).named("putIfAbsent").of(this).tag("onheap-store").build();
-    conditionalRemoveObserver = operation(StoreOperationOutcomes.ConditionalRemoveOutcome.class).named("conditionalRemove").of(this).tag("onheap-store").build();
-    replaceObserver = operation(StoreOperationOutcomes.ReplaceOutcome.class).named("replace").of(this).tag("onheap-store").build();
-    conditionalReplaceObserver = operation(StoreOperationOutcomes.ConditionalReplaceOutcome.class).named("conditionalReplace").of(this).tag("onheap-store").build();
-    computeObserver = operation(StoreOperationOutcomes.ComputeOutcome.class).named("compute").of(this).tag("onheap-store").build();
-    computeIfAbsentObserver = operation(StoreOperationOutcomes.ComputeIfAbsentOutcome.class).named("computeIfAbsent").of(this).tag("onheap-store").build();
-    evictionObserver = operation(StoreOperationOutcomes.EvictionOutcome.class).named("eviction").of(this).tag("onheap-store").build();
-    expirationObserver = operation(StoreOperationOutcomes.ExpirationOutcome.class).named("expiration").of(this).tag("onheap-store").build();
-    getOrComputeIfAbsentObserver = operation(CachingTierOperationOutcomes.GetOrComputeIfAbsentOutcome.class).named("getOrComputeIfAbsent").of(this).tag("onheap-store").build();
-    invalidateObserver = operation(CachingTierOperationOutcomes.InvalidateOutcome.class).named("invalidate").of(this).tag("onheap-store").build();
-    invalidateAllObserver = operation(CachingTierOperationOutcomes.InvalidateAllOutcome.class).named("invalidateAll").of(this).tag("onheap-store").build();
-    silentInvalidateObserver = operation(HigherCachingTierOperationOutcomes.SilentInvalidateOutcome.class).named("silentInvalidate").of(this).tag("onheap-store").build();
-    silentInvalidateAllObserver = operation(HigherCachingTierOperationOutcomes.SilentInvalidateAllOutcome.class).named("silentInvalidateAll").of(this).tag("onheap-store").build();
+    StoreStatisticsConfiguration statisticsConfiguration = config.getStatisticsConfiguration();
+    getObserver = operation(StoreOperationOutcomes.GetOutcome.class, statisticsConfiguration).named("get").of(this).tag("onheap-store").build();
+    putObserver = operation(StoreOperationOutcomes.PutOutcome.class, statisticsConfiguration).named("put").of(this).tag("onheap-store").build();
+    removeObserver = operation(StoreOperationOutcomes.RemoveOutcome.class, statisticsConfiguration).named("remove").of(this).tag("onheap-store").build();
+    putIfAbsentObserver = operation(StoreOperationOutcomes.PutIfAbsentOutcome.class, statisticsConfiguration).named("putIfAbsent").of(this).tag("onheap-store").build();
+    conditionalRemoveObserver = operation(StoreOperationOutcomes.ConditionalRemoveOutcome.class, statisticsConfiguration).named("conditionalRemove").of(this).tag("onheap-store").build();
+    replaceObserver = operation(StoreOperationOutcomes.ReplaceOutcome.class, statisticsConfiguration).named("replace").of(this).tag("onheap-store").build();
+    conditionalReplaceObserver = operation(StoreOperationOutcomes.ConditionalReplaceOutcome.class, statisticsConfiguration).named("conditionalReplace").of(this).tag("onheap-store").build();
+    computeObserver = operation(StoreOperationOutcomes.ComputeOutcome.class, statisticsConfiguration).named("compute").of(this).tag("onheap-store").build();
+    computeIfAbsentObserver = operation(StoreOperationOutcomes.ComputeIfAbsentOutcome.class, statisticsConfiguration).named("computeIfAbsent").of(this).tag("onheap-store").build();
+    evictionObserver = operation(StoreOperationOutcomes.EvictionOutcome.class, statisticsConfiguration).named("eviction").of(this).tag("onheap-store").build();
+    expirationObserver = operation(StoreOperationOutcomes.ExpirationOutcome.class, statisticsConfiguration).named("expiration").of(this).tag("onheap-store").build();
+    getOrComputeIfAbsentObserver = operation(CachingTierOperationOutcomes.GetOrComputeIfAbsentOutcome.class, statisticsConfiguration).named("getOrComputeIfAbsent").of(this).tag("onheap-store").build();
+    invalidateObserver = operation(CachingTierOperationOutcomes.InvalidateOutcome.class, statisticsConfiguration).named("invalidate").of(this).tag("onheap-store").build();
+    invalidateAllObserver = operation(CachingTierOperationOutcomes.InvalidateAllOutcome.class, statisticsConfiguration).named("invalidateAll").of(this).tag("onheap-store").build();
+    silentInvalidateObserver = operation(HigherCachingTierOperationOutcomes.SilentInvalidateOutcome.class, statisticsConfiguration).named("silentInvalidate").of(this).tag("onheap-store").build();
+    silentInvalidateAllObserver = operation(HigherCachingTierOperationOutcomes.SilentInvalidateAllOutcome.class, statisticsConfiguration).named("silentInvalidateAll").of(this).tag("onheap-store").build();
     StatisticsManager.createPassThroughStatistic(this, "mappingsCount", Collections.singleton("onheap-store"), new Callable<Number>() {
       @Override
       public Number call() throws Exception {
@@ -887,6 +894,36 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     silentInvalidateAllObserver.end(HigherCachingTierOperationOutcomes.SilentInvalidateAllOutcome.SUCCESS);
   }
 
+  @Override
+  public void invalidateAllWithHash(long hash) throws StoreAccessException {
+    try {
+      Map<K, OnHeapValueHolder<V>> removed = map.removeAllWithHash((int) hash);
+      for (Map.Entry<K, OnHeapValueHolder<V>> entry : removed.entrySet()) {
+        OnHeapValueHolder<V> holder = entry.getValue();
+        if (!(holder instanceof Fault)) {
+          notifyInvalidation(entry.getKey(), holder);
+        }
+        updateUsageInBytesIfRequired(- holder.size());
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+    }
+  }
+
+  @Override
+  public void silentInvalidateAllWithHash(long hash, BiFunction<K, ValueHolder<V>, Void> biFunction) throws StoreAccessException {
+    try {
+      Map<K, OnHeapValueHolder<V>> removed = map.removeAllWithHash((int) hash);
+      for (Map.Entry<K, OnHeapValueHolder<V>> entry : removed.entrySet()) {
+        OnHeapValueHolder<V> holder = entry.getValue();
+        biFunction.apply(entry.getKey(), holder instanceof Fault ? null : holder);
+        updateUsageInBytesIfRequired(- holder.size());
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+    }
+  }
+
   private void notifyInvalidation(final K key, final ValueHolder<V> p) {
     final InvalidationListener<K, V> invalidationListener = this.invalidationListener;
     if(invalidationListener != null) {
@@ -1310,9 +1347,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     return valueHolder;
   }
 
-  private void expireMappingUnderLock(final K key, final ValueHolder<V> value) {
+  private boolean expireMappingUnderLock(final K key, final ValueHolder<V> value) {
 
     final StoreEventSink<K, V> eventSink = storeEventDispatcher.eventSink();
+    final AtomicBoolean expired = new AtomicBoolean(false);
     try {
       map.computeIfPresent(key, new BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>>() {
         @Override
@@ -1320,6 +1358,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
           if(mappedValue.equals(value)) {
             fireOnExpirationEvent(key, value, eventSink);
             updateUsageInBytesIfRequired(- mappedValue.size());
+            expired.set(true);
             return null;
           }
           return mappedValue;
@@ -1330,6 +1369,27 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       storeEventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
       throw re;
     }
+    return expired.get();
+  }
+
+  @Override
+  public int sweepExpired(int maxMappings) {
+    java.util.Iterator<Map.Entry<K, OnHeapValueHolder<V>>> iterator = sweepIterator;
+    if (iterator == null) {
+      iterator = map.entrySetIterator();
+    }
+    long now = timeSource.getTimeMillis();
+    int expired = 0;
+    for (int examined = 0; examined < maxMappings && iterator.hasNext(); examined++) {
+      Map.Entry<K, OnHeapValueHolder<V>> entry = iterator.next();
+      OnHeapValueHolder<V> valueHolder = entry.getValue();
+      if (!(valueHolder instanceof Fault) && valueHolder.isExpired(now, TimeUnit.MILLISECONDS)
+          && expireMappingUnderLock(entry.getKey(), valueHolder)) {
+        expired++;
+      }
+    }
+    sweepIterator = iterator.hasNext() ? iterator : null;
+    return expired;
   }
 
   private OnHeapValueHolder<V> newUpdateValueHolder(K key, OnHeapValueHolder<V> oldValue, V newValue, long now, StoreEventSink<K, V> eventSink) {
@@ -1590,11 +1650,12 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     return (o1 == o2) || (o1 != null && o1.equals(o2));
   }
 
-  @ServiceDependencies({TimeSourceService.class, CopyProvider.class, SizeOfEngineProvider.class})
+  @ServiceDependencies({TimeSourceService.class, CopyProvider.class, SizeOfEngineProvider.class, ExecutionService.class})
   public static class Provider implements Store.Provider, CachingTier.Provider, HigherCachingTier.Provider {
 
     private volatile ServiceProvider<Service> serviceProvider;
     private final Map<Store<?, ?>, List<Copier>> createdStores = new ConcurrentWeakIdentityHashMap<Store<?, ?>, List<Copier>>();
+    private final Map<Store<?, ?>, ExpirySweeper> sweepers = new ConcurrentWeakIdentityHashMap<Store<?, ?>, ExpirySweeper>();
 
     @Override
     public int rank(final Set<ResourceType<?>> resourceTypes, final Collection<ServiceConfiguration<?>> serviceConfigs) {
@@ -1622,6 +1683,12 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
           storeConfig.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getUnit(), serviceConfigs);
       OnHeapStore<K, V> onHeapStore = new OnHeapStore<K, V>(storeConfig, timeSource, keyCopier, valueCopier, sizeOfEngine, eventDispatcher);
       createdStores.put(onHeapStore, copiers);
+
+      ExpirySweeperConfiguration sweeperConfig = findSingletonAmongst(ExpirySweeperConfiguration.class, (Object[]) serviceConfigs);
+      if (sweeperConfig != null) {
+        ExecutionService executionService = serviceProvider.getService(ExecutionService.class);
+        sweepers.put(onHeapStore, new ExpirySweeper(onHeapStore, "onheap-store", executionService, sweeperConfig));
+      }
       return onHeapStore;
     }
 
@@ -1631,6 +1698,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       if (copiers == null) {
         throw new IllegalArgumentException("Given store is not managed by this provider : " + resource);
       }
+      ExpirySweeper sweeper = sweepers.remove(resource);
+      if (sweeper != null) {
+        sweeper.stop();
+      }
       final OnHeapStore onHeapStore = (OnHeapStore)resource;
       close(onHeapStore);
       CopyProvider copyProvider = serviceProvider.getService(CopyProvider.class);
@@ -1650,6 +1721,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     @Override
     public void initStore(Store<?, ?> resource) {
       checkResource(resource);
+      ExpirySweeper sweeper = sweepers.get(resource);
+      if (sweeper != null) {
+        sweeper.start();
+      }
     }
 
     private void checkResource(Object resource) {
@@ -1667,6 +1742,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     public void stop() {
       this.serviceProvider = null;
       createdStores.clear();
+      for (ExpirySweeper sweeper : sweepers.values()) {
+        sweeper.stop();
+      }
+      sweepers.clear();
     }
 
     @Override
@@ -106,6 +106,11 @@ class SimpleBackend<K, V> implements Backend<K, V> {
     return realMap.remove(key);
   }
 
+  @Override
+  public Map<K, OnHeapValueHolder<V>> removeAllWithHash(int hash) {
+    return realMap.removeAllWithHash(hash);
+  }
+
   @Override
   public OnHeapValueHolder<V> computeIfPresent(final K key, final BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>> computeFunction) {
     return realMap.computeIfPresent(key, computeFunction);
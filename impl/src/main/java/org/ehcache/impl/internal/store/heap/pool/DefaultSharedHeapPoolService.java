@@ -0,0 +1,262 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap.pool;
+
+import org.ehcache.Cache;
+import org.ehcache.Status;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.ResourceUnit;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
+import org.ehcache.core.events.CacheManagerListener;
+import org.ehcache.core.spi.service.CacheManagerProviderService;
+import org.ehcache.core.spi.service.ExecutionService;
+import org.ehcache.core.spi.store.InternalCacheManager;
+import org.ehcache.core.spi.store.heap.SharedHeapPoolService;
+import org.ehcache.core.statistics.CacheOperationOutcomes.GetOutcome;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.ehcache.core.statistics.StoreOperationOutcomes.EvictionOutcome;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceDependencies;
+import org.ehcache.spi.service.ServiceProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.context.ContextManager;
+import org.terracotta.context.TreeNode;
+import org.terracotta.context.query.Matcher;
+import org.terracotta.context.query.Matchers;
+import org.terracotta.context.query.Query;
+import org.terracotta.statistics.OperationStatistic;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
+import static org.ehcache.impl.internal.executor.ExecutorUtil.shutdownNow;
+import static org.terracotta.context.query.Matchers.attributes;
+import static org.terracotta.context.query.Matchers.context;
+import static org.terracotta.context.query.Matchers.hasAttribute;
+import static org.terracotta.context.query.QueryBuilder.queryBuilder;
+
+/**
+ * Default {@link SharedHeapPoolService}, resizing the heap tier of the caches configured with a
+ * {@link SharedHeapPoolConfiguration} through their runtime configuration.
+ */
+@ServiceDependencies({CacheManagerProviderService.class, ExecutionService.class})
+public class DefaultSharedHeapPoolService implements SharedHeapPoolService, CacheManagerListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultSharedHeapPoolService.class);
+
+  private final SharedHeapPoolServiceConfiguration configuration;
+  private final SharedHeapPool pool;
+
+  private volatile InternalCacheManager cacheManager;
+  private ScheduledExecutorService executor;
+  private ScheduledFuture<?> task;
+
+  public DefaultSharedHeapPoolService(SharedHeapPoolServiceConfiguration configuration) {
+    this.configuration = configuration;
+    this.pool = new SharedHeapPool(toBaseUnit(configuration.getSize(), configuration.getUnit()));
+  }
+
+  @Override
+  public void start(ServiceProvider<Service> serviceProvider) {
+    this.cacheManager = serviceProvider.getService(CacheManagerProviderService.class).getCacheManager();
+    this.executor = serviceProvider.getService(ExecutionService.class).getScheduledExecutor(configuration.getThreadPoolAlias());
+    this.task = this.executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          rebalance();
+        } catch (RuntimeException e) {
+          LOGGER.warn("Exception while rebalancing the shared heap", e);
+        }
+      }
+    }, configuration.getRebalanceInterval(), configuration.getRebalanceInterval(), configuration.getRebalanceIntervalUnit());
+
+    this.cacheManager.registerListener(this);
+  }
+
+  @Override
+  public void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    if (executor != null) {
+      shutdownNow(executor);
+      executor = null;
+    }
+    // caches closed with the cache manager do not fire cacheRemoved
+    pool.clear();
+  }
+
+  @Override
+  public Map<String, Long> getAllocations() {
+    return pool.allocations();
+  }
+
+  @Override
+  public void rebalance() {
+    pool.rebalance();
+  }
+
+  @Override
+  public void cacheAdded(String alias, Cache<?, ?> cache) {
+    SharedHeapPoolConfiguration cacheConfiguration = findSingletonAmongst(SharedHeapPoolConfiguration.class,
+        cache.getRuntimeConfiguration().getServiceConfigurations());
+    if (cacheConfiguration == null) {
+      return;
+    }
+    SizedResourcePool heap = cache.getRuntimeConfiguration().getResourcePools().getPoolForResource(ResourceType.Core.HEAP);
+    if (heap == null || !heap.getUnit().getClass().equals(configuration.getUnit().getClass())) {
+      LOGGER.warn("Cache '{}' cannot join the shared heap: its heap tier is not sized in {}", alias, configuration.getUnit());
+      return;
+    }
+    StoreStatisticsConfiguration statisticsConfiguration = findSingletonAmongst(StoreStatisticsConfiguration.class,
+        cache.getRuntimeConfiguration().getServiceConfigurations());
+    if (statisticsConfiguration != null && statisticsConfiguration.getStatisticsLevel() == StatisticsLevel.OFF) {
+      LOGGER.warn("Cache '{}' cannot join the shared heap: its statistics are {}", alias, StatisticsLevel.OFF);
+      return;
+    }
+    OperationStatistic<GetOutcome> getStatistic = findStatistic(cache, GetOutcome.class, "get", null);
+    OperationStatistic<EvictionOutcome> evictionStatistic = findStatistic(cache, EvictionOutcome.class, "eviction", "onheap-store");
+    if (getStatistic == null || evictionStatistic == null) {
+      LOGGER.warn("Cache '{}' cannot join the shared heap: its {} statistic cannot be found",
+          alias, getStatistic == null ? "get" : "heap eviction");
+      return;
+    }
+    CacheMember member = new CacheMember(alias, cache, getStatistic, evictionStatistic,
+        toBaseUnit(cacheConfiguration.getMin(), configuration.getUnit()),
+        toBaseUnit(cacheConfiguration.getMax(), configuration.getUnit()),
+        toBaseUnit(heap.getSize(), heap.getUnit()));
+    if (!pool.join(member)) {
+      LOGGER.warn("Cache '{}' cannot join the shared heap: its reservation of {} {} cannot be honoured",
+          alias, cacheConfiguration.getMin(), configuration.getUnit());
+    }
+  }
+
+  @Override
+  public void cacheRemoved(String alias, Cache<?, ?> cache) {
+    pool.leave(alias);
+  }
+
+  @Override
+  public void stateTransition(Status from, Status to) {
+    switch (to) {
+      case AVAILABLE:
+        // caches created at init do not fire cacheAdded as the cache manager is still transitioning
+        Set<String> joined = pool.allocations().keySet();
+        for (Map.Entry<String, CacheConfiguration<?, ?>> entry : cacheManager.getRuntimeConfiguration().getCacheConfigurations().entrySet()) {
+          if (joined.contains(entry.getKey())) {
+            continue;
+          }
+          CacheConfiguration<?, ?> cacheConfiguration = entry.getValue();
+          cacheAdded(entry.getKey(), cacheManager.getCache(entry.getKey(), cacheConfiguration.getKeyType(), cacheConfiguration.getValueType()));
+        }
+        break;
+      case UNINITIALIZED:
+        cacheManager.deregisterListener(this);
+        break;
+      case MAINTENANCE:
+        break;
+      default:
+        throw new AssertionError(to);
+    }
+  }
+
+  private static long toBaseUnit(long size, ResourceUnit unit) {
+    if (unit instanceof MemoryUnit && size != Long.MAX_VALUE) {
+      return ((MemoryUnit) unit).toBytes(size);
+    } else {
+      return size;
+    }
+  }
+
+  private ResourceUnit baseUnit() {
+    return configuration.getUnit() instanceof MemoryUnit ? MemoryUnit.B : EntryUnit.ENTRIES;
+  }
+
+  private class CacheMember extends SharedHeapPool.Member {
+
+    private final String alias;
+    private final Cache<?, ?> cache;
+    private final OperationStatistic<GetOutcome> getStatistic;
+    private final OperationStatistic<EvictionOutcome> evictionStatistic;
+
+    CacheMember(String alias, Cache<?, ?> cache, OperationStatistic<GetOutcome> getStatistic,
+                OperationStatistic<EvictionOutcome> evictionStatistic, long min, long max, long allocation) {
+      super(alias, min, max, allocation);
+      this.alias = alias;
+      this.cache = cache;
+      this.getStatistic = getStatistic;
+      this.evictionStatistic = evictionStatistic;
+    }
+
+    @Override
+    long misses() {
+      return getStatistic.sum(EnumSet.of(GetOutcome.MISS_NO_LOADER, GetOutcome.MISS_WITH_LOADER));
+    }
+
+    @Override
+    long evictions() {
+      return evictionStatistic.count(EvictionOutcome.SUCCESS);
+    }
+
+    @Override
+    boolean resize(long size) {
+      try {
+        cache.getRuntimeConfiguration().updateResourcePools(newResourcePoolsBuilder().heap(size, baseUnit()).build());
+        return true;
+      } catch (IllegalArgumentException e) {
+        LOGGER.debug("Heap tier of cache '{}' cannot be resized to {} {}", alias, size, baseUnit(), e);
+        return false;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Enum<T>> OperationStatistic<T> findStatistic(Cache<?, ?> cache, Class<T> type, String name, final String tag) {
+    Matcher<Map<String, Object>> attributesMatcher;
+    if (tag == null) {
+      attributesMatcher = Matchers.<Map<String, Object>>allOf(hasAttribute("name", name), hasAttribute("type", type));
+    } else {
+      attributesMatcher = Matchers.<Map<String, Object>>allOf(hasAttribute("name", name), hasAttribute("type", type),
+          hasAttribute("tags", new Matcher<Set<String>>() {
+            @Override
+            protected boolean matchesSafely(Set<String> tags) {
+              return tags.contains(tag);
+            }
+          }));
+    }
+    Query query = queryBuilder().descendants().filter(context(attributes(attributesMatcher))).build();
+    Set<TreeNode> result = query.execute(Collections.singleton(ContextManager.nodeFor(cache)));
+    if (result.size() != 1) {
+      return null;
+    }
+    return (OperationStatistic<T>) result.iterator().next().getContext().attributes().get("this");
+  }
+}
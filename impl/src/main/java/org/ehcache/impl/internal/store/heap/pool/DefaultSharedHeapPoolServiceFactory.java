@@ -0,0 +1,40 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap.pool;
+
+import org.ehcache.core.spi.service.ServiceFactory;
+import org.ehcache.core.spi.store.heap.SharedHeapPoolService;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+
+/**
+ * {@link ServiceFactory} for the {@link DefaultSharedHeapPoolService}.
+ */
+public class DefaultSharedHeapPoolServiceFactory implements ServiceFactory<SharedHeapPoolService> {
+
+  @Override
+  public SharedHeapPoolService create(ServiceCreationConfiguration<SharedHeapPoolService> configuration) {
+    if (!(configuration instanceof SharedHeapPoolServiceConfiguration)) {
+      throw new IllegalArgumentException("A shared heap pool requires a " + SharedHeapPoolServiceConfiguration.class.getSimpleName());
+    }
+    return new DefaultSharedHeapPoolService((SharedHeapPoolServiceConfiguration) configuration);
+  }
+
+  @Override
+  public Class<SharedHeapPoolService> getServiceType() {
+    return SharedHeapPoolService.class;
+  }
+}
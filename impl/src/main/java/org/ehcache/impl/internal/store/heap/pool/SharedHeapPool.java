@@ -0,0 +1,284 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a fixed capacity between {@link Member members}.
+ * <P>
+ *   When a member joins, it is granted an even share of the capacity, or its reservation if higher, within its limit.
+ *   That grant comes from the unallocated capacity first, then from the unreserved capacity of the other members in
+ *   proportion to what each holds, so that they keep their rebalanced sizes as far as possible. When a member leaves,
+ *   its capacity is spread evenly over the remaining members. In both cases, any capacity left unallocated is spread
+ *   evenly up to each member limit.
+ * </P>
+ * <P>
+ *   Each rebalance estimates, for every member, the misses caused by a lack of capacity since the previous rebalance
+ *   &mdash; the lower of its miss and eviction counts &mdash; per unit of capacity held. Members are then paired from
+ *   both ends of that ranking, each donor handing a tenth of its unreserved capacity to its receiver, as long as the
+ *   receiver gains more than the donor.
+ * </P>
+ */
+class SharedHeapPool {
+
+  static final double REBALANCE_FRACTION = 0.1d;
+
+  private final long capacity;
+  private final Map<String, Member> members = new LinkedHashMap<String, Member>();
+
+  SharedHeapPool(long capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Adds a member to the pool, unless the pool cannot honour its reservation.
+   *
+   * @param member the joining member
+   * @return {@code true} if the member joined, {@code false} if its reservation cannot be honoured
+   * @throws IllegalArgumentException if a member with the same alias already joined
+   */
+  synchronized boolean join(Member member) {
+    if (members.containsKey(member.alias)) {
+      throw new IllegalArgumentException("Member '" + member.alias + "' already joined the pool");
+    }
+    long reserved = member.min;
+    for (Member m : members.values()) {
+      reserved += m.min;
+    }
+    if (reserved > capacity) {
+      return false;
+    }
+
+    Map<Member, Long> targets = new LinkedHashMap<Member, Long>();
+    long allocated = 0L;
+    long spare = 0L;
+    for (Member m : members.values()) {
+      targets.put(m, m.allocation);
+      allocated += m.allocation;
+      spare += m.allocation - m.min;
+    }
+    long grant = Math.min(Math.min(member.max, Math.max(member.min, capacity / (members.size() + 1))), capacity - allocated + spare);
+    long shortfall = grant - (capacity - allocated);
+    long needed = shortfall;
+    for (Map.Entry<Member, Long> target : targets.entrySet()) {
+      if (needed <= 0) {
+        break;
+      }
+      long memberSpare = target.getValue() - target.getKey().min;
+      long taken = Math.min(Math.min(needed, memberSpare), (long) Math.ceil((double) shortfall * memberSpare / spare));
+      target.setValue(target.getValue() - taken);
+      needed -= taken;
+    }
+
+    members.put(member.alias, member);
+    member.snapshot();
+    targets.put(member, grant);
+    long remaining = capacity;
+    for (long target : targets.values()) {
+      remaining -= target;
+    }
+    fill(targets, remaining);
+    apply(targets);
+    return true;
+  }
+
+  /**
+   * Removes a member from the pool, handing its capacity to the remaining members.
+   *
+   * @param alias the leaving member alias
+   */
+  synchronized void leave(String alias) {
+    if (members.remove(alias) == null) {
+      return;
+    }
+    Map<Member, Long> targets = new LinkedHashMap<Member, Long>();
+    long allocated = 0L;
+    for (Member m : members.values()) {
+      targets.put(m, m.allocation);
+      allocated += m.allocation;
+    }
+    fill(targets, capacity - allocated);
+    apply(targets);
+  }
+
+  /**
+   * Removes all members from the pool, leaving their capacity as it is.
+   */
+  synchronized void clear() {
+    members.clear();
+  }
+
+  synchronized void rebalance() {
+    List<Member> ranked = new ArrayList<Member>(members.values());
+    for (Member member : ranked) {
+      member.measure();
+    }
+    Collections.sort(ranked, new Comparator<Member>() {
+      @Override
+      public int compare(Member a, Member b) {
+        return Double.compare(a.gain, b.gain);
+      }
+    });
+
+    for (int donorIndex = 0, receiverIndex = ranked.size() - 1; donorIndex < receiverIndex; donorIndex++, receiverIndex--) {
+      Member donor = ranked.get(donorIndex);
+      Member receiver = ranked.get(receiverIndex);
+      if (receiver.gain <= donor.gain) {
+        break;
+      }
+      long spare = donor.allocation - donor.min;
+      long amount = Math.min(Math.max(1L, (long) (spare * REBALANCE_FRACTION)), Math.min(spare, receiver.max - receiver.allocation));
+      if (amount <= 0) {
+        continue;
+      }
+      if (donor.resizeTo(donor.allocation - amount)) {
+        if (!receiver.resizeTo(receiver.allocation + amount)) {
+          donor.resizeTo(donor.allocation + amount);
+        }
+      }
+    }
+  }
+
+  synchronized Map<String, Long> allocations() {
+    Map<String, Long> allocations = new LinkedHashMap<String, Long>();
+    for (Member member : members.values()) {
+      allocations.put(member.alias, member.allocation);
+    }
+    return allocations;
+  }
+
+  private static void fill(Map<Member, Long> targets, long remaining) {
+    while (remaining > 0) {
+      List<Member> growable = new ArrayList<Member>();
+      for (Map.Entry<Member, Long> target : targets.entrySet()) {
+        if (target.getValue() < target.getKey().max) {
+          growable.add(target.getKey());
+        }
+      }
+      if (growable.isEmpty()) {
+        return;
+      }
+      long share = Math.max(1L, remaining / growable.size());
+      for (Member member : growable) {
+        long current = targets.get(member);
+        long grant = Math.min(Math.min(share, remaining), member.max - current);
+        targets.put(member, current + grant);
+        remaining -= grant;
+        if (remaining == 0) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static void apply(Map<Member, Long> targets) {
+    // shrink first so that the pool capacity is never exceeded, even transiently
+    for (Map.Entry<Member, Long> target : targets.entrySet()) {
+      if (target.getValue() < target.getKey().allocation) {
+        target.getKey().resizeTo(target.getValue());
+      }
+    }
+    for (Map.Entry<Member, Long> target : targets.entrySet()) {
+      if (target.getValue() > target.getKey().allocation) {
+        target.getKey().resizeTo(target.getValue());
+      }
+    }
+  }
+
+  /**
+   * A party to the pool, typically the heap tier of a cache.
+   */
+  abstract static class Member {
+
+    private final String alias;
+    private final long min;
+    private final long max;
+
+    private long allocation;
+    private long lastMisses;
+    private long lastEvictions;
+    private double gain;
+
+    /**
+     * Creates a new member.
+     *
+     * @param alias the member alias
+     * @param min the reserved capacity, raised to {@code 1} if lower
+     * @param max the capacity limit
+     * @param allocation the capacity held before joining
+     */
+    Member(String alias, long min, long max, long allocation) {
+      this.alias = alias;
+      this.min = Math.max(1L, min);
+      this.max = Math.max(this.min, max);
+      this.allocation = allocation;
+    }
+
+    /**
+     * Returns the number of misses observed since this member was created.
+     *
+     * @return the miss count
+     */
+    abstract long misses();
+
+    /**
+     * Returns the number of evictions observed since this member was created.
+     *
+     * @return the eviction count
+     */
+    abstract long evictions();
+
+    /**
+     * Applies a new capacity.
+     *
+     * @param size the new capacity
+     * @return {@code true} if the capacity was applied
+     */
+    abstract boolean resize(long size);
+
+    long allocation() {
+      return allocation;
+    }
+
+    private boolean resizeTo(long size) {
+      if (resize(size)) {
+        allocation = size;
+        return true;
+      } else {
+        return false;
+      }
+    }
+
+    private void snapshot() {
+      lastMisses = misses();
+      lastEvictions = evictions();
+    }
+
+    private void measure() {
+      long misses = misses();
+      long evictions = evictions();
+      gain = (double) Math.min(misses - lastMisses, evictions - lastEvictions) / allocation;
+      lastMisses = misses;
+      lastEvictions = evictions;
+    }
+  }
+}
@@ -16,17 +16,23 @@
 
 package org.ehcache.impl.internal.store.offheap;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 
 import org.ehcache.Cache;
 import org.ehcache.config.EvictionAdvisor;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.events.StoreEventDispatcher;
 import org.ehcache.core.events.StoreEventSink;
 import org.ehcache.core.spi.store.StoreAccessException;
@@ -36,6 +42,7 @@ import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.function.NullaryFunction;
 import org.ehcache.core.spi.time.TimeSource;
+import org.ehcache.impl.internal.store.ExpirySweeper;
 import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.events.StoreEventSource;
@@ -48,15 +55,16 @@ import org.ehcache.core.statistics.StoreOperationOutcomes;
 import org.ehcache.impl.internal.store.BinaryValueHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terracotta.offheapstore.Segment;
 import org.terracotta.offheapstore.exceptions.OversizeMappingException;
 import org.terracotta.statistics.StatisticsManager;
 import org.terracotta.statistics.observer.OperationObserver;
 
 import static org.ehcache.core.exceptions.StorePassThroughException.handleRuntimeException;
 import static org.ehcache.core.internal.util.ValueSuppliers.supplierOf;
-import static org.terracotta.statistics.StatisticBuilder.operation;
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
 
-public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K, V>, LowerCachingTier<K, V> {
+public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K, V>, LowerCachingTier<K, V>, ExpirySweeper.Sweepable {
 
   private static final Logger LOG = LoggerFactory.getLogger(AbstractOffHeapStore.class);
 
@@ -67,6 +75,8 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     }
   };
 
+  private static final Object ANY_MAPPING = new Object();
+
   private final Class<K> keyType;
   private final Class<V> valueType;
   private final TimeSource timeSource;
@@ -98,6 +108,9 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
   private volatile InvalidationValve valve;
   protected BackingMapEvictionListener<K, V> mapEvictionListener;
   private volatile CachingTier.InvalidationListener<K, V> invalidationListener = NULL_INVALIDATION_LISTENER;
+  private int sweepSegment;
+  private int sweepSlot;
+  private long sweepTableCapacity;
 
   public AbstractOffHeapStore(String statisticsTag, Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher) {
     keyType = config.getKeyType();
@@ -107,26 +120,27 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     this.timeSource = timeSource;
     this.eventDispatcher = eventDispatcher;
 
-    this.getObserver = operation(StoreOperationOutcomes.GetOutcome.class).of(this).named("get").tag(statisticsTag).build();
-    this.putObserver = operation(StoreOperationOutcomes.PutOutcome.class).of(this).named("put").tag(statisticsTag).build();
-    this.putIfAbsentObserver = operation(StoreOperationOutcomes.PutIfAbsentOutcome.class).of(this).named("putIfAbsent").tag(statisticsTag).build();
-    this.removeObserver = operation(StoreOperationOutcomes.RemoveOutcome.class).of(this).named("remove").tag(statisticsTag).build();
-    this.conditionalRemoveObserver = operation(StoreOperationOutcomes.ConditionalRemoveOutcome.class).of(this).named("conditionalRemove").tag(statisticsTag).build();
-    this.replaceObserver = operation(StoreOperationOutcomes.ReplaceOutcome.class).of(this).named("replace").tag(statisticsTag).build();
-    this.conditionalReplaceObserver = operation(StoreOperationOutcomes.ConditionalReplaceOutcome.class).of(this).named("conditionalReplace").tag(statisticsTag).build();
-    this.computeObserver = operation(StoreOperationOutcomes.ComputeOutcome.class).of(this).named("compute").tag(statisticsTag).build();
-    this.computeIfAbsentObserver = operation(StoreOperationOutcomes.ComputeIfAbsentOutcome.class).of(this).named("computeIfAbsent").tag(statisticsTag).build();
-    this.evictionObserver = operation(StoreOperationOutcomes.EvictionOutcome.class).of(this).named("eviction").tag(statisticsTag).build();
-    this.expirationObserver = operation(StoreOperationOutcomes.ExpirationOutcome.class).of(this).named("expiration").tag(statisticsTag).build();
-
-    this.getAndFaultObserver = operation(AuthoritativeTierOperationOutcomes.GetAndFaultOutcome.class).of(this).named("getAndFault").tag(statisticsTag).build();
-    this.computeIfAbsentAndFaultObserver = operation(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.class).of(this).named("computeIfAbsentAndFault").tag(statisticsTag).build();
-    this.flushObserver = operation(AuthoritativeTierOperationOutcomes.FlushOutcome.class).of(this).named("flush").tag(statisticsTag).build();
-
-    this.invalidateObserver = operation(LowerCachingTierOperationsOutcome.InvalidateOutcome.class).of(this).named("invalidate").tag(statisticsTag).build();
-    this.invalidateAllObserver = operation(LowerCachingTierOperationsOutcome.InvalidateAllOutcome.class).of(this).named("invalidateAll").tag(statisticsTag).build();
-    this.getAndRemoveObserver= operation(LowerCachingTierOperationsOutcome.GetAndRemoveOutcome.class).of(this).named("getAndRemove").tag(statisticsTag).build();
-    this.installMappingObserver= operation(LowerCachingTierOperationsOutcome.InstallMappingOutcome.class).of(this).named("installMapping").tag(statisticsTag).build();
+    StoreStatisticsConfiguration statisticsConfiguration = config.getStatisticsConfiguration();
+    this.getObserver = operation(StoreOperationOutcomes.GetOutcome.class, statisticsConfiguration).of(this).named("get").tag(statisticsTag).build();
+    this.putObserver = operation(StoreOperationOutcomes.PutOutcome.class, statisticsConfiguration).of(this).named("put").tag(statisticsTag).build();
+    this.putIfAbsentObserver = operation(StoreOperationOutcomes.PutIfAbsentOutcome.class, statisticsConfiguration).of(this).named("putIfAbsent").tag(statisticsTag).build();
+    this.removeObserver = operation(StoreOperationOutcomes.RemoveOutcome.class, statisticsConfiguration).of(this).named("remove").tag(statisticsTag).build();
+    this.conditionalRemoveObserver = operation(StoreOperationOutcomes.ConditionalRemoveOutcome.class, statisticsConfiguration).of(this).named("conditionalRemove").tag(statisticsTag).build();
+    this.replaceObserver = operation(StoreOperationOutcomes.ReplaceOutcome.class, statisticsConfiguration).of(this).named("replace").tag(statisticsTag).build();
+    this.conditionalReplaceObserver = operation(StoreOperationOutcomes.ConditionalReplaceOutcome.class, statisticsConfiguration).of(this).named("conditionalReplace").tag(statisticsTag).build();
+    this.computeObserver = operation(StoreOperationOutcomes.ComputeOutcome.class, statisticsConfiguration).of(this).named("compute").tag(statisticsTag).build();
+    this.computeIfAbsentObserver = operation(StoreOperationOutcomes.ComputeIfAbsentOutcome.class, statisticsConfiguration).of(this).named("computeIfAbsent").tag(statisticsTag).build();
+    this.evictionObserver = operation(StoreOperationOutcomes.EvictionOutcome.class, statisticsConfiguration).of(this).named("eviction").tag(statisticsTag).build();
+    this.expirationObserver = operation(StoreOperationOutcomes.ExpirationOutcome.class, statisticsConfiguration).of(this).named("expiration").tag(statisticsTag).build();
+
+    this.getAndFaultObserver = operation(AuthoritativeTierOperationOutcomes.GetAndFaultOutcome.class, statisticsConfiguration).of(this).named("getAndFault").tag(statisticsTag).build();
+    this.computeIfAbsentAndFaultObserver = operation(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.class, statisticsConfiguration).of(this).named("computeIfAbsentAndFault").tag(statisticsTag).build();
+    this.flushObserver = operation(AuthoritativeTierOperationOutcomes.FlushOutcome.class, statisticsConfiguration).of(this).named("flush").tag(statisticsTag).build();
+
+    this.invalidateObserver = operation(LowerCachingTierOperationsOutcome.InvalidateOutcome.class, statisticsConfiguration).of(this).named("invalidate").tag(statisticsTag).build();
+    this.invalidateAllObserver = operation(LowerCachingTierOperationsOutcome.InvalidateAllOutcome.class, statisticsConfiguration).of(this).named("invalidateAll").tag(statisticsTag).build();
+    this.getAndRemoveObserver= operation(LowerCachingTierOperationsOutcome.GetAndRemoveOutcome.class, statisticsConfiguration).of(this).named("getAndRemove").tag(statisticsTag).build();
+    this.installMappingObserver= operation(LowerCachingTierOperationsOutcome.InstallMappingOutcome.class, statisticsConfiguration).of(this).named("installMapping").tag(statisticsTag).build();
 
     StatisticsManager.createPassThroughStatistic(this, "allocatedMemory", Collections.singleton(statisticsTag), new Callable<Number>() {
       @Override
@@ -604,6 +618,18 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
 
   @Override
   public ValueHolder<V> compute(final K key, final BiFunction<? super K, ? super V, ? extends V> mappingFunction, final NullaryFunction<Boolean> replaceEqual) throws StoreAccessException {
+    return compute(key, mappingFunction, replaceEqual, true, ANY_MAPPING);
+  }
+
+  /**
+   * Computes a mapping, optionally without making room when the mapping does not fit, and optionally only over the
+   * mapping identified by {@code expected}, as returned by {@link #witness(OffHeapValueHolder)}.  A mapping other than
+   * the expected one is kept as is, and the mapping function not applied.
+   *
+   * @throws OversizeMappingException if {@code makeRoom} is {@code false} and the mapping does not fit
+   */
+  private ValueHolder<V> compute(final K key, final BiFunction<? super K, ? super V, ? extends V> mappingFunction, final NullaryFunction<Boolean> replaceEqual,
+                                 boolean makeRoom, final Object expected) throws StoreAccessException {
     computeObserver.begin();
     checkKey(key);
 
@@ -613,6 +639,9 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> computeFunction = new BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
       @Override
       public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
+        if (expected != ANY_MAPPING && !sameWitness(expected, witness(mappedValue))) {
+          return mappedValue;
+        }
         long now = timeSource.getTimeMillis();
         V existingValue = null;
         if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
@@ -658,7 +687,7 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
 
     OffHeapValueHolder<V> result;
     try {
-      result = computeWithRetry(key, computeFunction, false);
+      result = makeRoom ? computeWithRetry(key, computeFunction, false) : computeWithoutRetry(key, computeFunction);
       if (result == null && valueHeld.get() != null) {
         result = valueHeld.get();
       }
@@ -775,47 +804,213 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     return bulkCompute(keys, remappingFunction, REPLACE_EQUALS_TRUE);
   }
 
+  /**
+   * {@inheritDoc}
+   * <P>
+   *   Keys are grouped by segment and each group is computed under a single acquisition of its segment write lock.
+   * </P>
+   * <P>
+   *   The mappings of a group handed to an {@link Store.OptimisticRemappingFunction} are read under a single acquisition
+   *   of its segment write lock, then remapped in one call with no lock held, as the function may run loaders and
+   *   writers. The computed mappings are installed under a single acquisition of the lock again, but over mappings left
+   *   unchanged only.
+   * </P>
+   */
   @Override
   public Map<K, ValueHolder<V>> bulkCompute(Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction, NullaryFunction<Boolean> replaceEqual) throws StoreAccessException {
+    if (remappingFunction instanceof Store.OptimisticRemappingFunction) {
+      @SuppressWarnings("unchecked")
+      Store.OptimisticRemappingFunction<K, V> optimisticFunction = (Store.OptimisticRemappingFunction<K, V>) remappingFunction;
+      return optimisticBulkCompute(keys, optimisticFunction, replaceEqual);
+    }
+    BiFunction<K, V, V> biFunction = new BiFunction<K, V, V>() {
+      @Override
+      public V apply(final K k, final V v) {
+        Map.Entry<K, V> entry = new Map.Entry<K, V>() {
+          @Override
+          public K getKey() {
+            return k;
+          }
+
+          @Override
+          public V getValue() {
+            return v;
+          }
+
+          @Override
+          public V setValue(V value) {
+            throw new UnsupportedOperationException();
+          }
+        };
+        java.util.Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator = remappingFunction.apply(Collections
+            .singleton(entry)).iterator();
+        Map.Entry<? extends K, ? extends V> result = iterator.next();
+        if (result != null) {
+          checkKey(result.getKey());
+          return result.getValue();
+        } else {
+          return null;
+        }
+      }
+    };
+
+    EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap = backingMap();
+    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    List<? extends Segment<K, OffHeapValueHolder<V>>> segments = backingMap.getSegments();
+    for (Map.Entry<Integer, List<K>> segmentKeys : keysBySegment(backingMap, keys).entrySet()) {
+      List<K> pending = segmentKeys.getValue();
+      Lock lock = segments.get(segmentKeys.getKey()).writeLock();
+      int computed = 0;
+      lock.lock();
+      try {
+        for (K key : pending) {
+          result.put(key, compute(key, biFunction, replaceEqual, false, ANY_MAPPING));
+          computed++;
+        }
+      } catch (OversizeMappingException e) {
+        // making room can take other segment locks, so the rest of this segment is computed without holding its lock
+      } finally {
+        lock.unlock();
+      }
+      for (K key : pending.subList(computed, pending.size())) {
+        result.put(key, compute(key, biFunction, replaceEqual));
+      }
+    }
+    return result;
+  }
+
+  private Map<K, ValueHolder<V>> optimisticBulkCompute(Set<? extends K> keys, Store.OptimisticRemappingFunction<K, V> remappingFunction,
+                                                       NullaryFunction<Boolean> replaceEqual) throws StoreAccessException {
+    EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap = backingMap();
     Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    List<? extends Segment<K, OffHeapValueHolder<V>>> segments = backingMap.getSegments();
+    for (Map.Entry<Integer, List<K>> segmentKeys : keysBySegment(backingMap, keys).entrySet()) {
+      List<K> pending = segmentKeys.getValue();
+      Map<K, V> existing = new LinkedHashMap<K, V>();
+      Map<K, Object> witnesses = new HashMap<K, Object>();
+      Lock lock = segments.get(segmentKeys.getKey()).writeLock();
+      lock.lock();
+      try {
+        long now = timeSource.getTimeMillis();
+        for (K key : pending) {
+          OffHeapValueHolder<V> mapping = backingMap.get(key);
+          witnesses.put(key, witness(mapping));
+          existing.put(key, mapping == null || mapping.isExpired(now, TimeUnit.MILLISECONDS) ? null : mapping.value());
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      Map<K, V> computed = remap(remappingFunction, existing);
+
+      int installed = 0;
+      lock.lock();
+      try {
+        for (K key : pending) {
+          result.put(key, install(key, existing.get(key), computed.get(key), witnesses.get(key), remappingFunction, replaceEqual, false));
+          installed++;
+        }
+      } catch (OversizeMappingException e) {
+        // making room can take other segment locks, so the rest of this segment is installed without holding its lock
+      } finally {
+        lock.unlock();
+      }
+      for (K key : pending.subList(installed, pending.size())) {
+        result.put(key, install(key, existing.get(key), computed.get(key), witnesses.get(key), remappingFunction, replaceEqual, true));
+      }
+    }
+    return result;
+  }
+
+  private Map<Integer, List<K>> keysBySegment(EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap, Set<? extends K> keys) {
+    Map<Integer, List<K>> keysBySegment = new TreeMap<Integer, List<K>>();
     for (K key : keys) {
       checkKey(key);
-      BiFunction<K, V, V> biFunction = new BiFunction<K, V, V>() {
-        @Override
-        public V apply(final K k, final V v) {
-          Map.Entry<K, V> entry = new Map.Entry<K, V>() {
-            @Override
-            public K getKey() {
-              return k;
-            }
+      int index = backingMap.getIndexFor(key.hashCode());
+      List<K> segmentKeys = keysBySegment.get(index);
+      if (segmentKeys == null) {
+        segmentKeys = new ArrayList<K>();
+        keysBySegment.put(index, segmentKeys);
+      }
+      segmentKeys.add(key);
+    }
+    return keysBySegment;
+  }
 
-            @Override
-            public V getValue() {
-              return v;
-            }
+  /**
+   * Returns what tells the value of a mapping apart: its binary form where there is one, so that values not
+   * implementing {@code equals} can be compared.  Must be called under the segment lock.
+   */
+  private static Object witness(OffHeapValueHolder<?> mapping) {
+    if (mapping == null) {
+      return null;
+    } else if (mapping instanceof BinaryValueHolder) {
+      BinaryValueHolder binaryMapping = (BinaryValueHolder) mapping;
+      if (!binaryMapping.isBinaryValueAvailable()) {
+        mapping.detach();
+      }
+      return binaryMapping.getBinaryValue();
+    } else {
+      return mapping.value();
+    }
+  }
 
-            @Override
-            public V setValue(V value) {
-              throw new UnsupportedOperationException();
-            }
-          };
-          java.util.Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator = remappingFunction.apply(Collections
-              .singleton(entry)).iterator();
-          Map.Entry<? extends K, ? extends V> result = iterator.next();
-          if (result != null) {
-            checkKey(result.getKey());
-            return result.getValue();
-          } else {
-            return null;
-          }
+  private static boolean sameWitness(Object expected, Object actual) {
+    return expected == actual || (expected != null && expected.equals(actual));
+  }
+
+  private Map<K, V> remap(Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction,
+                          Map<K, V> existing) throws StoreAccessException {
+    Map<K, V> computed = new HashMap<K, V>();
+    try {
+      for (Map.Entry<? extends K, ? extends V> entry : remappingFunction.apply(Collections.unmodifiableMap(existing).entrySet())) {
+        if (entry != null) {
+          checkKey(entry.getKey());
+          computed.put(entry.getKey(), entry.getValue());
         }
-      };
-      ValueHolder<V> computed = compute(key, biFunction, replaceEqual);
-      result.put(key, computed);
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+    }
+    return computed;
+  }
+
+  /**
+   * A value left as read by the remapping function has nothing to lose to a concurrent update, and is kept as is.
+   * A computed value is installed only over the mapping it was computed from, the function being told otherwise.
+   */
+  private ValueHolder<V> install(K key, V read, V value, Object witness, Store.OptimisticRemappingFunction<K, V> remappingFunction,
+                                 NullaryFunction<Boolean> replaceEqual, boolean makeRoom) throws StoreAccessException {
+    if (value == read) {
+      return compute(key, keeping(), replaceEqual, makeRoom, ANY_MAPPING);
+    }
+    final AtomicBoolean installed = new AtomicBoolean();
+    ValueHolder<V> result = compute(key, installing(value, installed), replaceEqual, makeRoom, witness);
+    if (!installed.get()) {
+      remappingFunction.conflicted(key);
     }
     return result;
   }
 
+  private BiFunction<K, V, V> keeping() {
+    return new BiFunction<K, V, V>() {
+      @Override
+      public V apply(K mappedKey, V mappedValue) {
+        return mappedValue;
+      }
+    };
+  }
+
+  private BiFunction<K, V, V> installing(final V value, final AtomicBoolean installed) {
+    return new BiFunction<K, V, V>() {
+      @Override
+      public V apply(K mappedKey, V mappedValue) {
+        installed.set(true);
+        return value;
+      }
+    };
+  }
+
   @Override
   public Map<K, ValueHolder<V>> bulkComputeIfAbsent(Set<? extends K> keys, final Function<Iterable<? extends K>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> mappingFunction) throws StoreAccessException {
     Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
@@ -974,6 +1169,30 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     invalidateAllObserver.end(LowerCachingTierOperationsOutcome.InvalidateAllOutcome.SUCCESS);
   }
 
+  /**
+   * {@inheritDoc}
+   * Note that this implementation only examines the hash table slots of the segment holding the keys with that hash.
+   */
+  @Override
+  public void invalidateAllWithHash(long hash) throws StoreAccessException {
+    EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap = backingMap();
+    StoreAccessException exception = null;
+    long errorCount = 0;
+    for (K k : hashTableSegment(backingMap, backingMap.getIndexFor((int) hash)).keysWithHash((int) hash)) {
+      try {
+        invalidate(k);
+      } catch (StoreAccessException e) {
+        errorCount++;
+        if (exception == null) {
+          exception = e;
+        }
+      }
+    }
+    if (exception != null) {
+      throw new StoreAccessException("invalidateAllWithHash failed - error count: " + errorCount, exception);
+    }
+  }
+
   private void notifyInvalidation(final K key, final ValueHolder<V> p) {
     final CachingTier.InvalidationListener<K, V> invalidationListener = this.invalidationListener;
     if (invalidationListener != null) {
@@ -1081,6 +1300,17 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     return computeResult;
   }
 
+  private OffHeapValueHolder<V> computeWithoutRetry(K key, BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> computeFunction) throws StoreAccessException {
+    try {
+      return backingMap().compute(key, computeFunction, false);
+    } catch (OversizeMappingException ex) {
+      throw ex;
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    }
+  }
+
   private boolean safeEquals(V existingValue, V computedValue) {
     return existingValue == computedValue || (existingValue != null && existingValue.equals(computedValue));
   }
@@ -1201,6 +1431,74 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     }
   }
 
+  @Override
+  public int sweepExpired(int maxMappings) {
+    EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap = backingMap();
+    if (backingMap == null) {
+      return 0;
+    }
+    // the walk resumes from the hash table slot the previous run stopped at, unless the table was resized since, and
+    // expired mappings are only removed once the mappings examined were collected
+    int segments = backingMap.getSegments().size();
+    List<Map.Entry<K, OffHeapValueHolder<V>>> examined = new ArrayList<Map.Entry<K, OffHeapValueHolder<V>>>();
+    while (examined.size() < maxMappings && sweepSegment < segments) {
+      HashTableSegment<K, OffHeapValueHolder<V>> segment = hashTableSegment(backingMap, sweepSegment);
+      long tableCapacity = segment.getTableCapacity();
+      if (tableCapacity != sweepTableCapacity) {
+        sweepTableCapacity = tableCapacity;
+        sweepSlot = 0;
+      }
+      sweepSlot = segment.collectFromSlot(sweepSlot, maxMappings - examined.size(), examined);
+      if (sweepSlot < 0) {
+        sweepSegment++;
+        sweepSlot = 0;
+      }
+    }
+    if (sweepSegment >= segments) {
+      sweepSegment = 0;
+    }
+
+    long now = timeSource.getTimeMillis();
+    int expired = 0;
+    for (Map.Entry<K, OffHeapValueHolder<V>> mapping : examined) {
+      if (mapping.getValue().isExpired(now, TimeUnit.MILLISECONDS) && expireMapping(backingMap, mapping.getKey())) {
+        expired++;
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * The segments of the backing maps of both the off-heap and disk stores give access to their hash table.
+   */
+  @SuppressWarnings("unchecked")
+  private static <K, V> HashTableSegment<K, V> hashTableSegment(EhcacheOffHeapBackingMap<K, V> backingMap, int index) {
+    return (HashTableSegment<K, V>) backingMap.getSegments().get(index);
+  }
+
+  private boolean expireMapping(EhcacheOffHeapBackingMap<K, OffHeapValueHolder<V>> backingMap, K key) {
+    final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
+    final AtomicBoolean expired = new AtomicBoolean(false);
+    try {
+      backingMap.computeIfPresent(key, new BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
+        @Override
+        public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
+          if (mappedValue.isExpired(timeSource.getTimeMillis(), TimeUnit.MILLISECONDS)) {
+            onExpiration(mappedKey, mappedValue, eventSink);
+            expired.set(true);
+            return null;
+          }
+          return mappedValue;
+        }
+      });
+      eventDispatcher.releaseEventSink(eventSink);
+    } catch (RuntimeException re) {
+      eventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
+      throw re;
+    }
+    return expired.get();
+  }
+
   private void onExpirationInCachingTier(ValueHolder<V> mappedValue, K key) {
     expirationObserver.begin();
     invalidationListener.onInvalidation(key, mappedValue);
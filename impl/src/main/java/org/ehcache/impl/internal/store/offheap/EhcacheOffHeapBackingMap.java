@@ -85,5 +85,13 @@ public interface EhcacheOffHeapBackingMap<K, V> extends ConcurrentMap<K, V>, Off
 
   List<Segment<K, V>> getSegments();
 
+  /**
+   * Returns the index, in {@link #getSegments()}, of the segment holding the keys with the given hash.
+   *
+   * @param hash the key hash
+   * @return the segment index
+   */
+  int getIndexFor(int hash);
+
   boolean shrinkOthers(int excludedHash);
 }
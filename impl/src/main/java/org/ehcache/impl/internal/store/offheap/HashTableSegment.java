@@ -0,0 +1,60 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.offheap;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An off-heap segment whose hash table can be walked slot by slot, which unlike its entry set iterators allows a walk
+ * to resume from where it stopped.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public interface HashTableSegment<K, V> {
+
+  /**
+   * Collects, under the segment read lock, the mappings held by the hash table slots starting at {@code slot}, until
+   * {@code maxMappings} mappings are collected or the end of the table is reached.
+   * <P>
+   *   Slots are only stable while the table is not resized: a walk spanning a resize should start over, as told by
+   *   {@link #getTableCapacity()}.
+   * </P>
+   *
+   * @param slot the slot to start from
+   * @param maxMappings the maximum number of mappings to collect
+   * @param mappings the collection to add the mappings to
+   * @return the slot to resume from, or {@code -1} if the end of the table was reached
+   */
+  int collectFromSlot(int slot, int maxMappings, Collection<? super Map.Entry<K, V>> mappings);
+
+  /**
+   * Returns, under the segment read lock, the keys having the given hash.  Only the slots the keys with that hash
+   * probe are examined.
+   *
+   * @param hash the key hash
+   * @return the keys with that hash
+   */
+  Collection<K> keysWithHash(int hash);
+
+  /**
+   * Returns the number of slots of the hash table.
+   *
+   * @return the table capacity
+   */
+  long getTableCapacity();
+}
@@ -23,9 +23,12 @@ import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourceType;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.events.StoreEventDispatcher;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.core.spi.store.StoreAccessException;
+import org.ehcache.impl.config.store.expiry.ExpirySweeperConfiguration;
 import org.ehcache.impl.internal.events.NullStoreEventDispatcher;
 import org.ehcache.impl.internal.events.ThreadLocalStoreEventDispatcher;
+import org.ehcache.impl.internal.store.ExpirySweeper;
 import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory;
 import org.ehcache.impl.internal.store.offheap.portability.OffHeapValueHolderPortability;
 import org.ehcache.impl.internal.store.offheap.portability.SerializerPortability;
@@ -54,8 +57,10 @@ import org.terracotta.offheapstore.util.Factory;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
 import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getBufferSource;
 
 /**
@@ -116,13 +121,14 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
     return evictionAdvisor;
   }
 
-  @ServiceDependencies({TimeSourceService.class, SerializationProvider.class})
+  @ServiceDependencies({TimeSourceService.class, SerializationProvider.class, ExecutionService.class})
   public static class Provider implements Store.Provider, AuthoritativeTier.Provider, LowerCachingTier.Provider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Provider.class);
 
     private volatile ServiceProvider<Service> serviceProvider;
     private final Set<Store<?, ?>> createdStores = Collections.newSetFromMap(new ConcurrentWeakIdentityHashMap<Store<?, ?>, Boolean>());
+    private final Map<Store<?, ?>, ExpirySweeper> sweepers = new ConcurrentWeakIdentityHashMap<Store<?, ?>, ExpirySweeper>();
 
     @Override
     public int rank(final Set<ResourceType<?>> resourceTypes, final Collection<ServiceConfiguration<?>> serviceConfigs) {
@@ -149,6 +155,12 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
 
       OffHeapStore<K, V> offHeapStore = new OffHeapStore<K, V>(storeConfig, timeSource, eventDispatcher, unit.toBytes(offHeapPool.getSize()));
       createdStores.add(offHeapStore);
+
+      ExpirySweeperConfiguration sweeperConfig = findSingletonAmongst(ExpirySweeperConfiguration.class, (Object[]) serviceConfigs);
+      if (sweeperConfig != null) {
+        ExecutionService executionService = serviceProvider.getService(ExecutionService.class);
+        sweepers.put(offHeapStore, new ExpirySweeper(offHeapStore, "local-offheap", executionService, sweeperConfig));
+      }
       return offHeapStore;
     }
 
@@ -157,6 +169,10 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
       if (!createdStores.contains(resource)) {
         throw new IllegalArgumentException("Given store is not managed by this provider : " + resource);
       }
+      ExpirySweeper sweeper = sweepers.remove(resource);
+      if (sweeper != null) {
+        sweeper.stop();
+      }
       close((OffHeapStore)resource);
     }
 
@@ -173,6 +189,10 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
         throw new IllegalArgumentException("Given store is not managed by this provider : " + resource);
       }
       init((OffHeapStore)resource);
+      ExpirySweeper sweeper = sweepers.get(resource);
+      if (sweeper != null) {
+        sweeper.start();
+      }
     }
 
     static <K, V> void init(final OffHeapStore<K, V> resource) {
@@ -188,6 +208,10 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
     public void stop() {
       this.serviceProvider = null;
       createdStores.clear();
+      for (ExpirySweeper sweeper : sweepers.values()) {
+        sweeper.stop();
+      }
+      sweepers.clear();
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.ehcache.impl.internal.store.offheap.factories;
 
+import org.ehcache.impl.internal.store.offheap.HashTableSegment;
 import org.ehcache.impl.internal.store.offheap.SwitchableEvictionAdvisor;
 import org.terracotta.offheapstore.Metadata;
 import org.terracotta.offheapstore.ReadWriteLockedOffHeapClockCache;
@@ -24,6 +25,10 @@ import org.terracotta.offheapstore.pinning.PinnableSegment;
 import org.terracotta.offheapstore.storage.StorageEngine;
 import org.terracotta.offheapstore.util.Factory;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -55,7 +60,7 @@ public class EhcacheSegmentFactory<K, V> implements Factory<PinnableSegment<K, V
     }
   }
 
-  public static class EhcacheSegment<K, V> extends ReadWriteLockedOffHeapClockCache<K, V> {
+  public static class EhcacheSegment<K, V> extends ReadWriteLockedOffHeapClockCache<K, V> implements HashTableSegment<K, V> {
 
     public static final int ADVISED_AGAINST_EVICTION = 1 << (Integer.SIZE - 3);
 
@@ -105,6 +110,55 @@ public class EhcacheSegmentFactory<K, V> implements Factory<PinnableSegment<K, V
       }
     }
 
+    @Override
+    public int collectFromSlot(int slot, int maxMappings, Collection<? super Map.Entry<K, V>> mappings) {
+      Lock lock = readLock();
+      lock.lock();
+      try {
+        IntBuffer table = hashtable;
+        int slots = table.capacity() / ENTRY_SIZE;
+        for (int collected = 0; slot < slots; slot++) {
+          if (collected == maxMappings) {
+            return slot;
+          }
+          int offset = slot * ENTRY_SIZE;
+          if ((table.get(offset + STATUS) & STATUS_USED) != 0) {
+            mappings.add(getEntryAtTableOffset(offset));
+            collected++;
+          }
+        }
+        return -1;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public Collection<K> keysWithHash(int hash) {
+      Lock lock = readLock();
+      lock.lock();
+      try {
+        IntBuffer table = hashtable;
+        Collection<K> keys = new ArrayList<K>();
+        int start = indexFor(spread(hash), table);
+        for (int probed = 0; probed < table.capacity(); probed += ENTRY_SIZE) {
+          int offset = (start + probed) % table.capacity();
+          int status = table.get(offset + STATUS);
+          if (isTerminating(status)) {
+            break;
+          } else if ((status & STATUS_USED) != 0) {
+            K key = getEntryAtTableOffset(offset).getKey();
+            if (key.hashCode() == hash) {
+              keys.add(key);
+            }
+          }
+        }
+        return keys;
+      } finally {
+        lock.unlock();
+      }
+    }
+
     public interface EvictionListener<K, V> {
       void onEviction(K key, V value);
     }
@@ -161,6 +161,24 @@ public class CompoundCachingTier<K, V> implements CachingTier<K, V> {
     }
   }
 
+  @Override
+  public void invalidateAllWithHash(long hash) throws StoreAccessException {
+    try {
+      higher.silentInvalidateAllWithHash(hash, new BiFunction<K, Store.ValueHolder<V>, Void>() {
+
+        @Override
+        public Void apply(K key, Store.ValueHolder<V> mappedValue) {
+          if (mappedValue != null) {
+            notifyInvalidation(key, mappedValue);
+          }
+          return null;
+        }
+      });
+    } finally {
+      lower.invalidateAllWithHash(hash);
+    }
+  }
+
   @Override
   public void clear() throws StoreAccessException {
     try {
@@ -20,6 +20,7 @@ import org.ehcache.config.ResourcePool;
 import org.ehcache.config.ResourcePools;
 import org.ehcache.config.ResourceType;
 import org.ehcache.core.CacheConfigurationChangeListener;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
@@ -32,6 +33,7 @@ import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.events.StoreEventSource;
 import org.ehcache.core.spi.store.tiering.AuthoritativeTier;
 import org.ehcache.core.spi.store.tiering.CachingTier;
+import org.ehcache.core.statistics.StoreOperationOutcomes;
 import org.ehcache.spi.service.Service;
 import org.ehcache.spi.service.ServiceConfiguration;
 import org.ehcache.core.internal.util.ConcurrentWeakIdentityHashMap;
@@ -40,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.context.annotations.ContextAttribute;
 import org.terracotta.statistics.StatisticsManager;
+import org.terracotta.statistics.observer.OperationObserver;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -57,6 +60,7 @@ import static java.util.Collections.unmodifiableSet;
 import static org.ehcache.config.ResourceType.Core.DISK;
 import static org.ehcache.config.ResourceType.Core.HEAP;
 import static org.ehcache.config.ResourceType.Core.OFFHEAP;
+import static org.ehcache.core.internal.statistics.ConfiguredStatisticBuilder.operation;
 
 /**
  * A {@link Store} implementation supporting a tiered caching model.
@@ -72,8 +76,16 @@ public class TieredStore<K, V> implements Store<K, V> {
 
   private final TieringStoreStatsSettings tieringStoreStatsSettings;
 
+  private final OperationObserver<StoreOperationOutcomes.GetOutcome> getObserver;
+  private final OperationObserver<StoreOperationOutcomes.PutOutcome> putObserver;
+  private final OperationObserver<StoreOperationOutcomes.RemoveOutcome> removeObserver;
+  private final OperationObserver<StoreOperationOutcomes.PutIfAbsentOutcome> putIfAbsentObserver;
 
   public TieredStore(CachingTier<K, V> cachingTier, AuthoritativeTier<K, V> authoritativeTier) {
+    this(cachingTier, authoritativeTier, null);
+  }
+
+  public TieredStore(CachingTier<K, V> cachingTier, AuthoritativeTier<K, V> authoritativeTier, StoreStatisticsConfiguration statisticsConfiguration) {
     this.cachingTierRef = new AtomicReference<CachingTier<K, V>>(cachingTier);
     this.authoritativeTier = authoritativeTier;
     this.realCachingTier = cachingTier;
@@ -92,19 +104,30 @@ public class TieredStore<K, V> implements Store<K, V> {
       public void invalidateAll() throws StoreAccessException {
         invalidateAllInternal();
       }
+
+      @Override
+      public void invalidateAllWithHash(long hash) throws StoreAccessException {
+        cachingTier().invalidateAllWithHash(hash);
+      }
     });
 
     StatisticsManager.associate(cachingTier).withParent(this);
     StatisticsManager.associate(authoritativeTier).withParent(this);
     tieringStoreStatsSettings = new TieringStoreStatsSettings(cachingTier, authoritativeTier);
     StatisticsManager.associate(tieringStoreStatsSettings).withParent(this);
+
+    getObserver = operation(StoreOperationOutcomes.GetOutcome.class, statisticsConfiguration).named("get").of(this).tag("tiered-store").build();
+    putObserver = operation(StoreOperationOutcomes.PutOutcome.class, statisticsConfiguration).named("put").of(this).tag("tiered-store").build();
+    removeObserver = operation(StoreOperationOutcomes.RemoveOutcome.class, statisticsConfiguration).named("remove").of(this).tag("tiered-store").build();
+    putIfAbsentObserver = operation(StoreOperationOutcomes.PutIfAbsentOutcome.class, statisticsConfiguration).named("putIfAbsent").of(this).tag("tiered-store").build();
   }
 
 
   @Override
   public ValueHolder<V> get(final K key) throws StoreAccessException {
+    getObserver.begin();
     try {
-      return cachingTier().getOrComputeIfAbsent(key, new Function<K, ValueHolder<V>>() {
+      ValueHolder<V> valueHolder = cachingTier().getOrComputeIfAbsent(key, new Function<K, ValueHolder<V>>() {
         @Override
         public ValueHolder<V> apply(K key) {
           try {
@@ -114,6 +137,8 @@ public class TieredStore<K, V> implements Store<K, V> {
           }
         }
       });
+      getObserver.end(valueHolder == null ? StoreOperationOutcomes.GetOutcome.MISS : StoreOperationOutcomes.GetOutcome.HIT);
+      return valueHolder;
     } catch (ComputationException ce) {
       throw ce.getStoreAccessException();
     }
@@ -142,15 +167,26 @@ public class TieredStore<K, V> implements Store<K, V> {
 
   @Override
   public PutStatus put(final K key, final V value) throws StoreAccessException {
+    putObserver.begin();
+    PutStatus status;
     try {
-      return authoritativeTier.put(key, value);
+      status = authoritativeTier.put(key, value);
     } finally {
       cachingTier().invalidate(key);
     }
+    if (status == PutStatus.PUT) {
+      putObserver.end(StoreOperationOutcomes.PutOutcome.PUT);
+    } else if (status == PutStatus.UPDATE) {
+      putObserver.end(StoreOperationOutcomes.PutOutcome.REPLACED);
+    } else {
+      putObserver.end(StoreOperationOutcomes.PutOutcome.NOOP);
+    }
+    return status;
   }
 
   @Override
   public ValueHolder<V> putIfAbsent(K key, V value) throws StoreAccessException {
+    putIfAbsentObserver.begin();
     ValueHolder<V> previous = null;
     try {
       previous = authoritativeTier.putIfAbsent(key, value);
@@ -159,16 +195,21 @@ public class TieredStore<K, V> implements Store<K, V> {
         cachingTier().invalidate(key);
       }
     }
+    putIfAbsentObserver.end(previous == null ? StoreOperationOutcomes.PutIfAbsentOutcome.PUT : StoreOperationOutcomes.PutIfAbsentOutcome.HIT);
     return previous;
   }
 
   @Override
   public boolean remove(K key) throws StoreAccessException {
+    removeObserver.begin();
+    boolean removed;
     try {
-      return authoritativeTier.remove(key);
+      removed = authoritativeTier.remove(key);
     } finally {
       cachingTier().invalidate(key);
     }
+    removeObserver.end(removed ? StoreOperationOutcomes.RemoveOutcome.REMOVED : StoreOperationOutcomes.RemoveOutcome.MISS);
+    return removed;
   }
 
   @Override
@@ -413,7 +454,7 @@ public class TieredStore<K, V> implements Store<K, V> {
       CachingTier<K, V> cachingTier = cachingTierProvider.createCachingTier(storeConfig, configurations);
       AuthoritativeTier<K, V> authoritativeTier = authoritativeTierProvider.createAuthoritativeTier(storeConfig, configurations);
 
-      TieredStore<K, V> store = new TieredStore<K, V>(cachingTier, authoritativeTier);
+      TieredStore<K, V> store = new TieredStore<K, V>(cachingTier, authoritativeTier, storeConfig.getStatisticsConfiguration());
       registerStore(store, cachingTierProvider, authoritativeTierProvider);
       return store;
     }
@@ -577,6 +618,11 @@ public class TieredStore<K, V> implements Store<K, V> {
       // noop
     }
 
+    @Override
+    public void invalidateAllWithHash(long hash) {
+      // noop
+    }
+
     @Override
     public void clear() throws StoreAccessException {
       // noop
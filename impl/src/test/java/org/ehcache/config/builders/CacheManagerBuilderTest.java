@@ -16,23 +16,40 @@
 
 package org.ehcache.config.builders;
 
+import org.ehcache.Cache;
 import org.ehcache.CacheManager;
 import org.ehcache.PersistentCacheManager;
+import org.ehcache.core.statistics.CacheOperationOutcomes;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.impl.config.copy.DefaultCopyProviderConfiguration;
 import org.ehcache.impl.copy.IdentityCopier;
 import org.ehcache.impl.copy.SerializingCopier;
 import org.ehcache.impl.serialization.CompactJavaSerializer;
 import org.ehcache.impl.serialization.JavaSerializer;
 import org.junit.Test;
+import org.terracotta.context.ContextManager;
+import org.terracotta.context.TreeNode;
+import org.terracotta.context.query.Matchers;
+import org.terracotta.context.query.Query;
+import org.terracotta.statistics.OperationStatistic;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
 import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.terracotta.context.query.Matchers.attributes;
+import static org.terracotta.context.query.Matchers.context;
+import static org.terracotta.context.query.Matchers.hasAttribute;
+import static org.terracotta.context.query.QueryBuilder.queryBuilder;
 
 public class CacheManagerBuilderTest {
 
@@ -68,6 +85,37 @@ public class CacheManagerBuilderTest {
     assertNotNull(managerBuilder.withSerializer(String.class, (Class) CompactJavaSerializer.class));
   }
 
+  @Test
+  public void testDefaultStatisticsApplyToCachesWithoutTheirOwn() {
+    CacheManager cacheManager = newCacheManagerBuilder()
+        .withDefaultStatistics(StatisticsLevel.OFF)
+        .withCache("defaulted", newCacheConfigurationBuilder(String.class, String.class, heap(10)))
+        .withCache("counted", newCacheConfigurationBuilder(String.class, String.class, heap(10))
+            .withStatistics(StatisticsLevel.COUNTERS_ONLY))
+        .build(true);
+    try {
+      Cache<String, String> defaulted = cacheManager.getCache("defaulted", String.class, String.class);
+      Cache<String, String> counted = cacheManager.getCache("counted", String.class, String.class);
+      defaulted.get("foo");
+      counted.get("foo");
+
+      assertThat(getStatistic(defaulted).count(CacheOperationOutcomes.GetOutcome.MISS_NO_LOADER), is(0L));
+      assertThat(getStatistic(counted).count(CacheOperationOutcomes.GetOutcome.MISS_NO_LOADER), is(1L));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static OperationStatistic<CacheOperationOutcomes.GetOutcome> getStatistic(Cache<?, ?> cache) {
+    Query query = queryBuilder().children()
+        .filter(context(attributes(Matchers.<Map<String, Object>>allOf(hasAttribute("name", "get"),
+            hasAttribute("type", CacheOperationOutcomes.GetOutcome.class))))).build();
+    Set<TreeNode> result = query.execute(Collections.singleton(ContextManager.nodeFor(cache)));
+    assertThat(result.size(), is(1));
+    return (OperationStatistic<CacheOperationOutcomes.GetOutcome>) result.iterator().next().getContext().attributes().get("this");
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testDuplicateServiceCreationConfigurationFails() {
     newCacheManagerBuilder().using(new DefaultCopyProviderConfiguration())
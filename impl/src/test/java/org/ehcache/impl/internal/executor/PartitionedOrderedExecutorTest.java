@@ -27,7 +27,10 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.ehcache.core.spi.service.PartitionedTask;
 import org.junit.Test;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -46,7 +49,7 @@ public class PartitionedOrderedExecutorTest {
   public void testShutdownOfIdleExecutor() throws InterruptedException {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = mock(ExecutorService.class);
-    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
     executor.shutdown();
     assertThat(executor.isShutdown(), is(true));
     assertThat(executor.awaitTermination(2, TimeUnit.MINUTES), is(true));
@@ -57,7 +60,7 @@ public class PartitionedOrderedExecutorTest {
   public void testShutdownNowOfIdleExecutor() throws InterruptedException {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = mock(ExecutorService.class);
-    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
     assertThat(executor.shutdownNow(), empty());
     assertThat(executor.isShutdown(), is(true));
     assertThat(executor.awaitTermination(2, TimeUnit.MINUTES), is(true));
@@ -68,7 +71,7 @@ public class PartitionedOrderedExecutorTest {
   public void testTerminatedExecutorRejectsJob() throws InterruptedException {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = mock(ExecutorService.class);
-    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+    PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
     executor.shutdown();
     assertThat(executor.awaitTermination(2, TimeUnit.MINUTES), is(true));
 
@@ -91,7 +94,7 @@ public class PartitionedOrderedExecutorTest {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newSingleThreadExecutor();
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
 
       final Semaphore semaphore = new Semaphore(0);
       executor.execute(new Runnable() {
@@ -127,7 +130,7 @@ public class PartitionedOrderedExecutorTest {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newSingleThreadExecutor();
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
 
       final Semaphore semaphore = new Semaphore(0);
       executor.execute(new Runnable() {
@@ -158,7 +161,7 @@ public class PartitionedOrderedExecutorTest {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newSingleThreadExecutor();
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
 
       final Semaphore jobSemaphore = new Semaphore(0);
       final Semaphore testSemaphore = new Semaphore(0);
@@ -207,7 +210,7 @@ public class PartitionedOrderedExecutorTest {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newSingleThreadExecutor();
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
 
       final Semaphore jobSemaphore = new Semaphore(0);
       final Semaphore testSemaphore = new Semaphore(0);
@@ -254,7 +257,7 @@ public class PartitionedOrderedExecutorTest {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newSingleThreadExecutor();
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
 
       final Semaphore jobSemaphore = new Semaphore(0);
       final Semaphore testSemaphore = new Semaphore(0);
@@ -286,12 +289,42 @@ public class PartitionedOrderedExecutorTest {
     }
   }
 
+  @Test
+  public void testTerminatedIsInvokedOnceOnTermination() throws InterruptedException, ExecutionException {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    ExecutorService service = Executors.newFixedThreadPool(2);
+    try {
+      final AtomicInteger terminations = new AtomicInteger();
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 2) {
+        @Override
+        protected void terminated() {
+          terminations.incrementAndGet();
+        }
+      };
+
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          //no-op
+        }
+      }).get();
+      assertThat(terminations.get(), is(0));
+
+      executor.shutdown();
+      assertThat(executor.awaitTermination(2, TimeUnit.MINUTES), is(true));
+      executor.shutdownNow();
+      assertThat(terminations.get(), is(1));
+    } finally {
+      service.shutdown();
+    }
+  }
+
   @Test
   public void testJobsAreExecutedInOrder() throws InterruptedException, ExecutionException {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
     ExecutorService service = Executors.newFixedThreadPool(2);
     try {
-      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service);
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 2);
 
       final AtomicInteger sequence = new AtomicInteger(-1);
       List<Future<?>> tasks = new ArrayList<Future<?>>();
@@ -314,4 +347,125 @@ public class PartitionedOrderedExecutorTest {
       service.shutdown();
     }
   }
+
+  @Test
+  public void testJobsOfAPartitionAreExecutedInOrder() throws InterruptedException, ExecutionException {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    ExecutorService service = Executors.newFixedThreadPool(4);
+    try {
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 4);
+
+      final AtomicInteger[] sequences = new AtomicInteger[] {new AtomicInteger(-1), new AtomicInteger(-1), new AtomicInteger(-1)};
+      List<Future<?>> tasks = new ArrayList<Future<?>>();
+      for (int i = 0; i < 300; i++) {
+        final int partition = i % sequences.length;
+        final int index = i / sequences.length;
+        tasks.add(executor.submit(new PartitionedTask() {
+
+          @Override
+          public Object getPartition() {
+            return partition;
+          }
+
+          @Override
+          public void run() {
+            assertThat(sequences[partition].getAndSet(index), is(index - 1));
+          }
+        }));
+      }
+
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void testBlockedPartitionDoesNotHoldBackOtherPartitions() throws InterruptedException, ExecutionException, TimeoutException {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    ExecutorService service = Executors.newFixedThreadPool(2);
+    try {
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 2);
+
+      final Semaphore semaphore = new Semaphore(0);
+      Future<?> blocked = executor.submit(new PartitionedTask() {
+
+        @Override
+        public Object getPartition() {
+          return "blocked";
+        }
+
+        @Override
+        public void run() {
+          semaphore.acquireUninterruptibly();
+        }
+      });
+      Future<?> other = executor.submit(new PartitionedTask() {
+
+        @Override
+        public Object getPartition() {
+          return "other";
+        }
+
+        @Override
+        public void run() {
+          //no-op
+        }
+      });
+
+      other.get(2, MINUTES);
+      assertThat(blocked.isDone(), is(false));
+      semaphore.release();
+      blocked.get(2, MINUTES);
+
+      executor.shutdown();
+      assertThat(executor.awaitTermination(2, MINUTES), is(true));
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void testShutdownNowReturnsQueuedJobsOfAllPartitions() throws InterruptedException {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    ExecutorService service = Executors.newSingleThreadExecutor();
+    try {
+      PartitionedOrderedExecutor executor = new PartitionedOrderedExecutor(queue, service, 1);
+
+      final Semaphore jobSemaphore = new Semaphore(0);
+      final Semaphore testSemaphore = new Semaphore(0);
+      executor.execute(new Runnable() {
+
+        @Override
+        public void run() {
+          testSemaphore.release();
+          jobSemaphore.acquireUninterruptibly();
+        }
+      });
+      for (int i = 0; i < 3; i++) {
+        final int partition = i;
+        executor.execute(new PartitionedTask() {
+
+          @Override
+          public Object getPartition() {
+            return partition;
+          }
+
+          @Override
+          public void run() {
+            fail("Job should not run");
+          }
+        });
+      }
+      testSemaphore.acquireUninterruptibly();
+      assertThat(executor.shutdownNow(), hasSize(3));
+
+      jobSemaphore.release();
+      assertThat(executor.awaitTermination(2, MINUTES), is(true));
+    } finally {
+      service.shutdown();
+    }
+  }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TimerWheelScheduledExecutorTest {
+
+  private TimerWheelScheduledExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = new TimerWheelScheduledExecutor(1, MILLISECONDS, "timer-wheel-test");
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testTaskDoesNotRunBeforeItsDeadline() throws Exception {
+    final long start = System.nanoTime();
+    ScheduledFuture<Long> future = executor.schedule(new Callable<Long>() {
+      @Override
+      public Long call() throws Exception {
+        return System.nanoTime() - start;
+      }
+    }, 50, MILLISECONDS);
+
+    assertThat(future.get(1, MINUTES), greaterThanOrEqualTo(MILLISECONDS.toNanos(50)));
+  }
+
+  @Test
+  public void testTasksRunInDeadlineOrder() throws Exception {
+    final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch latch = new CountDownLatch(4);
+    int[] delays = {600, 20, 300, 0};
+    for (final int delay : delays) {
+      executor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          order.add(delay);
+          latch.countDown();
+        }
+      }, delay, MILLISECONDS);
+    }
+
+    assertThat(latch.await(1, MINUTES), is(true));
+    assertThat(order, contains(0, 20, 300, 600));
+  }
+
+  @Test
+  public void testCancelledTaskDoesNotRun() throws Exception {
+    final AtomicInteger runs = new AtomicInteger();
+    ScheduledFuture<?> cancelled = executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+      }
+    }, 20, MILLISECONDS);
+    ScheduledFuture<?> other = executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    }, 40, MILLISECONDS);
+
+    assertThat(cancelled.cancel(false), is(true));
+    other.get(1, MINUTES);
+    assertThat(runs.get(), is(0));
+  }
+
+  @Test
+  public void testFixedRateTaskRunsRepeatedly() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(5);
+    ScheduledFuture<?> future = executor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 0, 5, MILLISECONDS);
+
+    assertThat(latch.await(1, MINUTES), is(true));
+    assertThat(future.cancel(false), is(true));
+  }
+
+  @Test
+  public void testFixedDelayTaskRunsRepeatedly() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(5);
+    ScheduledFuture<?> future = executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 0, 5, MILLISECONDS);
+
+    assertThat(latch.await(1, MINUTES), is(true));
+    assertThat(future.cancel(false), is(true));
+  }
+
+  @Test
+  public void testTaskBeyondFirstLevelCascades() throws Exception {
+    TimerWheelScheduledExecutor fine = new TimerWheelScheduledExecutor(100, NANOSECONDS, "fine-timer-wheel-test");
+    try {
+      final long start = System.nanoTime();
+      ScheduledFuture<Long> future = fine.schedule(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return System.nanoTime() - start;
+        }
+      }, 100, MILLISECONDS);
+
+      assertThat(future.get(1, MINUTES), greaterThanOrEqualTo(MILLISECONDS.toNanos(100)));
+    } finally {
+      fine.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testShutdownCancelsPeriodicTasksAndRunsDelayedTasks() throws Exception {
+    ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    }, 1, 1, SECONDS);
+    ScheduledFuture<?> delayed = executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    }, 50, MILLISECONDS);
+
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, MINUTES), is(true));
+    assertThat(periodic.isCancelled(), is(true));
+    assertThat(delayed.isDone(), is(true));
+    assertThat(delayed.isCancelled(), is(false));
+
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          //no-op
+        }
+      });
+      fail("Expected RejectedExecutionException");
+    } catch (RejectedExecutionException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void testShutdownNowReturnsScheduledTasks() throws Exception {
+    executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    }, 1, MINUTES);
+    executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    }, 1, 1, MINUTES);
+
+    assertThat(executor.shutdownNow(), hasSize(2));
+    assertThat(executor.isTerminated(), is(true));
+  }
+
+  @Test
+  public void testHandOffsAreDrainedWhileSleepingTowardsDistantDeadline() throws Exception {
+    Runnable noop = new Runnable() {
+      @Override
+      public void run() {
+        //no-op
+      }
+    };
+    executor.schedule(noop, 1, HOURS);
+    for (int i = 0; i < 10 * TimerWheelScheduledExecutor.HANDOFF_THRESHOLD; i++) {
+      executor.schedule(noop, 1, HOURS).cancel(false);
+    }
+
+    long deadline = System.nanoTime() + SECONDS.toNanos(10);
+    while (executor.getHandOffBacklog() >= TimerWheelScheduledExecutor.HANDOFF_THRESHOLD && System.nanoTime() < deadline) {
+      MILLISECONDS.sleep(10);
+    }
+    assertThat(executor.getHandOffBacklog(), lessThan(TimerWheelScheduledExecutor.HANDOFF_THRESHOLD));
+  }
+}
@@ -15,6 +15,7 @@
  */
 package org.ehcache.impl.internal.loaderwriter.writebehind;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -398,6 +399,41 @@ public abstract class AbstractWriteBehindTestBase {
     }
   }
 
+  @Test
+  public void testCoalescedWritesDoNotFillTheQueue() throws Exception {
+    WriteBehindTestLoaderWriter<String, String> loaderWriter = new WriteBehindTestLoaderWriter<String, String>();
+    CacheLoaderWriterProvider cacheLoaderWriterProvider = mock(CacheLoaderWriterProvider.class);
+    when(cacheLoaderWriterProvider.createCacheLoaderWriter(anyString(), (CacheConfiguration<String, String>)anyObject())).thenReturn((CacheLoaderWriter)loaderWriter);
+
+    CacheManager cacheManager = managerBuilder().using(cacheLoaderWriterProvider).build(true);
+    try {
+      final Cache<String, String> testCache = cacheManager.createCache("testCoalescedWritesDoNotFillTheQueue", configurationBuilder()
+          .add(newBatchedWriteBehindConfiguration(Long.MAX_VALUE, SECONDS, 10).enableCoalescing().queueSize(2).build())
+          .build());
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<?> puts = executor.submit(new Runnable() {
+
+          @Override
+          public void run() {
+            for (int i = 0; i < 5; i++) {
+              testCache.put("keyA", "value" + i);
+            }
+            testCache.put("keyB", "value");
+          }
+        });
+        puts.get(10, SECONDS);
+      } finally {
+        executor.shutdown();
+      }
+    } finally {
+      cacheManager.close();
+    }
+    assertThat(loaderWriter.getValueList("keyA"), contains("value4"));
+    assertThat(loaderWriter.getValueList("keyB"), contains("value"));
+  }
+
   @Test
   public void testUnBatchedWriteBehindStopWaitsForEmptyQueue() {
     WriteBehindTestLoaderWriter<String, String> loaderWriter = new WriteBehindTestLoaderWriter<String, String>();
@@ -596,6 +632,95 @@ public abstract class AbstractWriteBehindTestBase {
     }
   }
 
+  @Test
+  public void testFailedBatchIsRetried() throws Exception {
+    WriteBehindTestLoaderWriter<String, String> loaderWriter = new WriteBehindTestLoaderWriter<String, String>() {
+
+      private int failures = 2;
+
+      @Override
+      public synchronized void writeAll(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) throws Exception {
+        if (failures-- > 0) {
+          throw new Exception("Simulated write failure");
+        }
+        super.writeAll(entries);
+      }
+    };
+    CacheLoaderWriterProvider cacheLoaderWriterProvider = mock(CacheLoaderWriterProvider.class);
+    when(cacheLoaderWriterProvider.createCacheLoaderWriter(anyString(), (CacheConfiguration<String, String>)anyObject())).thenReturn((CacheLoaderWriter)loaderWriter);
+
+    CacheManager cacheManager = managerBuilder().using(cacheLoaderWriterProvider).build(true);
+    try {
+      Cache<String, String> testCache = cacheManager.createCache("testFailedBatchIsRetried", configurationBuilder()
+          .add(newBatchedWriteBehindConfiguration(Long.MAX_VALUE, SECONDS, 2)
+              .enableAdaptiveBatching()
+              .retryAttempts(2)
+              .retryBackoff(10, MILLISECONDS)
+              .build())
+          .build());
+
+      CountDownLatch latch = new CountDownLatch(2);
+      loaderWriter.setLatch(latch);
+
+      testCache.put("key1", "value");
+      testCache.put("key2", "value");
+
+      if (latch.await(10, SECONDS)) {
+        assertThat(loaderWriter.getValueList("key1"), contains("value"));
+        assertThat(loaderWriter.getValueList("key2"), contains("value"));
+      } else {
+        fail("Took too long to write, assuming batch is not going to be retried");
+      }
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testOnlyFailedKeysAreRetried() throws Exception {
+    WriteBehindTestLoaderWriter<String, String> loaderWriter = new WriteBehindTestLoaderWriter<String, String>() {
+
+      private boolean failed = false;
+
+      @Override
+      public synchronized void writeAll(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) throws Exception {
+        if (!failed) {
+          failed = true;
+          write("key1", "value");
+          throw new BulkCacheWritingException(Collections.singletonMap("key2", new Exception("Simulated write failure")), Collections.singleton("key1"));
+        }
+        super.writeAll(entries);
+      }
+    };
+    CacheLoaderWriterProvider cacheLoaderWriterProvider = mock(CacheLoaderWriterProvider.class);
+    when(cacheLoaderWriterProvider.createCacheLoaderWriter(anyString(), (CacheConfiguration<String, String>)anyObject())).thenReturn((CacheLoaderWriter)loaderWriter);
+
+    CacheManager cacheManager = managerBuilder().using(cacheLoaderWriterProvider).build(true);
+    try {
+      Cache<String, String> testCache = cacheManager.createCache("testOnlyFailedKeysAreRetried", configurationBuilder()
+          .add(newBatchedWriteBehindConfiguration(Long.MAX_VALUE, SECONDS, 2)
+              .retryAttempts(1)
+              .retryBackoff(10, MILLISECONDS)
+              .build())
+          .build());
+
+      CountDownLatch latch = new CountDownLatch(2);
+      loaderWriter.setLatch(latch);
+
+      testCache.put("key1", "value");
+      testCache.put("key2", "value");
+
+      if (latch.await(10, SECONDS)) {
+        assertThat(loaderWriter.getValueList("key1"), contains("value"));
+        assertThat(loaderWriter.getValueList("key2"), contains("value"));
+      } else {
+        fail("Took too long to write, assuming failed keys are not going to be retried");
+      }
+    } finally {
+      cacheManager.close();
+    }
+  }
+
   @Test
   public void testWriteBehindQueueSize() throws Exception {
 
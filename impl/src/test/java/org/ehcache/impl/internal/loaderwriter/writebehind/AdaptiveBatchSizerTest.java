@@ -0,0 +1,89 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.loaderwriter.writebehind;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveBatchSizerTest {
+
+  private static final long TARGET = 1000L;
+
+  @Test
+  public void testFixedSizeNeverChanges() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, false);
+    sizer.batchCompleted(TARGET * 10, false, 0);
+    sizer.batchCompleted(0, true, 0);
+    assertThat(sizer.batchSize(), is(16));
+  }
+
+  @Test
+  public void testStartsAtMaximum() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, true);
+    assertThat(sizer.batchSize(), is(16));
+  }
+
+  @Test
+  public void testFailureHalves() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, true);
+    sizer.batchCompleted(0, false, 5);
+    assertThat(sizer.batchSize(), is(8));
+    sizer.batchCompleted(0, false, 5);
+    sizer.batchCompleted(0, false, 5);
+    sizer.batchCompleted(0, false, 5);
+    sizer.batchCompleted(0, false, 5);
+    assertThat(sizer.batchSize(), is(1));
+  }
+
+  @Test
+  public void testSlowBatchShrinks() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, true);
+    sizer.batchCompleted(TARGET + 1, true, 5);
+    assertThat(sizer.batchSize(), is(12));
+  }
+
+  @Test
+  public void testIdleWriterKeepsSize() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, true);
+    sizer.batchCompleted(TARGET + 1, true, 5);
+    for (int i = 0; i < 20; i++) {
+      sizer.batchCompleted(0, true, 0);
+    }
+    assertThat(sizer.batchSize(), is(12));
+  }
+
+  @Test
+  public void testBacklogGrowsBackToMaximum() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(16, TARGET, true);
+    for (int i = 0; i < 5; i++) {
+      sizer.batchCompleted(0, false, 0);
+    }
+    assertThat(sizer.batchSize(), is(1));
+    sizer.batchCompleted(0, true, 3);
+    assertThat(sizer.batchSize(), is(2));
+    for (int i = 0; i < 20; i++) {
+      sizer.batchCompleted(0, true, 3);
+    }
+    assertThat(sizer.batchSize(), is(16));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveSize() {
+    new AdaptiveBatchSizer(0, TARGET, true);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.statistics;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
+import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DefaultMetricsServiceTest {
+
+  private DefaultMetricsService metricsService;
+  private CacheManager cacheManager;
+
+  @Before
+  public void setUp() {
+    metricsService = new DefaultMetricsService();
+    cacheManager = newCacheManagerBuilder()
+        .using(metricsService)
+        .withCache("tiered", newCacheConfigurationBuilder(Long.class, String.class,
+            newResourcePoolsBuilder().heap(10, EntryUnit.ENTRIES).offheap(1, MemoryUnit.MB)))
+        .build(true);
+  }
+
+  @After
+  public void tearDown() {
+    cacheManager.close();
+  }
+
+  @Test
+  public void testExportsCountersGaugesAndHistograms() throws Exception {
+    Cache<Long, String> cache = cacheManager.getCache("tiered", Long.class, String.class);
+    cache.put(1L, "one");
+    cache.get(1L);
+    cache.get(2L);
+
+    String exported = export();
+
+    assertThat(exported, containsString("# TYPE ehcache_operations_total counter\n"));
+    assertThat(exported, containsString("ehcache_operations_total{cache=\"tiered\",tier=\"cache\",operation=\"get\",outcome=\"hit_no_loader\"} 1\n"));
+    assertThat(exported, containsString("ehcache_operations_total{cache=\"tiered\",tier=\"cache\",operation=\"get\",outcome=\"miss_no_loader\"} 1\n"));
+    assertThat(exported, containsString("ehcache_operations_total{cache=\"tiered\",tier=\"local-offheap\",operation=\"put\",outcome=\"put\"} 1\n"));
+
+    assertThat(exported, containsString("# TYPE ehcache_occupied_memory gauge\n"));
+    assertThat(exported, containsString("ehcache_occupied_memory{cache=\"tiered\",tier=\"local-offheap\"} "));
+    assertThat(exported, not(containsString("ehcache_occupied_memory{cache=\"tiered\",tier=\"local-offheap\"} 0\n")));
+
+    assertThat(exported, containsString("# TYPE ehcache_operation_latency_seconds histogram\n"));
+    assertThat(exported, containsString("ehcache_operation_latency_seconds_bucket{cache=\"tiered\",tier=\"cache\",operation=\"get\",outcome=\"hit_no_loader\",le=\"+Inf\"} 1\n"));
+    assertThat(exported, containsString("ehcache_operation_latency_seconds_count{cache=\"tiered\",tier=\"cache\",operation=\"get\",outcome=\"hit_no_loader\"} 1\n"));
+  }
+
+  @Test
+  public void testFamiliesAreContiguous() throws Exception {
+    cacheManager.createCache("other", newCacheConfigurationBuilder(Long.class, String.class,
+        newResourcePoolsBuilder().heap(10, EntryUnit.ENTRIES)));
+    cacheManager.getCache("other", Long.class, String.class).get(1L);
+
+    String exported = export();
+
+    int otherGet = exported.indexOf("ehcache_operations_total{cache=\"other\"");
+    int firstGauge = exported.indexOf("# TYPE ehcache_mappings_count gauge");
+    int otherMappings = exported.indexOf("ehcache_mappings_count{cache=\"other\"");
+    int tieredMappings = exported.indexOf("ehcache_mappings_count{cache=\"tiered\"");
+    assertThat(otherGet, lessThan(firstGauge));
+    assertThat(firstGauge, lessThan(otherMappings));
+    assertThat(otherMappings, lessThan(tieredMappings));
+  }
+
+  @Test
+  public void testRemovedCacheIsNotExported() throws Exception {
+    cacheManager.removeCache("tiered");
+
+    assertThat(export().contains("cache=\"tiered\""), is(false));
+  }
+
+  @Test
+  public void testNamesDoNotDependOnDefaultLocale() throws Exception {
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(new Locale("tr", "TR"));
+    try {
+      cacheManager.createCache("other", newCacheConfigurationBuilder(Long.class, String.class,
+          newResourcePoolsBuilder().heap(10, EntryUnit.ENTRIES)));
+      cacheManager.getCache("other", Long.class, String.class).get(1L);
+
+      String exported = export();
+
+      assertThat(exported, containsString("ehcache_operations_total{cache=\"other\",tier=\"cache\",operation=\"get\",outcome=\"miss_no_loader\"} 1\n"));
+      assertThat(exported, containsString("# TYPE ehcache_operation_latency_seconds histogram\n"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void testEscapesLabelValues() {
+    assertThat(PrometheusTextExporter.escape("a\\b\"c\nd", true), is("a\\\\b\\\"c\\nd"));
+    assertThat(PrometheusTextExporter.escape("a\"b", false), is("a\"b"));
+    assertThat(PrometheusTextExporter.escape("plain", true), is("plain"));
+  }
+
+  private String export() throws Exception {
+    StringWriter writer = new StringWriter();
+    metricsService.export(new PrometheusTextExporter(writer));
+    return writer.toString();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.config.event.DefaultCacheEventListenerConfiguration;
+import org.ehcache.impl.config.store.expiry.ExpirySweeperConfiguration;
+import org.ehcache.impl.internal.executor.OnDemandExecutionService;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
+import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExpirySweeperTest {
+
+  @Test
+  public void testSweepAccumulatesRemovedMappings() {
+    ExpirySweeper.Sweepable store = mock(ExpirySweeper.Sweepable.class);
+    when(store.sweepExpired(10)).thenReturn(3, 0, 2);
+    ExpirySweeper sweeper = new ExpirySweeper(store, "test", new OnDemandExecutionService(),
+        new ExpirySweeperConfiguration(null, 1, TimeUnit.SECONDS, 10));
+
+    sweeper.sweep();
+    sweeper.sweep();
+    sweeper.sweep();
+
+    assertThat(sweeper.getSweepCount(), is(3L));
+    assertThat(sweeper.getExpiredCount(), is(5L));
+  }
+
+  @Test
+  public void testSweepSurvivesStoreFailure() {
+    ExpirySweeper.Sweepable store = mock(ExpirySweeper.Sweepable.class);
+    when(store.sweepExpired(10)).thenThrow(new IllegalStateException("Simulated failure")).thenReturn(1);
+    ExpirySweeper sweeper = new ExpirySweeper(store, "test", new OnDemandExecutionService(),
+        new ExpirySweeperConfiguration(null, 1, TimeUnit.SECONDS, 10));
+
+    sweeper.sweep();
+    sweeper.sweep();
+
+    assertThat(sweeper.getSweepCount(), is(1L));
+    assertThat(sweeper.getExpiredCount(), is(1L));
+  }
+
+  @Test
+  public void testUntouchedExpiredMappingsAreSweptFromCache() throws Exception {
+    final CountDownLatch expired = new CountDownLatch(2);
+    CacheManager cacheManager = newCacheManagerBuilder().build(true);
+    try {
+      Cache<Long, String> cache = cacheManager.createCache("swept", newCacheConfigurationBuilder(Long.class, String.class, heap(10))
+          .withExpiry(Expirations.timeToLiveExpiration(new Duration(50, TimeUnit.MILLISECONDS)))
+          .add(new ExpirySweeperConfiguration(null, 20, TimeUnit.MILLISECONDS))
+          .add(new DefaultCacheEventListenerConfiguration(EnumSet.of(EventType.EXPIRED), new CacheEventListener<Object, Object>() {
+            @Override
+            public void onEvent(CacheEvent<Object, Object> event) {
+              expired.countDown();
+            }
+          }))
+          .build());
+
+      cache.put(1L, "one");
+      cache.put(2L, "two");
+
+      assertTrue("Expired mappings were not swept", expired.await(10, TimeUnit.SECONDS));
+    } finally {
+      cacheManager.close();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.disk;
+
+import org.ehcache.core.spi.service.ExecutionService;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DiskWriteThreadPoolTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSharedWriterIsShutDownOnceAllSegmentWritersAre() throws Exception {
+    ExecutorService sharedWriter = Executors.newSingleThreadExecutor();
+    ExecutionService executionService = mock(ExecutionService.class);
+    when(executionService.getOrderedExecutor(anyString(), any(BlockingQueue.class))).thenReturn(sharedWriter);
+    try {
+      DiskWriteThreadPool pool = new DiskWriteThreadPool(executionService, "writer", 2);
+      ExecutorService first = pool.newInstance();
+      ExecutorService second = pool.newInstance();
+
+      first.shutdownNow();
+      assertThat(first.awaitTermination(10, TimeUnit.SECONDS), is(true));
+      assertThat(sharedWriter.isShutdown(), is(false));
+      try {
+        first.execute(new Runnable() {
+          @Override
+          public void run() {
+          }
+        });
+        fail("Expected RejectedExecutionException");
+      } catch (RejectedExecutionException e) {
+        // expected
+      }
+
+      final AtomicInteger runs = new AtomicInteger();
+      second.execute(new Runnable() {
+        @Override
+        public void run() {
+          runs.incrementAndGet();
+        }
+      });
+      second.shutdown();
+      assertThat(second.awaitTermination(10, TimeUnit.SECONDS), is(true));
+      assertThat(runs.get(), is(1));
+      assertThat(sharedWriter.isShutdown(), is(true));
+    } finally {
+      sharedWriter.shutdownNow();
+    }
+  }
+}
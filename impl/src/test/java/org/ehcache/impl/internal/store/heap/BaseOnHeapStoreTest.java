@@ -209,6 +209,27 @@ public abstract class BaseOnHeapStoreTest {
     StatisticsTestUtils.validateStats(store, EnumSet.of(StoreOperationOutcomes.GetOutcome.HIT, StoreOperationOutcomes.GetOutcome.MISS));
   }
 
+  @Test
+  public void testSweepExpiredRemovesOnlyExpiredMappingsIncrementally() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    OnHeapStore<String, String> store = newStore(timeSource,
+        Expirations.timeToLiveExpiration(new Duration(10, TimeUnit.MILLISECONDS)));
+    store.put("key1", "value1");
+    store.put("key2", "value2");
+    store.put("key3", "value3");
+    timeSource.advanceTime(5);
+    assertThat(store.sweepExpired(10), is(0));
+
+    timeSource.advanceTime(5);
+    assertThat(store.sweepExpired(2), is(2));
+    assertThat(store.sweepExpired(2), is(1));
+    verify(eventSink, times(3)).expired(anyString(), any(ValueSupplier.class));
+    assertThat(store.get("key1"), nullValue());
+    assertThat(store.get("key2"), nullValue());
+    assertThat(store.get("key3"), nullValue());
+    StatisticsTestUtils.validateStat(store, StoreOperationOutcomes.ExpirationOutcome.SUCCESS, 3L);
+  }
+
   @Test
   public void testGetNoExpired() throws Exception {
     TestTimeSource timeSource = new TestTimeSource();
@@ -303,6 +324,21 @@ public abstract class BaseOnHeapStoreTest {
     StatisticsTestUtils.validateStats(store, EnumSet.of(CachingTierOperationOutcomes.InvalidateOutcome.REMOVED));
   }
 
+  @Test
+  public void testInvalidateAllWithHash() throws Exception {
+    OnHeapStore<String, String> store = newStore();
+    CachingTier.InvalidationListener<String, String> invalidationListener = mock(CachingTier.InvalidationListener.class);
+    store.setInvalidationListener(invalidationListener);
+    store.put("key", "value");
+    store.put("other", "value");
+
+    store.invalidateAllWithHash("key".hashCode());
+
+    assertThat(store.get("key"), nullValue());
+    assertThat(store.get("other").value(), equalTo("value"));
+    verify(invalidationListener).onInvalidation(eq("key"), any(ValueHolder.class));
+  }
+
   @Test
   public void testPutIfAbsentNoValue() throws Exception {
     OnHeapStore<String, String> store = newStore();
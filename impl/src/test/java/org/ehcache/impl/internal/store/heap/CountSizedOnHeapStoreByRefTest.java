@@ -15,6 +15,7 @@
  */
 package org.ehcache.impl.internal.store.heap;
 
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.CacheConfigurationChangeEvent;
 import org.ehcache.core.CacheConfigurationChangeListener;
 import org.ehcache.core.CacheConfigurationProperty;
@@ -95,6 +96,11 @@ public class CountSizedOnHeapStoreByRefTest extends OnHeapStoreByRefTest {
       public int getDispatcherConcurrency() {
         return 0;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     }, timeSource, DEFAULT_COPIER, DEFAULT_COPIER, new NoopSizeOfEngine(), eventDispatcher);
   }
 
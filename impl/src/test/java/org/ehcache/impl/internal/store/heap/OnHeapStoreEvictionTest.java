@@ -19,6 +19,7 @@ import org.ehcache.config.Eviction;
 import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourcePools;
 import org.ehcache.config.units.EntryUnit;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.expiry.Expirations;
 import org.ehcache.expiry.Expiry;
@@ -167,6 +168,11 @@ public class OnHeapStoreEvictionTest {
       public int getDispatcherConcurrency() {
         return 1;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     }, timeSource);
   }
 
@@ -20,6 +20,7 @@ import org.ehcache.config.Eviction;
 import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.ResourcePools;
 import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.spi.function.NullaryFunction;
 import org.ehcache.event.EventType;
 import org.ehcache.core.events.StoreEventDispatcher;
@@ -145,6 +146,11 @@ public class ByteAccountingTest {
       public int getDispatcherConcurrency() {
         return 0;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     }, timeSource, new DefaultSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE), new TestStoreEventDispatcher<K, V>());
   }
 
@@ -16,6 +16,7 @@
 
 package org.ehcache.impl.internal.store.heap.bytesized;
 
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.CacheConfigurationChangeEvent;
 import org.ehcache.core.CacheConfigurationChangeListener;
 import org.ehcache.core.CacheConfigurationProperty;
@@ -99,6 +100,11 @@ public class ByteSizedOnHeapStoreByRefTest extends OnHeapStoreByRefTest {
       public int getDispatcherConcurrency() {
         return 0;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     }, timeSource, DEFAULT_COPIER, DEFAULT_COPIER, new DefaultSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE), eventDispatcher);
   }
 
@@ -15,6 +15,7 @@
  */
 package org.ehcache.impl.internal.store.heap.bytesized;
 
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.CacheConfigurationChangeEvent;
 import org.ehcache.core.CacheConfigurationChangeListener;
 import org.ehcache.core.CacheConfigurationProperty;
@@ -100,6 +101,11 @@ public class ByteSizedOnHeapStoreByValueTest extends OnHeapStoreByValueTest {
       public int getDispatcherConcurrency() {
         return 0;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     }, timeSource, keyCopier, valueCopier, new DefaultSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE), eventDispatcher);
   }
 
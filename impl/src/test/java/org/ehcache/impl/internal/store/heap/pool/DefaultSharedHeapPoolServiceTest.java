@@ -0,0 +1,173 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap.pool;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.statistics.StatisticsLevel;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
+import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DefaultSharedHeapPoolServiceTest {
+
+  @Test
+  public void testCachesShareThePoolAtInit() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("a", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .withCache("b", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .withCache("c", newCacheConfigurationBuilder(Long.class, String.class, heap(10)))
+        .build(true);
+    try {
+      assertThat(service.getAllocations().get("a"), is(50L));
+      assertThat(service.getAllocations().get("b"), is(50L));
+      assertThat(service.getAllocations(), not(hasKey("c")));
+      assertThat(heapSize(cacheManager.getCache("a", Long.class, String.class)), is(50L));
+      assertThat(heapSize(cacheManager.getCache("c", Long.class, String.class)), is(10L));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testStopWithoutStart() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    service.stop();
+  }
+
+  @Test
+  public void testCacheJoiningAndLeavingAtRuntime() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("a", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration(0, 80)))
+        .build(true);
+    try {
+      assertThat(service.getAllocations().get("a"), is(80L));
+
+      cacheManager.createCache("b", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration(30, 100)));
+      assertThat(service.getAllocations().get("a"), is(50L));
+      assertThat(service.getAllocations().get("b"), is(50L));
+
+      cacheManager.removeCache("a");
+      assertThat(service.getAllocations().get("b"), is(100L));
+      assertThat(service.getAllocations(), not(hasKey("a")));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testRebalanceFavoursEvictingCache() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("idle", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .withCache("busy", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .build(true);
+    try {
+      Cache<Long, String> busy = cacheManager.getCache("busy", Long.class, String.class);
+      for (long i = 0; i < 200; i++) {
+        busy.get(i);
+        busy.put(i, "value");
+      }
+
+      service.rebalance();
+
+      assertThat(service.getAllocations().get("busy"), greaterThan(50L));
+      assertThat(heapSize(busy), is(service.getAllocations().get("busy")));
+      assertThat(service.getAllocations().get("idle") + service.getAllocations().get("busy"), is(100L));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testMemoryPoolResizesInBytes() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(2, MemoryUnit.MB, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("a", newCacheConfigurationBuilder(Long.class, String.class, newResourcePoolsBuilder().heap(1, MemoryUnit.KB))
+            .add(new SharedHeapPoolConfiguration()))
+        .withCache("entries", newCacheConfigurationBuilder(Long.class, String.class, heap(10))
+            .add(new SharedHeapPoolConfiguration()))
+        .build(true);
+    try {
+      assertThat(service.getAllocations().get("a"), is(MemoryUnit.MB.toBytes(2)));
+      assertThat(service.getAllocations(), not(hasKey("entries")));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testCacheWithoutStatisticsDoesNotJoin() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("a", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .withCache("off", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration())
+            .withStatistics(StatisticsLevel.OFF))
+        .build(true);
+    try {
+      assertThat(service.getAllocations().get("a"), is(100L));
+      assertThat(service.getAllocations(), not(hasKey("off")));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  @Test
+  public void testCachesRejoinThePoolAfterReinit() {
+    DefaultSharedHeapPoolService service = new DefaultSharedHeapPoolService(
+        new SharedHeapPoolServiceConfiguration(100, EntryUnit.ENTRIES, 1, TimeUnit.HOURS, null));
+    CacheManager cacheManager = newCacheManagerBuilder().using(service)
+        .withCache("a", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .withCache("b", newCacheConfigurationBuilder(Long.class, String.class, heap(10)).add(new SharedHeapPoolConfiguration()))
+        .build(true);
+    cacheManager.close();
+    cacheManager.init();
+    try {
+      assertThat(service.getAllocations().get("a"), is(50L));
+      assertThat(service.getAllocations().get("b"), is(50L));
+      assertThat(heapSize(cacheManager.getCache("a", Long.class, String.class)), is(50L));
+    } finally {
+      cacheManager.close();
+    }
+  }
+
+  private static long heapSize(Cache<?, ?> cache) {
+    return cache.getRuntimeConfiguration().getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize();
+  }
+}
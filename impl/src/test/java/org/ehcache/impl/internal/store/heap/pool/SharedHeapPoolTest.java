@@ -0,0 +1,230 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap.pool;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SharedHeapPoolTest {
+
+  @Test
+  public void testJoinGrantsEvenShareOrReservation() {
+    SharedHeapPool pool = new SharedHeapPool(100);
+    TestMember a = new TestMember("a", 0, Long.MAX_VALUE);
+    TestMember b = new TestMember("b", 0, Long.MAX_VALUE);
+    TestMember c = new TestMember("c", 40, Long.MAX_VALUE);
+
+    assertThat(pool.join(a), is(true));
+    assertThat(a.allocation(), is(100L));
+    assertThat(pool.join(b), is(true));
+    assertThat(a.allocation(), is(50L));
+    assertThat(b.allocation(), is(50L));
+    assertThat(pool.join(c), is(true));
+    assertThat(a.allocation(), is(30L));
+    assertThat(b.allocation(), is(30L));
+    assertThat(c.allocation(), is(40L));
+  }
+
+  @Test
+  public void testJoinKeepsRebalancedAllocationsOfOtherMembers() {
+    SharedHeapPool pool = new SharedHeapPool(200);
+    TestMember idle = new TestMember("idle", 0, Long.MAX_VALUE);
+    TestMember busy = new TestMember("busy", 0, Long.MAX_VALUE);
+    pool.join(idle);
+    pool.join(busy);
+    busy.misses = 50;
+    busy.evictions = 40;
+    pool.rebalance();
+    assertThat(idle.allocation(), is(91L));
+    assertThat(busy.allocation(), is(109L));
+
+    TestMember c = new TestMember("c", 20, Long.MAX_VALUE);
+    assertThat(pool.join(c), is(true));
+
+    assertThat(c.allocation(), is(66L));
+    assertThat(idle.allocation(), is(61L));
+    assertThat(busy.allocation(), is(73L));
+  }
+
+  @Test
+  public void testJoinHonoursLimits() {
+    SharedHeapPool pool = new SharedHeapPool(100);
+    TestMember a = new TestMember("a", 20, 30);
+    TestMember b = new TestMember("b", 10, 40);
+    TestMember c = new TestMember("c", 0, Long.MAX_VALUE);
+
+    pool.join(a);
+    pool.join(b);
+    pool.join(c);
+
+    assertThat(a.allocation(), is(29L));
+    assertThat(b.allocation(), is(38L));
+    assertThat(c.allocation(), is(33L));
+  }
+
+  @Test
+  public void testJoinRejectedWhenReservationCannotBeHonoured() {
+    SharedHeapPool pool = new SharedHeapPool(100);
+    pool.join(new TestMember("a", 80, Long.MAX_VALUE));
+    TestMember b = new TestMember("b", 30, Long.MAX_VALUE);
+
+    assertThat(pool.join(b), is(false));
+    assertThat(b.allocation(), is(5L));
+    assertThat(pool.allocations().containsKey("b"), is(false));
+  }
+
+  @Test
+  public void testJoinRejectsDuplicateAlias() {
+    SharedHeapPool pool = new SharedHeapPool(100);
+    TestMember a = new TestMember("a", 0, Long.MAX_VALUE);
+    pool.join(a);
+
+    try {
+      pool.join(new TestMember("a", 0, Long.MAX_VALUE));
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertThat(pool.allocations().size(), is(1));
+    assertThat(a.allocation(), is(100L));
+  }
+
+  @Test
+  public void testLeaveReturnsCapacityToRemainingMembers() {
+    SharedHeapPool pool = new SharedHeapPool(90);
+    TestMember a = new TestMember("a", 0, Long.MAX_VALUE);
+    TestMember b = new TestMember("b", 0, Long.MAX_VALUE);
+    TestMember c = new TestMember("c", 0, Long.MAX_VALUE);
+    pool.join(a);
+    pool.join(b);
+    pool.join(c);
+
+    pool.leave("c");
+
+    assertThat(a.allocation() + b.allocation(), is(90L));
+    assertThat(pool.allocations().size(), is(2));
+  }
+
+  @Test
+  public void testRebalanceMovesCapacityTowardEvictingMember() {
+    SharedHeapPool pool = new SharedHeapPool(200);
+    TestMember idle = new TestMember("idle", 0, Long.MAX_VALUE);
+    TestMember busy = new TestMember("busy", 0, Long.MAX_VALUE);
+    pool.join(idle);
+    pool.join(busy);
+
+    busy.misses = 50;
+    busy.evictions = 40;
+    pool.rebalance();
+
+    assertThat(busy.allocation(), is(109L));
+    assertThat(idle.allocation(), is(91L));
+
+    for (int i = 0; i < 20; i++) {
+      busy.misses += 50;
+      busy.evictions += 40;
+      pool.rebalance();
+    }
+    assertThat(busy.allocation(), greaterThan(180L));
+    assertThat(idle.allocation() + busy.allocation(), is(200L));
+  }
+
+  @Test
+  public void testRebalanceKeepsReservation() {
+    SharedHeapPool pool = new SharedHeapPool(200);
+    TestMember idle = new TestMember("idle", 80, Long.MAX_VALUE);
+    TestMember busy = new TestMember("busy", 0, Long.MAX_VALUE);
+    pool.join(idle);
+    pool.join(busy);
+
+    for (int i = 0; i < 100; i++) {
+      busy.misses += 50;
+      busy.evictions += 40;
+      pool.rebalance();
+    }
+
+    assertThat(idle.allocation(), is(80L));
+    assertThat(busy.allocation(), is(120L));
+  }
+
+  @Test
+  public void testRebalanceIgnoresMissesWithoutEvictions() {
+    SharedHeapPool pool = new SharedHeapPool(200);
+    TestMember a = new TestMember("a", 0, Long.MAX_VALUE);
+    TestMember b = new TestMember("b", 0, Long.MAX_VALUE);
+    pool.join(a);
+    pool.join(b);
+
+    b.misses = 1000;
+    pool.rebalance();
+
+    assertThat(a.allocation(), is(100L));
+    assertThat(b.allocation(), is(100L));
+  }
+
+  @Test
+  public void testFailedResizeLeavesAllocationsUntouched() {
+    SharedHeapPool pool = new SharedHeapPool(200);
+    TestMember idle = new TestMember("idle", 0, Long.MAX_VALUE);
+    TestMember busy = new TestMember("busy", 0, Long.MAX_VALUE);
+    pool.join(idle);
+    pool.join(busy);
+
+    busy.failResize = true;
+    busy.misses = 50;
+    busy.evictions = 40;
+    pool.rebalance();
+
+    assertThat(idle.allocation(), is(100L));
+    assertThat(busy.allocation(), is(100L));
+    assertThat(busy.size, is(100L));
+  }
+
+  static class TestMember extends SharedHeapPool.Member {
+
+    long misses;
+    long evictions;
+    long size = 5;
+    boolean failResize;
+
+    TestMember(String alias, long min, long max) {
+      super(alias, min, max, 5);
+    }
+
+    @Override
+    long misses() {
+      return misses;
+    }
+
+    @Override
+    long evictions() {
+      return evictions;
+    }
+
+    @Override
+    boolean resize(long size) {
+      if (failResize) {
+        return false;
+      }
+      this.size = size;
+      return true;
+    }
+  }
+}
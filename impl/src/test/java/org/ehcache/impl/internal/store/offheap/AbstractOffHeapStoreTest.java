@@ -48,9 +48,14 @@ import org.terracotta.statistics.OperationStatistic;
 import org.terracotta.statistics.StatisticsManager;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -72,6 +77,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -325,6 +331,88 @@ public abstract class AbstractOffHeapStoreTest {
     assertThat(store.getAndFault(key).hits(), is(5l));
   }
 
+  @Test
+  public void testSweepExpiredRemovesOnlyExpiredMappingsIncrementally() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.timeToLiveExpiration(new Duration(10L, TimeUnit.MILLISECONDS)));
+    try {
+      final List<String> expiredKeys = new ArrayList<String>();
+      offHeapStore.getStoreEventSource().addEventListener(new StoreEventListener<String, String>() {
+
+        @Override
+        public void onEvent(StoreEvent<String, String> event) {
+          if (event.getType() == EventType.EXPIRED) {
+            expiredKeys.add(event.getKey());
+          }
+        }
+      });
+
+      offHeapStore.put("key1", "value1");
+      timeSource.advanceTime(5);
+      offHeapStore.put("key2", "value2");
+      offHeapStore.put("key3", "value3");
+
+      timeSource.advanceTime(5);   // Expire key1 only
+      assertThat(offHeapStore.sweepExpired(10), is(1));
+      assertThat(expiredKeys, containsInAnyOrder("key1"));
+
+      timeSource.advanceTime(5);   // Expire the other elements
+      int swept = offHeapStore.sweepExpired(1);
+      swept += offHeapStore.sweepExpired(1);
+      swept += offHeapStore.sweepExpired(1);
+      assertThat(swept, is(2));
+      assertThat(expiredKeys, containsInAnyOrder("key1", "key2", "key3"));
+      assertThat(getExpirationStatistic(offHeapStore).count(StoreOperationOutcomes.ExpirationOutcome.SUCCESS), is(3L));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testSweepExpiredResumesWhereThePreviousRunStopped() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.timeToLiveExpiration(new Duration(10L, TimeUnit.MILLISECONDS)));
+    try {
+      for (int i = 0; i < 100; i++) {
+        offHeapStore.put("key" + i, "value" + i);
+      }
+      timeSource.advanceTime(10);
+
+      int swept = 0;
+      for (int run = 0; run < 10; run++) {
+        swept += offHeapStore.sweepExpired(10);
+      }
+      assertThat(swept, is(100));
+      assertThat(offHeapStore.sweepExpired(10), is(0));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testInvalidateAllWithHashInvalidatesCollidingKeysOnly() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      // "Aa" and "BB" share their hash
+      offHeapStore.put("Aa", "value");
+      offHeapStore.put("BB", "value");
+      for (int i = 0; i < 100; i++) {
+        offHeapStore.put("key" + i, "value" + i);
+      }
+
+      offHeapStore.invalidateAllWithHash("Aa".hashCode());
+
+      assertThat(offHeapStore.get("Aa"), nullValue());
+      assertThat(offHeapStore.get("BB"), nullValue());
+      for (int i = 0; i < 100; i++) {
+        assertThat(offHeapStore.get("key" + i).value(), is("value" + i));
+      }
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
   @Test
   public void testExpiryEventFiredOnExpiredCachedEntry() throws StoreAccessException {
     TestTimeSource timeSource = new TestTimeSource();
@@ -588,6 +676,131 @@ public abstract class AbstractOffHeapStoreTest {
     }
   }
 
+  @Test
+  public void testBulkComputeAcrossSegments() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < 100; i++) {
+        keys.add("key" + i);
+        if (i % 2 == 0) {
+          offHeapStore.put("key" + i, "value" + i);
+        }
+      }
+
+      Map<String, Store.ValueHolder<String>> result = offHeapStore.bulkCompute(keys, new Function<Iterable<? extends Map.Entry<? extends String, ? extends String>>, Iterable<? extends Map.Entry<? extends String, ? extends String>>>() {
+        @Override
+        public Iterable<? extends Map.Entry<? extends String, ? extends String>> apply(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) {
+          Map<String, String> computed = new HashMap<String, String>();
+          for (Map.Entry<? extends String, ? extends String> entry : entries) {
+            computed.put(entry.getKey(), entry.getValue() == null ? "new" : null);
+          }
+          return computed.entrySet();
+        }
+      });
+
+      assertThat(result.keySet(), equalTo(keys));
+      for (int i = 0; i < 100; i++) {
+        if (i % 2 == 0) {
+          assertThat(offHeapStore.get("key" + i), nullValue());
+        } else {
+          assertThat(offHeapStore.get("key" + i).value(), is("new"));
+        }
+      }
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOptimisticBulkComputeKeepsConcurrentlyModifiedMapping() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    final AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      offHeapStore.put("key", "value");
+      StoreEventListener<String, String> listener = mock(StoreEventListener.class);
+      offHeapStore.getStoreEventSource().addEventListener(listener);
+      final List<String> conflicts = new ArrayList<String>();
+
+      Map<String, Store.ValueHolder<String>> result = offHeapStore.bulkCompute(Collections.singleton("key"), new Store.OptimisticRemappingFunction<String, String>() {
+        @Override
+        public void conflicted(String key) {
+          conflicts.add(key);
+        }
+
+        @Override
+        public Iterable<? extends Map.Entry<? extends String, ? extends String>> apply(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) {
+          putFromAnotherThread(offHeapStore, "key", "concurrent");
+          return Collections.singletonMap("key", "computed").entrySet();
+        }
+      });
+
+      assertThat(conflicts, containsInAnyOrder("key"));
+      assertThat(result.get("key").value(), is("concurrent"));
+      assertThat(offHeapStore.get("key").value(), is("concurrent"));
+      Matcher<StoreEvent<String, String>> matcher = eventType(EventType.EVICTED);
+      verify(listener, never()).onEvent(argThat(matcher));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testOptimisticBulkComputeKeepsConcurrentlyModifiedMappingLeftAsRead() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    final AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      offHeapStore.put("key", "value");
+      final List<String> conflicts = new ArrayList<String>();
+
+      Map<String, Store.ValueHolder<String>> result = offHeapStore.bulkCompute(Collections.singleton("key"), new Store.OptimisticRemappingFunction<String, String>() {
+        @Override
+        public void conflicted(String key) {
+          conflicts.add(key);
+        }
+
+        @Override
+        public Iterable<? extends Map.Entry<? extends String, ? extends String>> apply(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) {
+          putFromAnotherThread(offHeapStore, "key", "concurrent");
+          return entries;
+        }
+      });
+
+      assertThat(conflicts.isEmpty(), is(true));
+      assertThat(result.get("key").value(), is("concurrent"));
+      assertThat(offHeapStore.get("key").value(), is("concurrent"));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  /**
+   * Fails if the put cannot complete, as it would if the calling thread held the segment lock.
+   */
+  private static void putFromAnotherThread(final AbstractOffHeapStore<String, String> offHeapStore, final String key, final String value) {
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          offHeapStore.put(key, value);
+        } catch (Throwable t) {
+          failure.set(t);
+        }
+      }
+    };
+    writer.start();
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+    assertFalse("segment lock held while remapping", writer.isAlive());
+    assertNull(failure.get());
+  }
+
   @Test
   public void testComputeIfAbsentOnExpiredEntry() throws StoreAccessException {
     TestTimeSource timeSource = new TestTimeSource();
@@ -36,6 +36,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
@@ -343,6 +344,19 @@ public class CompoundCachingTierTest {
     verify(lowerTier).invalidateAll();
   }
 
+  @Test
+  public void testInvalidateAllWithHashCoversBothTiers() throws Exception {
+    HigherCachingTier<String, String> higherTier = mock(HigherCachingTier.class);
+    LowerCachingTier<String, String> lowerTier = mock(LowerCachingTier.class);
+
+    CompoundCachingTier<String, String> compoundCachingTier = new CompoundCachingTier<String, String>(higherTier, lowerTier);
+
+    compoundCachingTier.invalidateAllWithHash(42L);
+
+    verify(higherTier).silentInvalidateAllWithHash(eq(42L), any(BiFunction.class));
+    verify(lowerTier).invalidateAllWithHash(42L);
+  }
+
   @Test
   public void testProviderPassesServiceConfigs() {
     CompoundCachingTier.Provider provider = new CompoundCachingTier.Provider();
@@ -26,6 +26,7 @@ import org.ehcache.expiry.Expiry;
 import org.ehcache.impl.persistence.DefaultLocalPersistenceService;
 import org.ehcache.impl.internal.store.disk.OffHeapDiskStore;
 import org.ehcache.impl.internal.store.heap.OnHeapStore;
+import org.ehcache.core.config.store.StoreStatisticsConfiguration;
 import org.ehcache.core.internal.service.ServiceLocator;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.impl.serialization.JavaSerializer;
@@ -99,6 +100,11 @@ public class TieredStoreFlushWhileShutdownTest {
       public int getDispatcherConcurrency() {
         return 1;
       }
+
+      @Override
+      public StoreStatisticsConfiguration getStatisticsConfiguration() {
+        return null;
+      }
     };
 
     ServiceLocator serviceLocator = getServiceLocator(persistenceLocation);
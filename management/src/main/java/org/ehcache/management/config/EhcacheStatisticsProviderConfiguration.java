@@ -31,8 +31,41 @@ public class EhcacheStatisticsProviderConfiguration implements StatisticsProvide
   private TimeUnit historyIntervalUnit;
   private long timeToDisable;
   private TimeUnit timeToDisableUnit;
+  private int heavyHittersCapacity;
+  private int heavyHittersSampleRate;
+  private int missRatioCurveSampledKeys;
+  private int missRatioCurveSampleRate;
 
   public EhcacheStatisticsProviderConfiguration(long averageWindowDuration, TimeUnit averageWindowUnit, int historySize, long historyInterval, TimeUnit historyIntervalUnit, long timeToDisable, TimeUnit timeToDisableUnit) {
+    this(averageWindowDuration, averageWindowUnit, historySize, historyInterval, historyIntervalUnit, timeToDisable, timeToDisableUnit, 0, 1);
+  }
+
+  /**
+   * Creates a configuration that also tracks the {@code heavyHittersCapacity} most accessed keys of every cache,
+   * counting one get or put out of {@code heavyHittersSampleRate}.
+   */
+  public EhcacheStatisticsProviderConfiguration(long averageWindowDuration, TimeUnit averageWindowUnit, int historySize, long historyInterval, TimeUnit historyIntervalUnit, long timeToDisable, TimeUnit timeToDisableUnit, int heavyHittersCapacity, int heavyHittersSampleRate) {
+    this(averageWindowDuration, averageWindowUnit, historySize, historyInterval, historyIntervalUnit, timeToDisable, timeToDisableUnit, heavyHittersCapacity, heavyHittersSampleRate, 0, 1);
+  }
+
+  /**
+   * Creates a configuration that also tracks the {@code heavyHittersCapacity} most accessed keys of every cache, and
+   * estimates their miss ratio curve from the reuse distances of at most {@code missRatioCurveSampledKeys} keys, one key
+   * out of {@code missRatioCurveSampleRate} being initially sampled.
+   */
+  public EhcacheStatisticsProviderConfiguration(long averageWindowDuration, TimeUnit averageWindowUnit, int historySize, long historyInterval, TimeUnit historyIntervalUnit, long timeToDisable, TimeUnit timeToDisableUnit, int heavyHittersCapacity, int heavyHittersSampleRate, int missRatioCurveSampledKeys, int missRatioCurveSampleRate) {
+    if (heavyHittersCapacity < 0) {
+      throw new IllegalArgumentException("Heavy hitters capacity must not be negative: " + heavyHittersCapacity);
+    }
+    if (heavyHittersSampleRate <= 0) {
+      throw new IllegalArgumentException("Heavy hitters sample rate must be positive: " + heavyHittersSampleRate);
+    }
+    if (missRatioCurveSampledKeys < 0) {
+      throw new IllegalArgumentException("Miss ratio curve sampled keys must not be negative: " + missRatioCurveSampledKeys);
+    }
+    if (missRatioCurveSampleRate <= 0) {
+      throw new IllegalArgumentException("Miss ratio curve sample rate must be positive: " + missRatioCurveSampleRate);
+    }
     this.averageWindowDuration = averageWindowDuration;
     this.averageWindowUnit = averageWindowUnit;
     this.historySize = historySize;
@@ -40,6 +73,10 @@ public class EhcacheStatisticsProviderConfiguration implements StatisticsProvide
     this.historyIntervalUnit = historyIntervalUnit;
     this.timeToDisable = timeToDisable;
     this.timeToDisableUnit = timeToDisableUnit;
+    this.heavyHittersCapacity = heavyHittersCapacity;
+    this.heavyHittersSampleRate = heavyHittersSampleRate;
+    this.missRatioCurveSampledKeys = missRatioCurveSampledKeys;
+    this.missRatioCurveSampleRate = missRatioCurveSampleRate;
   }
 
   @Override
@@ -77,6 +114,34 @@ public class EhcacheStatisticsProviderConfiguration implements StatisticsProvide
     return timeToDisableUnit;
   }
 
+  /**
+   * Returns the number of keys tracked per cache, {@code 0} when keys are not tracked.
+   */
+  public int heavyHittersCapacity() {
+    return heavyHittersCapacity;
+  }
+
+  /**
+   * Returns one out of how many gets and puts is counted by the key tracking.
+   */
+  public int heavyHittersSampleRate() {
+    return heavyHittersSampleRate;
+  }
+
+  /**
+   * Returns the maximum number of keys sampled per cache for the miss ratio curve, {@code 0} when it is not estimated.
+   */
+  public int missRatioCurveSampledKeys() {
+    return missRatioCurveSampledKeys;
+  }
+
+  /**
+   * Returns one out of how many keys is initially sampled for the miss ratio curve.
+   */
+  public int missRatioCurveSampleRate() {
+    return missRatioCurveSampleRate;
+  }
+
   @Override
   public Class<EhcacheStatisticsProvider> getStatisticsProviderType() {
     return EhcacheStatisticsProvider.class;
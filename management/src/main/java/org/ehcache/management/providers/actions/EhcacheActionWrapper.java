@@ -15,6 +15,10 @@
  */
 package org.ehcache.management.providers.actions;
 
+import org.ehcache.Cache;
+import org.ehcache.core.InternalCache;
+import org.ehcache.core.statistics.HeavyHitters;
+import org.ehcache.core.statistics.MissRatioCurve;
 import org.ehcache.management.providers.CacheBinding;
 import org.terracotta.management.model.context.Context;
 import org.terracotta.management.registry.action.Exposed;
@@ -23,6 +27,11 @@ import org.terracotta.management.registry.action.Named;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Ludovic Orban
@@ -79,6 +88,44 @@ public class EhcacheActionWrapper implements ExposedObject<CacheBinding> {
     managedObject.getCache().put(convertedKey, convertedValue);
   }
 
+  /**
+   * Dumps the most accessed keys of the cache, hottest first, with their estimated access and miss counts. Nothing is
+   * returned unless key tracking is enabled through the statistics provider configuration.
+   */
+  @Exposed
+  public List<Map<String, Object>> heavyHitters(@Named("count") Object count) {
+    Cache cache = managedObject.getCache();
+    HeavyHitters<?> heavyHitters = cache instanceof InternalCache ? ((InternalCache) cache).getHeavyHitters() : null;
+    if (heavyHitters == null) {
+      return Collections.emptyList();
+    }
+    Integer top = (Integer) convert(count, Integer.class);
+    List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+    for (HeavyHitters.Entry<?> entry : heavyHitters.top(top == null ? heavyHitters.getCapacity() : top)) {
+      Map<String, Object> heavyHitter = new LinkedHashMap<String, Object>();
+      heavyHitter.put("key", entry.getKey());
+      heavyHitter.put("accesses", entry.getAccesses());
+      heavyHitter.put("misses", entry.getMisses());
+      heavyHitter.put("error", entry.getError());
+      result.add(heavyHitter);
+    }
+    return result;
+  }
+
+  /**
+   * Dumps the estimated miss ratio of the cache at every power of two number of entries. Nothing is returned unless the
+   * miss ratio curve is enabled through the statistics provider configuration.
+   */
+  @Exposed
+  public Map<Long, Double> missRatioCurve() {
+    Cache cache = managedObject.getCache();
+    MissRatioCurve<?> missRatioCurve = cache instanceof InternalCache ? ((InternalCache) cache).getMissRatioCurve() : null;
+    if (missRatioCurve == null) {
+      return Collections.emptyMap();
+    }
+    return missRatioCurve.curve();
+  }
+
   private static Object convert(Object srcObj, Class<?> destClazz) {
     if (srcObj == null || destClazz.isInstance(srcObj)) {
       return srcObj;
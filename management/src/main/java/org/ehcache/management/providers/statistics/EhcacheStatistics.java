@@ -15,8 +15,10 @@
  */
 package org.ehcache.management.providers.statistics;
 
+import org.ehcache.core.InternalCache;
 import org.ehcache.core.statistics.CacheOperationOutcomes;
 import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
+import org.ehcache.management.config.EhcacheStatisticsProviderConfiguration;
 import org.ehcache.management.config.StatisticsProviderConfiguration;
 import org.ehcache.management.providers.CacheBinding;
 import org.terracotta.context.ContextManager;
@@ -84,6 +86,9 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
   private final CacheBinding cacheBinding;
   private final Context cacheContext;
   private final ConcurrentMap<String, OperationStatistic<?>> countStatistics;
+  private final LatencyStatistics latencyStatistics;
+  private final HeavyHitterStatistics heavyHitterStatistics;
+  private final MissRatioCurveStatistics missRatioCurveStatistics;
 
   EhcacheStatistics(Context cacheContext, CacheBinding cacheBinding, StatisticsProviderConfiguration configuration, ScheduledExecutorService executor) {
     this.cacheContext = cacheContext;
@@ -92,6 +97,10 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
     this.statisticsRegistry = new StatisticsRegistry(StandardOperationStatistic.class, cacheBinding.getCache(), executor, configuration.averageWindowDuration(),
         configuration.averageWindowUnit(), configuration.historySize(), configuration.historyInterval(), configuration.historyIntervalUnit(),
         configuration.timeToDisable(), configuration.timeToDisableUnit());
+    this.latencyStatistics = new LatencyStatistics(cacheBinding.getCache(), executor, configuration.historySize(),
+        configuration.historyInterval(), configuration.historyIntervalUnit());
+    this.heavyHitterStatistics = createHeavyHitterStatistics(cacheBinding, configuration);
+    this.missRatioCurveStatistics = createMissRatioCurveStatistics(cacheBinding, configuration, executor);
 
     statisticsRegistry.registerCompoundOperation("AllCacheGet", Collections.singleton("cache"), Collections.<String, Object>singletonMap("type", "Result"), StandardOperationStatistic.CACHE_GET, ALL_CACHE_GET_OUTCOMES);
     statisticsRegistry.registerCompoundOperation("AllCacheMiss", Collections.singleton("cache"), Collections.<String, Object>singletonMap("type", "Result"), StandardOperationStatistic.CACHE_GET, ALL_CACHE_MISS_OUTCOMES);
@@ -103,6 +112,29 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
     statisticsRegistry.registerRatio("Hit", Collections.singleton("cache"), Collections.<String, Object>singletonMap("type", "Ratio"), StandardOperationStatistic.CACHE_GET, EnumSet.of(CacheOperationOutcomes.GetOutcome.HIT_NO_LOADER), ALL_CACHE_GET_OUTCOMES);
   }
 
+  private static HeavyHitterStatistics createHeavyHitterStatistics(CacheBinding cacheBinding, StatisticsProviderConfiguration configuration) {
+    if (configuration instanceof EhcacheStatisticsProviderConfiguration && cacheBinding.getCache() instanceof InternalCache) {
+      EhcacheStatisticsProviderConfiguration ehcacheConfiguration = (EhcacheStatisticsProviderConfiguration) configuration;
+      if (ehcacheConfiguration.heavyHittersCapacity() > 0) {
+        return new HeavyHitterStatistics((InternalCache<?, ?>) cacheBinding.getCache(),
+            ehcacheConfiguration.heavyHittersCapacity(), ehcacheConfiguration.heavyHittersSampleRate());
+      }
+    }
+    return null;
+  }
+
+  private static MissRatioCurveStatistics createMissRatioCurveStatistics(CacheBinding cacheBinding, StatisticsProviderConfiguration configuration, ScheduledExecutorService executor) {
+    if (configuration instanceof EhcacheStatisticsProviderConfiguration && cacheBinding.getCache() instanceof InternalCache) {
+      EhcacheStatisticsProviderConfiguration ehcacheConfiguration = (EhcacheStatisticsProviderConfiguration) configuration;
+      if (ehcacheConfiguration.missRatioCurveSampledKeys() > 0) {
+        return new MissRatioCurveStatistics((InternalCache<?, ?>) cacheBinding.getCache(),
+            ehcacheConfiguration.missRatioCurveSampledKeys(), ehcacheConfiguration.missRatioCurveSampleRate(), executor,
+            configuration.historySize(), configuration.historyInterval(), configuration.historyIntervalUnit());
+      }
+    }
+    return null;
+  }
+
   @Override
   public ClassLoader getClassLoader() {
     return cacheBinding.getCache().getRuntimeConfiguration().getClassLoader();
@@ -176,7 +208,20 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
       return Collections.singletonMap(statisticName, new Counter(sum, NumberUnit.COUNT));
     }
 
-    return Collections.emptyMap();
+    if (heavyHitterStatistics != null) {
+      Map<String, ? extends Statistic<?, ?>> statistics = heavyHitterStatistics.queryStatistic(statisticName);
+      if (!statistics.isEmpty()) {
+        return statistics;
+      }
+    }
+    if (missRatioCurveStatistics != null) {
+      Map<String, ? extends Statistic<?, ?>> statistics = missRatioCurveStatistics.queryStatistic(statisticName, since);
+      if (!statistics.isEmpty()) {
+        return statistics;
+      }
+    }
+
+    return latencyStatistics.queryStatistic(statisticName, since);
   }
 
   private <T extends Number> List<Sample<T>> buildHistory(SampledStatistic<T> sampledStatistic, long since) {
@@ -197,6 +242,13 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
 
     capabilities.addAll(queryStatisticsRegistry());
     capabilities.addAll(operationStatistics());
+    capabilities.addAll(latencyStatistics.getDescriptors());
+    if (heavyHitterStatistics != null) {
+      capabilities.addAll(heavyHitterStatistics.getDescriptors());
+    }
+    if (missRatioCurveStatistics != null) {
+      capabilities.addAll(missRatioCurveStatistics.getDescriptors());
+    }
 
     return capabilities;
   }
@@ -237,6 +289,13 @@ class EhcacheStatistics implements ExposedObject<CacheBinding> {
 
   public void dispose() {
     statisticsRegistry.clearRegistrations();
+    latencyStatistics.dispose();
+    if (heavyHitterStatistics != null) {
+      heavyHitterStatistics.dispose();
+    }
+    if (missRatioCurveStatistics != null) {
+      missRatioCurveStatistics.dispose();
+    }
   }
 
 
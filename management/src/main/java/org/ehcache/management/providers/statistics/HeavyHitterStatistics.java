@@ -0,0 +1,83 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.management.providers.statistics;
+
+import org.ehcache.core.InternalCache;
+import org.ehcache.core.statistics.HeavyHitters;
+import org.terracotta.management.model.capabilities.descriptors.Descriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptor;
+import org.terracotta.management.model.stats.NumberUnit;
+import org.terracotta.management.model.stats.Statistic;
+import org.terracotta.management.model.stats.StatisticType;
+import org.terracotta.management.model.stats.primitive.Counter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Key skew of a cache, as seen by the {@link HeavyHitters} tracker this class installs on it.
+ * <P>
+ *   The tracker itself is dumped through the {@code heavyHitters} action, the statistics only give the estimated
+ *   accesses and misses of the hottest key against the estimated accesses of all keys.
+ * </P>
+ */
+class HeavyHitterStatistics {
+
+  private static final String ACCESSES = "TrackedAccessCounter";
+  private static final String HOTTEST_KEY_ACCESSES = "HottestKeyAccessCounter";
+  private static final String HOTTEST_KEY_MISSES = "HottestKeyMissCounter";
+
+  private final InternalCache<Object, ?> cache;
+  private final HeavyHitters<Object> heavyHitters;
+
+  @SuppressWarnings("unchecked")
+  HeavyHitterStatistics(InternalCache<?, ?> cache, int capacity, int sampleRate) {
+    this.cache = (InternalCache<Object, ?>) cache;
+    this.heavyHitters = new HeavyHitters<Object>(capacity, sampleRate);
+    this.cache.setHeavyHitters(heavyHitters);
+  }
+
+  Set<Descriptor> getDescriptors() {
+    Set<Descriptor> descriptors = new HashSet<Descriptor>();
+    descriptors.add(new StatisticDescriptor(ACCESSES, StatisticType.COUNTER));
+    descriptors.add(new StatisticDescriptor(HOTTEST_KEY_ACCESSES, StatisticType.COUNTER));
+    descriptors.add(new StatisticDescriptor(HOTTEST_KEY_MISSES, StatisticType.COUNTER));
+    return descriptors;
+  }
+
+  Map<String, ? extends Statistic<?, ?>> queryStatistic(String statisticName) {
+    if (ACCESSES.equals(statisticName)) {
+      return Collections.singletonMap(statisticName, new Counter(heavyHitters.getAccesses(), NumberUnit.COUNT));
+    } else if (HOTTEST_KEY_ACCESSES.equals(statisticName) || HOTTEST_KEY_MISSES.equals(statisticName)) {
+      List<HeavyHitters.Entry<Object>> top = heavyHitters.top(1);
+      long value = 0L;
+      if (!top.isEmpty()) {
+        value = HOTTEST_KEY_ACCESSES.equals(statisticName) ? top.get(0).getAccesses() : top.get(0).getMisses();
+      }
+      return Collections.singletonMap(statisticName, new Counter(value, NumberUnit.COUNT));
+    }
+    return Collections.emptyMap();
+  }
+
+  void dispose() {
+    if (cache.getHeavyHitters() == heavyHitters) {
+      cache.setHeavyHitters(null);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.management.providers.statistics;
+
+import org.ehcache.core.statistics.LatencyHistogram;
+import org.ehcache.core.statistics.LatencyHistograms;
+import org.terracotta.management.model.capabilities.descriptors.Descriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptorCategory;
+import org.terracotta.management.model.stats.Sample;
+import org.terracotta.management.model.stats.Statistic;
+import org.terracotta.management.model.stats.StatisticType;
+import org.terracotta.management.model.stats.history.DurationHistory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of every operation outcome of a cache and of its tiers.
+ * <P>
+ *   The latency histograms are sampled and reset every history interval, so that each sample describes the latencies
+ *   of one interval. The statistics of an outcome are grouped in a category named after its tier, operation and
+ *   outcome, e.g. {@code OnheapStoreGetHit}.
+ * </P>
+ */
+class LatencyStatistics {
+
+  private static final List<String> PERCENTILES = Arrays.asList("LatencyP50", "LatencyP99", "LatencyP999", "LatencyMaximum");
+
+  private final LatencyHistograms histograms;
+  private final int historySize;
+  private final Map<String, LatencyHistograms.Key> categories = new HashMap<String, LatencyHistograms.Key>();
+  private final Map<LatencyHistograms.Key, LinkedList<Interval>> history = new HashMap<LatencyHistograms.Key, LinkedList<Interval>>();
+  private final ScheduledFuture<?> sampling;
+
+  LatencyStatistics(Object cache, ScheduledExecutorService executor, int historySize, long historyInterval, TimeUnit historyIntervalUnit) {
+    this.histograms = new LatencyHistograms(cache);
+    this.historySize = historySize;
+    for (LatencyHistograms.Key key : histograms.keys()) {
+      categories.put(categoryOf(key), key);
+      history.put(key, new LinkedList<Interval>());
+    }
+    this.sampling = executor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        sample();
+      }
+    }, historyInterval, historyInterval, historyIntervalUnit);
+  }
+
+  private static String categoryOf(LatencyHistograms.Key key) {
+    StringBuilder category = new StringBuilder();
+    for (String word : key.getTier().split("[-+]")) {
+      category.append(capitalize(word));
+    }
+    category.append(capitalize(key.getOperation()));
+    for (String word : key.getOutcome().split("_")) {
+      category.append(capitalize(word.toLowerCase(Locale.ENGLISH)));
+    }
+    return category.toString();
+  }
+
+  private static String capitalize(String s) {
+    return s.isEmpty() ? s : s.substring(0, 1).toUpperCase(Locale.ENGLISH) + s.substring(1);
+  }
+
+  private void sample() {
+    long timestamp = System.currentTimeMillis();
+    Map<LatencyHistograms.Key, LatencyHistogram.Snapshot> snapshots = histograms.snapshotAndReset();
+    synchronized (history) {
+      for (Map.Entry<LatencyHistograms.Key, LinkedList<Interval>> entry : history.entrySet()) {
+        LinkedList<Interval> intervals = entry.getValue();
+        intervals.add(new Interval(timestamp, snapshots.get(entry.getKey())));
+        while (intervals.size() > historySize) {
+          intervals.removeFirst();
+        }
+      }
+    }
+  }
+
+  Set<Descriptor> getDescriptors() {
+    Set<Descriptor> descriptors = new HashSet<Descriptor>();
+    for (String category : categories.keySet()) {
+      List<StatisticDescriptor> statistics = new ArrayList<StatisticDescriptor>();
+      for (String percentile : PERCENTILES) {
+        statistics.add(new StatisticDescriptor(category + percentile, StatisticType.DURATION_HISTORY));
+      }
+      descriptors.add(new StatisticDescriptorCategory(category, statistics));
+    }
+    return descriptors;
+  }
+
+  Map<String, ? extends Statistic<?, ?>> queryStatistic(String statisticName, long since) {
+    LatencyHistograms.Key key = categories.get(statisticName);
+    if (key != null) {
+      Map<String, Statistic<?, ?>> statistics = new HashMap<String, Statistic<?, ?>>();
+      for (int i = 0; i < PERCENTILES.size(); i++) {
+        statistics.put(statisticName + PERCENTILES.get(i), new DurationHistory(buildHistory(key, i, since), TimeUnit.NANOSECONDS));
+      }
+      return statistics;
+    }
+    for (int i = 0; i < PERCENTILES.size(); i++) {
+      String percentile = PERCENTILES.get(i);
+      if (statisticName.endsWith(percentile)) {
+        key = categories.get(statisticName.substring(0, statisticName.length() - percentile.length()));
+        if (key != null) {
+          return Collections.singletonMap(statisticName, new DurationHistory(buildHistory(key, i, since), TimeUnit.NANOSECONDS));
+        }
+      }
+    }
+    return Collections.emptyMap();
+  }
+
+  private List<Sample<Long>> buildHistory(LatencyHistograms.Key key, int percentile, long since) {
+    List<Sample<Long>> result = new ArrayList<Sample<Long>>();
+    synchronized (history) {
+      for (Interval interval : history.get(key)) {
+        if (interval.timestamp >= since) {
+          result.add(new Sample<Long>(interval.timestamp, interval.values[percentile]));
+        }
+      }
+    }
+    return result;
+  }
+
+  void dispose() {
+    sampling.cancel(false);
+    histograms.close();
+  }
+
+  private static final class Interval {
+
+    private final long timestamp;
+    private final long[] values;
+
+    Interval(long timestamp, LatencyHistogram.Snapshot snapshot) {
+      this.timestamp = timestamp;
+      if (snapshot == null) {
+        this.values = new long[PERCENTILES.size()];
+      } else {
+        this.values = new long[] {
+            snapshot.getPercentile(0.5), snapshot.getPercentile(0.99), snapshot.getPercentile(0.999), snapshot.getMax()
+        };
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.management.providers.statistics;
+
+import org.ehcache.core.InternalCache;
+import org.ehcache.core.statistics.MissRatioCurve;
+import org.terracotta.management.model.capabilities.descriptors.Descriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptorCategory;
+import org.terracotta.management.model.stats.NumberUnit;
+import org.terracotta.management.model.stats.Sample;
+import org.terracotta.management.model.stats.Statistic;
+import org.terracotta.management.model.stats.StatisticType;
+import org.terracotta.management.model.stats.history.RatioHistory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimated miss ratios of a cache at other sizes, from the {@link MissRatioCurve} this class installs on it.
+ * <P>
+ *   The curve is sampled every history interval at sizes from 64 to 4M entries, in powers of four, each size being
+ *   exposed as a ratio history, e.g. {@code MissRatioAt4096Entries}, in the {@code MissRatioCurve} category. The whole
+ *   curve is dumped through the {@code missRatioCurve} action.
+ * </P>
+ */
+class MissRatioCurveStatistics {
+
+  private static final String CATEGORY = "MissRatioCurve";
+  private static final long[] SIZES = {64L, 256L, 1024L, 4096L, 16384L, 65536L, 262144L, 1048576L, 4194304L};
+
+  private final InternalCache<Object, ?> cache;
+  private final MissRatioCurve<Object> missRatioCurve;
+  private final int historySize;
+  private final Map<String, Integer> names = new HashMap<String, Integer>();
+  private final LinkedList<Interval> history = new LinkedList<Interval>();
+  private final ScheduledFuture<?> sampling;
+
+  @SuppressWarnings("unchecked")
+  MissRatioCurveStatistics(InternalCache<?, ?> cache, int sampledKeys, int sampleRate, ScheduledExecutorService executor,
+                           int historySize, long historyInterval, TimeUnit historyIntervalUnit) {
+    this.cache = (InternalCache<Object, ?>) cache;
+    this.missRatioCurve = new MissRatioCurve<Object>(sampledKeys, sampleRate);
+    this.historySize = historySize;
+    for (int i = 0; i < SIZES.length; i++) {
+      names.put("MissRatioAt" + SIZES[i] + "Entries", i);
+    }
+    this.cache.setMissRatioCurve(missRatioCurve);
+    this.sampling = executor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        sample();
+      }
+    }, historyInterval, historyInterval, historyIntervalUnit);
+  }
+
+  private void sample() {
+    double[] ratios = new double[SIZES.length];
+    for (int i = 0; i < SIZES.length; i++) {
+      ratios[i] = missRatioCurve.missRatio(SIZES[i]);
+    }
+    Interval interval = new Interval(System.currentTimeMillis(), ratios);
+    synchronized (history) {
+      history.add(interval);
+      while (history.size() > historySize) {
+        history.removeFirst();
+      }
+    }
+  }
+
+  Set<Descriptor> getDescriptors() {
+    List<StatisticDescriptor> statistics = new ArrayList<StatisticDescriptor>();
+    for (String name : names.keySet()) {
+      statistics.add(new StatisticDescriptor(name, StatisticType.RATIO_HISTORY));
+    }
+    return Collections.<Descriptor>singleton(new StatisticDescriptorCategory(CATEGORY, statistics));
+  }
+
+  Map<String, ? extends Statistic<?, ?>> queryStatistic(String statisticName, long since) {
+    if (CATEGORY.equals(statisticName)) {
+      Map<String, Statistic<?, ?>> statistics = new HashMap<String, Statistic<?, ?>>();
+      for (Map.Entry<String, Integer> entry : names.entrySet()) {
+        statistics.put(entry.getKey(), new RatioHistory(buildHistory(entry.getValue(), since), NumberUnit.RATIO));
+      }
+      return statistics;
+    }
+    Integer index = names.get(statisticName);
+    if (index != null) {
+      return Collections.singletonMap(statisticName, new RatioHistory(buildHistory(index, since), NumberUnit.RATIO));
+    }
+    return Collections.emptyMap();
+  }
+
+  private List<Sample<Double>> buildHistory(int index, long since) {
+    List<Sample<Double>> result = new ArrayList<Sample<Double>>();
+    synchronized (history) {
+      for (Interval interval : history) {
+        if (interval.timestamp >= since) {
+          result.add(new Sample<Double>(interval.timestamp, interval.ratios[index]));
+        }
+      }
+    }
+    return result;
+  }
+
+  void dispose() {
+    sampling.cancel(false);
+    if (cache.getMissRatioCurve() == missRatioCurve) {
+      cache.setMissRatioCurve(null);
+    }
+  }
+
+  private static final class Interval {
+
+    private final long timestamp;
+    private final double[] ratios;
+
+    Interval(long timestamp, double[] ratios) {
+      this.timestamp = timestamp;
+      this.ratios = ratios;
+    }
+  }
+}
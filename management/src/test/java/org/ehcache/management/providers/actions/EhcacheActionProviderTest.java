@@ -58,12 +58,14 @@ public class EhcacheActionProviderTest {
     ehcacheActionProvider.register(new CacheBinding("myCacheName2", mock(EhcacheWithLoaderWriter.class)));
 
     Collection<Descriptor> descriptions = ehcacheActionProvider.getDescriptors();
-    assertThat(descriptions.size(), is(4));
+    assertThat(descriptions.size(), is(6));
     assertThat(descriptions, (Matcher) containsInAnyOrder(
         new CallDescriptor("remove", "void", Collections.singletonList(new CallDescriptor.Parameter("key", "java.lang.Object"))),
         new CallDescriptor("get", "java.lang.Object", Collections.singletonList(new CallDescriptor.Parameter("key", "java.lang.Object"))),
         new CallDescriptor("put", "void", Arrays.asList(new CallDescriptor.Parameter("key", "java.lang.Object"), new CallDescriptor.Parameter("value", "java.lang.Object"))),
-        new CallDescriptor("clear", "void", Collections.<CallDescriptor.Parameter>emptyList())
+        new CallDescriptor("clear", "void", Collections.<CallDescriptor.Parameter>emptyList()),
+        new CallDescriptor("heavyHitters", "java.util.List", Collections.singletonList(new CallDescriptor.Parameter("count", "java.lang.Object"))),
+        new CallDescriptor("missRatioCurve", "java.util.Map", Collections.<CallDescriptor.Parameter>emptyList())
     ));
   }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.transactions.xa.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for the {@link ByteBuffer}s exchanged with value serializers.
+ */
+final class ByteBuffers {
+
+  private ByteBuffers() {
+  }
+
+  /**
+   * Reads the next {@code length} bytes of {@code buffer} into a new array, advancing its position.
+   * <p>
+   * The bytes are always copied: the buffer may wrap an array its producer keeps using.
+   */
+  static byte[] bytes(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads all the remaining bytes of {@code buffer} into a new array.
+   */
+  static byte[] remainingBytes(ByteBuffer buffer) {
+    return bytes(buffer, buffer.remaining());
+  }
+}
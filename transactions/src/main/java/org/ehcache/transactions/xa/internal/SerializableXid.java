@@ -48,6 +48,25 @@ public class SerializableXid implements Xid, Serializable {
     this.branchQualifier = xid.getBranchQualifier();
   }
 
+  /**
+   * Create a {@link SerializableXid} from its format ID, GTRID and BQUAL, as read from a binary form.
+   *
+   * @param formatId the format ID.
+   * @param globalTransactionId the GTRID, not copied.
+   * @param branchQualifier the BQUAL, not copied.
+   */
+  public SerializableXid(int formatId, byte[] globalTransactionId, byte[] branchQualifier) {
+    if (globalTransactionId == null) {
+      throw new NullPointerException();
+    }
+    if (branchQualifier == null) {
+      throw new NullPointerException();
+    }
+    this.formatId = formatId;
+    this.globalTransactionId = globalTransactionId;
+    this.branchQualifier = branchQualifier;
+  }
+
   public int getFormatId() {
     return formatId;
   }
@@ -49,12 +49,7 @@ public class SoftLock<V> implements Serializable {
   private SoftLock(TransactionId transactionId, ByteBuffer serializedOldValue, XAValueHolder<V> serializedNewValueHolder) {
     this.transactionId = transactionId;
     this.oldValue = null;
-    if (serializedOldValue != null) {
-      this.oldValueSerialized = new byte[serializedOldValue.remaining()];
-      serializedOldValue.get(oldValueSerialized);
-    } else {
-      oldValueSerialized = null;
-    }
+    this.oldValueSerialized = serializedOldValue == null ? null : ByteBuffers.remainingBytes(serializedOldValue);
     this.newValueHolder = serializedNewValueHolder;
   }
 
@@ -82,6 +77,27 @@ public class SoftLock<V> implements Serializable {
     return new SoftLock<V>(transactionId, oldValue, newValueHolder);
   }
 
+  /**
+   * Creates a soft lock holding its values in serialized form only, as {@link #copyForSerialization(Serializer)} does.
+   *
+   * @param transactionId the transaction ID, or null
+   * @param oldValueSerialized the serialized old value, or null
+   * @param serializedNewValueHolder the new value holder holding a serialized value, or null
+   * @return the serialized soft lock
+   */
+  static <V> SoftLock<V> serialized(TransactionId transactionId, byte[] oldValueSerialized, XAValueHolder<V> serializedNewValueHolder) {
+    return new SoftLock<V>(transactionId, oldValueSerialized == null ? null : ByteBuffer.wrap(oldValueSerialized), serializedNewValueHolder);
+  }
+
+  /**
+   * Returns the old value, as serialized by {@link #copyForSerialization(Serializer)}.
+   *
+   * @return the serialized old value, or null if there is none or this soft lock is not a serialization copy
+   */
+  byte[] getOldValueSerialized() {
+    return oldValueSerialized;
+  }
+
   public V getOldValue() {
     return oldValue;
   }
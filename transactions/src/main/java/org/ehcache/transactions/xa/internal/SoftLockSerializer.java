@@ -26,18 +26,31 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
 import java.lang.reflect.Proxy;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * The stateless {@link Serializer} used to serialize {@link SoftLock}s.
+ * <p>
+ * Soft locks copied for serialization are written in a compact binary form, which embeds the value bytes produced by
+ * the value serializer as they are. The form starts with a version byte which cannot start a Java serialization
+ * stream, so that soft locks written with Java serialization by earlier versions can still be read.
  *
  * @author Ludovic Orban
  */
 class SoftLockSerializer implements Serializer<SoftLock> {
 
+  private static final byte FORMAT_V1 = 1;
+  private static final byte JAVA_SERIALIZATION_MAGIC = (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8);
+
+  private static final byte TRANSACTION_ID = 1;
+  private static final byte OLD_VALUE = 1 << 1;
+  private static final byte NEW_VALUE_HOLDER = 1 << 2;
+
   private final ClassLoader classLoader;
 
   SoftLockSerializer(ClassLoader classLoader) {
@@ -46,6 +59,126 @@ class SoftLockSerializer implements Serializer<SoftLock> {
 
   @Override
   public ByteBuffer serialize(SoftLock object) {
+    if (!isSerializationCopy(object)) {
+      return javaSerialize(object);
+    }
+    TransactionId transactionId = object.getTransactionId();
+    byte[] oldValue = object.getOldValueSerialized();
+    XAValueHolder<?> newValueHolder = object.getNewValueHolder();
+
+    byte flags = 0;
+    int size = 2;
+    byte[] globalTransactionId = null;
+    byte[] branchQualifier = null;
+    if (transactionId != null) {
+      flags |= TRANSACTION_ID;
+      globalTransactionId = transactionId.getSerializableXid().getGlobalTransactionId();
+      branchQualifier = transactionId.getSerializableXid().getBranchQualifier();
+      size += 4 + 4 + globalTransactionId.length + 4 + branchQualifier.length;
+    }
+    if (oldValue != null) {
+      flags |= OLD_VALUE;
+      size += 4 + oldValue.length;
+    }
+    if (newValueHolder != null) {
+      flags |= NEW_VALUE_HOLDER;
+      size += 5 * 8 + 4 + newValueHolder.getValueSerialized().length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.put(FORMAT_V1);
+    buffer.put(flags);
+    if (transactionId != null) {
+      buffer.putInt(transactionId.getSerializableXid().getFormatId());
+      buffer.putInt(globalTransactionId.length).put(globalTransactionId);
+      buffer.putInt(branchQualifier.length).put(branchQualifier);
+    }
+    if (oldValue != null) {
+      buffer.putInt(oldValue.length).put(oldValue);
+    }
+    if (newValueHolder != null) {
+      buffer.putLong(newValueHolder.getId());
+      buffer.putLong(newValueHolder.creationTime(XAValueHolder.NATIVE_TIME_UNIT));
+      buffer.putLong(newValueHolder.lastAccessTime(XAValueHolder.NATIVE_TIME_UNIT));
+      buffer.putLong(newValueHolder.expirationTime(XAValueHolder.NATIVE_TIME_UNIT));
+      buffer.putLong(newValueHolder.hits());
+      byte[] newValue = newValueHolder.getValueSerialized();
+      buffer.putInt(newValue.length).put(newValue);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SoftLock read(ByteBuffer entry) throws SerializerException, ClassNotFoundException {
+    if (!entry.hasRemaining()) {
+      throw new SerializerException("Cannot read a soft lock from an empty buffer");
+    }
+    byte format = entry.get(entry.position());
+    if (format == FORMAT_V1) {
+      return binaryRead(entry);
+    } else if (format == JAVA_SERIALIZATION_MAGIC) {
+      return javaRead(entry);
+    } else {
+      throw new SerializerException("Unknown soft lock format " + format);
+    }
+  }
+
+  @Override
+  public boolean equals(SoftLock object, ByteBuffer binary) throws SerializerException, ClassNotFoundException {
+    return object.equals(read(binary));
+  }
+
+  /**
+   * Tells whether a soft lock holds its values in serialized form only, as made by
+   * {@link SoftLock#copyForSerialization(Serializer)}.
+   */
+  private static boolean isSerializationCopy(SoftLock<?> softLock) {
+    if (softLock.getOldValue() != null) {
+      return false;
+    }
+    XAValueHolder<?> newValueHolder = softLock.getNewValueHolder();
+    return newValueHolder == null || (newValueHolder.value() == null && newValueHolder.getValueSerialized() != null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static SoftLock binaryRead(ByteBuffer entry) throws SerializerException {
+    try {
+      entry.get();
+      byte flags = entry.get();
+      TransactionId transactionId = null;
+      if ((flags & TRANSACTION_ID) != 0) {
+        transactionId = new TransactionId(new SerializableXid(entry.getInt(), bytes(entry), bytes(entry)));
+      }
+      byte[] oldValue = null;
+      if ((flags & OLD_VALUE) != 0) {
+        oldValue = bytes(entry);
+      }
+      XAValueHolder<Object> newValueHolder = null;
+      if ((flags & NEW_VALUE_HOLDER) != 0) {
+        long id = entry.getLong();
+        long creationTime = entry.getLong();
+        long lastAccessTime = entry.getLong();
+        long expirationTime = entry.getLong();
+        long hits = entry.getLong();
+        newValueHolder = new XAValueHolder<Object>(id, creationTime, lastAccessTime, expirationTime, hits, null, bytes(entry));
+      }
+      return SoftLock.serialized(transactionId, oldValue, newValueHolder);
+    } catch (BufferUnderflowException e) {
+      throw new SerializerException("Truncated soft lock binary", e);
+    }
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) throws SerializerException {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new SerializerException("Corrupted soft lock binary: " + length + " bytes announced, " + buffer.remaining() + " left");
+    }
+    return ByteBuffers.bytes(buffer, length);
+  }
+
+  private static ByteBuffer javaSerialize(SoftLock object) {
     ByteArrayOutputStream bout = new ByteArrayOutputStream();
     try {
       ObjectOutputStream oout = new ObjectOutputStream(bout);
@@ -62,9 +195,7 @@ class SoftLockSerializer implements Serializer<SoftLock> {
     return ByteBuffer.wrap(bout.toByteArray());
   }
 
-  @SuppressWarnings("unchecked")
-  @Override
-  public SoftLock read(ByteBuffer entry) throws SerializerException, ClassNotFoundException {
+  private SoftLock javaRead(ByteBuffer entry) throws SerializerException, ClassNotFoundException {
     ByteBufferInputStream bin = new ByteBufferInputStream(entry);
     try {
       OIS ois = new OIS(bin, classLoader);
@@ -84,11 +215,6 @@ class SoftLockSerializer implements Serializer<SoftLock> {
     }
   }
 
-  @Override
-  public boolean equals(SoftLock object, ByteBuffer binary) throws SerializerException, ClassNotFoundException {
-    return object.equals(read(binary));
-  }
-
   private static class OIS extends ObjectInputStream {
 
     private final ClassLoader classLoader;
@@ -89,7 +89,8 @@ public class XAStore<K, V> implements Store<K, V> {
   private final Class<V> valueType;
   private final Store<K, SoftLock<V>> underlyingStore;
   private final TransactionManagerWrapper transactionManagerWrapper;
-  private final Map<Transaction, EhcacheXAResource<K, V>> xaResources = new ConcurrentHashMap<Transaction, EhcacheXAResource<K, V>>();
+  private final Map<Transaction, Enlistment<K, V>> xaResources = new ConcurrentHashMap<Transaction, Enlistment<K, V>>();
+  private final ThreadLocal<CachedContext<K, V>> cachedContexts = new ThreadLocal<CachedContext<K, V>>();
   private final TimeSource timeSource;
   private final Journal<K> journal;
   private final String uniqueXAResourceId;
@@ -125,26 +126,45 @@ public class XAStore<K, V> implements Store<K, V> {
       if (transaction == null) {
         throw new XACacheException("Cannot access XA cache outside of XA transaction scope");
       }
-      EhcacheXAResource<K, V> xaResource = xaResources.get(transaction);
-      if (xaResource == null) {
-        xaResource = new EhcacheXAResource<K, V>(underlyingStore, journal, transactionContextFactory);
-        transactionManagerWrapper.registerXAResource(uniqueXAResourceId, xaResource);
-        transactionManagerWrapper.getTransactionManager().getTransaction().enlistResource(xaResource);
-        xaResources.put(transaction, xaResource);
-        final EhcacheXAResource<K, V> finalXaResource = xaResource;
-        transaction.registerSynchronization(new Synchronization() {
-          @Override
-          public void beforeCompletion() {
-          }
+      XATransactionContext<K, V> currentContext = null;
+      CachedContext<K, V> cachedContext = cachedContexts.get();
+      if (cachedContext != null) {
+        currentContext = cachedContext.contextFor(transaction);
+      }
+      if (currentContext == null) {
+        Enlistment<K, V> enlistment = xaResources.get(transaction);
+        if (enlistment == null) {
+          EhcacheXAResource<K, V> xaResource = new EhcacheXAResource<K, V>(underlyingStore, journal, transactionContextFactory);
+          transactionManagerWrapper.registerXAResource(uniqueXAResourceId, xaResource);
+          transactionManagerWrapper.getTransactionManager().getTransaction().enlistResource(xaResource);
+          enlistment = new Enlistment<K, V>(transaction, xaResource);
+          xaResources.put(transaction, enlistment);
+          final Enlistment<K, V> finalEnlistment = enlistment;
+          transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
 
-          @Override
-          public void afterCompletion(int status) {
-            transactionManagerWrapper.unregisterXAResource(uniqueXAResourceId, finalXaResource);
-            xaResources.remove(transaction);
+            @Override
+            public void afterCompletion(int status) {
+              finalEnlistment.complete();
+              transactionManagerWrapper.unregisterXAResource(uniqueXAResourceId, finalEnlistment.xaResource);
+              xaResources.remove(transaction);
+              CachedContext<K, V> cachedContext = cachedContexts.get();
+              if (cachedContext != null && cachedContext.isCleared()) {
+                cachedContexts.remove();
+              }
+            }
+          });
+        }
+        currentContext = enlistment.xaResource.getCurrentContext();
+        if (currentContext != null) {
+          CachedContext<K, V> newCachedContext = new CachedContext<K, V>(enlistment, currentContext);
+          if (enlistment.cache(newCachedContext)) {
+            cachedContexts.set(newCachedContext);
           }
-        });
+        }
       }
-      XATransactionContext<K, V> currentContext = xaResource.getCurrentContext();
       if (currentContext.hasTimedOut()) {
         throw new XACacheException("Current XA transaction has timed out");
       }
@@ -156,6 +176,79 @@ public class XAStore<K, V> implements Store<K, V> {
     }
   }
 
+  /**
+   * The {@link EhcacheXAResource} enlisted in a transaction, until that transaction completes.
+   */
+  private static final class Enlistment<K, V> {
+    private final Transaction transaction;
+    private final EhcacheXAResource<K, V> xaResource;
+    private final List<CachedContext<K, V>> cachedContexts = new ArrayList<CachedContext<K, V>>();
+    private volatile boolean completed;
+
+    Enlistment(Transaction transaction, EhcacheXAResource<K, V> xaResource) {
+      this.transaction = transaction;
+      this.xaResource = xaResource;
+    }
+
+    /**
+     * Records a context cached by a thread, so that it gets cleared on completion.
+     *
+     * @return {@code false} if the transaction already completed, in which case the context must not be cached
+     */
+    synchronized boolean cache(CachedContext<K, V> cachedContext) {
+      if (completed) {
+        return false;
+      }
+      cachedContexts.add(cachedContext);
+      return true;
+    }
+
+    synchronized void complete() {
+      completed = true;
+      for (CachedContext<K, V> cachedContext : cachedContexts) {
+        cachedContext.clear();
+      }
+      cachedContexts.clear();
+    }
+  }
+
+  /**
+   * The context of the transaction a thread last worked in, saving the lookups of the enlisted resource and of its
+   * context on the following operations of the same transaction. The transaction may complete on another thread, which
+   * cannot reach this thread's cached context: the enlistment clears it instead, so that a stale cached context holds
+   * on to nothing.
+   */
+  private static final class CachedContext<K, V> {
+    private volatile Enlistment<K, V> enlistment;
+    private volatile XATransactionContext<K, V> context;
+
+    CachedContext(Enlistment<K, V> enlistment, XATransactionContext<K, V> context) {
+      this.enlistment = enlistment;
+      this.context = context;
+    }
+
+    /**
+     * Returns the cached context if it is the one of {@code transaction}, and that transaction did not complete.
+     */
+    XATransactionContext<K, V> contextFor(Transaction transaction) {
+      Enlistment<K, V> enlistment = this.enlistment;
+      XATransactionContext<K, V> context = this.context;
+      if (enlistment == null || context == null || enlistment.transaction != transaction || enlistment.completed) {
+        return null;
+      }
+      return context;
+    }
+
+    void clear() {
+      enlistment = null;
+      context = null;
+    }
+
+    boolean isCleared() {
+      return enlistment == null;
+    }
+  }
+
   private static boolean eq(Object o1, Object o2) {
     return (o1 == o2) || (o1 != null && o1.equals(o2));
   }
@@ -892,7 +985,8 @@ public class XAStore<K, V> implements Store<K, V> {
 
       // create the underlying store
       Store.Configuration<K, SoftLock<V>> underlyingStoreConfig = new StoreConfigurationImpl<K, SoftLock<V>>(storeConfig.getKeyType(), (Class) SoftLock.class, evictionAdvisor,
-          storeConfig.getClassLoader(), expiry, storeConfig.getResourcePools(), storeConfig.getDispatcherConcurrency(), storeConfig.getKeySerializer(), softLockValueCombinedSerializer);
+          storeConfig.getClassLoader(), expiry, storeConfig.getResourcePools(), storeConfig.getDispatcherConcurrency(), storeConfig.getStatisticsConfiguration(),
+          storeConfig.getKeySerializer(), softLockValueCombinedSerializer);
       Store<K, SoftLock<V>> underlyingStore = (Store) underlyingStoreProvider.createStore(underlyingStoreConfig,  underlyingServiceConfigs.toArray(new ServiceConfiguration[0]));
 
       // create the XA store
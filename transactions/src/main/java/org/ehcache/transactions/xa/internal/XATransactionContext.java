@@ -19,9 +19,8 @@ package org.ehcache.transactions.xa.internal;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
 import org.ehcache.core.spi.time.TimeSource;
+import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.store.Store;
-import org.ehcache.core.spi.store.Store.RemoveStatus;
-import org.ehcache.core.spi.store.Store.ReplaceStatus;
 import org.ehcache.transactions.xa.internal.commands.Command;
 import org.ehcache.transactions.xa.internal.commands.StoreEvictCommand;
 import org.ehcache.transactions.xa.internal.commands.StorePutCommand;
@@ -30,9 +29,14 @@ import org.ehcache.transactions.xa.internal.journal.Journal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Context holder of an in-flight XA transaction. Modifications to the {@link XAStore} are registered in an instance
@@ -136,27 +140,28 @@ public class XATransactionContext<K, V> {
       }
 
       journal.saveInDoubt(transactionId, commands.keySet());
-      for (Map.Entry<K, Command<V>> entry : commands.entrySet()) {
-        if (entry.getValue() instanceof StoreEvictCommand) {
-          evictFromUnderlyingStore(entry.getKey());
-          continue;
-        }
-        V oldValue = entry.getValue().getOldValue();
-        SoftLock<V> oldSoftLock = oldValue == null ? null : new SoftLock<V>(null, oldValue, null);
-        SoftLock<V> newSoftLock = new SoftLock<V>(transactionId, oldValue, entry.getValue().getNewValueHolder());
-        if (oldSoftLock != null) {
-          boolean replaced = replaceInUnderlyingStore(entry.getKey(), oldSoftLock, newSoftLock);
-          if (!replaced) {
-            LOGGER.debug("prepare failed replace of softlock (concurrent modification?)");
-            evictFromUnderlyingStore(entry.getKey());
-          }
-        } else {
-          Store.ValueHolder<SoftLock<V>> existing = putIfAbsentInUnderlyingStore(entry, newSoftLock);
-          if (existing != null) {
-            LOGGER.debug("prepare failed putIfAbsent of softlock (concurrent modification?)");
-            evictFromUnderlyingStore(entry.getKey());
+      if (!commands.isEmpty()) {
+        underlyingStore.bulkCompute(commands.keySet(), new SoftLockRemappingFunction() {
+          @Override
+          SoftLock<V> remap(K key, SoftLock<V> currentSoftLock) {
+            Command<V> command = commands.get(key);
+            if (command instanceof StoreEvictCommand) {
+              return null;
+            }
+            V oldValue = command.getOldValue();
+            SoftLock<V> newSoftLock = new SoftLock<V>(transactionId, oldValue, command.getNewValueHolder());
+            if (oldValue != null) {
+              if (!new SoftLock<V>(null, oldValue, null).equals(currentSoftLock)) {
+                LOGGER.debug("prepare failed replace of softlock (concurrent modification?)");
+                return null;
+              }
+            } else if (currentSoftLock != null) {
+              LOGGER.debug("prepare failed putIfAbsent of softlock (concurrent modification?)");
+              return null;
+            }
+            return newSoftLock;
           }
-        }
+        });
       }
 
       if (commands.isEmpty()) {
@@ -183,36 +188,21 @@ public class XATransactionContext<K, V> {
     }
 
     Collection<K> keys = journal.getInDoubtKeys(transactionId);
-    for (K key : keys) {
-      SoftLock<V> preparedSoftLock = getFromUnderlyingStore(key);
-      XAValueHolder<V> newValueHolder = preparedSoftLock == null ? null : preparedSoftLock.getNewValueHolder();
-      SoftLock<V> definitiveSoftLock = newValueHolder == null ? null : new SoftLock<V>(null, newValueHolder.value(), null);
-
-      if (preparedSoftLock != null) {
+    underlyingStore.bulkCompute(new HashSet<K>(keys), new SoftLockRemappingFunction() {
+      @Override
+      SoftLock<V> remap(K key, SoftLock<V> preparedSoftLock) {
+        if (preparedSoftLock == null) {
+          LOGGER.debug("commit skipping evicted prepared softlock");
+          return null;
+        }
         if (preparedSoftLock.getTransactionId() != null && !preparedSoftLock.getTransactionId().equals(transactionId)) {
           LOGGER.debug("commit skipping prepared softlock with non-matching TX ID (concurrent modification?)");
-          evictFromUnderlyingStore(key);
-          continue;
+          return null;
         }
-
-        if (definitiveSoftLock != null) {
-          boolean replaced = replaceInUnderlyingStore(key, preparedSoftLock, definitiveSoftLock);
-          if (!replaced) {
-            LOGGER.debug("commit failed replace of softlock (concurrent modification?)");
-            evictFromUnderlyingStore(key);
-          }
-        } else {
-          boolean removed = removeFromUnderlyingStore(key, preparedSoftLock);
-          if (!removed) {
-            LOGGER.debug("commit failed remove of softlock (concurrent modification?)");
-            evictFromUnderlyingStore(key);
-          }
-        }
-      } else {
-        LOGGER.debug("commit skipping evicted prepared softlock");
+        XAValueHolder<V> newValueHolder = preparedSoftLock.getNewValueHolder();
+        return newValueHolder == null ? null : new SoftLock<V>(null, newValueHolder.value(), null);
       }
-
-    }
+    });
 
     journal.saveCommitted(transactionId, false);
   }
@@ -238,35 +228,21 @@ public class XATransactionContext<K, V> {
       // phase 2 rollback
 
       Collection<K> keys = journal.getInDoubtKeys(transactionId);
-      for (K key : keys) {
-        SoftLock<V> preparedSoftLock = getFromUnderlyingStore(key);
-        V oldValue = preparedSoftLock == null ? null : preparedSoftLock.getOldValue();
-        SoftLock<V> definitiveSoftLock = oldValue == null ? null : new SoftLock<V>(null, oldValue, null);
-
-        if (preparedSoftLock != null) {
+      underlyingStore.bulkCompute(new HashSet<K>(keys), new SoftLockRemappingFunction() {
+        @Override
+        SoftLock<V> remap(K key, SoftLock<V> preparedSoftLock) {
+          if (preparedSoftLock == null) {
+            LOGGER.debug("rollback skipping evicted prepared softlock");
+            return null;
+          }
           if (preparedSoftLock.getTransactionId() != null && !preparedSoftLock.getTransactionId().equals(transactionId)) {
             LOGGER.debug("rollback skipping prepared softlock with non-matching TX ID (concurrent modification?)");
-            evictFromUnderlyingStore(key);
-            continue;
+            return null;
           }
-
-          if (definitiveSoftLock != null) {
-            boolean replaced = replaceInUnderlyingStore(key, preparedSoftLock, definitiveSoftLock);
-            if (!replaced) {
-              LOGGER.debug("rollback failed replace of softlock (concurrent modification?)");
-              evictFromUnderlyingStore(key);
-            }
-          } else {
-            boolean removed = removeFromUnderlyingStore(key, preparedSoftLock);
-            if (!removed) {
-              LOGGER.debug("rollback failed remove of softlock (concurrent modification?)");
-              evictFromUnderlyingStore(key);
-            }
-          }
-        } else {
-          LOGGER.debug("rollback skipping evicted prepared softlock");
+          V oldValue = preparedSoftLock.getOldValue();
+          return oldValue == null ? null : new SoftLock<V>(null, oldValue, null);
         }
-      }
+      });
 
       journal.saveRolledBack(transactionId, false);
     } else if (recovering) {
@@ -277,32 +253,24 @@ public class XATransactionContext<K, V> {
     }
   }
 
-
-  private boolean removeFromUnderlyingStore(K key, SoftLock<V> preparedSoftLock) throws StoreAccessException {
-    if (underlyingStore.remove(key, preparedSoftLock).equals(RemoveStatus.REMOVED)) {
-      return true;
-    }
-    return false;
-  }
-
-  private boolean replaceInUnderlyingStore(K key, SoftLock<V> preparedSoftLock, SoftLock<V> definitiveSoftLock) throws StoreAccessException {
-    if (underlyingStore.replace(key, preparedSoftLock, definitiveSoftLock).equals(ReplaceStatus.HIT)) {
-      return true;
+  /**
+   * Remapping function handed to {@link Store#bulkCompute(Set, Function)}, letting the underlying store apply the
+   * soft lock changes of a transaction phase in batches, e.g.: one batch per segment. A {@code null} soft lock removes
+   * the mapping, which is also how mappings modified concurrently get evicted.
+   */
+  private abstract class SoftLockRemappingFunction implements Function<Iterable<? extends Map.Entry<? extends K, ? extends SoftLock<V>>>, Iterable<? extends Map.Entry<? extends K, ? extends SoftLock<V>>>> {
+
+    @Override
+    public Iterable<? extends Map.Entry<? extends K, ? extends SoftLock<V>>> apply(Iterable<? extends Map.Entry<? extends K, ? extends SoftLock<V>>> entries) {
+      List<Map.Entry<K, SoftLock<V>>> result = new ArrayList<Map.Entry<K, SoftLock<V>>>();
+      for (Map.Entry<? extends K, ? extends SoftLock<V>> entry : entries) {
+        K key = entry.getKey();
+        result.add(new AbstractMap.SimpleEntry<K, SoftLock<V>>(key, remap(key, entry.getValue())));
+      }
+      return result;
     }
-    return false;
-  }
-
-  private Store.ValueHolder<SoftLock<V>> putIfAbsentInUnderlyingStore(Map.Entry<K, Command<V>> entry, SoftLock<V> newSoftLock) throws StoreAccessException {
-    return underlyingStore.putIfAbsent(entry.getKey(), newSoftLock);
-  }
-
-  private SoftLock<V> getFromUnderlyingStore(K key) throws StoreAccessException {
-    Store.ValueHolder<SoftLock<V>> softLockValueHolder = underlyingStore.get(key);
-    return softLockValueHolder == null ? null : softLockValueHolder.value();
-  }
 
-  private void evictFromUnderlyingStore(K key) throws StoreAccessException {
-    underlyingStore.remove(key);
+    abstract SoftLock<V> remap(K key, SoftLock<V> currentSoftLock);
   }
 
   static class TransactionTimeoutException extends RuntimeException {
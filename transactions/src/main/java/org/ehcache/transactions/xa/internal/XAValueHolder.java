@@ -57,8 +57,7 @@ public class XAValueHolder<V> extends AbstractValueHolder<V> implements Serializ
   private XAValueHolder(XAValueHolder<V> valueHolder, ByteBuffer serializedValue) {
     super(-1, valueHolder.creationTime(TimeUnit.MILLISECONDS), valueHolder.expirationTime(TimeUnit.MILLISECONDS));
     this.value = null;
-    this.valueSerialized = new byte[serializedValue.remaining()];
-    serializedValue.get(this.valueSerialized);
+    this.valueSerialized = ByteBuffers.remainingBytes(serializedValue);
   }
 
   public XAValueHolder(XAValueHolder<V> valueHolder, V value) {
@@ -67,7 +66,7 @@ public class XAValueHolder<V> extends AbstractValueHolder<V> implements Serializ
     this.valueSerialized = null;
   }
 
-  private XAValueHolder(long id, long creationTime, long lastAccessTime, long expirationTime, long hits, V value, byte[] valueSerialized) {
+  XAValueHolder(long id, long creationTime, long lastAccessTime, long expirationTime, long hits, V value, byte[] valueSerialized) {
     super(id, creationTime, expirationTime);
     setLastAccessTime(lastAccessTime, NATIVE_TIME_UNIT);
     setHits(hits);
@@ -84,6 +83,15 @@ public class XAValueHolder<V> extends AbstractValueHolder<V> implements Serializ
     return new XAValueHolder<V>(this, valueSerializer.read(ByteBuffer.wrap(valueSerialized)));
   }
 
+  /**
+   * Returns the value, as serialized by {@link #copyForSerialization(Serializer)}.
+   *
+   * @return the serialized value, or null if this value holder is not a serialization copy
+   */
+  byte[] getValueSerialized() {
+    return valueSerialized;
+  }
+
   @Override
   protected TimeUnit nativeTimeUnit() {
     return NATIVE_TIME_UNIT;
@@ -52,9 +52,9 @@ public class DefaultJournalProvider implements JournalProvider {
     }
 
     try {
-      LOGGER.info("Using persistent XAStore journal");
+      LOGGER.info("Using durable XAStore journal");
       FileBasedPersistenceContext persistenceContext = persistenceService.createPersistenceContextWithin(persistentSpaceId, "XAJournal");
-      return new PersistentJournal<K>(persistenceContext.getDirectory(), keySerializer);
+      return new DurableJournal<K>(persistenceContext.getDirectory(), keySerializer);
     } catch (CachePersistenceException cpe) {
       throw new RuntimeException(cpe);
     }
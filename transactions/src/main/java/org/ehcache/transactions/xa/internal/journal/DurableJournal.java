@@ -0,0 +1,562 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.transactions.xa.internal.journal;
+
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.transactions.xa.XACacheException;
+import org.ehcache.transactions.xa.internal.SerializableXid;
+import org.ehcache.transactions.xa.internal.TransactionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static org.ehcache.impl.internal.util.ThreadFactoryUtil.threadFactory;
+
+/**
+ * A durable {@link Journal} implementation, backed by an append-only log.
+ * <P>
+ *   Every state change is appended to the log as a checksummed record, and the saving thread returns once the record
+ *   is forced to disk.  Concurrent transactions share forces: a thread finding a force in progress waits for it, then
+ *   only forces again if its own record was not covered.  On open, the log is replayed up to its first torn or
+ *   corrupted record, where it is truncated.
+ * </P>
+ * <P>
+ *   Once the log grows past the compaction threshold, a background thread rewrites it to the live states only, ending
+ *   the rewritten log with a marker record before swapping it in.  On open, a rewritten log holding that marker is
+ *   the reference whichever files the crash left behind, since renames may not have reached the disk.
+ * </P>
+ * <P>
+ *   On open, the states saved by a {@link PersistentJournal} in the same directory are imported into the log, and its
+ *   file deleted.
+ * </P>
+ */
+public class DurableJournal<K> extends TransientJournal<K> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DurableJournal.class);
+  private static final String JOURNAL_FILENAME = "journal.log";
+  private static final String COMPACTED_FILENAME = "journal.log.compacted";
+
+  /**
+   * Default log size, in bytes, above which the log is compacted.
+   */
+  public static final long DEFAULT_COMPACTION_THRESHOLD = 1024L * 1024L;
+
+  private static final byte IN_DOUBT_RECORD = 0;
+  private static final byte COMMITTED_RECORD = 1;
+  private static final byte ROLLED_BACK_RECORD = 2;
+  private static final byte FORGET_RECORD = 3;
+  private static final byte COMPACTION_RECORD = 4;
+
+  private static final int RECORD_HEADER_SIZE = 4 + 8;
+
+  private final File directory;
+  private final Serializer<K> keySerializer;
+  private final long compactionThreshold;
+
+  /**
+   * Guards appends to the log, and the log swap on compaction.
+   */
+  private final Object appendLock = new Object();
+
+  /**
+   * Serializes forces of the log; taken before {@link #appendLock} when both are needed.
+   */
+  private final Object forceLock = new Object();
+
+  private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+  private FileChannel channel;
+  private long written;
+  private volatile long forced;
+  private volatile long compactedSize;
+  private ExecutorService compactor;
+
+  public DurableJournal(File directory, Serializer<K> keySerializer) {
+    this(directory, keySerializer, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  public DurableJournal(File directory, Serializer<K> keySerializer, long compactionThreshold) {
+    if (directory == null) {
+      throw new NullPointerException("directory must not be null");
+    }
+    if (keySerializer == null) {
+      throw new NullPointerException("keySerializer must not be null");
+    }
+    this.directory = directory;
+    this.keySerializer = keySerializer;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  @Override
+  public void saveCommitted(TransactionId transactionId, boolean heuristicDecision) {
+    boolean known = states.containsKey(transactionId);
+    super.saveCommitted(transactionId, heuristicDecision);
+    if (known) {
+      log(encode(COMMITTED_RECORD, transactionId, heuristicDecision, Collections.<K>emptySet()));
+    }
+  }
+
+  @Override
+  public void saveRolledBack(TransactionId transactionId, boolean heuristicDecision) {
+    boolean known = states.containsKey(transactionId);
+    super.saveRolledBack(transactionId, heuristicDecision);
+    if (known) {
+      log(encode(ROLLED_BACK_RECORD, transactionId, heuristicDecision, Collections.<K>emptySet()));
+    }
+  }
+
+  @Override
+  public void saveInDoubt(TransactionId transactionId, Collection<K> inDoubtKeys) {
+    super.saveInDoubt(transactionId, inDoubtKeys);
+    log(encode(IN_DOUBT_RECORD, transactionId, false, inDoubtKeys));
+  }
+
+  @Override
+  public void forget(TransactionId transactionId) {
+    super.forget(transactionId);
+    log(encode(FORGET_RECORD, transactionId, false, Collections.<K>emptySet()));
+  }
+
+  @Override
+  public void open() throws IOException {
+    File journal = new File(directory, JOURNAL_FILENAME);
+    File compacted = new File(directory, COMPACTED_FILENAME);
+    if (compacted.isFile()) {
+      if (isComplete(compacted) || !journal.isFile()) {
+        // the compaction completed: the compacted log holds the live states, and any record appended since
+        if (journal.isFile() && !journal.delete()) {
+          throw new IOException("Cannot delete XA journal superseded by its compaction " + journal);
+        }
+        if (!compacted.renameTo(journal)) {
+          throw new IOException("Cannot restore compacted XA journal " + compacted);
+        }
+        syncDirectory();
+      } else if (!compacted.delete()) {
+        throw new IOException("Cannot delete incomplete XA journal compaction " + compacted);
+      }
+    }
+    states.clear();
+    channel = new RandomAccessFile(journal, "rw").getChannel();
+    long valid = replay();
+    if (valid < channel.size()) {
+      LOGGER.warn("Truncating XA journal after {} bytes: {} bytes are torn or corrupted", valid, channel.size() - valid);
+      channel.truncate(valid);
+      channel.force(true);
+    }
+    channel.position(valid);
+    importLegacyJournal();
+    written = channel.position();
+    forced = written;
+    compactedSize = 0L;
+    compactor = new ThreadPoolExecutor(0, 1, 1L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        threadFactory("XAJournal compaction"));
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (forceLock) {
+      synchronized (appendLock) {
+        try {
+          channel.force(true);
+        } finally {
+          channel.close();
+          channel = null;
+          states.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends a record to the log, returning once it is durable.
+   */
+  private void log(ByteBuffer record) {
+    long end;
+    try {
+      synchronized (appendLock) {
+        while (record.hasRemaining()) {
+          channel.write(record);
+        }
+        end = written = channel.position();
+      }
+      awaitForced(end);
+    } catch (IOException ioe) {
+      throw new XACacheException("Cannot write to XA journal", ioe);
+    }
+    if (needsCompaction(end) && compactionPending.compareAndSet(false, true)) {
+      compactor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            compact();
+          } catch (IOException ioe) {
+            LOGGER.warn("Cannot compact XA journal", ioe);
+          } finally {
+            compactionPending.set(false);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Tells whether a log of the given size should be compacted: it must exceed the threshold, and have doubled since
+   * the last compaction so that a large live state does not have the log rewritten on every append.
+   */
+  private boolean needsCompaction(long size) {
+    return size > compactionThreshold && size > 2 * compactedSize;
+  }
+
+  /**
+   * Forces the log at least up to {@code position}.  Threads arriving while a force is in progress wait for it, so
+   * that a single force covers all the records appended before it started.
+   */
+  private void awaitForced(long position) throws IOException {
+    if (forced >= position) {
+      return;
+    }
+    synchronized (forceLock) {
+      if (forced >= position) {
+        return;
+      }
+      long target;
+      synchronized (appendLock) {
+        target = written;
+      }
+      channel.force(false);
+      forced = target;
+    }
+  }
+
+  /**
+   * Rewrites the log to the records of the live states, then swaps it in.
+   */
+  void compact() throws IOException {
+    synchronized (forceLock) {
+      synchronized (appendLock) {
+        if (!needsCompaction(written)) {
+          return;
+        }
+        File compacted = new File(directory, COMPACTED_FILENAME);
+        FileChannel compactedChannel = new RandomAccessFile(compacted, "rw").getChannel();
+        try {
+          compactedChannel.truncate(0);
+          for (Map.Entry<TransactionId, Entry<K>> entry : states.entrySet()) {
+            write(compactedChannel, entry.getKey(), entry.getValue());
+          }
+          write(compactedChannel, compactionMarker());
+          compactedChannel.force(true);
+        } catch (IOException ioe) {
+          compactedChannel.close();
+          throw ioe;
+        }
+
+        File journal = new File(directory, JOURNAL_FILENAME);
+        channel.close();
+        boolean swapped = compacted.renameTo(journal);
+        if (!swapped && journal.delete()) {
+          // the compacted log is complete: should this rename fail too, open() restores it under its own name
+          swapped = true;
+          compacted.renameTo(journal);
+        }
+        if (swapped) {
+          syncDirectory();
+          long before = written;
+          channel = compactedChannel;
+          written = forced = compactedSize = channel.position();
+          LOGGER.debug("Compacted XA journal from {} to {} bytes", before, written);
+        } else {
+          compactedChannel.close();
+          compacted.delete();
+          channel = new RandomAccessFile(journal, "rw").getChannel();
+          channel.position(written);
+          throw new IOException("Cannot swap compacted XA journal in");
+        }
+      }
+    }
+  }
+
+  /**
+   * Imports the states saved by a {@link PersistentJournal} into the log, then deletes its file.  The log is forced
+   * first, so that the states survive whichever of the two the crash leaves behind; a state already in the log is
+   * not imported again.
+   */
+  private void importLegacyJournal() throws IOException {
+    File legacy = new File(directory, PersistentJournal.JOURNAL_FILENAME);
+    if (!legacy.isFile()) {
+      return;
+    }
+    PersistentJournal<K> legacyJournal = new PersistentJournal<K>(directory, keySerializer);
+    legacyJournal.open();
+    int imported = 0;
+    for (Map.Entry<TransactionId, Entry<K>> entry : legacyJournal.states.entrySet()) {
+      if (states.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+        write(channel, entry.getKey(), entry.getValue());
+        imported++;
+      }
+    }
+    channel.force(true);
+    if (!legacy.delete()) {
+      throw new IOException("Cannot delete XA journal imported from " + legacy);
+    }
+    LOGGER.info("Imported {} transaction states from XA journal {}", imported, legacy);
+  }
+
+  /**
+   * Writes the records restoring a state on replay.
+   */
+  private void write(FileChannel channel, TransactionId transactionId, Entry<K> state) throws IOException {
+    if (state.heuristic) {
+      write(channel, encode(IN_DOUBT_RECORD, transactionId, false, Collections.<K>emptySet()));
+      write(channel, encode(state.state == XAState.COMMITTED ? COMMITTED_RECORD : ROLLED_BACK_RECORD,
+          transactionId, true, Collections.<K>emptySet()));
+    } else {
+      write(channel, encode(IN_DOUBT_RECORD, transactionId, false, state.keys));
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer record) throws IOException {
+    while (record.hasRemaining()) {
+      channel.write(record);
+    }
+  }
+
+  /**
+   * Replays the log into {@link #states}.
+   *
+   * @return the length of the valid prefix of the log
+   */
+  private long replay() throws IOException {
+    List<ByteBuffer> payloads = new ArrayList<ByteBuffer>();
+    long valid = read(channel, payloads);
+    for (ByteBuffer payload : payloads) {
+      try {
+        apply(payload);
+      } catch (ClassNotFoundException cnfe) {
+        LOGGER.warn("Cannot deserialize XA journal contents, truncating it", cnfe);
+        return payload.arrayOffset() - RECORD_HEADER_SIZE;
+      } catch (RuntimeException re) {
+        LOGGER.warn("Cannot read XA journal, truncating it", re);
+        return payload.arrayOffset() - RECORD_HEADER_SIZE;
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Tells whether a compacted log was completely written, that is whether it holds the compaction marker.
+   */
+  private static boolean isComplete(File compacted) throws IOException {
+    FileChannel compactedChannel = new RandomAccessFile(compacted, "r").getChannel();
+    try {
+      List<ByteBuffer> payloads = new ArrayList<ByteBuffer>();
+      read(compactedChannel, payloads);
+      for (ByteBuffer payload : payloads) {
+        if (payload.get(0) == COMPACTION_RECORD) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      compactedChannel.close();
+    }
+  }
+
+  /**
+   * Reads the payloads of the records of a log, up to its first torn or corrupted record.
+   *
+   * @return the length of the valid prefix of the log
+   */
+  private static long read(FileChannel channel, List<ByteBuffer> payloads) throws IOException {
+    ByteBuffer log = ByteBuffer.allocate((int) channel.size());
+    while (log.hasRemaining() && channel.read(log) >= 0) {
+      // read the whole log
+    }
+    log.flip();
+
+    long valid = 0;
+    while (log.remaining() >= RECORD_HEADER_SIZE) {
+      int length = log.getInt();
+      long checksum = log.getLong();
+      if (length < 0 || length > log.remaining()) {
+        break;
+      }
+      ByteBuffer payload = log.slice();
+      payload.limit(length);
+      if (checksum(payload) != checksum) {
+        break;
+      }
+      payloads.add(payload);
+      log.position(log.position() + length);
+      valid = log.position();
+    }
+    return valid;
+  }
+
+  /**
+   * Forces the journal directory, so that the renames swapping logs are durable.  This is best effort: directories
+   * cannot be forced before Java 7 nor on every platform, which the compaction marker makes up for on open.
+   */
+  private void syncDirectory() {
+    try {
+      Object path = File.class.getMethod("toPath").invoke(directory);
+      Class<?> optionClass = Class.forName("java.nio.file.OpenOption");
+      Object options = Array.newInstance(optionClass, 1);
+      Array.set(options, 0, Class.forName("java.nio.file.StandardOpenOption").getField("READ").get(null));
+      FileChannel directoryChannel = (FileChannel) FileChannel.class
+          .getMethod("open", Class.forName("java.nio.file.Path"), options.getClass()).invoke(null, path, options);
+      try {
+        directoryChannel.force(true);
+      } finally {
+        directoryChannel.close();
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Cannot force XA journal directory {}", directory, e);
+    }
+  }
+
+  private void apply(ByteBuffer payload) throws ClassNotFoundException {
+    byte type = payload.get();
+    if (type == COMPACTION_RECORD) {
+      return;
+    }
+    boolean heuristic = payload.get() != 0;
+    TransactionId transactionId = new TransactionId(new SerializableXid(payload.getInt(), bytes(payload), bytes(payload)));
+    switch (type) {
+      case IN_DOUBT_RECORD:
+        int keyCount = payload.getInt();
+        List<K> keys = new ArrayList<K>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+          keys.add(keySerializer.read(ByteBuffer.wrap(bytes(payload))));
+        }
+        states.put(transactionId, new Entry<K>(XAState.IN_DOUBT, false, keys));
+        break;
+      case COMMITTED_RECORD:
+      case ROLLED_BACK_RECORD:
+        if (heuristic) {
+          states.put(transactionId, new Entry<K>(type == COMMITTED_RECORD ? XAState.COMMITTED : XAState.ROLLED_BACK, true, Collections.<K>emptySet()));
+        } else {
+          states.remove(transactionId);
+        }
+        break;
+      case FORGET_RECORD:
+        states.remove(transactionId);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown XA journal record type " + type);
+    }
+  }
+
+  /**
+   * Encodes a record: its payload length and CRC32, then the record type, heuristic flag, XID and keys.
+   */
+  private ByteBuffer encode(byte type, TransactionId transactionId, boolean heuristic, Collection<K> keys) {
+    SerializableXid xid = transactionId.getSerializableXid();
+    byte[] globalTransactionId = xid.getGlobalTransactionId();
+    byte[] branchQualifier = xid.getBranchQualifier();
+    List<ByteBuffer> serializedKeys = new ArrayList<ByteBuffer>(keys.size());
+    int length = 1 + 1 + 4 + 4 + globalTransactionId.length + 4 + branchQualifier.length;
+    if (type == IN_DOUBT_RECORD) {
+      length += 4;
+      for (K key : keys) {
+        ByteBuffer serializedKey = keySerializer.serialize(key);
+        serializedKeys.add(serializedKey);
+        length += 4 + serializedKey.remaining();
+      }
+    }
+
+    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+    record.position(RECORD_HEADER_SIZE);
+    record.put(type);
+    record.put((byte) (heuristic ? 1 : 0));
+    record.putInt(xid.getFormatId());
+    record.putInt(globalTransactionId.length).put(globalTransactionId);
+    record.putInt(branchQualifier.length).put(branchQualifier);
+    if (type == IN_DOUBT_RECORD) {
+      record.putInt(serializedKeys.size());
+      for (ByteBuffer serializedKey : serializedKeys) {
+        record.putInt(serializedKey.remaining()).put(serializedKey);
+      }
+    }
+    return seal(record, length);
+  }
+
+  /**
+   * Encodes the record marking the end of a compacted log.
+   */
+  private static ByteBuffer compactionMarker() {
+    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 1);
+    record.position(RECORD_HEADER_SIZE);
+    record.put(COMPACTION_RECORD);
+    return seal(record, 1);
+  }
+
+  /**
+   * Fills in the header of a record whose payload was written after it.
+   */
+  private static ByteBuffer seal(ByteBuffer record, int length) {
+    record.flip();
+    ByteBuffer payload = record.duplicate();
+    payload.position(RECORD_HEADER_SIZE);
+    record.putInt(0, length);
+    record.putLong(4, checksum(payload));
+    return record;
+  }
+
+  private static long checksum(ByteBuffer payload) {
+    CRC32 crc = new CRC32();
+    if (payload.hasArray()) {
+      crc.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+    } else {
+      byte[] bytes = new byte[payload.remaining()];
+      payload.duplicate().get(bytes);
+      crc.update(bytes);
+    }
+    return crc.getValue();
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -44,7 +44,7 @@ import java.util.Map;
 public class PersistentJournal<K> extends TransientJournal<K> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PersistentJournal.class);
-  private static final String JOURNAL_FILENAME = "journal.data";
+  static final String JOURNAL_FILENAME = "journal.data";
 
   protected static class SerializableEntry<K> implements Serializable {
     final XAState state;
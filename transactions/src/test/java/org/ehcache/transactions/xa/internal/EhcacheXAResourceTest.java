@@ -16,6 +16,7 @@
 
 package org.ehcache.transactions.xa.internal;
 
+import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.transactions.xa.internal.journal.Journal;
 import org.ehcache.transactions.xa.utils.TestXid;
@@ -28,10 +29,12 @@ import javax.transaction.xa.Xid;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
@@ -655,9 +658,7 @@ public class EhcacheXAResourceTest {
     xaResource.commit(recoveredXids[0], false);
 
     verify(xaTransactionContextFactory, times(0)).destroy(eq(new TransactionId(new TestXid(0, 0))));
-    verify(underlyingStore, times(1)).get(eq(1L));
-    verify(underlyingStore, times(1)).get(eq(2L));
-    verify(underlyingStore, times(1)).get(eq(3L));
+    verify(underlyingStore, times(1)).bulkCompute(eq(new HashSet<Long>(Arrays.asList(1L, 2L, 3L))), any(Function.class));
   }
 
   @Test
@@ -678,9 +679,7 @@ public class EhcacheXAResourceTest {
     xaResource.rollback(recoveredXids[0]);
 
     verify(xaTransactionContextFactory, times(0)).destroy(eq(new TransactionId(new TestXid(0, 0))));
-    verify(underlyingStore, times(1)).get(eq(1L));
-    verify(underlyingStore, times(1)).get(eq(2L));
-    verify(underlyingStore, times(1)).get(eq(3L));
+    verify(underlyingStore, times(1)).bulkCompute(eq(new HashSet<Long>(Arrays.asList(1L, 2L, 3L))), any(Function.class));
   }
 
 }
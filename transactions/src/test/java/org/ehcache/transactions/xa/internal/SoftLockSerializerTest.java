@@ -0,0 +1,138 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.transactions.xa.internal;
+
+import org.ehcache.expiry.Duration;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+import org.ehcache.transactions.xa.utils.TestXid;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * SoftLockSerializerTest
+ */
+public class SoftLockSerializerTest {
+
+  private final Serializer<SoftLock<String>> serializer = newSerializer();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    long now = System.currentTimeMillis();
+    XAValueHolder<String> newValueHolder = new XAValueHolder<String>("new", now - 1000);
+    newValueHolder.accessed(now, new Duration(100, TimeUnit.SECONDS));
+    SoftLock<String> softLock = new SoftLock<String>(new TransactionId(new TestXid(0, 1)), "old", newValueHolder);
+
+    SoftLock<String> result = serializer.read(serializer.serialize(softLock));
+
+    assertThat(result.getTransactionId(), is(softLock.getTransactionId()));
+    assertThat(result.getOldValue(), is("old"));
+    assertValueHolder(result.getNewValueHolder(), newValueHolder);
+  }
+
+  @Test
+  public void testRoundTripWithoutOptionalParts() throws Exception {
+    SoftLock<String> softLock = new SoftLock<String>(null, "old", null);
+
+    SoftLock<String> result = serializer.read(serializer.serialize(softLock));
+
+    assertThat(result.getTransactionId(), is(nullValue()));
+    assertThat(result.getOldValue(), is("old"));
+    assertThat(result.getNewValueHolder(), is(nullValue()));
+  }
+
+  @Test
+  public void testReadsJavaSerializedSoftLock() throws Exception {
+    XAValueHolder<String> newValueHolder = new XAValueHolder<String>("new", System.currentTimeMillis());
+    SoftLock<String> softLock = new SoftLock<String>(new TransactionId(new TestXid(0, 1)), "old", newValueHolder);
+
+    SoftLock<String> result = serializer.read(javaSerialize(softLock.copyForSerialization(new StringSerializer())));
+
+    assertThat(result.getTransactionId(), is(softLock.getTransactionId()));
+    assertThat(result.getOldValue(), is("old"));
+    assertValueHolder(result.getNewValueHolder(), newValueHolder);
+  }
+
+  @Test
+  public void testBinaryFormIsSmallerThanJavaSerialization() throws Exception {
+    XAValueHolder<String> newValueHolder = new XAValueHolder<String>("new", System.currentTimeMillis());
+    SoftLock<String> softLock = new SoftLock<String>(new TransactionId(new TestXid(0, 1)), "old", newValueHolder);
+
+    int binarySize = serializer.serialize(softLock).remaining();
+    int javaSize = javaSerialize(softLock.copyForSerialization(new StringSerializer())).remaining();
+
+    assertThat(binarySize, lessThan(javaSize));
+  }
+
+  @Test(expected = SerializerException.class)
+  public void testEmptyBinaryIsRejected() throws Exception {
+    serializer.read(ByteBuffer.allocate(0));
+  }
+
+  @Test
+  public void testTruncatedBinaryIsRejected() throws Exception {
+    XAValueHolder<String> newValueHolder = new XAValueHolder<String>("new", System.currentTimeMillis());
+    SoftLock<String> softLock = new SoftLock<String>(new TransactionId(new TestXid(0, 1)), "old", newValueHolder);
+    ByteBuffer binary = serializer.serialize(softLock);
+
+    for (int length = 1; length < binary.remaining(); length++) {
+      ByteBuffer truncated = binary.duplicate();
+      truncated.limit(length);
+      try {
+        serializer.read(truncated);
+        fail("Expected SerializerException reading " + length + " bytes");
+      } catch (SerializerException e) {
+        // expected
+      }
+    }
+  }
+
+  private static void assertValueHolder(XAValueHolder<String> result, XAValueHolder<String> original) {
+    XAValueHolder<String> expected = original.copyForSerialization(new StringSerializer());
+    assertThat(result.getId(), is(expected.getId()));
+    assertThat(result.creationTime(TimeUnit.MILLISECONDS), is(expected.creationTime(TimeUnit.MILLISECONDS)));
+    assertThat(result.lastAccessTime(TimeUnit.MILLISECONDS), is(expected.lastAccessTime(TimeUnit.MILLISECONDS)));
+    assertThat(result.expirationTime(TimeUnit.MILLISECONDS), is(expected.expirationTime(TimeUnit.MILLISECONDS)));
+    assertThat(result.hits(), is(expected.hits()));
+    assertThat(result.value(), is(original.value()));
+  }
+
+  private static ByteBuffer javaSerialize(Object object) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ObjectOutputStream outputStream = new ObjectOutputStream(baos);
+    outputStream.writeObject(object);
+    outputStream.close();
+    return ByteBuffer.wrap(baos.toByteArray());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Serializer<SoftLock<String>> newSerializer() {
+    Serializer<SoftLock<String>> softLockSerializer = (Serializer) new SoftLockSerializer(SoftLockSerializerTest.class.getClassLoader());
+    return new SoftLockValueCombinedSerializer<String>(new AtomicReference<Serializer<SoftLock<String>>>(softLockSerializer), new StringSerializer());
+  }
+}
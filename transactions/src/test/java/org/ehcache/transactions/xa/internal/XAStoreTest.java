@@ -200,6 +200,47 @@ public class XAStoreTest {
     assertMapping(xaStore, 1L, "un");
   }
 
+  @Test
+  public void testInterleavedTransactionsOnSameThread() throws Exception {
+    String uniqueXAResourceId = "testInterleavedTransactionsOnSameThread";
+    TransactionManagerWrapper transactionManagerWrapper = new TransactionManagerWrapper(testTransactionManager, new NullXAResourceRegistry());
+    ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+    Serializer<Long> keySerializer = new JavaSerializer<Long>(classLoader);
+    Serializer<SoftLock> valueSerializer = new JavaSerializer<SoftLock>(classLoader);
+    CopyProvider copyProvider = new DefaultCopyProvider(new DefaultCopyProviderConfiguration());
+    Copier<Long> keyCopier = copyProvider.createKeyCopier(Long.class, keySerializer);
+    Copier<SoftLock> valueCopier = copyProvider.createValueCopier(SoftLock.class, valueSerializer);
+    Store.Configuration<Long, SoftLock> onHeapConfig = new StoreConfigurationImpl<Long, SoftLock>(Long.class, SoftLock.class,
+        null, classLoader, Expirations.noExpiration(), ResourcePoolsBuilder.newResourcePoolsBuilder().heap(10, EntryUnit.ENTRIES).build(),
+        0, keySerializer, valueSerializer);
+    TestTimeSource testTimeSource = new TestTimeSource();
+    OnHeapStore<Long, SoftLock<String>> onHeapStore = (OnHeapStore) new OnHeapStore<Long, SoftLock>(onHeapConfig, testTimeSource, keyCopier, valueCopier, new NoopSizeOfEngine(), NullStoreEventDispatcher.<Long, SoftLock>nullStoreEventDispatcher());
+    Journal<Long> journal = new TransientJournal<Long>();
+
+    XAStore<Long, String> xaStore = new XAStore<Long, String>(Long.class, String.class, onHeapStore, transactionManagerWrapper, testTimeSource, journal, uniqueXAResourceId);
+
+    testTransactionManager.begin();
+    TestTransaction first = testTransactionManager.getCurrentTransaction();
+    assertThat(xaStore.put(1L, "one"), equalTo(Store.PutStatus.PUT));
+
+    testTransactionManager.begin();
+    TestTransaction second = testTransactionManager.getCurrentTransaction();
+    assertThat(xaStore.get(1L), is(nullValue()));
+    assertThat(xaStore.put(2L, "two"), equalTo(Store.PutStatus.PUT));
+
+    testTransactionManager.currentTransaction = first;
+    assertThat(xaStore.get(1L).value(), equalTo("one"));
+    assertThat(xaStore.get(2L), is(nullValue()));
+    testTransactionManager.commit();
+
+    testTransactionManager.currentTransaction = second;
+    assertThat(xaStore.get(2L).value(), equalTo("two"));
+    testTransactionManager.rollback();
+
+    assertMapping(xaStore, 1L, "one");
+    assertMapping(xaStore, 2L, null);
+  }
+
   @Test
   public void testConflictingGetPutRemove() throws Exception {
     String uniqueXAResourceId = "testConflictingGetPutRemove";
@@ -16,15 +16,13 @@
 
 package org.ehcache.transactions.xa.internal;
 
+import org.ehcache.core.spi.function.Function;
 import org.ehcache.internal.TestTimeSource;
-import org.ehcache.impl.internal.store.AbstractValueHolder;
 import org.ehcache.core.spi.store.Store;
-import org.ehcache.core.spi.store.Store.RemoveStatus;
 import org.ehcache.transactions.xa.internal.commands.StoreEvictCommand;
 import org.ehcache.transactions.xa.internal.commands.StorePutCommand;
 import org.ehcache.transactions.xa.internal.commands.StoreRemoveCommand;
 import org.ehcache.transactions.xa.internal.journal.Journal;
-import org.ehcache.core.spi.store.Store.ReplaceStatus;
 import org.ehcache.transactions.xa.utils.TestXid;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -34,11 +32,16 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -49,9 +52,9 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anySet;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -221,10 +224,10 @@ public class XATransactionContextTest {
     xaTransactionContext.addCommand(2L, new StoreRemoveCommand<String>("two"));
     xaTransactionContext.addCommand(3L, new StoreEvictCommand<String>("three"));
 
-    Store.ValueHolder<SoftLock<String>> mockValueHolder = mock(Store.ValueHolder.class);
-    when(mockValueHolder.value()).thenReturn(new SoftLock<String>(null, "two", null));
-    when(underlyingStore.get(eq(2L))).thenReturn(mockValueHolder);
-    when(underlyingStore.replace(eq(2L), eq(new SoftLock<String>(null, "two", null)), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)))).thenReturn(ReplaceStatus.HIT);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(2L, new SoftLock<String>(null, "two", null));
+    mappings.put(3L, new SoftLock<String>(null, "three", null));
+    Map<Long, SoftLock<String>> computed = bulkComputeOn(underlyingStore, mappings);
 
     final AtomicReference<Collection<Long>> savedInDoubt = new AtomicReference<Collection<Long>>();
     // doAnswer is required to make a copy of the keys collection because xaTransactionContext.prepare() clears it before the verify(journal, times(1)).saveInDoubt(...) assertion can be made.
@@ -246,12 +249,11 @@ public class XATransactionContextTest {
     verify(journal, times(0)).saveCommitted(eq(new TransactionId(new TestXid(0, 0))), anyBoolean());
     verify(journal, times(0)).saveRolledBack(eq(new TransactionId(new TestXid(0, 0))), anyBoolean());
 
-    verify(underlyingStore, times(0)).get(1L);
-    verify(underlyingStore, times(1)).putIfAbsent(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), null, new XAValueHolder<String>("un", timeSource.getTimeMillis()))));
-    verify(underlyingStore, times(0)).get(2L);
-    verify(underlyingStore, times(1)).replace(eq(2L), eq(new SoftLock<String>(null, "two", null)), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
-    verify(underlyingStore, times(0)).get(3L);
-    verify(underlyingStore, times(1)).remove(eq(3L));
+    verify(underlyingStore, times(1)).bulkCompute(anySet(), any(Function.class));
+    assertThat(computed.keySet(), containsInAnyOrder(1L, 2L, 3L));
+    assertThat(mappings.get(1L), equalTo(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), null, new XAValueHolder<String>("un", timeSource.getTimeMillis()))));
+    assertThat(mappings.get(2L), equalTo(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
+    assertThat(mappings.containsKey(3L), is(false));
   }
 
   @Test
@@ -285,37 +287,24 @@ public class XATransactionContextTest {
 
     XATransactionContext<Long, String> xaTransactionContext = new XATransactionContext<Long, String>(new TransactionId(new TestXid(0, 0)), underlyingStore, journal, timeSource, timeSource.getTimeMillis() + 30000);
 
-    xaTransactionContext.addCommand(1L, new StorePutCommand<String>("one", new XAValueHolder<String>("un", timeSource.getTimeMillis())));
-    xaTransactionContext.addCommand(2L, new StoreRemoveCommand<String>("two"));
-    xaTransactionContext.addCommand(3L, new StoreEvictCommand<String>("three"));
-
-    Store.ValueHolder<SoftLock<String>> mockValueHolder1 = mock(Store.ValueHolder.class);
-    when(mockValueHolder1.value()).thenReturn(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis())));
-    when(underlyingStore.get(eq(1L))).thenReturn(mockValueHolder1);
-    Store.ValueHolder<SoftLock<String>> mockValueHolder2 = mock(Store.ValueHolder.class);
-    when(mockValueHolder2.value()).thenReturn(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null));
-    when(underlyingStore.get(eq(2L))).thenReturn(mockValueHolder2);
-    Store.ValueHolder<SoftLock<String>> mockValueHolder3 = mock(Store.ValueHolder.class);
-    when(mockValueHolder3.value()).thenReturn(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "three", null));
-    when(underlyingStore.get(eq(3L))).thenReturn(mockValueHolder3);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(1L, new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis())));
+    mappings.put(2L, new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null));
+    Map<Long, SoftLock<String>> computed = bulkComputeOn(underlyingStore, mappings);
 
     when(journal.isInDoubt(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(true);
     when(journal.getInDoubtKeys(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(Arrays.asList(1L, 2L, 3L));
 
-    when(underlyingStore.replace(any(Long.class), any(SoftLock.class), any(SoftLock.class))).thenReturn(ReplaceStatus.MISS_NOT_PRESENT);
-    when(underlyingStore.remove(any(Long.class), any(SoftLock.class))).thenReturn(RemoveStatus.KEY_MISSING);
-
     xaTransactionContext.commit(false);
     verify(journal, times(1)).saveCommitted(eq(new TransactionId(new TestXid(0, 0))), eq(false));
     verify(journal, times(0)).saveRolledBack(eq(new TransactionId(new TestXid(0, 0))), anyBoolean());
     verify(journal, times(0)).saveInDoubt(eq(new TransactionId(new TestXid(0, 0))), anyCollection());
 
-    verify(underlyingStore, times(1)).get(1L);
-    verify(underlyingStore, times(1)).replace(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis()))), eq(new SoftLock<String>(null, "un", null)));
-    verify(underlyingStore, times(1)).get(2L);
-    verify(underlyingStore, times(1)).remove(eq(2L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
-    verify(underlyingStore, times(1)).get(3L);
-    verify(underlyingStore, times(1)).remove(eq(3L));
+    verify(underlyingStore, times(1)).bulkCompute(anySet(), any(Function.class));
+    assertThat(computed.keySet(), containsInAnyOrder(1L, 2L, 3L));
+    assertThat(mappings.get(1L), equalTo(new SoftLock<String>(null, "un", null)));
+    assertThat(mappings.containsKey(2L), is(false));
+    assertThat(mappings.containsKey(3L), is(false));
   }
 
   @Test
@@ -348,9 +337,10 @@ public class XATransactionContextTest {
     xaTransactionContext.addCommand(2L, new StoreRemoveCommand<String>("two"));
     xaTransactionContext.addCommand(3L, new StoreEvictCommand<String>("three"));
 
-    Store.ValueHolder<SoftLock<String>> mockValueHolder = mock(Store.ValueHolder.class);
-    when(mockValueHolder.value()).thenReturn(new SoftLock<String>(null, "two", null));
-    when(underlyingStore.get(eq(2L))).thenReturn(mockValueHolder);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(2L, new SoftLock<String>(null, "two", null));
+    mappings.put(3L, new SoftLock<String>(null, "three", null));
+    bulkComputeOn(underlyingStore, mappings);
 
     final AtomicReference<Collection<Long>> savedInDoubtCollectionRef = new AtomicReference<Collection<Long>>();
     doAnswer(new Answer() {
@@ -372,63 +362,6 @@ public class XATransactionContextTest {
         return savedInDoubtCollectionRef.get();
       }
     });
-    final AtomicReference<SoftLock> softLock1Ref = new AtomicReference<SoftLock>();
-    when(underlyingStore.get(eq(1L))).then(new Answer<Object>() {
-      @Override
-      public Object answer(InvocationOnMock invocation) throws Throwable {
-        return softLock1Ref.get() == null ? null : new AbstractValueHolder(-1, -1) {
-          @Override
-          public Object value() {
-            return softLock1Ref.get();
-          }
-          @Override
-          protected TimeUnit nativeTimeUnit() {
-            return TimeUnit.MILLISECONDS;
-          }
-        };
-      }
-    });
-    when(underlyingStore.putIfAbsent(eq(1L), isA(SoftLock.class))).then(new Answer<Object>() {
-      @Override
-      public Object answer(InvocationOnMock invocation) throws Throwable {
-        softLock1Ref.set((SoftLock) invocation.getArguments()[1]);
-        return null;
-      }
-    });
-    when(underlyingStore.replace(eq(1L), isA(SoftLock.class), isA(SoftLock.class))).then(new Answer<Object>() {
-      @Override
-      public Object answer(InvocationOnMock invocation) throws Throwable {
-        if (softLock1Ref.get() != null) {
-          return ReplaceStatus.HIT;
-        }
-        return ReplaceStatus.MISS_PRESENT;
-      }
-    });
-    final AtomicReference<SoftLock> softLock2Ref = new AtomicReference<SoftLock>(new SoftLock(null, "two", null));
-    when(underlyingStore.get(eq(2L))).then(new Answer<Object>() {
-      @Override
-      public Object answer(InvocationOnMock invocation) throws Throwable {
-        return softLock2Ref.get() == null ? null : new AbstractValueHolder(-1, -1) {
-          @Override
-          public Object value() {
-            return softLock2Ref.get();
-          }
-          @Override
-          protected TimeUnit nativeTimeUnit() {
-            return TimeUnit.MILLISECONDS;
-          }
-        };
-      }
-    });
-    when(underlyingStore.replace(eq(2L), isA(SoftLock.class), isA(SoftLock.class))).then(new Answer<Object>() {
-      @Override
-      public Object answer(InvocationOnMock invocation) throws Throwable {
-        softLock2Ref.set((SoftLock) invocation.getArguments()[2]);
-        return ReplaceStatus.HIT;
-      }
-    });
-
-    when(underlyingStore.remove(any(Long.class), any(SoftLock.class))).thenReturn(RemoveStatus.REMOVED);
 
     xaTransactionContext.commitInOnePhase();
 
@@ -438,16 +371,10 @@ public class XATransactionContextTest {
     verify(journal, times(0)).saveRolledBack(eq(new TransactionId(new TestXid(0, 0))), anyBoolean());
     verify(journal, times(1)).saveInDoubt(eq(new TransactionId(new TestXid(0, 0))), anyCollection());
 
-    verify(underlyingStore, times(1)).putIfAbsent(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), null, new XAValueHolder<String>("un", timeSource.getTimeMillis()))));
-    verify(underlyingStore, times(1)).replace(eq(2L), eq(new SoftLock<String>(null, "two", null)), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
-    verify(underlyingStore, times(1)).remove(eq(3L));
-
-    verify(underlyingStore, times(1)).get(1L);
-    verify(underlyingStore, times(1)).replace(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), null, new XAValueHolder<String>("un", timeSource.getTimeMillis()))), eq(new SoftLock<String>(null, "un", null)));
-    verify(underlyingStore, times(1)).get(2L);
-    verify(underlyingStore, times(1)).remove(eq(2L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
-    verify(underlyingStore, times(1)).get(3L);
-    verify(underlyingStore, times(1)).remove(eq(3L));
+    verify(underlyingStore, times(2)).bulkCompute(anySet(), any(Function.class));
+    assertThat(mappings.get(1L), equalTo(new SoftLock<String>(null, "un", null)));
+    assertThat(mappings.containsKey(2L), is(false));
+    assertThat(mappings.containsKey(3L), is(false));
   }
 
   @Test
@@ -480,34 +407,16 @@ public class XATransactionContextTest {
     when(journal.isInDoubt(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(true);
     when(journal.getInDoubtKeys(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(Arrays.asList(1L, 2L));
 
-    when(underlyingStore.get(1L)).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis()));
-      }
-    });
-    when(underlyingStore.get(2L)).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null);
-      }
-    });
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(1L, new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis())));
+    mappings.put(2L, new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null));
+    bulkComputeOn(underlyingStore, mappings);
 
-    when(underlyingStore.replace(any(Long.class), any(SoftLock.class), any(SoftLock.class))).thenReturn(ReplaceStatus.HIT);
     xaTransactionContext.rollback(false);
 
-    verify(underlyingStore, times(1)).get(1L);
-    verify(underlyingStore, times(1)).replace(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis()))), eq(new SoftLock<String>(null, "one", null)));
-    verify(underlyingStore, times(1)).get(2L);
-    verify(underlyingStore, times(1)).replace(eq(2L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)), eq(new SoftLock<String>(null, "two", null)));
+    verify(underlyingStore, times(1)).bulkCompute(anySet(), any(Function.class));
+    assertThat(mappings.get(1L), equalTo(new SoftLock<String>(null, "one", null)));
+    assertThat(mappings.get(2L), equalTo(new SoftLock<String>(null, "two", null)));
   }
 
   @Test
@@ -562,36 +471,15 @@ public class XATransactionContextTest {
 
     when(journal.isInDoubt(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(true);
     when(journal.getInDoubtKeys(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(Arrays.asList(1L, 2L));
-    when(underlyingStore.get(eq(1L))).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis()));
-      }
-    });
-    when(underlyingStore.get(eq(2L))).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old2", null);
-      }
-    });
 
-    when(underlyingStore.replace(any(Long.class), any(SoftLock.class), any(SoftLock.class))).thenReturn(ReplaceStatus.MISS_NOT_PRESENT);
-    when(underlyingStore.remove(any(Long.class), any(SoftLock.class))).thenReturn(RemoveStatus.KEY_MISSING);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(1L, new SoftLock<String>(new TransactionId(new TestXid(1, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis())));
+    mappings.put(2L, new SoftLock<String>(new TransactionId(new TestXid(1, 0)), "old2", null));
+    bulkComputeOn(underlyingStore, mappings);
 
     xaTransactionContext.commit(false);
 
-    verify(underlyingStore, times(1)).replace(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis()))), eq(new SoftLock<String>(null, "new1", null)));
-    verify(underlyingStore, times(1)).remove(eq(1L));
-    verify(underlyingStore, times(1)).remove(eq(2L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old2", null)));
-    verify(underlyingStore, times(1)).remove(eq(2L));
+    assertThat(mappings.isEmpty(), is(true));
   }
 
   @Test
@@ -604,15 +492,16 @@ public class XATransactionContextTest {
 
     xaTransactionContext.addCommand(1L, new StorePutCommand<String>("one", new XAValueHolder<String>("un", timeSource.getTimeMillis())));
     xaTransactionContext.addCommand(2L, new StoreRemoveCommand<String>("two"));
+    xaTransactionContext.addCommand(3L, new StorePutCommand<String>(null, new XAValueHolder<String>("trois", timeSource.getTimeMillis())));
 
-    when(underlyingStore.replace(any(Long.class), any(SoftLock.class), any(SoftLock.class))).thenReturn(ReplaceStatus.MISS_NOT_PRESENT);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(1L, new SoftLock<String>(null, "modified", null));
+    mappings.put(3L, new SoftLock<String>(null, "added", null));
+    bulkComputeOn(underlyingStore, mappings);
 
     xaTransactionContext.prepare();
 
-    verify(underlyingStore).replace(eq(1L), eq(new SoftLock<String>(null, "one", null)), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "one", new XAValueHolder<String>("un", timeSource.getTimeMillis()))));
-    verify(underlyingStore).remove(1L);
-    verify(underlyingStore).replace(eq(2L), eq(new SoftLock<String>(null, "two", null)), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "two", null)));
-    verify(underlyingStore).remove(2L);
+    assertThat(mappings.isEmpty(), is(true));
   }
 
   @Test
@@ -625,36 +514,48 @@ public class XATransactionContextTest {
 
     when(journal.isInDoubt(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(true);
     when(journal.getInDoubtKeys(eq(new TransactionId(new TestXid(0, 0))))).thenReturn(Arrays.asList(1L, 2L));
-    when(underlyingStore.get(eq(1L))).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis()));
-      }
-    });
-    when(underlyingStore.get(eq(2L))).thenReturn(new AbstractValueHolder<SoftLock<String>>(-1, -1) {
-      @Override
-      protected TimeUnit nativeTimeUnit() {
-        return TimeUnit.MILLISECONDS;
-      }
-      @Override
-      public SoftLock<String> value() {
-        return new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old2", null);
-      }
-    });
 
-    when(underlyingStore.replace(any(Long.class), any(SoftLock.class), any(SoftLock.class))).thenReturn(ReplaceStatus.MISS_NOT_PRESENT);
-    when(underlyingStore.remove(any(Long.class), any(SoftLock.class))).thenReturn(RemoveStatus.KEY_MISSING);
+    Map<Long, SoftLock<String>> mappings = new HashMap<Long, SoftLock<String>>();
+    mappings.put(1L, new SoftLock<String>(new TransactionId(new TestXid(1, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis())));
+    mappings.put(2L, new SoftLock<String>(new TransactionId(new TestXid(1, 0)), "old2", null));
+    bulkComputeOn(underlyingStore, mappings);
 
     xaTransactionContext.rollback(false);
 
-    verify(underlyingStore, times(1)).replace(eq(1L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old1", new XAValueHolder<String>("new1", timeSource.getTimeMillis()))), eq(new SoftLock<String>(null, "old1", null)));
-    verify(underlyingStore, times(1)).remove(eq(1L));
-    verify(underlyingStore, times(1)).replace(eq(2L), eq(new SoftLock<String>(new TransactionId(new TestXid(0, 0)), "old2", null)), eq(new SoftLock<String>(null, "old2", null)));
-    verify(underlyingStore, times(1)).remove(eq(2L));
+    assertThat(mappings.isEmpty(), is(true));
+  }
+
+  /**
+   * Makes the mocked store apply its bulk computations to the given mappings.
+   *
+   * @return the mappings computed by the last bulk computation
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<Long, SoftLock<String>> bulkComputeOn(Store<Long, SoftLock<String>> store, final Map<Long, SoftLock<String>> mappings) throws Exception {
+    final Map<Long, SoftLock<String>> computed = new HashMap<Long, SoftLock<String>>();
+    when(store.bulkCompute(anySet(), any(Function.class))).then(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        Set<Long> keys = (Set<Long>) invocation.getArguments()[0];
+        Function<Iterable<Map.Entry<Long, SoftLock<String>>>, Iterable<Map.Entry<Long, SoftLock<String>>>> function =
+            (Function<Iterable<Map.Entry<Long, SoftLock<String>>>, Iterable<Map.Entry<Long, SoftLock<String>>>>) invocation.getArguments()[1];
+        List<Map.Entry<Long, SoftLock<String>>> entries = new ArrayList<Map.Entry<Long, SoftLock<String>>>();
+        for (Long key : keys) {
+          entries.add(new AbstractMap.SimpleEntry<Long, SoftLock<String>>(key, mappings.get(key)));
+        }
+        computed.clear();
+        for (Map.Entry<Long, SoftLock<String>> entry : function.apply(entries)) {
+          computed.put(entry.getKey(), entry.getValue());
+          if (entry.getValue() == null) {
+            mappings.remove(entry.getKey());
+          } else {
+            mappings.put(entry.getKey(), entry.getValue());
+          }
+        }
+        return Collections.emptyMap();
+      }
+    });
+    return computed;
   }
 
 
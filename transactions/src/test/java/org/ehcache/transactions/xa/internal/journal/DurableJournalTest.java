@@ -0,0 +1,256 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.transactions.xa.internal.journal;
+
+import org.ehcache.transactions.xa.internal.TransactionId;
+import org.ehcache.transactions.xa.utils.JavaSerializer;
+import org.ehcache.transactions.xa.utils.TestXid;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class DurableJournalTest extends AbstractJournalTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected Journal<Long> createJournal() {
+    return createJournal(DurableJournal.DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  private Journal<Long> createJournal(long compactionThreshold) {
+    return new DurableJournal<Long>(folder.getRoot(), new JavaSerializer<Long>(ClassLoader.getSystemClassLoader()), compactionThreshold);
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L, 5L, 6L));
+    journal.saveCommitted(new TransactionId(new TestXid(1, 0)), true);
+
+    journal.close();
+    journal = createJournal();
+    journal.open();
+
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(journal.getInDoubtKeys(new TransactionId(new TestXid(0, 0))), containsInAnyOrder(1L, 2L, 3L));
+    assertThat(journal.heuristicDecisions().keySet(), containsInAnyOrder(new TransactionId(new TestXid(1, 0))));
+
+    journal.saveRolledBack(new TransactionId(new TestXid(0, 0)), false);
+    journal.forget(new TransactionId(new TestXid(1, 0)));
+
+    journal.close();
+    journal = createJournal();
+    journal.open();
+
+    assertThat(journal.recover().isEmpty(), is(true));
+    assertThat(journal.heuristicDecisions().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testUpgradeFromPersistentJournal() throws Exception {
+    journal.close();
+    assertThat(new File(folder.getRoot(), "journal.log").delete(), is(true));
+    Journal<Long> legacyJournal = new PersistentJournal<Long>(folder.getRoot(), new JavaSerializer<Long>(ClassLoader.getSystemClassLoader()));
+    legacyJournal.open();
+    legacyJournal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    legacyJournal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L, 5L, 6L));
+    legacyJournal.saveCommitted(new TransactionId(new TestXid(1, 0)), true);
+    legacyJournal.close();
+
+    journal = createJournal();
+    journal.open();
+
+    assertThat(new File(folder.getRoot(), "journal.data").exists(), is(false));
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(journal.getInDoubtKeys(new TransactionId(new TestXid(0, 0))), containsInAnyOrder(1L, 2L, 3L));
+    assertThat(journal.heuristicDecisions().keySet(), containsInAnyOrder(new TransactionId(new TestXid(1, 0))));
+
+    journal.close();
+    journal = createJournal();
+    journal.open();
+
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(journal.heuristicDecisions().keySet(), containsInAnyOrder(new TransactionId(new TestXid(1, 0))));
+  }
+
+  @Test
+  public void testRecoveryWithoutClose() throws Exception {
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L, 5L, 6L));
+    journal.saveCommitted(new TransactionId(new TestXid(1, 0)), false);
+
+    Journal<Long> recovered = createJournal();
+    recovered.open();
+    try {
+      assertThat(recovered.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    } finally {
+      recovered.close();
+    }
+  }
+
+  @Test
+  public void testTornRecordIsTruncated() throws Exception {
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.close();
+
+    File log = new File(folder.getRoot(), "journal.log");
+    long length = log.length();
+    RandomAccessFile file = new RandomAccessFile(log, "rw");
+    try {
+      file.seek(length);
+      file.writeInt(100);
+      file.writeLong(42L);
+      file.write(new byte[] {1, 2, 3});
+    } finally {
+      file.close();
+    }
+
+    journal = createJournal();
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(log.length(), is(length));
+
+    journal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L));
+    journal.close();
+    journal = createJournal();
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0)), new TransactionId(new TestXid(1, 0))));
+  }
+
+  @Test
+  public void testCorruptedRecordIsTruncated() throws Exception {
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L, 5L, 6L));
+    journal.close();
+
+    File log = new File(folder.getRoot(), "journal.log");
+    RandomAccessFile file = new RandomAccessFile(log, "rw");
+    try {
+      file.seek(file.length() - 1);
+      int last = file.read();
+      file.seek(file.length() - 1);
+      file.write(last ^ 0xff);
+    } finally {
+      file.close();
+    }
+
+    journal = createJournal();
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+  }
+
+  @Test
+  public void testCompactionWhoseRenameWasLostIsRestored() throws Exception {
+    journal.close();
+    journal = createJournal(64L);
+    journal.open();
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.saveInDoubt(new TransactionId(new TestXid(1, 0)), Arrays.asList(4L, 5L, 6L));
+    journal.saveCommitted(new TransactionId(new TestXid(1, 0)), false);
+    journal.close();
+
+    // the last compaction was not renamed on disk: the log it replaced is still in place
+    File log = new File(folder.getRoot(), "journal.log");
+    assertThat(log.renameTo(new File(folder.getRoot(), "journal.log.compacted")), is(true));
+    File staleFolder = folder.newFolder();
+    Journal<Long> stale = new DurableJournal<Long>(staleFolder, new JavaSerializer<Long>(ClassLoader.getSystemClassLoader()));
+    stale.open();
+    stale.saveInDoubt(new TransactionId(new TestXid(2, 0)), Arrays.asList(7L));
+    stale.close();
+    assertThat(new File(staleFolder, "journal.log").renameTo(log), is(true));
+
+    journal = createJournal();
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(new File(folder.getRoot(), "journal.log.compacted").exists(), is(false));
+  }
+
+  @Test
+  public void testIncompleteCompactionIsDiscarded() throws Exception {
+    journal.saveInDoubt(new TransactionId(new TestXid(0, 0)), Arrays.asList(1L, 2L, 3L));
+    journal.close();
+
+    File compacted = new File(folder.getRoot(), "journal.log.compacted");
+    RandomAccessFile file = new RandomAccessFile(compacted, "rw");
+    try {
+      file.writeInt(100);
+      file.writeLong(42L);
+      file.write(new byte[] {1, 2, 3});
+    } finally {
+      file.close();
+    }
+
+    journal = createJournal();
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(0, 0))));
+    assertThat(compacted.exists(), is(false));
+  }
+
+  @Test
+  public void testConcurrentTransactionsAreCompacted() throws Exception {
+    journal.close();
+    journal = createJournal(4096L);
+    journal.open();
+    journal.saveInDoubt(new TransactionId(new TestXid(-1, 0)), Arrays.asList(42L));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> transactions = new ArrayList<Future<Void>>();
+      for (int i = 0; i < 4; i++) {
+        final int thread = i;
+        transactions.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int j = 0; j < 250; j++) {
+              TransactionId transactionId = new TransactionId(new TestXid(thread, j));
+              journal.saveInDoubt(transactionId, Arrays.asList((long) j, (long) -j));
+              journal.saveCommitted(transactionId, false);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> transaction : transactions) {
+        transaction.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    journal.close();
+    assertThat(new File(folder.getRoot(), "journal.log").length(), lessThan(2 * 4096L + 1024L));
+    journal = createJournal(4096L);
+    journal.open();
+    assertThat(journal.recover().keySet(), containsInAnyOrder(new TransactionId(new TestXid(-1, 0))));
+  }
+}
@@ -22,6 +22,7 @@ import org.ehcache.config.SizedResourcePool;
 import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.config.SizedResourcePoolImpl;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.xml.exceptions.XmlConfigurationException;
 import org.ehcache.xml.model.BaseCacheType;
 import org.ehcache.xml.model.CacheLoaderWriterType;
@@ -46,6 +47,9 @@ import org.ehcache.xml.model.ResourceType;
 import org.ehcache.xml.model.ResourcesType;
 import org.ehcache.xml.model.SerializerType;
 import org.ehcache.xml.model.ServiceType;
+import org.ehcache.xml.model.SharedHeapSettingsType;
+import org.ehcache.xml.model.SharedHeapType;
+import org.ehcache.xml.model.StatisticsType;
 import org.ehcache.xml.model.SizeofType;
 import org.ehcache.xml.model.TimeType;
 import org.ehcache.spi.service.ServiceConfiguration;
@@ -175,6 +179,16 @@ class ConfigurationParser {
     return config.getThreadPools();
   }
 
+  public SharedHeap getSharedHeap() {
+    SharedHeapType type = config.getSharedHeap();
+    return type == null ? null : new XmlSharedHeap(type);
+  }
+
+  public Statistics getDefaultStatistics() {
+    StatisticsType type = config.getDefaultStatistics();
+    return type == null ? null : new XmlStatistics(type);
+  }
+
   public SizeOfEngineLimits getHeapStore() {
     SizeofType type = config.getHeapStore();
     return type == null ? null : new XmlSizeOfEngineLimits(type);
@@ -391,6 +405,26 @@ class ConfigurationParser {
             }
             return sizeofType != null ? new XmlSizeOfEngineLimits(sizeofType) : null;
           }
+
+          @Override
+          public SharedHeapSettings sharedHeapSettings() {
+            SharedHeapSettingsType value = null;
+            for (BaseCacheType source : sources) {
+              value = source.getSharedHeapSettings();
+              if (value != null) break;
+            }
+            return value != null ? new XmlSharedHeapSettings(value) : null;
+          }
+
+          @Override
+          public Statistics statistics() {
+            StatisticsType value = null;
+            for (BaseCacheType source : sources) {
+              value = source.getStatistics();
+              if (value != null) break;
+            }
+            return value != null ? new XmlStatistics(value) : null;
+          }
         });
       }
     }
@@ -513,6 +547,18 @@ class ConfigurationParser {
             SizeofType type = cacheTemplate.getHeapStoreSettings();
             return type == null ? null : new XmlSizeOfEngineLimits(type);
           }
+
+          @Override
+          public SharedHeapSettings sharedHeapSettings() {
+            SharedHeapSettingsType type = cacheTemplate.getSharedHeapSettings();
+            return type == null ? null : new XmlSharedHeapSettings(type);
+          }
+
+          @Override
+          public Statistics statistics() {
+            StatisticsType type = cacheTemplate.getStatistics();
+            return type == null ? null : new XmlStatistics(type);
+          }
         });
       }
     }
@@ -649,6 +695,10 @@ class ConfigurationParser {
 
     SizeOfEngineLimits heapStoreSettings();
 
+    SharedHeapSettings sharedHeapSettings();
+
+    Statistics statistics();
+
   }
 
   interface CacheDefinition extends CacheTemplate {
@@ -714,6 +764,14 @@ class ConfigurationParser {
     long maxDelay();
 
     TimeUnit maxDelayUnit();
+
+    boolean isAdaptive();
+
+    int retryAttempts();
+
+    Long retryBackoff();
+
+    TimeUnit retryBackoffUnit();
   }
 
   interface DiskStoreSettings {
@@ -733,6 +791,33 @@ class ConfigurationParser {
     MemoryUnit getUnit();
   }
 
+  interface SharedHeap {
+
+    long size();
+
+    ResourceUnit unit();
+
+    Long rebalanceInterval();
+
+    TimeUnit rebalanceIntervalUnit();
+
+    String threadPool();
+  }
+
+  interface SharedHeapSettings {
+
+    long min();
+
+    Long max();
+  }
+
+  interface Statistics {
+
+    StatisticsLevel level();
+
+    int sampleRate();
+  }
+
   private static class XmlListenersConfig implements ListenersConfig {
 
     final int dispatcherConcurrency;
@@ -959,6 +1044,26 @@ class ConfigurationParser {
       return convertToJavaTimeUnit(this.batching.getMaxWriteDelay().getUnit());
     }
 
+    @Override
+    public boolean isAdaptive() {
+      return this.batching.isAdaptive();
+    }
+
+    @Override
+    public int retryAttempts() {
+      return this.batching.getRetryAttempts().intValue();
+    }
+
+    @Override
+    public Long retryBackoff() {
+      return this.batching.getRetryBackoff() == null ? null : this.batching.getRetryBackoff().getValue().longValue();
+    }
+
+    @Override
+    public TimeUnit retryBackoffUnit() {
+      return this.batching.getRetryBackoff() == null ? null : convertToJavaTimeUnit(this.batching.getRetryBackoff().getUnit());
+    }
+
   }
 
   private static class XmlDiskStoreSettings implements DiskStoreSettings {
@@ -981,6 +1086,87 @@ class ConfigurationParser {
 
   }
 
+  private static class XmlSharedHeap implements SharedHeap {
+
+    private final SharedHeapType sharedHeap;
+
+    private XmlSharedHeap(SharedHeapType sharedHeap) {
+      this.sharedHeap = sharedHeap;
+    }
+
+    @Override
+    public long size() {
+      return this.sharedHeap.getSize().getValue().longValue();
+    }
+
+    @Override
+    public ResourceUnit unit() {
+      return parseUnit(this.sharedHeap.getSize());
+    }
+
+    @Override
+    public Long rebalanceInterval() {
+      return this.sharedHeap.getRebalanceInterval() == null ? null : this.sharedHeap.getRebalanceInterval().getValue().longValue();
+    }
+
+    @Override
+    public TimeUnit rebalanceIntervalUnit() {
+      return this.sharedHeap.getRebalanceInterval() == null ? null : convertToJavaTimeUnit(this.sharedHeap.getRebalanceInterval().getUnit());
+    }
+
+    @Override
+    public String threadPool() {
+      return this.sharedHeap.getThreadPool();
+    }
+  }
+
+  private static class XmlSharedHeapSettings implements SharedHeapSettings {
+
+    private final SharedHeapSettingsType sharedHeapSettings;
+
+    private XmlSharedHeapSettings(SharedHeapSettingsType sharedHeapSettings) {
+      this.sharedHeapSettings = sharedHeapSettings;
+    }
+
+    @Override
+    public long min() {
+      return this.sharedHeapSettings.getMin().longValue();
+    }
+
+    @Override
+    public Long max() {
+      return this.sharedHeapSettings.getMax() == null ? null : this.sharedHeapSettings.getMax().longValue();
+    }
+  }
+
+  private static class XmlStatistics implements Statistics {
+
+    private final StatisticsType statistics;
+
+    private XmlStatistics(StatisticsType statistics) {
+      this.statistics = statistics;
+    }
+
+    @Override
+    public StatisticsLevel level() {
+      switch (this.statistics.getLevel()) {
+        case OFF:
+          return StatisticsLevel.OFF;
+        case COUNTERS_ONLY:
+          return StatisticsLevel.COUNTERS_ONLY;
+        case SAMPLED:
+          return StatisticsLevel.SAMPLED;
+        default:
+          throw new IllegalArgumentException("Unknown statistics level " + this.statistics.getLevel());
+      }
+    }
+
+    @Override
+    public int sampleRate() {
+      return this.statistics.getSampleRate().intValue();
+    }
+  }
+
   private static TimeUnit convertToJavaTimeUnit(org.ehcache.xml.model.TimeUnit unit) {
     switch (unit) {
       case NANOS:
@@ -46,6 +46,10 @@ import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfigurat
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsServiceConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreProviderConfiguration;
 import org.ehcache.spi.copy.Copier;
@@ -79,6 +83,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
 import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
@@ -229,6 +234,20 @@ public class XmlConfiguration implements Configuration {
       ThreadPoolReferenceType diskStoreThreading = configurationParser.getDiskStore();
       serviceConfigs.add(new OffHeapDiskStoreProviderConfiguration(diskStoreThreading.getThreadPool()));
     }
+    if (configurationParser.getSharedHeap() != null) {
+      ConfigurationParser.SharedHeap sharedHeap = configurationParser.getSharedHeap();
+      if (sharedHeap.rebalanceInterval() == null) {
+        serviceConfigs.add(new SharedHeapPoolServiceConfiguration(sharedHeap.size(), sharedHeap.unit(),
+            SharedHeapPoolServiceConfiguration.DEFAULT_REBALANCE_INTERVAL_SECONDS, TimeUnit.SECONDS, sharedHeap.threadPool()));
+      } else {
+        serviceConfigs.add(new SharedHeapPoolServiceConfiguration(sharedHeap.size(), sharedHeap.unit(),
+            sharedHeap.rebalanceInterval(), sharedHeap.rebalanceIntervalUnit(), sharedHeap.threadPool()));
+      }
+    }
+    if (configurationParser.getDefaultStatistics() != null) {
+      ConfigurationParser.Statistics statistics = configurationParser.getDefaultStatistics();
+      serviceConfigs.add(new DefaultStatisticsServiceConfiguration(statistics.level(), statistics.sampleRate()));
+    }
 
     for (ServiceCreationConfiguration<?> serviceConfiguration : Collections.unmodifiableList(serviceConfigs)) {
       serviceConfigurations.add(serviceConfiguration);
@@ -292,6 +311,12 @@ public class XmlConfiguration implements Configuration {
       if (parsedDiskStoreSettings != null) {
         builder = builder.add(new OffHeapDiskStoreConfiguration(parsedDiskStoreSettings.threadPool(), parsedDiskStoreSettings.writerConcurrency()));
       }
+      if (cacheDefinition.sharedHeapSettings() != null) {
+        builder = builder.add(getSharedHeapPoolConfiguration(cacheDefinition.sharedHeapSettings()));
+      }
+      if (cacheDefinition.statistics() != null) {
+        builder = builder.add(getStatisticsConfiguration(cacheDefinition.statistics()));
+      }
       for (ServiceConfiguration<?> serviceConfig : cacheDefinition.serviceConfigs()) {
         builder = builder.add(serviceConfig);
       }
@@ -310,6 +335,13 @@ public class XmlConfiguration implements Configuration {
             if (batching.isCoalesced()) {
               writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).enableCoalescing();
             }
+            if (batching.isAdaptive()) {
+              writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).enableAdaptiveBatching();
+            }
+            writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).retryAttempts(batching.retryAttempts());
+            if (batching.retryBackoff() != null) {
+              writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).retryBackoff(batching.retryBackoff(), batching.retryBackoffUnit());
+            }
           }
           builder = builder.add(writeBehindConfigurationBuilder
                   .useThreadPool(writeBehind.threadPool())
@@ -340,6 +372,14 @@ public class XmlConfiguration implements Configuration {
     return expiry;
   }
 
+  private static SharedHeapPoolConfiguration getSharedHeapPoolConfiguration(ConfigurationParser.SharedHeapSettings settings) {
+    return new SharedHeapPoolConfiguration(settings.min(), settings.max() == null ? Long.MAX_VALUE : settings.max());
+  }
+
+  private static DefaultStatisticsConfiguration getStatisticsConfiguration(ConfigurationParser.Statistics statistics) {
+    return new DefaultStatisticsConfiguration(statistics.level(), statistics.sampleRate());
+  }
+
   private static <T> T getInstanceOfName(String name, ClassLoader classLoader, Class<T> type) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
     if (name == null) {
       return null;
@@ -519,6 +559,12 @@ public class XmlConfiguration implements Configuration {
       builder = builder.add(new DefaultSizeOfEngineConfiguration(cacheTemplate.heapStoreSettings().getMaxObjectSize(), cacheTemplate.heapStoreSettings().getUnit(),
         cacheTemplate.heapStoreSettings().getMaxObjectGraphSize()));
     }
+    if (cacheTemplate.sharedHeapSettings() != null) {
+      builder = builder.add(getSharedHeapPoolConfiguration(cacheTemplate.sharedHeapSettings()));
+    }
+    if (cacheTemplate.statistics() != null) {
+      builder = builder.add(getStatisticsConfiguration(cacheTemplate.statistics()));
+    }
     final String loaderWriter = cacheTemplate.loaderWriter();
     if(loaderWriter!= null) {
       final Class<CacheLoaderWriter<?, ?>> cacheLoaderWriterClass = (Class<CacheLoaderWriter<?,?>>)getClassForName(loaderWriter, defaultClassLoader);
@@ -534,6 +580,13 @@ public class XmlConfiguration implements Configuration {
           if (batching.isCoalesced()) {
             writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).enableCoalescing();
           }
+          if (batching.isAdaptive()) {
+            writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).enableAdaptiveBatching();
+          }
+          writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).retryAttempts(batching.retryAttempts());
+          if (batching.retryBackoff() != null) {
+            writeBehindConfigurationBuilder = ((BatchedWriteBehindConfigurationBuilder) writeBehindConfigurationBuilder).retryBackoff(batching.retryBackoff(), batching.retryBackoffUnit());
+          }
         }
         builder = builder.add(writeBehindConfigurationBuilder
                 .concurrencyLevel(writeBehind.concurrency())
@@ -26,6 +26,7 @@ import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
 import org.ehcache.impl.config.copy.DefaultCopyProviderConfiguration;
 import org.ehcache.impl.config.event.DefaultCacheEventListenerConfiguration;
 import org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration;
+import org.ehcache.impl.config.loaderwriter.writebehind.DefaultBatchingConfiguration;
 import org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration.PoolConfiguration;
 import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfiguration;
@@ -38,6 +39,10 @@ import org.ehcache.expiry.Expiry;
 import org.ehcache.impl.copy.SerializingCopier;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolConfiguration;
+import org.ehcache.impl.config.store.heap.SharedHeapPoolServiceConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsConfiguration;
+import org.ehcache.impl.config.statistics.DefaultStatisticsServiceConfiguration;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.loaderwriter.WriteBehindConfiguration;
 import org.ehcache.spi.loaderwriter.WriteBehindConfiguration.BatchingConfiguration;
@@ -45,6 +50,7 @@ import org.ehcache.spi.serialization.Serializer;
 import org.ehcache.spi.service.ServiceConfiguration;
 import org.ehcache.spi.service.ServiceCreationConfiguration;
 import org.ehcache.core.internal.util.ClassLoading;
+import org.ehcache.core.statistics.StatisticsLevel;
 import org.ehcache.xml.exceptions.XmlConfigurationException;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.Matcher;
@@ -523,6 +529,28 @@ public class XmlConfigurationTest {
     }
   }
 
+  @Test
+  public void testAdaptiveWriteBehind() throws Exception {
+    final URL resource = XmlConfigurationTest.class.getResource("/configs/writebehind-adaptive-cache.xml");
+    XmlConfiguration xmlConfig = new XmlConfiguration(resource);
+
+    Collection<ServiceConfiguration<?>> serviceConfiguration = xmlConfig.getCacheConfigurations().get("bar").getServiceConfigurations();
+
+    assertThat(serviceConfiguration, IsCollectionContaining.<ServiceConfiguration<?>>hasItem(instanceOf(WriteBehindConfiguration.class)));
+
+    for (ServiceConfiguration<?> configuration : serviceConfiguration) {
+      if(configuration instanceof WriteBehindConfiguration) {
+        DefaultBatchingConfiguration batchingConfig = (DefaultBatchingConfiguration) ((WriteBehindConfiguration) configuration).getBatchingConfiguration();
+        assertThat(batchingConfig.getBatchSize(), is(20));
+        assertThat(batchingConfig.isAdaptive(), is(true));
+        assertThat(batchingConfig.getRetryAttempts(), is(3));
+        assertThat(batchingConfig.getRetryBackoff(), is(50L));
+        assertThat(batchingConfig.getRetryBackoffUnit(), is(TimeUnit.MILLISECONDS));
+        break;
+      }
+    }
+  }
+
   @Test
   public void testCacheEventListener() throws Exception {
     final URL resource = XmlConfigurationTest.class.getResource("/configs/ehcache-cacheEventListener.xml");
@@ -649,6 +677,56 @@ public class XmlConfigurationTest {
     assertThat(sizeOfEngineConfig3.getMaxObjectSize(), is(200000L));
   }
 
+  @Test
+  public void testSharedHeap() throws Exception {
+    final URL resource = XmlConfigurationTest.class.getResource("/configs/shared-heap.xml");
+    XmlConfiguration xmlConfig = new XmlConfiguration(resource);
+    SharedHeapPoolServiceConfiguration poolConfig = findSingletonAmongst(SharedHeapPoolServiceConfiguration.class, xmlConfig.getServiceCreationConfigurations());
+
+    assertThat(poolConfig, notNullValue());
+    assertThat(poolConfig.getSize(), is(20L));
+    assertThat(poolConfig.getUnit(), is((ResourceUnit) MemoryUnit.MB));
+    assertThat(poolConfig.getRebalanceInterval(), is(500L));
+    assertThat(poolConfig.getRebalanceIntervalUnit(), is(TimeUnit.MILLISECONDS));
+    assertThat(poolConfig.getThreadPoolAlias(), is("rebalancer"));
+
+    SharedHeapPoolConfiguration bounded = findSingletonAmongst(SharedHeapPoolConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("bounded").getServiceConfigurations());
+    assertThat(bounded.getMin(), is(2L));
+    assertThat(bounded.getMax(), is(10L));
+
+    SharedHeapPoolConfiguration unbounded = findSingletonAmongst(SharedHeapPoolConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("unbounded").getServiceConfigurations());
+    assertThat(unbounded.getMin(), is(0L));
+    assertThat(unbounded.getMax(), is(Long.MAX_VALUE));
+
+    assertThat(findSingletonAmongst(SharedHeapPoolConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("unpooled").getServiceConfigurations()), nullValue());
+  }
+
+  @Test
+  public void testStatistics() throws Exception {
+    final URL resource = XmlConfigurationTest.class.getResource("/configs/statistics.xml");
+    XmlConfiguration xmlConfig = new XmlConfiguration(resource);
+    DefaultStatisticsServiceConfiguration defaultConfig = findSingletonAmongst(DefaultStatisticsServiceConfiguration.class, xmlConfig.getServiceCreationConfigurations());
+
+    assertThat(defaultConfig, notNullValue());
+    assertThat(defaultConfig.getDefaultConfiguration().getStatisticsLevel(), is(StatisticsLevel.COUNTERS_ONLY));
+    assertThat(defaultConfig.getDefaultConfiguration().getSampleRate(), is(1));
+
+    DefaultStatisticsConfiguration sampled = findSingletonAmongst(DefaultStatisticsConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("sampled").getServiceConfigurations());
+    assertThat(sampled.getStatisticsLevel(), is(StatisticsLevel.SAMPLED));
+    assertThat(sampled.getSampleRate(), is(64));
+
+    DefaultStatisticsConfiguration disabled = findSingletonAmongst(DefaultStatisticsConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("disabled").getServiceConfigurations());
+    assertThat(disabled.getStatisticsLevel(), is(StatisticsLevel.OFF));
+
+    assertThat(findSingletonAmongst(DefaultStatisticsConfiguration.class,
+        xmlConfig.getCacheConfigurations().get("defaulted").getServiceConfigurations()), nullValue());
+  }
+
   @Test
   public void testCacheManagerDefaultObjectGraphSize() throws Exception {
     final URL resource = XmlConfigurationTest.class.getResource("/configs/sizeof-engine-cm-defaults-one.xml");